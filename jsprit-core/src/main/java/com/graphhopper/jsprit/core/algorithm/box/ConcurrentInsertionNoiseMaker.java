@@ -24,12 +24,16 @@ import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.util.CounterBasedRandom;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 
 import java.util.Collection;
 import java.util.Random;
 
 /**
+ * Noise maker for concurrent insertion. Noise is drawn from a {@link CounterBasedRandom} with iteration, vehicle, new activity and
+ * insertion position as counters, i.e. it is independent of the order in which threads evaluate insertions.
+ *
  * Created by schroeder on 16/01/15.
  */
 class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, IterationStartsListener {
@@ -42,7 +46,9 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
 
     private Random random = RandomNumberGeneration.newInstance();
 
-    private Random[] randomArray;
+    private CounterBasedRandom counterBasedRandom = new CounterBasedRandom(random.nextLong());
+
+    private int iteration = 0;
 
     private double maxCosts;
 
@@ -50,16 +56,11 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
         this.noiseLevel = noiseLevel;
         this.noiseProbability = noiseProbability;
         this.maxCosts = maxCosts;
-        randomArray = new Random[vrp.getNuActivities() + 2];
-        for (int i = 0; i < randomArray.length; i++) {
-            Random r = new Random();
-            r.setSeed(random.nextLong());
-            randomArray[i] = r;
-        }
     }
 
     @Override
     public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+        iteration = i;
         if (random.nextDouble() < noiseProbability) {
             makeNoise = true;
         } else makeNoise = false;
@@ -68,12 +69,15 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
     @Override
     public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
         if (makeNoise) {
-            return noiseLevel * maxCosts * randomArray[newAct.getIndex()].nextDouble();
+            long iterationAndVehicle = ((long) iteration << 32) | (iFacts.getNewVehicle().getIndex() & 0xffffffffL);
+            long position = ((long) prevAct.getIndex() << 32) | (nextAct.getIndex() & 0xffffffffL);
+            return noiseLevel * maxCosts * counterBasedRandom.nextDouble(iterationAndVehicle, newAct.getIndex(), position);
         }
         return 0;
     }
 
     public void setRandom(Random random) {
         this.random = random;
+        this.counterBasedRandom = new CounterBasedRandom(random.nextLong());
     }
 }
@@ -46,6 +46,7 @@ import com.graphhopper.jsprit.core.util.NoiseMaker;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 import com.graphhopper.jsprit.core.util.Solutions;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -118,13 +119,16 @@ public class Jsprit {
         RUIN_WORST_NOISE_LEVEL("worst.noise_level"),
         RUIN_WORST_NOISE_PROB("worst.noise_prob"),
         FAST_REGRET("regret.fast"),
+        EMPTY_ROUTE_CACHE("insertion.empty_route_cache"),
         MAX_TRANSPORT_COSTS("max_transport_costs"),
         CONSTRUCTION("construction"),
         BREAK_SCHEDULING("break_scheduling"),
         STRING_K_MIN("string_kmin"),
         STRING_K_MAX("string_kmax"),
         STRING_L_MIN("string_lmin"),
-        STRING_L_MAX("string_lmax");
+        STRING_L_MAX("string_lmax"),
+        NEIGHBORHOOD_MAX_SIZE("neighborhood.max_size"),
+        NEIGHBORHOOD_DIRECTORY("neighborhood.directory");
 
 
         String paraName;
@@ -231,8 +235,10 @@ public class Jsprit {
             defaults.put(Parameter.RUIN_WORST_NOISE_PROB.toString(), String.valueOf(0.2));
             defaults.put(Parameter.VEHICLE_SWITCH.toString(), String.valueOf(true));
             defaults.put(Parameter.FAST_REGRET.toString(), String.valueOf(false));
+            defaults.put(Parameter.EMPTY_ROUTE_CACHE.toString(), String.valueOf(false));
             defaults.put(Parameter.BREAK_SCHEDULING.toString(), String.valueOf(true));
             defaults.put(Parameter.CONSTRUCTION.toString(), Construction.REGRET_INSERTION.toString());
+            defaults.put(Parameter.NEIGHBORHOOD_MAX_SIZE.toString(), "1000");
             return defaults;
         }
 
@@ -432,7 +438,20 @@ public class Jsprit {
         double noiseLevel = toDouble(getProperty(Parameter.INSERTION_NOISE_LEVEL.toString()));
         double noiseProbability = toDouble(getProperty(Parameter.INSERTION_NOISE_PROB.toString()));
 
-        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5));
+        int neighborhoodSize = Math.min((int) (vrp.getJobs().values().size() * 0.5), toInteger(getProperty(Parameter.NEIGHBORHOOD_MAX_SIZE.toString())));
+        File neighborhoodDirectory = null;
+        if (properties.containsKey(Parameter.NEIGHBORHOOD_DIRECTORY.toString())) {
+            neighborhoodDirectory = new File(getProperty(Parameter.NEIGHBORHOOD_DIRECTORY.toString()));
+        }
+        JobNeighborhoodsFactory jobNeighborhoodsFactory = new JobNeighborhoodsFactory();
+        JobNeighborhoods jobNeighborhoods;
+        //spatial neighborhoods are not pre-computed, thus there is nothing to persist or to compute in parallel.
+        //if a neighborhood directory is set explicitly, neighborhoods are pre-computed and persisted nevertheless
+        if (neighborhoodDirectory == null && jobNeighborhoodsFactory.supportsSpatialNeighborhoods(vrp)) {
+            jobNeighborhoods = jobNeighborhoodsFactory.createSpatialNeighborhoods(vrp, neighborhoodSize);
+        } else {
+            jobNeighborhoods = jobNeighborhoodsFactory.createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), neighborhoodSize, es, noThreads, neighborhoodDirectory);
+        }
         jobNeighborhoods.initialise();
 
         final double maxCosts;
@@ -523,10 +542,18 @@ public class Jsprit {
         AbstractInsertionStrategy regret;
         final ScoringFunction scorer;
 
+        JobVehicleCompatibility jobVehicleCompatibility = new JobVehicleCompatibility(vrp, constraintManager);
+        EmptyRouteInsertionCache emptyRouteInsertionCache = null;
+        if (Boolean.parseBoolean(getProperty(Parameter.EMPTY_ROUTE_CACHE.toString()))) {
+            emptyRouteInsertionCache = new EmptyRouteInsertionCache(vrp);
+        }
+
         boolean fastRegret = Boolean.parseBoolean(getProperty(Parameter.FAST_REGRET.toString()));
         if (es != null) {
             if(fastRegret){
                 RegretInsertionConcurrentFast regretInsertion = (RegretInsertionConcurrentFast) new InsertionBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
+                    .setJobVehicleCompatibility(jobVehicleCompatibility)
+                    .setEmptyRouteInsertionCache(emptyRouteInsertionCache)
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
                     .setConcurrentMode(es, noThreads)
                     .setFastRegret(true)
@@ -541,6 +568,8 @@ public class Jsprit {
             }
             else {
                 RegretInsertionConcurrent regretInsertion = (RegretInsertionConcurrent) new InsertionBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
+                    .setJobVehicleCompatibility(jobVehicleCompatibility)
+                    .setEmptyRouteInsertionCache(emptyRouteInsertionCache)
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
                     .setConcurrentMode(es, noThreads)
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
@@ -554,6 +583,8 @@ public class Jsprit {
         } else {
             if(fastRegret) {
                 RegretInsertionFast regretInsertion = (RegretInsertionFast) new InsertionBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
+                    .setJobVehicleCompatibility(jobVehicleCompatibility)
+                    .setEmptyRouteInsertionCache(emptyRouteInsertionCache)
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
                     .setFastRegret(true)
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
@@ -567,6 +598,8 @@ public class Jsprit {
             }
             else{
                 RegretInsertion regretInsertion = (RegretInsertion) new InsertionBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
+                    .setJobVehicleCompatibility(jobVehicleCompatibility)
+                    .setEmptyRouteInsertionCache(emptyRouteInsertionCache)
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
@@ -582,6 +615,8 @@ public class Jsprit {
         AbstractInsertionStrategy best;
         if (vrp.getJobs().size() < 250 || es == null) {
             BestInsertion bestInsertion = (BestInsertion) new InsertionBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
+                .setJobVehicleCompatibility(jobVehicleCompatibility)
+                .setEmptyRouteInsertionCache(emptyRouteInsertionCache)
                 .setInsertionStrategy(InsertionBuilder.Strategy.BEST)
                 .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
@@ -590,6 +625,8 @@ public class Jsprit {
             best = bestInsertion;
         } else {
             BestInsertionConcurrent bestInsertion = (BestInsertionConcurrent) new InsertionBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
+                .setJobVehicleCompatibility(jobVehicleCompatibility)
+                .setEmptyRouteInsertionCache(emptyRouteInsertionCache)
                 .setInsertionStrategy(InsertionBuilder.Strategy.BEST)
                 .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
@@ -0,0 +1,268 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.VehicleSwitchedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches the insertion data of jobs into empty routes per vehicle class, i.e. per {@link VehicleTypeKey}.
+ * <p>Vehicles of one class are interchangeable. Thus, inserting a job into an empty route only needs to be calculated once per class,
+ * and the result can be re-bound to whatever vehicle of this class the fleet manager offers. Insertion data is calculated
+ * without a cost limit such that it can be reused whatever the best known costs are.
+ * <p>Additionally, the best insertion of each job into an empty route, i.e. the best over all available classes, is memorised.
+ * It stays valid until the last vehicle of a class is unlocked or locked. If a class becomes available, all memorised insertions are
+ * invalidated. If it becomes unavailable, only the ones that selected this class are. Fleet changes are noticed through vehicle
+ * switches and the fleet manager is asked for the availability of classes only after such a switch.
+ * <p>The cache is invalidated whenever an insertion starts, so costs may change from one recreate to another (e.g. due to noise).
+ * However, they are assumed to be constant while jobs are inserted. Only use it if costs of empty routes do not depend on the
+ * current solution, e.g. on the share of jobs already inserted.
+ * <p>Hits and misses are counted in plain fields, i.e. they are approximate if the cache is used concurrently.
+ *
+ * @author schroeder
+ */
+public class EmptyRouteInsertionCache implements InsertionStartsListener, VehicleSwitchedListener {
+
+    private static class Entry {
+
+        final int epoch;
+
+        final InsertionData insertionData;
+
+        Entry(int epoch, InsertionData insertionData) {
+            this.epoch = epoch;
+            this.insertionData = insertionData;
+        }
+
+    }
+
+    private static class Best {
+
+        final int epoch;
+
+        final int availabilityEpoch;
+
+        final InsertionData insertionData;
+
+        Best(int epoch, int availabilityEpoch, InsertionData insertionData) {
+            this.epoch = epoch;
+            this.availabilityEpoch = availabilityEpoch;
+            this.insertionData = insertionData;
+        }
+
+    }
+
+    private final int noClasses;
+
+    private final AtomicReferenceArray<Entry> entries;
+
+    private final AtomicReferenceArray<Best> bests;
+
+    private final VehicleTypeKey[] classes;
+
+    private final boolean[] classAvailable;
+
+    private volatile int epoch = 0;
+
+    private volatile int availabilityEpoch = 0;
+
+    private volatile boolean availabilityChanged = true;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    public EmptyRouteInsertionCache(VehicleRoutingProblem vrp) {
+        int maxJobIndex = 0;
+        for (Job j : vrp.getJobs().values()) maxJobIndex = Math.max(maxJobIndex, j.getIndex());
+        int maxClassIndex = 0;
+        for (Vehicle v : vrp.getVehicles()) maxClassIndex = Math.max(maxClassIndex, v.getVehicleTypeIdentifier().getIndex());
+        noClasses = maxClassIndex + 1;
+        entries = new AtomicReferenceArray<>((maxJobIndex + 1) * noClasses);
+        bests = new AtomicReferenceArray<>(maxJobIndex + 1);
+        classes = new VehicleTypeKey[noClasses];
+        for (Vehicle v : vrp.getVehicles()) classes[v.getVehicleTypeIdentifier().getIndex()] = v.getVehicleTypeIdentifier();
+        classAvailable = new boolean[noClasses];
+    }
+
+    private int slot(Job job, Vehicle vehicle) {
+        if (job instanceof Break || vehicle.getVehicleTypeIdentifier() == null) return -1;
+        int classIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        int slot = job.getIndex() * noClasses + classIndex;
+        if (classIndex >= noClasses || slot < 0 || slot >= entries.length()) return -1;
+        return slot;
+    }
+
+    /**
+     * Returns whether insertion data of this job and vehicle can be cached at all, i.e. both are part of the problem.
+     */
+    boolean isCacheable(Job job, Vehicle vehicle) {
+        return slot(job, vehicle) != -1;
+    }
+
+    /**
+     * Returns the cached insertion data of job into an empty route of the vehicle's class, re-bound to the specified route and
+     * vehicle, or null if it has not been cached yet.
+     *
+     * @param job     job to be inserted
+     * @param vehicle vehicle of the empty route
+     * @param route   empty route the job is to be inserted into
+     * @return insertion data or null
+     */
+    public InsertionData get(Job job, Vehicle vehicle, VehicleRoute route) {
+        int slot = slot(job, vehicle);
+        if (slot == -1) return null;
+        Entry entry = entries.get(slot);
+        if (entry == null || entry.epoch != epoch) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return rebind(entry.insertionData, route, vehicle);
+    }
+
+    /**
+     * Caches insertion data of job into an empty route of the vehicle's class. It must have been calculated without cost limit.
+     *
+     * @param job           inserted job
+     * @param vehicle       vehicle of the empty route
+     * @param insertionData insertion data
+     */
+    public void put(Job job, Vehicle vehicle, InsertionData insertionData) {
+        int slot = slot(job, vehicle);
+        if (slot == -1) return;
+        entries.set(slot, new Entry(epoch, insertionData));
+    }
+
+    /**
+     * Returns the memorised best insertion of job into an empty route over all available vehicle classes, re-bound to the
+     * specified route and the vehicle the fleet manager currently offers, or null if it is not known or not valid anymore.
+     *
+     * @param job          job to be inserted
+     * @param route        empty route the job is to be inserted into
+     * @param fleetManager fleet manager that offers the vehicles
+     * @return best insertion data or null
+     */
+    public InsertionData getBest(Job job, VehicleRoute route, VehicleFleetManager fleetManager) {
+        if (job instanceof Break || job.getIndex() >= bests.length()) return null;
+        if (availabilityChanged) updateAvailability(fleetManager);
+        Best best = bests.get(job.getIndex());
+        if (best == null || best.epoch != epoch || best.availabilityEpoch != availabilityEpoch) {
+            misses++;
+            return null;
+        }
+        if (best.insertionData instanceof InsertionData.NoInsertionFound) {
+            hits++;
+            return rebind(best.insertionData, route, null);
+        }
+        //the class of the best insertion is not available anymore
+        Vehicle vehicle = fleetManager.getAvailableVehicle(best.insertionData.getSelectedVehicle().getVehicleTypeIdentifier());
+        if (vehicle == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return rebind(best.insertionData, route, vehicle);
+    }
+
+    /**
+     * Memorises the best insertion of job into an empty route over all available vehicle classes. It must have been calculated
+     * without cost limit.
+     *
+     * @param job           inserted job
+     * @param insertionData best insertion data
+     */
+    public void putBest(Job job, InsertionData insertionData) {
+        if (job instanceof Break || job.getIndex() >= bests.length()) return;
+        bests.set(job.getIndex(), new Best(epoch, availabilityEpoch, insertionData));
+    }
+
+    private synchronized void updateAvailability(VehicleFleetManager fleetManager) {
+        if (!availabilityChanged) return;
+        boolean classBecameAvailable = false;
+        for (int i = 0; i < noClasses; i++) {
+            if (classes[i] == null) continue;
+            boolean available = fleetManager.getAvailableVehicle(classes[i]) != null;
+            if (available && !classAvailable[i]) classBecameAvailable = true;
+            classAvailable[i] = available;
+        }
+        if (classBecameAvailable) availabilityEpoch++;
+        availabilityChanged = false;
+    }
+
+    /**
+     * Invalidates all cached insertion data.
+     */
+    public void clear() {
+        epoch++;
+        availabilityChanged = true;
+    }
+
+    @Override
+    public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+        clear();
+    }
+
+    @Override
+    public void vehicleSwitched(VehicleRoute vehicleRoute, Vehicle oldVehicle, Vehicle newVehicle) {
+        availabilityChanged = true;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    static InsertionData rebind(InsertionData insertionData, VehicleRoute route, Vehicle vehicle) {
+        if (insertionData instanceof InsertionData.NoInsertionFound) {
+            InsertionData noInsertion = new InsertionData.NoInsertionFound();
+            noInsertion.getFailedConstraintNames().addAll(insertionData.getFailedConstraintNames());
+            return noInsertion;
+        }
+        InsertionData rebound = new InsertionData(insertionData.getInsertionCost(), insertionData.getPickupInsertionIndex(),
+            insertionData.getDeliveryInsertionIndex(), vehicle, insertionData.getSelectedDriver());
+        rebound.setVehicleDepartureTime(insertionData.getVehicleDepartureTime());
+        rebound.setAdditionalTime(insertionData.getAdditionalTime());
+        for (Event e : insertionData.getEvents()) {
+            if (e instanceof SwitchVehicle) {
+                rebound.getEvents().add(new SwitchVehicle(route, vehicle, ((SwitchVehicle) e).getDepartureTime()));
+            } else if (e instanceof InsertActivity) {
+                InsertActivity insertActivity = (InsertActivity) e;
+                rebound.getEvents().add(new InsertActivity(route, vehicle, insertActivity.getActivity(), insertActivity.getIndex()));
+            } else if (e instanceof InsertBreak) {
+                InsertBreak insertBreak = (InsertBreak) e;
+                rebound.getEvents().add(new InsertBreak(route, vehicle, insertBreak.getActivity(), insertBreak.getIndex()));
+            } else rebound.getEvents().add(e);
+        }
+        return rebound;
+    }
+
+}
@@ -76,6 +76,10 @@ public class InsertionBuilder {
 
     private boolean isFastRegret = false;
 
+    private JobVehicleCompatibility jobVehicleCompatibility;
+
+    private EmptyRouteInsertionCache emptyRouteInsertionCache;
+
     public InsertionBuilder(VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, StateManager stateManager, ConstraintManager constraintManager) {
         super();
         this.vrp = vrp;
@@ -167,6 +171,8 @@ public class InsertionBuilder {
             calcBuilder.experimentalTimeScheduler(timeSlice, nNeighbors);
         }
         calcBuilder.setAllowVehicleSwitch(allowVehicleSwitch);
+        calcBuilder.setJobVehicleCompatibility(jobVehicleCompatibility);
+        calcBuilder.setEmptyRouteInsertionCache(emptyRouteInsertionCache);
         JobInsertionCostsCalculator costCalculator = calcBuilder.build();
 
         InsertionStrategy insertion;
@@ -210,5 +216,28 @@ public class InsertionBuilder {
         return this;
     }
 
+    /**
+     * Sets the job-vehicle compatibility used to skip vehicles that can never serve a job. By default, each insertion
+     * creates its own.
+     *
+     * @param jobVehicleCompatibility job-vehicle compatibility
+     * @return builder
+     */
+    public InsertionBuilder setJobVehicleCompatibility(JobVehicleCompatibility jobVehicleCompatibility) {
+        this.jobVehicleCompatibility = jobVehicleCompatibility;
+        return this;
+    }
+
+    /**
+     * Sets the cache of empty-route insertion data per vehicle class. Default is null, i.e. nothing is cached.
+     *
+     * @param emptyRouteInsertionCache cache of empty-route insertion data
+     * @return builder
+     */
+    public InsertionBuilder setEmptyRouteInsertionCache(EmptyRouteInsertionCache emptyRouteInsertionCache) {
+        this.emptyRouteInsertionCache = emptyRouteInsertionCache;
+        return this;
+    }
+
 
 }
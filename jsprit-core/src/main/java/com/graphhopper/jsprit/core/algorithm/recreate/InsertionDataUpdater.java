@@ -33,26 +33,30 @@ class InsertionDataUpdater {
 
     static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, TreeSet<VersionedInsertionData> insertionDataSet, int updateRound, Job unassignedJob, Collection<VehicleRoute> routes) {
         for(VehicleRoute route : routes) {
-            Collection<Vehicle> relevantVehicles = new ArrayList<>();
             if (!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
-                relevantVehicles.add(route.getVehicle());
+                update(insertionCostsCalculator, insertionDataSet, updateRound, unassignedJob, route, route.getVehicle());
                 if(addAllAvailable && !initialVehicleIds.contains(route.getVehicle().getId())){
-                    relevantVehicles.addAll(fleetManager.getAvailableVehicles(route.getVehicle()));
+                    for (Vehicle v : fleetManager.getAvailableVehicles(route.getVehicle())) {
+                        update(insertionCostsCalculator, insertionDataSet, updateRound, unassignedJob, route, v);
+                    }
                 }
-            } else relevantVehicles.addAll(fleetManager.getAvailableVehicles());
-            for (Vehicle v : relevantVehicles) {
-                double depTime = v.getEarliestDeparture();
-                InsertionData iData = insertionCostsCalculator.getInsertionData(route, unassignedJob, v, depTime, route.getDriver(), Double.MAX_VALUE);
-                if (iData instanceof InsertionData.NoInsertionFound) {
-                    continue;
+            } else {
+                for (Vehicle v : fleetManager.getAvailableVehicles()) {
+                    update(insertionCostsCalculator, insertionDataSet, updateRound, unassignedJob, route, v);
                 }
-                insertionDataSet.add(new VersionedInsertionData(iData, updateRound, route));
             }
         }
         return true;
     }
 
-
+    private static void update(JobInsertionCostsCalculator insertionCostsCalculator, TreeSet<VersionedInsertionData> insertionDataSet, int updateRound, Job unassignedJob, VehicleRoute route, Vehicle v) {
+        double depTime = v.getEarliestDeparture();
+        InsertionData iData = insertionCostsCalculator.getInsertionData(route, unassignedJob, v, depTime, route.getDriver(), Double.MAX_VALUE);
+        if (iData instanceof InsertionData.NoInsertionFound) {
+            return;
+        }
+        insertionDataSet.add(new VersionedInsertionData(iData, updateRound, route));
+    }
 
     static VehicleRoute findRoute(Collection<VehicleRoute> routes, Job job) {
         for(VehicleRoute r : routes){
@@ -94,6 +94,10 @@ public class JobInsertionCostsCalculatorBuilder {
 
     private boolean addDefaultCostCalc = true;
 
+    private JobVehicleCompatibility compatibility;
+
+    private EmptyRouteInsertionCache emptyRouteInsertionCache;
+
     /**
      * Constructs the builder.
      * <p>
@@ -346,6 +350,14 @@ public class JobInsertionCostsCalculatorBuilder {
     private JobInsertionCostsCalculator createFinalInsertion(VehicleFleetManager fleetManager, JobInsertionCostsCalculator baseCalc, RouteAndActivityStateGetter activityStates2) {
         VehicleTypeDependentJobInsertionCalculator vehicleTypeDependentJobInsertionCalculator = new VehicleTypeDependentJobInsertionCalculator(vrp, fleetManager, baseCalc);
         vehicleTypeDependentJobInsertionCalculator.setVehicleSwitchAllowed(allowVehicleSwitch);
+        if (constraintManager != null) {
+            if (compatibility == null) compatibility = new JobVehicleCompatibility(vrp, constraintManager);
+            vehicleTypeDependentJobInsertionCalculator.setCompatibility(compatibility);
+        }
+        if (emptyRouteInsertionCache != null) {
+            vehicleTypeDependentJobInsertionCalculator.setEmptyRouteInsertionCache(emptyRouteInsertionCache);
+            insertionListeners.add(emptyRouteInsertionCache);
+        }
         return vehicleTypeDependentJobInsertionCalculator;
     }
 
@@ -354,6 +366,30 @@ public class JobInsertionCostsCalculatorBuilder {
         return this;
     }
 
+    /**
+     * Sets the job-vehicle compatibility used to skip vehicles that can never serve a job. By default, it is created from
+     * problem and constraint manager. Set it to share it among calculators and to read the number of pruned evaluations.
+     *
+     * @param compatibility job-vehicle compatibility
+     * @return builder
+     */
+    public JobInsertionCostsCalculatorBuilder setJobVehicleCompatibility(JobVehicleCompatibility compatibility) {
+        this.compatibility = compatibility;
+        return this;
+    }
+
+    /**
+     * Sets the cache of empty-route insertion data per vehicle class. Default is null, i.e. nothing is cached. Only set it if costs
+     * of empty routes do not depend on the current solution (see {@link EmptyRouteInsertionCache}).
+     *
+     * @param emptyRouteInsertionCache cache of empty-route insertion data
+     * @return builder
+     */
+    public JobInsertionCostsCalculatorBuilder setEmptyRouteInsertionCache(EmptyRouteInsertionCache emptyRouteInsertionCache) {
+        this.emptyRouteInsertionCache = emptyRouteInsertionCache;
+        return this;
+    }
+
     public JobInsertionCostsCalculatorBuilder setAllowVehicleSwitch(boolean allowVehicleSwitch) {
         this.allowVehicleSwitch = allowVehicleSwitch;
         return this;
@@ -0,0 +1,201 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.*;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Collection;
+
+/**
+ * Job x vehicle-type feasibility bitmap that is computed once from static properties of jobs and vehicles. It allows insertion
+ * to skip pairs that can never be feasible before any route is looked at.
+ * <p>A pair is incompatible if one of the following constraints is part of the constraint manager and rejects it independently
+ * of the route:
+ * <ul>
+ * <li>{@link HardSkillConstraint}: the vehicle lacks a required skill,</li>
+ * <li>{@link ServiceLoadRouteLevelConstraint} and {@link PickupAndDeliverShipmentLoadActivityLevelConstraint}: the job size
+ * exceeds the vehicle capacity,</li>
+ * <li>{@link VehicleDependentTimeWindowConstraints}: each time window of an activity opens after the latest arrival of the
+ * vehicle or closes before its earliest departure.</li>
+ * </ul>
+ * The bitmap is computed when it is first used, i.e. with the constraints known at that time. Jobs and vehicles that are not
+ * part of the problem are considered compatible.
+ *
+ * @author schroeder
+ */
+public class JobVehicleCompatibility {
+
+    private final VehicleRoutingProblem vrp;
+
+    private final ConstraintManager constraintManager;
+
+    private boolean checkSkills;
+
+    private boolean checkServiceLoad;
+
+    private boolean checkShipmentLoad;
+
+    private boolean checkTimeWindows;
+
+    private volatile long[] incompatible;
+
+    private int noTypes;
+
+    private int wordsPerJob;
+
+    private int noIncompatiblePairs;
+
+    private long noPrunedEvaluations;
+
+    public JobVehicleCompatibility(VehicleRoutingProblem vrp, ConstraintManager constraintManager) {
+        this.vrp = vrp;
+        this.constraintManager = constraintManager;
+    }
+
+    private long[] getIncompatible() {
+        long[] bits = incompatible;
+        if (bits == null) {
+            synchronized (this) {
+                if (incompatible == null) incompatible = compute();
+                bits = incompatible;
+            }
+        }
+        return bits;
+    }
+
+    private long[] compute() {
+        for (Constraint c : constraintManager.getConstraints()) {
+            if (c instanceof HardSkillConstraint) checkSkills = true;
+            else if (c instanceof ServiceLoadRouteLevelConstraint) checkServiceLoad = true;
+            else if (c instanceof PickupAndDeliverShipmentLoadActivityLevelConstraint) checkShipmentLoad = true;
+            else if (c instanceof VehicleDependentTimeWindowConstraints) checkTimeWindows = true;
+        }
+        Collection<Job> jobs = vrp.getJobsInclusiveInitialJobsInRoutes().values();
+        int maxJobIndex = 0;
+        for (Job job : jobs) maxJobIndex = Math.max(maxJobIndex, job.getIndex());
+        noTypes = 0;
+        for (Vehicle v : vrp.getVehicles()) noTypes = Math.max(noTypes, v.getVehicleTypeIdentifier().getIndex() + 1);
+        Vehicle[] typeRepresentatives = new Vehicle[noTypes];
+        for (Vehicle v : vrp.getVehicles()) {
+            int type = v.getVehicleTypeIdentifier().getIndex();
+            if (type >= 0 && typeRepresentatives[type] == null) typeRepresentatives[type] = v;
+        }
+        wordsPerJob = (noTypes + 63) >>> 6;
+        long[] bits = new long[(maxJobIndex + 1) * wordsPerJob];
+        for (Job job : jobs) {
+            if (job.getIndex() < 0) continue;
+            for (int type = 0; type < noTypes; type++) {
+                if (typeRepresentatives[type] == null) continue;
+                if (getIncompatibility(job, typeRepresentatives[type]) != null) {
+                    bits[job.getIndex() * wordsPerJob + (type >>> 6)] |= 1L << type;
+                    noIncompatiblePairs++;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the simple class name of the constraint that renders job and vehicle incompatible, or null if they are compatible.
+     */
+    private String getIncompatibility(Job job, Vehicle vehicle) {
+        if (job instanceof Break) return null;
+        if (checkSkills && !vrp.getSkills(vehicle).containsAllSkills(vrp.getRequiredSkills(job))) {
+            return HardSkillConstraint.class.getSimpleName();
+        }
+        Capacity capacity = vehicle.getType().getCapacityDimensions();
+        if (job instanceof Service) {
+            if (checkServiceLoad && !job.getSize().isLessOrEqual(capacity)) {
+                return ServiceLoadRouteLevelConstraint.class.getSimpleName();
+            }
+            if (checkTimeWindows && !fitsShift(((Service) job).getTimeWindows(), vehicle)) {
+                return VehicleDependentTimeWindowConstraints.class.getSimpleName();
+            }
+        } else if (job instanceof Shipment) {
+            if (checkShipmentLoad && !job.getSize().isLessOrEqual(capacity)) {
+                return PickupAndDeliverShipmentLoadActivityLevelConstraint.class.getSimpleName();
+            }
+            Shipment shipment = (Shipment) job;
+            if (checkTimeWindows && (!fitsShift(shipment.getPickupTimeWindows(), vehicle) || !fitsShift(shipment.getDeliveryTimeWindows(), vehicle))) {
+                return VehicleDependentTimeWindowConstraints.class.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    private static boolean fitsShift(Collection<TimeWindow> timeWindows, Vehicle vehicle) {
+        for (TimeWindow tw : timeWindows) {
+            if (tw.getStart() <= vehicle.getLatestArrival() && tw.getEnd() >= vehicle.getEarliestDeparture()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns false if the vehicle can never serve the job. Each call that returns false counts as pruned evaluation.
+     *
+     * @param job     job
+     * @param vehicle vehicle
+     * @return false if job and vehicle are incompatible, true otherwise
+     */
+    public boolean isCompatible(Job job, Vehicle vehicle) {
+        long[] bits = getIncompatible();
+        if (vehicle.getVehicleTypeIdentifier() == null) return true;
+        int type = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (type < 0 || type >= noTypes || job.getIndex() < 0) return true;
+        int word = job.getIndex() * wordsPerJob + (type >>> 6);
+        if (word >= bits.length || (bits[word] & (1L << type)) == 0) return true;
+        noPrunedEvaluations++;
+        return false;
+    }
+
+    /**
+     * Returns the simple class name of the constraint that renders job and vehicle incompatible, or null if they are compatible.
+     *
+     * @param job     job
+     * @param vehicle vehicle
+     * @return name of the constraint that is violated
+     */
+    public String getViolatedConstraintName(Job job, Vehicle vehicle) {
+        getIncompatible();
+        return getIncompatibility(job, vehicle);
+    }
+
+    /**
+     * @return number of job x vehicle-type pairs that are incompatible
+     */
+    public int getNoIncompatiblePairs() {
+        getIncompatible();
+        return noIncompatiblePairs;
+    }
+
+    /**
+     * @return number of evaluations that were skipped, approximate if insertion runs concurrently
+     */
+    public long getNoPrunedEvaluations() {
+        return noPrunedEvaluations;
+    }
+
+}
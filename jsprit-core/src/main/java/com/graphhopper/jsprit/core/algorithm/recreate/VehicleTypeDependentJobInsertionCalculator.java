@@ -27,7 +27,6 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -45,6 +44,10 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
 
     private Set<String> initialVehicleIds = new HashSet<String>();
 
+    private JobVehicleCompatibility compatibility;
+
+    private EmptyRouteInsertionCache emptyRouteInsertionCache;
+
     /**
      * true if a vehicle(-type) is allowed to take over the whole route that was previously served by another vehicle
      * <p>
@@ -92,40 +95,125 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
         this.vehicleSwitchAllowed = vehicleSwitchAllowed;
     }
 
+    /**
+     * Sets the job-vehicle compatibility that is used to skip vehicles that can never serve a job. Default is null, i.e. all
+     * vehicles are evaluated.
+     *
+     * @param compatibility job-vehicle compatibility
+     */
+    public void setCompatibility(JobVehicleCompatibility compatibility) {
+        this.compatibility = compatibility;
+    }
+
+    JobVehicleCompatibility getCompatibility() {
+        return compatibility;
+    }
+
+    /**
+     * Sets the cache of empty-route insertion data per vehicle class. Default is null, i.e. insertions into empty routes are
+     * calculated for each vehicle that is offered.
+     *
+     * @param emptyRouteInsertionCache cache of empty-route insertion data
+     */
+    public void setEmptyRouteInsertionCache(EmptyRouteInsertionCache emptyRouteInsertionCache) {
+        this.emptyRouteInsertionCache = emptyRouteInsertionCache;
+    }
+
     public InsertionData getInsertionData(final VehicleRoute currentRoute, final Job jobToInsert, final Vehicle vehicle, double newVehicleDepartureTime, final Driver driver, final double bestKnownCost) {
         if(vehicle != null){
+            if (compatibility != null && !compatibility.isCompatible(jobToInsert, vehicle)) {
+                return noInsertion(jobToInsert, vehicle);
+            }
+            if (isCacheable(currentRoute, jobToInsert, vehicle) && newVehicleDepartureTime == vehicle.getEarliestDeparture()) {
+                InsertionData iData = getEmptyRouteInsertionData(currentRoute, jobToInsert, vehicle, newVehicleDepartureTime, driver);
+                if (iData instanceof InsertionData.NoInsertionFound || iData.getInsertionCost() < bestKnownCost) return iData;
+                return new InsertionData.NoInsertionFound();
+            }
             return insertionCalculator.getInsertionData(currentRoute, jobToInsert, vehicle, newVehicleDepartureTime, driver, bestKnownCost);
         }
         Vehicle selectedVehicle = currentRoute.getVehicle();
         Driver selectedDriver = currentRoute.getDriver();
         InsertionData bestIData = new InsertionData.NoInsertionFound();
-        double bestKnownCost_ = bestKnownCost;
-        Collection<Vehicle> relevantVehicles = new ArrayList<Vehicle>();
+        //available vehicles are shared views of the fleet manager, thus they are iterated without copying them
         if (!(selectedVehicle instanceof VehicleImpl.NoVehicle)) {
-            relevantVehicles.add(selectedVehicle);
+            bestIData = calculate(currentRoute, jobToInsert, selectedVehicle, selectedDriver, bestKnownCost, bestIData);
             if (vehicleSwitchAllowed && !isVehicleWithInitialRoute(selectedVehicle)) {
-                relevantVehicles.addAll(fleetManager.getAvailableVehicles(selectedVehicle));
+                for (Vehicle v : fleetManager.getAvailableVehicles(selectedVehicle)) {
+                    bestIData = calculate(currentRoute, jobToInsert, v, selectedDriver, bestKnownCost, bestIData);
+                }
             }
+        } else if (emptyRouteInsertionCache != null && currentRoute.isEmpty()) {
+            return getBestEmptyRouteInsertionData(currentRoute, jobToInsert, selectedDriver, bestKnownCost);
         } else { //if no vehicle has been assigned, i.e. it is an empty route
-            relevantVehicles.addAll(fleetManager.getAvailableVehicles());
-        }
-        for (Vehicle v : relevantVehicles) {
-            double depTime;
-            if (v == selectedVehicle) depTime = currentRoute.getDepartureTime();
-            else depTime = v.getEarliestDeparture();
-            InsertionData iData = insertionCalculator.getInsertionData(currentRoute, jobToInsert, v, depTime, selectedDriver, bestKnownCost_);
-            if (iData instanceof InsertionData.NoInsertionFound) {
-                bestIData.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
-                continue;
+            for (Vehicle v : fleetManager.getAvailableVehicles()) {
+                bestIData = calculate(currentRoute, jobToInsert, v, selectedDriver, bestKnownCost, bestIData);
             }
-            if (iData.getInsertionCost() < bestKnownCost_) {
-                bestIData = iData;
-                bestKnownCost_ = iData.getInsertionCost();
+        }
+        return bestIData;
+    }
+
+    private InsertionData getBestEmptyRouteInsertionData(VehicleRoute currentRoute, Job jobToInsert, Driver selectedDriver, double bestKnownCost) {
+        InsertionData bestIData = emptyRouteInsertionCache.getBest(jobToInsert, currentRoute, fleetManager);
+        if (bestIData == null) {
+            bestIData = new InsertionData.NoInsertionFound();
+            for (Vehicle v : fleetManager.getAvailableVehicles()) {
+                bestIData = calculate(currentRoute, jobToInsert, v, selectedDriver, Double.MAX_VALUE, bestIData);
             }
+            emptyRouteInsertionCache.putBest(jobToInsert, bestIData);
+            bestIData = EmptyRouteInsertionCache.rebind(bestIData, currentRoute, bestIData.getSelectedVehicle());
+        }
+        if (bestIData instanceof InsertionData.NoInsertionFound || bestIData.getInsertionCost() < bestKnownCost) return bestIData;
+        return new InsertionData.NoInsertionFound();
+    }
+
+    private InsertionData calculate(VehicleRoute currentRoute, Job jobToInsert, Vehicle v, Driver selectedDriver, double bestKnownCost, InsertionData bestIData) {
+        if (compatibility != null && !compatibility.isCompatible(jobToInsert, v)) {
+            if (bestIData instanceof InsertionData.NoInsertionFound)
+                bestIData.getFailedConstraintNames().add(compatibility.getViolatedConstraintName(jobToInsert, v));
+            return bestIData;
+        }
+        double bestKnownCost_ = bestKnownCost;
+        if (!(bestIData instanceof InsertionData.NoInsertionFound)) bestKnownCost_ = bestIData.getInsertionCost();
+        double depTime;
+        if (v == currentRoute.getVehicle()) depTime = currentRoute.getDepartureTime();
+        else depTime = v.getEarliestDeparture();
+        InsertionData iData;
+        if (isCacheable(currentRoute, jobToInsert, v)) {
+            iData = getEmptyRouteInsertionData(currentRoute, jobToInsert, v, depTime, selectedDriver);
+        } else {
+            iData = insertionCalculator.getInsertionData(currentRoute, jobToInsert, v, depTime, selectedDriver, bestKnownCost_);
         }
+        if (iData instanceof InsertionData.NoInsertionFound) {
+            if (bestIData instanceof InsertionData.NoInsertionFound)
+                bestIData.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
+            return bestIData;
+        }
+        if (iData.getInsertionCost() < bestKnownCost_) return iData;
         return bestIData;
     }
 
+    private boolean isCacheable(VehicleRoute route, Job job, Vehicle vehicle) {
+        return emptyRouteInsertionCache != null && route.getVehicle() instanceof VehicleImpl.NoVehicle && route.isEmpty()
+            && emptyRouteInsertionCache.isCacheable(job, vehicle);
+    }
+
+    private InsertionData getEmptyRouteInsertionData(VehicleRoute route, Job job, Vehicle vehicle, double departureTime, Driver driver) {
+        InsertionData iData = emptyRouteInsertionCache.get(job, vehicle, route);
+        if (iData == null) {
+            //calculated without cost limit such that it can be reused whatever the best known costs are
+            iData = insertionCalculator.getInsertionData(route, job, vehicle, departureTime, driver, Double.MAX_VALUE);
+            emptyRouteInsertionCache.put(job, vehicle, iData);
+            iData = EmptyRouteInsertionCache.rebind(iData, route, vehicle);
+        }
+        return iData;
+    }
+
+    private InsertionData noInsertion(Job job, Vehicle vehicle) {
+        InsertionData noInsertion = new InsertionData.NoInsertionFound();
+        noInsertion.addFailedConstrainName(compatibility.getViolatedConstraintName(job, vehicle));
+        return noInsertion;
+    }
+
     VehicleFleetManager getFleetManager(){
         return fleetManager;
     }
@@ -23,6 +23,7 @@ import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.JobRouteIndex;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 import org.slf4j.Logger;
@@ -41,6 +42,10 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
 
     protected VehicleRoutingProblem vrp;
 
+    private Collection<VehicleRoute> indexedRoutes;
+
+    private JobRouteIndex jobRouteIndex;
+
     public void setRandom(Random random) {
         this.random = random;
     }
@@ -63,7 +68,16 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
     @Override
     public Collection<Job> ruin(Collection<VehicleRoute> vehicleRoutes) {
         ruinListeners.ruinStarts(vehicleRoutes);
-        Collection<Job> unassigned = ruinRoutes(vehicleRoutes);
+        indexedRoutes = vehicleRoutes;
+        jobRouteIndex = JobRouteIndex.newInstance(vehicleRoutes);
+        Collection<Job> unassigned;
+        try {
+            unassigned = ruinRoutes(vehicleRoutes);
+        } finally {
+            jobRouteIndex.detach();
+            jobRouteIndex = null;
+            indexedRoutes = null;
+        }
         logger.trace("ruin: [ruined={}]", unassigned.size());
         ruinListeners.ruinEnds(vehicleRoutes, unassigned);
         return unassigned;
@@ -88,6 +102,10 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
 
     protected boolean removeJob(Job job, Collection<VehicleRoute> vehicleRoutes) {
         if (jobIsInitial(job)) return false;
+        if (vehicleRoutes == indexedRoutes) {
+            VehicleRoute route = jobRouteIndex.getRoute(job);
+            return route != null && removeJob(job, route);
+        }
         for (VehicleRoute route : vehicleRoutes) {
             if (removeJob(job, route)) {
                 return true;
@@ -96,6 +114,22 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
         return false;
     }
 
+    /**
+     * Returns the route serving job. While ruining, the route is looked up in an index kept up to date
+     * with every activity removed, otherwise the routes are scanned.
+     *
+     * @param job           the job
+     * @param vehicleRoutes routes to look in
+     * @return the route serving job or null if none serves it
+     */
+    protected VehicleRoute getRouteOf(Job job, Collection<VehicleRoute> vehicleRoutes) {
+        if (vehicleRoutes == indexedRoutes) return jobRouteIndex.getRoute(job);
+        for (VehicleRoute route : vehicleRoutes) {
+            if (route.getTourActivities().servesJob(job)) return route;
+        }
+        return null;
+    }
+
     private boolean jobIsInitial(Job job) {
         return !vrp.getJobs().containsKey(job.getId()); //for initial jobs (being not contained in problem
     }
@@ -19,96 +19,182 @@
 package com.graphhopper.jsprit.core.algorithm.ruin;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.BatchTransportCost;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 import com.graphhopper.jsprit.core.util.RandomUtils;
-import org.apache.commons.math3.ml.clustering.Cluster;
-import org.apache.commons.math3.ml.clustering.Clusterable;
-import org.apache.commons.math3.ml.distance.DistanceMeasure;
 
 import java.util.*;
 
 /**
+ * DBSCAN clustering of the jobs of a route.
+ * <p>It works on job positions and yields the same clusters as commons-math's DBSCANClusterer did. Distances between the jobs
+ * of a route and, once queried, their neighbors sorted by distance are cached per route, i.e. clustering a route that has not
+ * changed since it was last clustered does not need any transport cost calculation, and a region query only visits
+ * the jobs within eps.
+ *
  * Created by schroeder on 04/02/15.
  */
 public class DBSCANClusterer {
 
-    private static class LocationWrapper implements Clusterable {
-
-        private static int objCounter = 0;
+    /*
+     * identifies a route by the sequence of its jobs and activity locations
+     */
+    private static class RouteKey {
 
-        private final Job job;
+        private final Job[] jobs;
 
-        private List<Location> locations;
+        private final Location[] locations;
 
-        private int id;
+        private final int hash;
 
-        public LocationWrapper(Job job, List<Location> locations) {
-            this.locations = locations;
-            objCounter++;
-            this.job = job;
-            this.id = objCounter;
+        RouteKey(List<TourActivity> activities) {
+            jobs = new Job[activities.size()];
+            locations = new Location[activities.size()];
+            int h = 1;
+            for (int i = 0; i < activities.size(); i++) {
+                TourActivity act = activities.get(i);
+                if (act instanceof TourActivity.JobActivity) jobs[i] = ((TourActivity.JobActivity) act).getJob();
+                locations[i] = act.getLocation();
+                h = 31 * h + (jobs[i] == null ? 0 : jobs[i].hashCode());
+                h = 31 * h + (locations[i] == null ? 0 : locations[i].hashCode());
+            }
+            hash = h;
         }
 
-//        private List<Location> getLocations(Job job){
-//            List<Location> locs = new ArrayList<Location>();
-//            if(job instanceof Service) {
-//                locs.add(((Service) job).getLocation());
-//            }
-//            else if(job instanceof Shipment){
-//                locs.add(((Shipment) job).getPickupLocation());
-//                locs.add(((Shipment) job).getDeliveryLocation());
-//            }
-//            return locs;
-//        }
-
-        public List<Location> getLocations() {
-            return locations;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RouteKey)) return false;
+            RouteKey other = (RouteKey) o;
+            return hash == other.hash && Arrays.equals(jobs, other.jobs) && Arrays.equals(locations, other.locations);
         }
 
         @Override
-        public double[] getPoint() {
-            return new double[]{id};
+        public int hashCode() {
+            return hash;
         }
 
-        public Job getJob() {
-            return job;
-        }
     }
 
-    private static class MyDistance implements DistanceMeasure {
+    /*
+     * jobs of a route and distances between them. distancesTo[i][j] is the distance from job j to job i.
+     */
+    private static class RouteData {
 
-        private Map<Integer, LocationWrapper> locations;
+        private final Job[] jobs;
 
-        private VehicleRoutingTransportCosts costs;
+        private final double[][] distancesTo;
 
-        public MyDistance(List<LocationWrapper> locations, VehicleRoutingTransportCosts costs) {
-            this.locations = new HashMap<Integer, LocationWrapper>();
-            for (LocationWrapper lw : locations) {
-                this.locations.put((int) lw.getPoint()[0], lw);
+        //neighbors[i] are all other jobs j ordered by distancesTo[i][j] and then by j, calculated on demand
+        private final int[][] neighbors;
+
+        RouteData(Job[] jobs, double[][] distancesTo) {
+            this.jobs = jobs;
+            this.distancesTo = distancesTo;
+            this.neighbors = new int[jobs.length][];
+        }
+
+        /*
+         * upper bound of distances and neighbor positions this route data stores
+         */
+        long getNoCells() {
+            return 2L * jobs.length * jobs.length;
+        }
+
+        /**
+         * Writes the positions of all other jobs within eps, in ascending order, to buffer and returns their number.
+         */
+        int regionQuery(int i, double eps, int[] buffer) {
+            if (neighbors[i] == null) sortNeighbors(i);
+            int[] sorted = neighbors[i];
+            double[] distances = distancesTo[i];
+            int n = 0;
+            while (n < sorted.length && distances[sorted[n]] <= eps) {
+                buffer[n] = sorted[n];
+                n++;
             }
-            this.costs = costs;
+            Arrays.sort(buffer, 0, n);
+            return n;
         }
 
-        @Override
-        public double compute(double[] doubles, double[] doubles1) {
-            LocationWrapper l1 = locations.get((int) doubles[0]);
-            LocationWrapper l2 = locations.get((int) doubles1[0]);
-            int count = 0;
-            double sum = 0;
-            for (Location loc_1 : l1.getLocations()) {
-                for (Location loc_2 : l2.getLocations()) {
-                    sum += costs.getTransportCost(loc_1, loc_2, 0, null, null);
-                    count++;
+        private void sortNeighbors(int i) {
+            double[] distances = distancesTo[i];
+            int[] others = new int[jobs.length - 1];
+            double[] keys = new double[others.length];
+            int k = 0;
+            for (int j = 0; j < jobs.length; j++) {
+                if (j != i) {
+                    others[k] = j;
+                    keys[k] = distances[j];
+                    k++;
                 }
             }
-            return sum / (double) count;
+            sort(keys, others, 0, others.length - 1);
+            neighbors[i] = others;
         }
+
     }
 
+    /*
+     * sorts keys[from..to] and values[from..to] by key and then by value
+     */
+    private static void sort(double[] keys, int[] values, int from, int to) {
+        while (to - from > 16) {
+            int mid = (from + to) >>> 1;
+            double pivotKey = keys[mid];
+            int pivotValue = values[mid];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) i++;
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) j--;
+                if (i <= j) {
+                    swap(keys, values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            //recurse into the smaller part, iterate over the larger one
+            if (j - from < to - i) {
+                sort(keys, values, from, j);
+                from = i;
+            } else {
+                sort(keys, values, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            for (int j = i; j > from && compare(keys[j - 1], values[j - 1], keys[j], values[j]) > 0; j--) {
+                swap(keys, values, j - 1, j);
+            }
+        }
+    }
+
+    private static int compare(double key1, int value1, double key2, int value2) {
+        int c = Double.compare(key1, key2);
+        if (c != 0) return c;
+        return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+    }
+
+    private static void swap(double[] keys, int[] values, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private static final byte UNVISITED = 0;
+
+    private static final byte NOISE = 1;
+
+    private static final byte PART_OF_CLUSTER = 2;
+
     private VehicleRoutingTransportCosts costs;
 
     private int minNoOfJobsInCluster = 1;
@@ -121,6 +207,12 @@ public class DBSCANClusterer {
 
     private Random random = RandomNumberGeneration.getRandom();
 
+    private long cacheCapacity = 1L << 22;
+
+    private long noCachedCells = 0;
+
+    private final LinkedHashMap<RouteKey, RouteData> cache = new LinkedHashMap<RouteKey, RouteData>(16, 0.75f, true);
+
     public void setRandom(Random random) {
         this.random = random;
     }
@@ -141,14 +233,54 @@ public class DBSCANClusterer {
         this.epsDistance = epsDistance;
     }
 
+    /**
+     * Sets the max. number of cells cached, i.e. distances between jobs and positions of jobs in neighbor orders of
+     * recently clustered routes. A route with n jobs takes up to 2*n*n cells. Default is 2^22 cells, i.e. at most 48MB.
+     *
+     * @param cacheCapacity max. number of cells cached
+     */
+    public void setCacheCapacity(long cacheCapacity) {
+        this.cacheCapacity = cacheCapacity;
+        evict();
+    }
+
     public List<List<Job>> getClusters(VehicleRoute route) {
-        List<LocationWrapper> locations = getLocationWrappers(route);
-        List<Cluster<LocationWrapper>> clusterResults = getClusters(route, locations);
-        return makeList(clusterResults);
+        RouteData routeData = getRouteData(route);
+        return cluster(routeData, getEps(route));
     }
 
-    private List<LocationWrapper> getLocationWrappers(VehicleRoute route) {
-        List<LocationWrapper> locations = new ArrayList<LocationWrapper>(route.getTourActivities().getJobs().size());
+    private double getEps(VehicleRoute route) {
+        if (epsDistance != null) return epsDistance;
+        return Math.max(0, sample(costs, route));
+    }
+
+    private RouteData getRouteData(VehicleRoute route) {
+        RouteKey key = new RouteKey(route.getActivities());
+        RouteData routeData = cache.get(key);
+        if (routeData == null) {
+            routeData = createRouteData(route);
+            if (routeData.getNoCells() <= cacheCapacity) {
+                cache.put(key, routeData);
+                noCachedCells += routeData.getNoCells();
+                evict();
+            }
+        }
+        return routeData;
+    }
+
+    /*
+     * removes least recently used routes until cached cells fit into the capacity
+     */
+    private void evict() {
+        Iterator<RouteData> iterator = cache.values().iterator();
+        while (noCachedCells > cacheCapacity && iterator.hasNext()) {
+            noCachedCells -= iterator.next().getNoCells();
+            iterator.remove();
+        }
+    }
+
+    private RouteData createRouteData(VehicleRoute route) {
+        //jobs are ordered by a HashMap as they were ever since, since the order of clusters depends on it
         Map<Job, List<Location>> jobs2locations = new HashMap<Job, List<Location>>();
         for (TourActivity act : route.getActivities()) {
             if (act instanceof TourActivity.JobActivity) {
@@ -159,45 +291,123 @@ public class DBSCANClusterer {
                 jobs2locations.get(job).add(act.getLocation());
             }
         }
-        for (Job j : jobs2locations.keySet()) {
-            locations.add(new LocationWrapper(j, jobs2locations.get(j)));
+        int n = jobs2locations.size();
+        Job[] jobs = new Job[n];
+        List<List<Location>> locations = new ArrayList<List<Location>>(n);
+        for (Map.Entry<Job, List<Location>> e : jobs2locations.entrySet()) {
+            jobs[locations.size()] = e.getKey();
+            locations.add(e.getValue());
         }
-        return locations;
+        return new RouteData(jobs, calculateDistances(locations));
     }
 
-    private List<Cluster<LocationWrapper>> getClusters(VehicleRoute route, List<LocationWrapper> locations) {
-        double sampledDistance;
-        if (epsDistance != null) sampledDistance = epsDistance;
-        else sampledDistance = Math.max(0, sample(costs, route));
-        org.apache.commons.math3.ml.clustering.DBSCANClusterer<LocationWrapper> clusterer = new org.apache.commons.math3.ml.clustering.DBSCANClusterer<LocationWrapper>(sampledDistance, minNoOfJobsInCluster, new MyDistance(locations, costs));
-        return clusterer.cluster(locations);
+    /*
+     * returns distancesTo, i.e. distancesTo[i][j] is the distance from job j to job i
+     */
+    private double[][] calculateDistances(List<List<Location>> locations) {
+        int n = locations.size();
+        double[][] distances = new double[n][n];
+        boolean batch = costs instanceof BatchTransportCost && hasSingleLocations(locations);
+        Location[] toLocations = null;
+        if (batch) {
+            toLocations = new Location[n];
+            for (int j = 0; j < n; j++) toLocations[j] = locations.get(j).get(0);
+        }
+        for (int i = 0; i < n; i++) {
+            if (batch) {
+                ((BatchTransportCost) costs).getTransportCosts(toLocations[i], toLocations, 0, null, null, distances[i]);
+            } else {
+                for (int j = 0; j < n; j++) distances[i][j] = averageDistance(locations.get(j), locations.get(i));
+            }
+        }
+        if (batch) {
+            //batch rows are distances from job i, thus transpose them
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double d = distances[i][j];
+                    distances[i][j] = distances[j][i];
+                    distances[j][i] = d;
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static boolean hasSingleLocations(List<List<Location>> locations) {
+        for (List<Location> l : locations) {
+            if (l.size() != 1) return false;
+        }
+        return true;
     }
 
-    private List<List<Job>> makeList(List<Cluster<LocationWrapper>> clusterResults) {
-        List<List<Job>> l = new ArrayList<List<Job>>();
-        for (Cluster<LocationWrapper> c : clusterResults) {
-            List<Job> l_ = getJobList(c);
-            l.add(l_);
+    private double averageDistance(List<Location> l1, List<Location> l2) {
+        int count = 0;
+        double sum = 0;
+        for (Location loc_1 : l1) {
+            for (Location loc_2 : l2) {
+                sum += costs.getTransportCost(loc_1, loc_2, 0, null, null);
+                count++;
+            }
         }
-        return l;
+        return sum / (double) count;
     }
 
-    private List<Job> getJobList(Cluster<LocationWrapper> c) {
-        List<Job> l_ = new ArrayList<Job>();
-        if (c == null) return l_;
-        for (LocationWrapper lw : c.getPoints()) {
-            l_.add(lw.getJob());
+    /*
+     * DBSCAN as implemented by commons-math, i.e. neighbors of a job exclude the job itself and the distance from
+     * neighbor to job is compared with eps
+     */
+    private List<List<Job>> cluster(RouteData routeData, double eps) {
+        int n = routeData.jobs.length;
+        List<List<Job>> clusters = new ArrayList<List<Job>>();
+        byte[] status = new byte[n];
+        int[] neighbors = new int[n];
+        int[] seeds = new int[n];
+        boolean[] isSeed = new boolean[n];
+        for (int p = 0; p < n; p++) {
+            if (status[p] != UNVISITED) continue;
+            int noNeighbors = routeData.regionQuery(p, eps, neighbors);
+            if (noNeighbors < minNoOfJobsInCluster) {
+                status[p] = NOISE;
+                continue;
+            }
+            List<Job> cluster = new ArrayList<Job>();
+            cluster.add(routeData.jobs[p]);
+            status[p] = PART_OF_CLUSTER;
+            int noSeeds = 0;
+            for (int k = 0; k < noNeighbors; k++) {
+                seeds[noSeeds++] = neighbors[k];
+                isSeed[neighbors[k]] = true;
+            }
+            for (int index = 0; index < noSeeds; index++) {
+                int current = seeds[index];
+                byte currentStatus = status[current];
+                if (currentStatus == UNVISITED) {
+                    int noCurrentNeighbors = routeData.regionQuery(current, eps, neighbors);
+                    if (noCurrentNeighbors >= minNoOfJobsInCluster) {
+                        for (int k = 0; k < noCurrentNeighbors; k++) {
+                            if (!isSeed[neighbors[k]]) {
+                                isSeed[neighbors[k]] = true;
+                                seeds[noSeeds++] = neighbors[k];
+                            }
+                        }
+                    }
+                }
+                if (currentStatus != PART_OF_CLUSTER) {
+                    status[current] = PART_OF_CLUSTER;
+                    cluster.add(routeData.jobs[current]);
+                }
+            }
+            for (int index = 0; index < noSeeds; index++) isSeed[seeds[index]] = false;
+            clusters.add(cluster);
         }
-        return l_;
+        return clusters;
     }
 
     public List<Job> getRandomCluster(VehicleRoute route) {
         if (route.isEmpty()) return Collections.emptyList();
-        List<LocationWrapper> locations = getLocationWrappers(route);
-        List<Cluster<LocationWrapper>> clusterResults = getClusters(route, locations);
-        if (clusterResults.isEmpty()) return Collections.emptyList();
-        Cluster<LocationWrapper> randomCluster = RandomUtils.nextItem(clusterResults, random);
-        return getJobList(randomCluster);
+        List<List<Job>> clusters = getClusters(route);
+        if (clusters.isEmpty()) return Collections.emptyList();
+        return RandomUtils.nextItem(clusters, random);
     }
 
     private double sample(VehicleRoutingTransportCosts costs, VehicleRoute r) {
@@ -21,6 +21,9 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+
 /**
  * Created by schroeder on 05/03/15.
  */
@@ -35,4 +38,49 @@ public class JobNeighborhoodsFactory {
         return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
     }
 
+    /**
+     * Creates neighborhoods that are computed in parallel if an executor service is given and that are written to and
+     * read from persistenceDirectory if it is not null.
+     *
+     * @param vrp                  the problem
+     * @param jobDistance          thread-safe job distance
+     * @param capacity             max. number of neighbors per job
+     * @param executorService      executor service or null
+     * @param noThreads            number of threads
+     * @param persistenceDirectory directory to persist neighborhoods in or null
+     * @return neighborhoods
+     */
+    public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, ExecutorService executorService, int noThreads, File persistenceDirectory) {
+        JobNeighborhoodsOptimized neighborhoods = new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
+        neighborhoods.setExecutorService(executorService, noThreads);
+        neighborhoods.setPersistenceDirectory(persistenceDirectory);
+        return neighborhoods;
+    }
+
+    /**
+     * Returns true if the problem's transport costs are exactly {@link com.graphhopper.jsprit.core.util.EuclideanCosts},
+     * {@link com.graphhopper.jsprit.core.util.CrowFlyCosts} or {@link com.graphhopper.jsprit.core.util.GreatCircleCosts}
+     * (not a subclass) and all jobs have coordinates, i.e. if neighborhoods can be created with
+     * {@link #createSpatialNeighborhoods(VehicleRoutingProblem, int)}.
+     *
+     * @param vrp the problem
+     * @return true if spatial neighborhoods are supported
+     */
+    public boolean supportsSpatialNeighborhoods(VehicleRoutingProblem vrp) {
+        return JobNeighborhoodsSpatialIndex.isApplicable(vrp);
+    }
+
+    /**
+     * Creates neighborhoods that are searched lazily in a spatial index. Distances between jobs are those of
+     * {@link com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance}.
+     * <p>Nothing is pre-computed, thus these neighborhoods are neither computed in parallel nor persisted.
+     *
+     * @param vrp      the problem
+     * @param capacity max. number of neighbors per job
+     * @return neighborhoods
+     */
+    public JobNeighborhoods createSpatialNeighborhoods(VehicleRoutingProblem vrp, int capacity) {
+        return new JobNeighborhoodsSpatialIndex(vrp, capacity);
+    }
+
 }
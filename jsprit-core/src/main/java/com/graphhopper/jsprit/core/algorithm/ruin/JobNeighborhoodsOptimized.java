@@ -18,16 +18,33 @@
 
 package com.graphhopper.jsprit.core.algorithm.ruin;
 
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.BatchJobDistance;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
+ * Pre-computes the capacity nearest neighbors of each job.
+ * <p>Neighbors are selected with a bounded heap per job, i.e. memory is n * capacity and not n^2. The computation can be
+ * distributed over several threads ({@link #setExecutorService(ExecutorService, int)}) and its result can be written to
+ * and read from a directory ({@link #setPersistenceDirectory(File)}).
+ *
  * Created by schroeder on 07/01/15.
  */
 class JobNeighborhoodsOptimized implements JobNeighborhoods {
@@ -69,12 +86,95 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         }
     }
 
+    /*
+     * bounded max-heap keeping the k nearest neighbors. ties are broken by position, i.e. the result equals a stable sort.
+     */
+    static class BoundedNeighborHeap {
+
+        private final int[] positions;
+
+        private final double[] distances;
+
+        private int size = 0;
+
+        BoundedNeighborHeap(int k) {
+            positions = new int[k];
+            distances = new double[k];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private boolean isFarther(double d1, int p1, double d2, int p2) {
+            return d1 > d2 || (d1 == d2 && p1 > p2);
+        }
+
+        void offer(int position, double distance) {
+            if (positions.length == 0) return;
+            if (size < positions.length) {
+                int pos = size++;
+                while (pos > 0) {
+                    int parent = (pos - 1) >>> 1;
+                    if (!isFarther(distance, position, distances[parent], positions[parent])) break;
+                    positions[pos] = positions[parent];
+                    distances[pos] = distances[parent];
+                    pos = parent;
+                }
+                positions[pos] = position;
+                distances[pos] = distance;
+            } else if (isFarther(distances[0], positions[0], distance, position)) {
+                siftDown(position, distance);
+            }
+        }
+
+        private void siftDown(int position, double distance) {
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) break;
+                if (child + 1 < size && isFarther(distances[child + 1], positions[child + 1], distances[child], positions[child]))
+                    child++;
+                if (!isFarther(distances[child], positions[child], distance, position)) break;
+                positions[pos] = positions[child];
+                distances[pos] = distances[child];
+                pos = child;
+            }
+            positions[pos] = position;
+            distances[pos] = distance;
+        }
+
+        /**
+         * Empties the heap and writes its content in ascending order of distance.
+         */
+        void drainAscending(int[] positionsOut, double[] distancesOut) {
+            while (size > 0) {
+                int last = size - 1;
+                positionsOut[last] = positions[0];
+                distancesOut[last] = distances[0];
+                size--;
+                if (size > 0) siftDown(positions[size], distances[size]);
+            }
+        }
+
+    }
+
+    private static final int FILE_MAGIC = 0x4a4e4248;
+
+    private static final int FILE_VERSION = 1;
+
     private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsOptimized.class);
 
     private VehicleRoutingProblem vrp;
 
     private int[][] neighbors;
 
+    private double[][] neighborDistances;
+
     private Job[] jobs;
 
     private JobDistance jobDistance;
@@ -83,27 +183,76 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
     private double maxDistance = 0.;
 
+    private ExecutorService executorService;
+
+    private int noThreads = 1;
+
+    private File persistenceDirectory;
+
     public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
         super();
         this.vrp = vrp;
         this.jobDistance = jobDistance;
-        this.capacity = capacity;
-        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][capacity];
-        jobs = new Job[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1];
+        int noJobs = vrp.getJobsInclusiveInitialJobsInRoutes().size();
+        this.capacity = Math.max(0, Math.min(capacity, noJobs - 1));
+        neighbors = new int[noJobs][0];
+        neighborDistances = new double[noJobs][0];
+        jobs = new Job[noJobs + 1];
         logger.debug("initialize {}", this);
     }
 
+    /**
+     * Distributes the computation of neighborhoods over noThreads tasks submitted to the executor service. The
+     * job distance must then be thread-safe.
+     *
+     * @param executorService executor service
+     * @param noThreads       number of threads
+     */
+    public void setExecutorService(ExecutorService executorService, int noThreads) {
+        this.executorService = executorService;
+        this.noThreads = noThreads;
+    }
+
+    /**
+     * Sets a directory neighborhoods are written to and read from. The file name is derived from a hash of the jobs, their
+     * locations, the job distance and capacity. Since transport costs cannot be hashed, the directory must not be shared
+     * by problems that only differ in their costs.
+     *
+     * @param persistenceDirectory directory to persist neighborhoods in
+     */
+    public void setPersistenceDirectory(File persistenceDirectory) {
+        this.persistenceDirectory = persistenceDirectory;
+    }
+
     @Override
     public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
         int[] neighbors = this.neighbors[neighborTo.getIndex()-1];
         return new ArrayIterator(nNeighbors,neighbors,jobs);
     }
 
+    /**
+     * Returns the distance to the n-th nearest neighbor (starting with 0) of a job.
+     */
+    double getNeighborDistance(Job neighborTo, int n) {
+        return neighborDistances[neighborTo.getIndex() - 1][n];
+    }
+
     @Override
     public void initialise() {
         logger.debug("calculates distances from EACH job to EACH job --> n^2={} calculations, but 'only' {} are cached.", Math.pow(vrp.getJobs().values().size(), 2), (vrp.getJobs().values().size() * capacity));
         if (capacity == 0) return;
-        calculateDistancesFromJob2Job();
+        Job[] allJobs = vrp.getJobsInclusiveInitialJobsInRoutes().values().toArray(new Job[0]);
+        for (Job job : allJobs) jobs[job.getIndex()] = job;
+        File file = null;
+        if (persistenceDirectory != null) {
+            file = new File(persistenceDirectory, "neighborhoods-" + Long.toHexString(problemHash(allJobs)) + ".bin");
+            if (file.exists() && read(file, allJobs)) {
+                logger.debug("read neighborhoods from {}", file);
+                return;
+            }
+        }
+        calculateDistancesFromJob2Job(allJobs);
+        if (file != null) write(file, allJobs);
     }
 
     @Override
@@ -111,43 +260,188 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         return maxDistance;
     }
 
-    private void calculateDistancesFromJob2Job() {
+    private void calculateDistancesFromJob2Job(final Job[] allJobs) {
         logger.debug("pre-process distances between locations ...");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        for (Job job_i : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-            jobs[job_i.getIndex()] = job_i;
-            List<ReferencedJob> jobList = new ArrayList<ReferencedJob>(vrp.getJobsInclusiveInitialJobsInRoutes().values().size());
-            for (Job job_j : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-                if (job_i == job_j) continue;
-                double distance = jobDistance.getDistance(job_i, job_j);
-                if (distance > maxDistance) maxDistance = distance;
-                ReferencedJob referencedJob = new ReferencedJob(job_j, distance);
-                jobList.add(referencedJob);
+        if (executorService == null || noThreads < 2) {
+            maxDistance = calculateNeighborhoods(allJobs, 0, allJobs.length);
+        } else {
+            int chunkSize = Math.max(1, (allJobs.length + noThreads * 4 - 1) / (noThreads * 4));
+            List<Future<Double>> futures = new ArrayList<>();
+            for (int from = 0; from < allJobs.length; from += chunkSize) {
+                final int chunkFrom = from;
+                final int chunkTo = Math.min(allJobs.length, from + chunkSize);
+                futures.add(executorService.submit(new Callable<Double>() {
+
+                    @Override
+                    public Double call() throws Exception {
+                        return calculateNeighborhoods(allJobs, chunkFrom, chunkTo);
+                    }
+
+                }));
             }
-            Collections.sort(jobList,getComparator());
-            int[] jobIndices = new int[capacity];
-            for(int index=0;index<capacity;index++){
-                jobIndices[index] = jobList.get(index).getJob().getIndex();
+            double max = 0.;
+            try {
+                for (Future<Double> future : futures) max = Math.max(max, future.get());
+            } catch (InterruptedException e) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while pre-processing neighborhoods", e);
+            } catch (ExecutionException e) {
+                cancel(futures);
+                throw new RuntimeException(e);
             }
-            neighbors[job_i.getIndex()-1] = jobIndices;
+            maxDistance = max;
         }
         stopWatch.stop();
         logger.debug("pre-processing comp-time: {}", stopWatch);
     }
 
-    private Comparator<ReferencedJob> getComparator(){
-        return new Comparator<ReferencedJob>() {
-            @Override
-            public int compare(ReferencedJob o1, ReferencedJob o2) {
-                if (o1.getDistance() < o2.getDistance()) {
-                    return -1;
-                } else if (o1.getDistance() > o2.getDistance()){
-                    return 1;
+    private static void cancel(List<Future<Double>> futures) {
+        for (Future<Double> future : futures) future.cancel(true);
+    }
+
+    /*
+     * calculates neighborhoods of allJobs[from] to allJobs[to - 1] and returns the max distance observed
+     */
+    private double calculateNeighborhoods(Job[] allJobs, int from, int to) {
+        double max = 0.;
+        double[] distances = new double[allJobs.length];
+        BoundedNeighborHeap heap = new BoundedNeighborHeap(capacity);
+        int[] positions = new int[capacity];
+        for (int i = from; i < to; i++) {
+            Job job_i = allJobs[i];
+            if (jobDistance instanceof BatchJobDistance) {
+                ((BatchJobDistance) jobDistance).getDistances(job_i, allJobs, distances);
+            } else {
+                for (int j = 0; j < allJobs.length; j++) {
+                    if (job_i != allJobs[j]) distances[j] = jobDistance.getDistance(job_i, allJobs[j]);
+                }
+            }
+            heap.clear();
+            for (int j = 0; j < allJobs.length; j++) {
+                if (i == j) continue;
+                double distance = distances[j];
+                if (distance > max) max = distance;
+                heap.offer(j, distance);
+            }
+            int[] jobIndices = new int[capacity];
+            double[] jobDistances = new double[capacity];
+            heap.drainAscending(positions, jobDistances);
+            for (int n = 0; n < capacity; n++) {
+                jobIndices[n] = allJobs[positions[n]].getIndex();
+            }
+            neighbors[job_i.getIndex() - 1] = jobIndices;
+            neighborDistances[job_i.getIndex() - 1] = jobDistances;
+        }
+        return max;
+    }
+
+    private long problemHash(Job[] allJobs) {
+        long hash = 1125899906842597L;
+        hash = hash(hash, jobDistance.getClass().getName());
+        hash = 31 * hash + capacity;
+        for (Job job : allJobs) {
+            hash = hash(hash, job.getId());
+            hash = 31 * hash + job.getIndex();
+            if (job instanceof Service) {
+                hash = hash(hash, ((Service) job).getLocation());
+            } else if (job instanceof Shipment) {
+                hash = hash(hash, ((Shipment) job).getPickupLocation());
+                hash = hash(hash, ((Shipment) job).getDeliveryLocation());
+            }
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String s) {
+        if (s == null) return 31 * hash;
+        for (int i = 0; i < s.length(); i++) hash = 31 * hash + s.charAt(i);
+        return hash;
+    }
+
+    private static long hash(long hash, Location location) {
+        if (location == null) return 31 * hash;
+        hash = hash(hash, location.getId());
+        hash = 31 * hash + location.getIndex();
+        if (location.getCoordinate() != null) {
+            hash = 31 * hash + Double.doubleToLongBits(location.getCoordinate().getX());
+            hash = 31 * hash + Double.doubleToLongBits(location.getCoordinate().getY());
+        }
+        return hash;
+    }
+
+    private void write(File file, Job[] allJobs) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(problemHash(allJobs));
+            out.writeInt(allJobs.length);
+            out.writeInt(capacity);
+            out.writeDouble(maxDistance);
+            for (Job job : allJobs) {
+                out.writeInt(job.getIndex());
+                int[] jobIndices = neighbors[job.getIndex() - 1];
+                double[] jobDistances = neighborDistances[job.getIndex() - 1];
+                for (int n = 0; n < capacity; n++) {
+                    out.writeInt(jobIndices[n]);
+                    out.writeDouble(jobDistances[n]);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("cannot write neighborhoods to {}: {}", file, e.getMessage());
+        } finally {
+            close(out);
+        }
+    }
+
+    private boolean read(File file, Job[] allJobs) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || in.readLong() != problemHash(allJobs)
+                || in.readInt() != allJobs.length || in.readInt() != capacity) return false;
+            double max = in.readDouble();
+            int[][] readNeighbors = new int[neighbors.length][];
+            double[][] readDistances = new double[neighbors.length][];
+            for (int i = 0; i < allJobs.length; i++) {
+                int jobIndex = in.readInt();
+                if (jobIndex < 1 || jobIndex > neighbors.length) return false;
+                int[] jobIndices = new int[capacity];
+                double[] jobDistances = new double[capacity];
+                for (int n = 0; n < capacity; n++) {
+                    jobIndices[n] = in.readInt();
+                    jobDistances[n] = in.readDouble();
+                    if (jobIndices[n] < 1 || jobIndices[n] >= jobs.length || jobs[jobIndices[n]] == null) return false;
                 }
-                else return 0;
+                readNeighbors[jobIndex - 1] = jobIndices;
+                readDistances[jobIndex - 1] = jobDistances;
             }
-        };
+            for (int i = 0; i < readNeighbors.length; i++) {
+                if (readNeighbors[i] == null) return false;
+            }
+            neighbors = readNeighbors;
+            neighborDistances = readDistances;
+            maxDistance = max;
+            return true;
+        } catch (IOException e) {
+            logger.warn("cannot read neighborhoods from {}: {}", file, e.getMessage());
+            return false;
+        } finally {
+            close(in);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.warn("cannot close stream: {}", e.getMessage());
+        }
     }
 
     @Override
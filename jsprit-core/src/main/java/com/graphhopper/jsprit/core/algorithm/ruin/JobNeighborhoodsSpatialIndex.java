@@ -0,0 +1,621 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Neighborhoods of jobs with coordinates whose transport costs are exactly {@link EuclideanCosts}, {@link CrowFlyCosts} or
+ * {@link GreatCircleCosts}, i.e. not a subclass of them.
+ * <p>Instead of calculating the distances of all pairs of jobs, the locations of jobs are put into a kd-tree, and nearest
+ * neighbors are searched lazily while iterating. Great circle distances are indexed by points on the unit sphere, since the
+ * chord between two points grows monotonically with their great circle distance.
+ * <p>Distances between jobs are those of {@link AvgServiceAndShipmentDistance}. Shipments are indexed by their pickup and
+ * delivery location. Since the average distance between two jobs is never smaller than the min. distance between their
+ * locations, a job is only returned once no location closer than its average distance is left in the tree. Thus,
+ * neighbors are returned in the same order as {@link JobNeighborhoodsOptimized} returns them.
+ *
+ * @author schroeder
+ */
+class JobNeighborhoodsSpatialIndex implements JobNeighborhoods {
+
+    /*
+     * maps coordinates to points of the index and distances between points to bounds of transport costs
+     */
+    static abstract class Space {
+
+        final int dim;
+
+        Space(int dim) {
+            this.dim = dim;
+        }
+
+        abstract void toPoint(Coordinate coordinate, double[] points, int offset);
+
+        abstract double lowerBound(double pointDistance);
+
+        abstract double upperBound(double pointDistance);
+
+    }
+
+    static class EuclideanSpace extends Space {
+
+        private final double detourFactor;
+
+        EuclideanSpace(double detourFactor) {
+            super(2);
+            this.detourFactor = detourFactor;
+        }
+
+        @Override
+        void toPoint(Coordinate coordinate, double[] points, int offset) {
+            points[offset] = coordinate.getX();
+            points[offset + 1] = coordinate.getY();
+        }
+
+        @Override
+        double lowerBound(double pointDistance) {
+            return pointDistance * detourFactor;
+        }
+
+        @Override
+        double upperBound(double pointDistance) {
+            return pointDistance * detourFactor;
+        }
+
+    }
+
+    static class SphereSpace extends Space {
+
+        //absorbs rounding differences between chord based bounds and the haversine formula
+        private static final double TOLERANCE = 1e-9;
+
+        private final double detour;
+
+        private final DistanceUnit distanceUnit;
+
+        SphereSpace(double detour, DistanceUnit distanceUnit) {
+            super(3);
+            this.detour = detour;
+            this.distanceUnit = distanceUnit;
+        }
+
+        @Override
+        void toPoint(Coordinate coordinate, double[] points, int offset) {
+            double lon = Math.toRadians(coordinate.getX());
+            double lat = Math.toRadians(coordinate.getY());
+            points[offset] = Math.cos(lat) * Math.cos(lon);
+            points[offset + 1] = Math.cos(lat) * Math.sin(lon);
+            points[offset + 2] = Math.sin(lat);
+        }
+
+        private double greatCircleDistance(double chord) {
+            double centralAngle = 2 * Math.asin(Math.min(1., chord / 2.));
+            return GreatCircleDistanceCalculator.calculateDistance(centralAngle, distanceUnit) * detour;
+        }
+
+        @Override
+        double lowerBound(double pointDistance) {
+            return greatCircleDistance(pointDistance) * (1. - TOLERANCE);
+        }
+
+        @Override
+        double upperBound(double pointDistance) {
+            return greatCircleDistance(pointDistance) * (1. + TOLERANCE);
+        }
+
+    }
+
+    /*
+     * binary min-heap of (key, value) pairs ordered by key and then by value
+     */
+    static class Heap {
+
+        private double[] keys = new double[16];
+
+        private int[] values = new int[16];
+
+        private int size = 0;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        int peekValue() {
+            return values[0];
+        }
+
+        private static boolean less(double k1, int v1, double k2, int v2) {
+            return k1 < k2 || (k1 == k2 && v1 < v2);
+        }
+
+        void push(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int pos = size++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!less(key, value, keys[parent], values[parent])) break;
+                keys[pos] = keys[parent];
+                values[pos] = values[parent];
+                pos = parent;
+            }
+            keys[pos] = key;
+            values[pos] = value;
+        }
+
+        void pop() {
+            size--;
+            double key = keys[size];
+            int value = values[size];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) break;
+                if (child + 1 < size && less(keys[child + 1], values[child + 1], keys[child], values[child])) child++;
+                if (!less(keys[child], values[child], key, value)) break;
+                keys[pos] = keys[child];
+                values[pos] = values[child];
+                pos = child;
+            }
+            keys[pos] = key;
+            values[pos] = value;
+        }
+
+    }
+
+    /*
+     * open addressing set of non-negative ints
+     */
+    static class IntSet {
+
+        private int[] slots = new int[16];
+
+        private int size = 0;
+
+        IntSet() {
+            Arrays.fill(slots, -1);
+        }
+
+        boolean add(int value) {
+            if (2 * (size + 1) > slots.length) grow();
+            int mask = slots.length - 1;
+            int slot = (value * 0x9E3779B9) >>> 16 & mask;
+            while (slots[slot] != -1) {
+                if (slots[slot] == value) return false;
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            Arrays.fill(slots, -1);
+            size = 0;
+            for (int value : old) {
+                if (value != -1) add(value);
+            }
+        }
+
+    }
+
+    private class NeighborIterator implements Iterator<Job> {
+
+        private final Job job;
+
+        private final int position;
+
+        private final double[] queryPoints;
+
+        private int remaining;
+
+        //nodes are encoded as value >= 0, points p as -(p + 1); keys are lower bounds of distances
+        private final Heap frontier = new Heap();
+
+        //positions of jobs ordered by their distance
+        private final Heap candidates = new Heap();
+
+        private final IntSet seen = new IntSet();
+
+        NeighborIterator(int nNeighbors, Job job) {
+            this.job = job;
+            this.position = positions[job.getIndex()];
+            this.queryPoints = Arrays.copyOfRange(points, firstPoint[position] * space.dim, firstPoint[position + 1] * space.dim);
+            this.remaining = nNeighbors;
+            seen.add(position);
+            if (noNodes > 0) frontier.push(0., 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (remaining <= 0) return false;
+            while (true) {
+                if (!candidates.isEmpty() && (frontier.isEmpty() || candidates.peekKey() < frontier.peekKey())) return true;
+                if (frontier.isEmpty()) return false;
+                int entry = frontier.peekValue();
+                frontier.pop();
+                if (entry >= 0) expand(entry);
+                else {
+                    int jobPosition = pointJob[-entry - 1];
+                    if (seen.add(jobPosition)) {
+                        candidates.push(jobDistance.getDistance(job, jobs[jobPosition]), jobPosition);
+                    }
+                }
+            }
+        }
+
+        private void expand(int node) {
+            if (left[node] < 0) {
+                for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+                    int p = order[i];
+                    frontier.push(space.lowerBound(Math.sqrt(minSquaredDistanceToPoint(queryPoints, p))), -p - 1);
+                }
+            } else {
+                frontier.push(space.lowerBound(Math.sqrt(minSquaredDistanceToBox(queryPoints, left[node]))), left[node]);
+                frontier.push(space.lowerBound(Math.sqrt(minSquaredDistanceToBox(queryPoints, right[node]))), right[node]);
+            }
+        }
+
+        @Override
+        public Job next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int jobPosition = candidates.peekValue();
+            candidates.pop();
+            remaining--;
+            return jobs[jobPosition];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    private static final int LEAF_SIZE = 8;
+
+    private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsSpatialIndex.class);
+
+    /**
+     * Returns true if the transport costs of the problem are coordinate based and all jobs are services or shipments
+     * with coordinates.
+     *
+     * @param vrp the problem
+     * @return true if neighborhoods can be searched in a spatial index
+     */
+    static boolean isApplicable(VehicleRoutingProblem vrp) {
+        if (createSpace(vrp.getTransportCosts()) == null) return false;
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
+            if (job instanceof Service) {
+                if (!hasCoordinate(((Service) job).getLocation())) return false;
+            } else if (job instanceof Shipment) {
+                if (!hasCoordinate(((Shipment) job).getPickupLocation()) || !hasCoordinate(((Shipment) job).getDeliveryLocation()))
+                    return false;
+            } else return false;
+        }
+        return true;
+    }
+
+    private static boolean hasCoordinate(Location location) {
+        return location != null && location.getCoordinate() != null;
+    }
+
+    /*
+     * subclasses might override how costs are calculated, thus only the exact classes are supported
+     */
+    private static Space createSpace(VehicleRoutingTransportCosts costs) {
+        if (costs == null) return null;
+        if (costs.getClass() == EuclideanCosts.class) return new EuclideanSpace(((EuclideanCosts) costs).detourFactor);
+        if (costs.getClass() == CrowFlyCosts.class) return new EuclideanSpace(((CrowFlyCosts) costs).detourFactor);
+        if (costs.getClass() == GreatCircleCosts.class) {
+            GreatCircleCosts greatCircleCosts = (GreatCircleCosts) costs;
+            return new SphereSpace(greatCircleCosts.getDetour(), greatCircleCosts.getDistanceUnit());
+        }
+        return null;
+    }
+
+    private final VehicleRoutingProblem vrp;
+
+    private final Space space;
+
+    private final JobDistance jobDistance;
+
+    private final int capacity;
+
+    private Job[] jobs;
+
+    //position of job by job index
+    private int[] positions;
+
+    //points of job at position j are firstPoint[j] to firstPoint[j + 1] - 1
+    private int[] firstPoint;
+
+    private double[] points;
+
+    private int[] pointJob;
+
+    //kd-tree
+    private int[] order;
+
+    private int noNodes = 0;
+
+    private int[] left;
+
+    private int[] right;
+
+    private int[] nodeStart;
+
+    private int[] nodeEnd;
+
+    private double[] boxMin;
+
+    private double[] boxMax;
+
+    private double maxDistance = 0.;
+
+    /**
+     * @param vrp      the problem, see {@link #isApplicable(VehicleRoutingProblem)}
+     * @param capacity max. number of neighbors returned per job
+     */
+    JobNeighborhoodsSpatialIndex(VehicleRoutingProblem vrp, int capacity) {
+        this.vrp = vrp;
+        this.space = createSpace(vrp.getTransportCosts());
+        if (space == null)
+            throw new IllegalArgumentException("transport costs " + vrp.getTransportCosts() + " are not supported. use EuclideanCosts, CrowFlyCosts or GreatCircleCosts.");
+        this.jobDistance = new AvgServiceAndShipmentDistance(vrp.getTransportCosts());
+        this.capacity = capacity;
+    }
+
+    @Override
+    public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+        return new NeighborIterator(Math.min(nNeighbors, capacity), neighborTo);
+    }
+
+    @Override
+    public void initialise() {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        jobs = vrp.getJobsInclusiveInitialJobsInRoutes().values().toArray(new Job[0]);
+        positions = new int[jobs.length + 1];
+        firstPoint = new int[jobs.length + 1];
+        for (int j = 0; j < jobs.length; j++) {
+            positions[jobs[j].getIndex()] = j;
+            firstPoint[j + 1] = firstPoint[j] + (jobs[j] instanceof Shipment ? 2 : 1);
+        }
+        int noPoints = firstPoint[jobs.length];
+        points = new double[noPoints * space.dim];
+        pointJob = new int[noPoints];
+        for (int j = 0; j < jobs.length; j++) {
+            int p = firstPoint[j];
+            if (jobs[j] instanceof Shipment) {
+                space.toPoint(((Shipment) jobs[j]).getPickupLocation().getCoordinate(), points, p * space.dim);
+                space.toPoint(((Shipment) jobs[j]).getDeliveryLocation().getCoordinate(), points, (p + 1) * space.dim);
+                pointJob[p] = j;
+                pointJob[p + 1] = j;
+            } else {
+                space.toPoint(((Service) jobs[j]).getLocation().getCoordinate(), points, p * space.dim);
+                pointJob[p] = j;
+            }
+        }
+        buildTree(noPoints);
+        calculateMaxDistance();
+        stopWatch.stop();
+        logger.debug("spatial index with {} points built. comp-time: {}", noPoints, stopWatch);
+    }
+
+    @Override
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    private void buildTree(int noPoints) {
+        order = new int[noPoints];
+        for (int p = 0; p < noPoints; p++) order[p] = p;
+        //leaves contain at least LEAF_SIZE / 2 points
+        int maxNodes = 4 * noPoints / LEAF_SIZE + 2;
+        left = new int[maxNodes];
+        right = new int[maxNodes];
+        nodeStart = new int[maxNodes];
+        nodeEnd = new int[maxNodes];
+        boxMin = new double[maxNodes * space.dim];
+        boxMax = new double[maxNodes * space.dim];
+        noNodes = 0;
+        if (noPoints > 0) build(0, noPoints);
+    }
+
+    private int build(int start, int end) {
+        int node = noNodes++;
+        nodeStart[node] = start;
+        nodeEnd[node] = end;
+        int dim = space.dim;
+        int widest = 0;
+        double widestExtent = -1.;
+        for (int d = 0; d < dim; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                double value = points[order[i] * dim + d];
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            boxMin[node * dim + d] = min;
+            boxMax[node * dim + d] = max;
+            if (max - min > widestExtent) {
+                widestExtent = max - min;
+                widest = d;
+            }
+        }
+        if (end - start <= LEAF_SIZE || widestExtent <= 0.) {
+            left[node] = -1;
+            right[node] = -1;
+            return node;
+        }
+        int mid = (start + end) >>> 1;
+        select(start, end - 1, mid, widest);
+        left[node] = build(start, mid);
+        right[node] = build(mid, end);
+        return node;
+    }
+
+    /*
+     * quickselect, i.e. partitions order[from..to] such that order[k] has the k-th smallest value in dimension d
+     */
+    private void select(int from, int to, int k, int d) {
+        int dim = space.dim;
+        while (from < to) {
+            double pivot = points[order[(from + to) >>> 1] * dim + d];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (points[order[i] * dim + d] < pivot) i++;
+                while (points[order[j] * dim + d] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) to = j;
+            else if (k >= i) from = i;
+            else return;
+        }
+    }
+
+    private double minSquaredDistanceToPoint(double[] queryPoints, int p) {
+        int dim = space.dim;
+        double min = Double.POSITIVE_INFINITY;
+        for (int q = 0; q < queryPoints.length; q += dim) {
+            double sum = 0.;
+            for (int d = 0; d < dim; d++) {
+                double diff = queryPoints[q + d] - points[p * dim + d];
+                sum += diff * diff;
+            }
+            if (sum < min) min = sum;
+        }
+        return min;
+    }
+
+    private double minSquaredDistanceToBox(double[] queryPoints, int node) {
+        int dim = space.dim;
+        double min = Double.POSITIVE_INFINITY;
+        for (int q = 0; q < queryPoints.length; q += dim) {
+            double sum = 0.;
+            for (int d = 0; d < dim; d++) {
+                double value = queryPoints[q + d];
+                double diff = 0.;
+                if (value < boxMin[node * dim + d]) diff = boxMin[node * dim + d] - value;
+                else if (value > boxMax[node * dim + d]) diff = value - boxMax[node * dim + d];
+                sum += diff * diff;
+            }
+            if (sum < min) min = sum;
+        }
+        return min;
+    }
+
+    private double maxSquaredDistanceToPoint(double[] queryPoints, int p) {
+        int dim = space.dim;
+        double max = 0.;
+        for (int q = 0; q < queryPoints.length; q += dim) {
+            double sum = 0.;
+            for (int d = 0; d < dim; d++) {
+                double diff = queryPoints[q + d] - points[p * dim + d];
+                sum += diff * diff;
+            }
+            if (sum > max) max = sum;
+        }
+        return max;
+    }
+
+    private double maxSquaredDistanceToBox(double[] queryPoints, int node) {
+        int dim = space.dim;
+        double max = 0.;
+        for (int q = 0; q < queryPoints.length; q += dim) {
+            double sum = 0.;
+            for (int d = 0; d < dim; d++) {
+                double value = queryPoints[q + d];
+                double diff = Math.max(Math.abs(value - boxMin[node * dim + d]), Math.abs(boxMax[node * dim + d] - value));
+                sum += diff * diff;
+            }
+            if (sum > max) max = sum;
+        }
+        return max;
+    }
+
+    /*
+     * branch and bound: subtrees whose locations cannot be farther away than the max. distance found so far are skipped
+     */
+    private void calculateMaxDistance() {
+        maxDistance = 0.;
+        if (noNodes == 0) return;
+        int[] stack = new int[64];
+        for (int j = 0; j < jobs.length; j++) {
+            double[] queryPoints = Arrays.copyOfRange(points, firstPoint[j] * space.dim, firstPoint[j + 1] * space.dim);
+            int stackSize = 0;
+            stack[stackSize++] = 0;
+            while (stackSize > 0) {
+                int node = stack[--stackSize];
+                if (space.upperBound(Math.sqrt(maxSquaredDistanceToBox(queryPoints, node))) <= maxDistance) continue;
+                if (left[node] < 0) {
+                    for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+                        int p = order[i];
+                        int other = pointJob[p];
+                        if (other == j) continue;
+                        if (space.upperBound(Math.sqrt(maxSquaredDistanceToPoint(queryPoints, p))) <= maxDistance) continue;
+                        double distance = jobDistance.getDistance(jobs[j], jobs[other]);
+                        if (distance > maxDistance) maxDistance = distance;
+                    }
+                } else {
+                    if (stackSize + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[stackSize++] = left[node];
+                    stack[stackSize++] = right[node];
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[name=neighborhoodWithSpatialIndex][capacity=" + capacity + "]";
+    }
+
+}
@@ -77,9 +77,13 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
 
     private double epsFactor = 0.8;
 
+    private final DBSCANClusterer dbscan;
+
     public RuinClusters(VehicleRoutingProblem vrp, final int initialNumberJobsToRemove, JobNeighborhoods jobNeighborhoods) {
         super(vrp);
         this.vrp = vrp;
+        //keeps distances of routes that did not change between iterations
+        this.dbscan = new DBSCANClusterer(vrp.getTransportCosts());
         setRuinShareFactory(new RuinShareFactory() {
             @Override
             public int createNumberToBeRemoved() {
@@ -109,7 +113,6 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
 
     private void ruin(Collection<VehicleRoute> vehicleRoutes, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
         if (vrp.getJobs().values().size() == 0) return;
-        Map<Job, VehicleRoute> mappedRoutes = map(vehicleRoutes);
         int toRemove = nOfJobs2BeRemoved;
 
         Collection<Job> lastRemoved = new ArrayList<Job>();
@@ -121,14 +124,16 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
             VehicleRoute targetRoute = null;
             if (lastRemoved.isEmpty()) {
                 target = RandomUtils.nextJob(vrp.getJobs().values(), random);
-                targetRoute = mappedRoutes.get(target);
+                targetRoute = getRouteOf(target, vehicleRoutes);
             } else {
                 target = RandomUtils.nextJob(lastRemoved, random);
                 Iterator<Job> neighborIterator = jobNeighborhoods.getNearestNeighborsIterator(nOfJobs2BeRemoved, target);
                 while (neighborIterator.hasNext()) {
                     Job j = neighborIterator.next();
-                    if (!removed.contains(j) && !ruined.contains(mappedRoutes.get(j))) {
-                        targetRoute = mappedRoutes.get(j);
+                    if (removed.contains(j)) continue;
+                    VehicleRoute route = getRouteOf(j, vehicleRoutes);
+                    if (!ruined.contains(route)) {
+                        targetRoute = route;
                         break;
                     }
                 }
@@ -140,7 +145,6 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
                 cycleCandidates.add(targetRoute);
                 break;
             }
-            DBSCANClusterer dbscan = new DBSCANClusterer(vrp.getTransportCosts());
             dbscan.setRandom(random);
             dbscan.setMinPts(minPts);
             dbscan.setEpsFactor(epsFactor);
@@ -148,6 +152,7 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
             for (Job j : cluster) {
                 if (toRemove == 0) break;
                 if (removeJob(j, vehicleRoutes)) {
+                    removed.add(j);
                     lastRemoved.add(j);
                     unassignedJobs.add(j);
                 }
@@ -165,16 +170,6 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
         return wl;
     }
 
-    private Map<Job, VehicleRoute> map(Collection<VehicleRoute> vehicleRoutes) {
-        Map<Job, VehicleRoute> map = new HashMap<Job, VehicleRoute>(vrp.getJobs().size());
-        for (VehicleRoute r : vehicleRoutes) {
-            for (Job j : r.getTourActivities().getJobs()) {
-                map.put(j, r);
-            }
-        }
-        return map;
-    }
-
     @Override
     public String toString() {
         return "[name=clusterRuin]";
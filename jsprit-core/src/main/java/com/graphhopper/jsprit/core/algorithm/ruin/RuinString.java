@@ -114,13 +114,6 @@ public final class RuinString extends AbstractRuinStrategy {
         return unassignedJobs;
     }
 
-    private VehicleRoute getRouteOf(Job job, Collection<VehicleRoute> vehicleRoutes) {
-        for (VehicleRoute route : vehicleRoutes) {
-            if (route.getTourActivities().servesJob(job)) return route;
-        }
-        return null;
-    }
-
     private void ruinRouteWithSplitStringRuin(VehicleRoute seedRoute, Job prevJob, Set<Job> unassignedJobs) {
         int noActivities = seedRoute.getActivities().size();
         int stringLength;
@@ -39,11 +39,216 @@ import java.util.*;
 
 public final class RuinWorst extends AbstractRuinStrategy {
 
+    /*
+     * Activities of all routes in slots numbered in route and activity order. Savings of an activity (without noise)
+     * are kept and only recalculated for the neighbors of removed activities.
+     */
+    private class Savings {
+
+        private final VehicleRoute[] routes;
+
+        private final int[] head;
+
+        private final TourActivity[] acts;
+
+        private final int[] slotRoute;
+
+        private final int[] slotJob;
+
+        private final int[] prev;
+
+        private final int[] next;
+
+        private final boolean[] removed;
+
+        private final double[] raw;
+
+        private final Job[] jobs;
+
+        private final int[] firstSlotOfJob;
+
+        //next slot of the same job
+        private final int[] nextSlotOfJob;
+
+        Savings(Collection<VehicleRoute> vehicleRoutes) {
+            int noActs = 0;
+            int noRoutes = 0;
+            for (VehicleRoute route : vehicleRoutes) {
+                if (route.isEmpty()) continue;
+                noActs += route.getActivities().size();
+                noRoutes++;
+            }
+            routes = new VehicleRoute[noRoutes];
+            head = new int[noRoutes];
+            acts = new TourActivity[noActs];
+            slotRoute = new int[noActs];
+            slotJob = new int[noActs];
+            prev = new int[noActs];
+            next = new int[noActs];
+            removed = new boolean[noActs];
+            raw = new double[noActs];
+            nextSlotOfJob = new int[noActs];
+            Map<Job, Integer> jobIds = new HashMap<Job, Integer>();
+            List<Job> jobList = new ArrayList<Job>();
+            int[] lastSlotOfJob = new int[noActs];
+            int[] firstSlots = new int[noActs];
+            int slot = 0;
+            int r = 0;
+            for (VehicleRoute route : vehicleRoutes) {
+                if (route.isEmpty()) continue;
+                routes[r] = route;
+                head[r] = slot;
+                List<TourActivity> activities = route.getActivities();
+                for (int i = 0; i < activities.size(); i++) {
+                    acts[slot] = activities.get(i);
+                    slotRoute[slot] = r;
+                    prev[slot] = i == 0 ? -1 : slot - 1;
+                    next[slot] = i == activities.size() - 1 ? -1 : slot + 1;
+                    nextSlotOfJob[slot] = -1;
+                    Job job = ((TourActivity.JobActivity) acts[slot]).getJob();
+                    Integer jobId = jobIds.get(job);
+                    if (jobId == null) {
+                        jobId = jobList.size();
+                        jobIds.put(job, jobId);
+                        jobList.add(job);
+                        firstSlots[jobId] = slot;
+                    } else nextSlotOfJob[lastSlotOfJob[jobId]] = slot;
+                    lastSlotOfJob[jobId] = slot;
+                    slotJob[slot] = jobId;
+                    slot++;
+                }
+                r++;
+            }
+            jobs = jobList.toArray(new Job[jobList.size()]);
+            firstSlotOfJob = Arrays.copyOf(firstSlots, jobs.length);
+            for (int i = 0; i < noActs; i++) raw[i] = calculateRaw(i);
+        }
+
+        private double calculateRaw(int slot) {
+            VehicleRoute route = routes[slotRoute[slot]];
+            TourActivity actBefore = prev[slot] == -1 ? route.getStart() : acts[prev[slot]];
+            TourActivity actAfter = next[slot] == -1 ? route.getEnd() : acts[next[slot]];
+            return savings(route, actBefore, acts[slot], actAfter);
+        }
+
+        /**
+         * Unlinks the activities of job and recalculates the savings of their neighbors. Returns the ids of jobs whose
+         * savings changed.
+         */
+        int[] remove(int jobId) {
+            int r = slotRoute[firstSlotOfJob[jobId]];
+            for (int s = firstSlotOfJob[jobId]; s != -1; s = nextSlotOfJob[s]) {
+                removed[s] = true;
+                if (prev[s] != -1) next[prev[s]] = next[s];
+                else head[r] = next[s];
+                if (next[s] != -1) prev[next[s]] = prev[s];
+            }
+            int[] affected = new int[4];
+            int noAffected = 0;
+            for (int s = firstSlotOfJob[jobId]; s != -1; s = nextSlotOfJob[s]) {
+                noAffected = recalculate(prev[s], affected, noAffected);
+                noAffected = recalculate(next[s], affected, noAffected);
+            }
+            return Arrays.copyOf(affected, noAffected);
+        }
+
+        private int recalculate(int slot, int[] affected, int noAffected) {
+            //neighbors of removed activities might have been removed as well
+            while (slot != -1 && removed[slot]) slot = prev[slot];
+            if (slot == -1) return noAffected;
+            raw[slot] = calculateRaw(slot);
+            for (int i = 0; i < noAffected; i++) {
+                if (affected[i] == slotJob[slot]) return noAffected;
+            }
+            affected[noAffected] = slotJob[slot];
+            return noAffected + 1;
+        }
+
+        double jobSavings(int jobId) {
+            double savings = 0.;
+            for (int s = firstSlotOfJob[jobId]; s != -1; s = nextSlotOfJob[s]) {
+                savings += Math.max(0, raw[s]);
+            }
+            return savings;
+        }
+
+    }
+
+    /*
+     * binary max-heap of (savings, job id) with lazy deletion. of equal savings the job with the smaller first slot is on top.
+     */
+    private static class SavingsHeap {
+
+        private final int[] firstSlotOfJob;
+
+        private double[] savings = new double[16];
+
+        private int[] jobIds = new int[16];
+
+        private int size = 0;
+
+        SavingsHeap(int[] firstSlotOfJob) {
+            this.firstSlotOfJob = firstSlotOfJob;
+        }
+
+        private boolean before(double s1, int j1, double s2, int j2) {
+            return s1 > s2 || (s1 == s2 && firstSlotOfJob[j1] < firstSlotOfJob[j2]);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekSavings() {
+            return savings[0];
+        }
+
+        int peekJob() {
+            return jobIds[0];
+        }
+
+        void push(double s, int jobId) {
+            if (size == savings.length) {
+                savings = Arrays.copyOf(savings, size * 2);
+                jobIds = Arrays.copyOf(jobIds, size * 2);
+            }
+            int pos = size++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!before(s, jobId, savings[parent], jobIds[parent])) break;
+                savings[pos] = savings[parent];
+                jobIds[pos] = jobIds[parent];
+                pos = parent;
+            }
+            savings[pos] = s;
+            jobIds[pos] = jobId;
+        }
+
+        void pop() {
+            size--;
+            double s = savings[size];
+            int jobId = jobIds[size];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(savings[child + 1], jobIds[child + 1], savings[child], jobIds[child])) child++;
+                if (!before(savings[child], jobIds[child], s, jobId)) break;
+                savings[pos] = savings[child];
+                jobIds[pos] = jobIds[child];
+                pos = child;
+            }
+            savings[pos] = s;
+            jobIds[pos] = jobId;
+        }
+
+    }
+
     private Logger logger = LoggerFactory.getLogger(RuinWorst.class);
 
     private VehicleRoutingProblem vrp;
 
-    private NoiseMaker noiseMaker = new NoiseMaker() {
+    private final NoiseMaker noNoise = new NoiseMaker() {
 
         @Override
         public double makeNoise() {
@@ -51,6 +256,8 @@ public final class RuinWorst extends AbstractRuinStrategy {
         }
     };
 
+    private NoiseMaker noiseMaker = noNoise;
+
     public void setNoiseMaker(NoiseMaker noiseMaker) {
         this.noiseMaker = noiseMaker;
     }
@@ -80,67 +287,83 @@ public final class RuinWorst extends AbstractRuinStrategy {
         return unassignedJobs;
     }
 
+    /*
+     * Savings of activities are calculated once and only recalculated for the neighbors of removed activities. Without
+     * noise, the worst job is taken from a heap. With noise, noise is drawn for each activity in each step just like
+     * savings were calculated before, thus the random numbers drawn do not change.
+     */
     private void ruin(Collection<VehicleRoute> vehicleRoutes, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
-        LinkedList<Job> availableJobs = new LinkedList<Job>(vrp.getJobs().values());
+        if (nOfJobs2BeRemoved <= 0) return;
+        Savings savings = new Savings(vehicleRoutes);
+        if (noiseMaker == noNoise) ruinWithoutNoise(vehicleRoutes, savings, nOfJobs2BeRemoved, unassignedJobs);
+        else ruinWithNoise(vehicleRoutes, savings, nOfJobs2BeRemoved, unassignedJobs);
+    }
+
+    private void ruinWithoutNoise(Collection<VehicleRoute> vehicleRoutes, Savings savings, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
+        int noJobs = savings.jobs.length;
+        double[] currentSavings = new double[noJobs];
+        boolean[] jobRemoved = new boolean[noJobs];
+        SavingsHeap heap = new SavingsHeap(savings.firstSlotOfJob);
+        for (int j = 0; j < noJobs; j++) {
+            currentSavings[j] = savings.jobSavings(j);
+            heap.push(currentSavings[j], j);
+        }
         int toRemove = nOfJobs2BeRemoved;
         while (toRemove > 0) {
-            Job worst = getWorst(vehicleRoutes);
-            if (worst == null) break;
-            if (removeJob(worst, vehicleRoutes)) {
-                availableJobs.remove(worst);
-                unassignedJobs.add(worst);
+            while (!heap.isEmpty() && (jobRemoved[heap.peekJob()] || heap.peekSavings() != currentSavings[heap.peekJob()])) {
+                heap.pop();
+            }
+            if (heap.isEmpty() || !(heap.peekSavings() > Double.MIN_VALUE)) break;
+            int worst = heap.peekJob();
+            if (removeJob(savings.jobs[worst], vehicleRoutes)) {
+                unassignedJobs.add(savings.jobs[worst]);
+                jobRemoved[worst] = true;
+                heap.pop();
+                for (int affected : savings.remove(worst)) {
+                    currentSavings[affected] = savings.jobSavings(affected);
+                    heap.push(currentSavings[affected], affected);
+                }
             }
             toRemove--;
         }
     }
 
-    private Job getWorst(Collection<VehicleRoute> copied) {
-        Job worst = null;
-        double bestSavings = Double.MIN_VALUE;
-
-        for (VehicleRoute route : copied) {
-            if (route.isEmpty()) continue;
-            Map<Job, Double> savingsMap = new HashMap<Job, Double>();
-            TourActivity actBefore = route.getStart();
-            TourActivity actToEval = null;
-            for (TourActivity act : route.getActivities()) {
-                if (actToEval == null) {
-                    actToEval = act;
-                    continue;
+    private void ruinWithNoise(Collection<VehicleRoute> vehicleRoutes, Savings savings, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
+        int noJobs = savings.jobs.length;
+        double[] jobSavings = new double[noJobs];
+        int[] routeJobs = new int[noJobs];
+        int toRemove = nOfJobs2BeRemoved;
+        while (toRemove > 0) {
+            int worst = -1;
+            double bestSavings = Double.MIN_VALUE;
+            for (int r = 0; r < savings.routes.length; r++) {
+                int noRouteJobs = 0;
+                for (int s = savings.head[r]; s != -1; s = savings.next[s]) {
+                    int jobId = savings.slotJob[s];
+                    double activitySavings = Math.max(0, savings.raw[s] + noiseMaker.makeNoise());
+                    if (s == savings.firstSlotOfJob[jobId]) {
+                        jobSavings[jobId] = activitySavings;
+                        routeJobs[noRouteJobs++] = jobId;
+                    } else jobSavings[jobId] += activitySavings;
                 }
-                double savings = savings(route, actBefore, actToEval, act);
-                Job job = ((TourActivity.JobActivity) actToEval).getJob();
-                if (!savingsMap.containsKey(job)) {
-                    savingsMap.put(job, savings);
-                } else {
-                    double s = savingsMap.get(job);
-                    savingsMap.put(job, s + savings);
+                for (int i = 0; i < noRouteJobs; i++) {
+                    if (jobSavings[routeJobs[i]] > bestSavings) {
+                        bestSavings = jobSavings[routeJobs[i]];
+                        worst = routeJobs[i];
+                    }
                 }
-                actBefore = actToEval;
-                actToEval = act;
-            }
-            double savings = savings(route, actBefore, actToEval, route.getEnd());
-            Job job = ((TourActivity.JobActivity) actToEval).getJob();
-            if (!savingsMap.containsKey(job)) {
-                savingsMap.put(job, savings);
-            } else {
-                double s = savingsMap.get(job);
-                savingsMap.put(job, s + savings);
             }
-            //getCounts best
-            for (Job j : savingsMap.keySet()) {
-                if (savingsMap.get(j) > bestSavings) {
-                    bestSavings = savingsMap.get(j);
-                    worst = j;
-                }
+            if (worst == -1) break;
+            if (removeJob(savings.jobs[worst], vehicleRoutes)) {
+                unassignedJobs.add(savings.jobs[worst]);
+                savings.remove(worst);
             }
+            toRemove--;
         }
-        return worst;
     }
 
     private double savings(VehicleRoute route, TourActivity actBefore, TourActivity actToEval, TourActivity act) {
-        double savings = c(actBefore, actToEval, route.getVehicle()) + c(actToEval, act, route.getVehicle()) - c(actBefore, act, route.getVehicle());
-        return Math.max(0, savings + noiseMaker.makeNoise());
+        return c(actBefore, actToEval, route.getVehicle()) + c(actToEval, act, route.getVehicle()) - c(actBefore, act, route.getVehicle());
     }
 
     private double c(TourActivity from, TourActivity to, Vehicle vehicle) {
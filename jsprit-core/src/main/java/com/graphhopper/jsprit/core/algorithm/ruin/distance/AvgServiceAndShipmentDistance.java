@@ -18,12 +18,15 @@
 package com.graphhopper.jsprit.core.algorithm.ruin.distance;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.BatchTransportCost;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
 
+import java.util.Arrays;
+
 
 /**
  * Calculator that calculates average distance between two jobs based on the input-transport costs.
@@ -32,7 +35,7 @@ import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
  *
  * @author stefan schroeder
  */
-public class AvgServiceAndShipmentDistance implements JobDistance {
+public class AvgServiceAndShipmentDistance implements BatchJobDistance {
 
     private VehicleRoutingTransportCosts costs;
 
@@ -64,6 +67,38 @@ public class AvgServiceAndShipmentDistance implements JobDistance {
         }
     }
 
+    /**
+     * Calculates the distances from job i to many jobs. If the input-transport costs are {@link BatchTransportCost},
+     * the distances between services are calculated in one batch.
+     */
+    @Override
+    public void getDistances(Job i, Job[] js, double[] distances) {
+        if (!(i instanceof Service) || !(costs instanceof BatchTransportCost)) {
+            for (int k = 0; k < js.length; k++) distances[k] = getDistance(i, js[k]);
+            return;
+        }
+        int[] servicePositions = new int[js.length];
+        Location[] serviceLocations = new Location[js.length];
+        int noServices = 0;
+        for (int k = 0; k < js.length; k++) {
+            if (js[k] instanceof Service && !i.equals(js[k])) {
+                servicePositions[noServices] = k;
+                serviceLocations[noServices] = ((Service) js[k]).getLocation();
+                noServices++;
+            } else distances[k] = getDistance(i, js[k]);
+        }
+        if (noServices == 0) return;
+        if (noServices < js.length) serviceLocations = Arrays.copyOf(serviceLocations, noServices);
+        double[] serviceDistances = new double[noServices];
+        try {
+            ((BatchTransportCost) costs).getTransportCosts(((Service) i).getLocation(), serviceLocations, 0.0, null, null, serviceDistances);
+        } catch (IllegalStateException e) {
+            for (int k = 0; k < noServices; k++) distances[servicePositions[k]] = getDistance(i, js[servicePositions[k]]);
+            return;
+        }
+        for (int k = 0; k < noServices; k++) distances[servicePositions[k]] = serviceDistances[k];
+    }
+
     private double calcDist(Service i, Service j) {
         return calcDist(i.getLocation(), j.getLocation());
     }
@@ -0,0 +1,38 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin.distance;
+
+import com.graphhopper.jsprit.core.problem.job.Job;
+
+/**
+ * Job distance that can calculate the distances from one job to many jobs at once.
+ *
+ * @author schroeder
+ */
+public interface BatchJobDistance extends JobDistance {
+
+    /**
+     * Calculates the distances from job i to each job in js, i.e. distances[k] = getDistance(i, js[k]).
+     *
+     * @param i         from job
+     * @param js        to jobs
+     * @param distances array the distances are written to
+     */
+    public void getDistances(Job i, Job[] js, double[] distances);
+
+}
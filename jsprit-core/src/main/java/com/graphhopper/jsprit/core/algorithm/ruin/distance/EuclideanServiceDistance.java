@@ -19,9 +19,10 @@ package com.graphhopper.jsprit.core.algorithm.ruin.distance;
 
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
 
-public class EuclideanServiceDistance implements JobDistance {
+public class EuclideanServiceDistance implements BatchJobDistance {
 
     public EuclideanServiceDistance() {
         super();
@@ -47,4 +48,26 @@ public class EuclideanServiceDistance implements JobDistance {
         return avgCost;
     }
 
+    @Override
+    public void getDistances(Job i, Job[] js, double[] distances) {
+        if (!(i instanceof Service)) throw new UnsupportedOperationException(
+            "currently, this class just works with shipments and services.");
+        Coordinate from = ((Service) i).getLocation().getCoordinate();
+        if (from == null) throw new IllegalStateException("cannot calculate euclidean distance. since service coords are missing");
+        double[] xs = new double[js.length];
+        double[] ys = new double[js.length];
+        for (int k = 0; k < js.length; k++) {
+            if (!(js[k] instanceof Service)) throw new UnsupportedOperationException(
+                "currently, this class just works with shipments and services.");
+            Coordinate to = ((Service) js[k]).getLocation().getCoordinate();
+            if (to == null) throw new IllegalStateException("cannot calculate euclidean distance. since service coords are missing");
+            xs[k] = to.getX();
+            ys[k] = to.getY();
+        }
+        EuclideanDistanceCalculator.calculateDistances(from.getX(), from.getY(), xs, ys, distances, js.length);
+        for (int k = 0; k < js.length; k++) {
+            if (i.equals(js[k])) distances[k] = 0.0;
+        }
+    }
+
 }
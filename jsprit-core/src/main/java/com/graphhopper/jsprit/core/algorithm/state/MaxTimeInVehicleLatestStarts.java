@@ -0,0 +1,289 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.TransportTime;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliveryActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.PickupActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ServiceActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Calculates latest start times at activities such that no max-time-in-vehicle restriction is violated, i.e.
+ * the latest start time at an activity is its start time plus the minimum slack of all jobs that are in the vehicle
+ * at this activity.
+ * <p>
+ * <p>Activities are fed in route order with {@link #visit(TourActivity)}, then {@link #finish(Job)} determines
+ * the latest start times with one backward pass. All working arrays are addressed by the position of the activity
+ * in the sequence and are reused, i.e. once they have grown to the longest sequence, no further memory is allocated.
+ * An instance must not be shared between threads.
+ *
+ * @author schroeder
+ */
+public class MaxTimeInVehicleLatestStarts {
+
+    private final TransportTime transportTime;
+
+    private final VehicleRoutingActivityCosts activityCosts;
+
+    private Vehicle vehicle;
+
+    private Driver driver;
+
+    private Location prevActLocation;
+
+    private double prevActEndTime;
+
+    private int size;
+
+    private TourActivity[] activities = new TourActivity[16];
+
+    private double[] startTimes = new double[16];
+
+    private double[] endTimes = new double[16];
+
+    private double[] slackTimes = new double[16];
+
+    //position of the corresponding pickup of a delivery, -1 if it is not part of the sequence
+    private int[] pickupPositions = new int[16];
+
+    //true for pickups (and services) whose delivery has not been visited (yet)
+    private boolean[] open = new boolean[16];
+
+    private double[] latestStarts = new double[16];
+
+    //open pickups addressed by job index, only valid if openPickupStamps[jobIndex] == stamp
+    private int[] openPickupsByJob = new int[16];
+
+    private int[] openPickupStamps = new int[16];
+
+    private int stamp = 0;
+
+    //binary min-heap of slack times; an entry is dropped as soon as the position of its pickup is reached
+    private double[] heapSlackTimes = new double[16];
+
+    private int[] heapPickupPositions = new int[16];
+
+    private int heapSize;
+
+    private double latestArrivalAtEnd;
+
+    public MaxTimeInVehicleLatestStarts(TransportTime transportTime, VehicleRoutingActivityCosts activityCosts) {
+        this.transportTime = transportTime;
+        this.activityCosts = activityCosts;
+    }
+
+    /**
+     * Starts a new sequence of activities served by vehicle and driver.
+     *
+     * @param vehicle the vehicle
+     * @param driver  the driver
+     */
+    public void begin(Vehicle vehicle, Driver driver) {
+        this.vehicle = vehicle;
+        this.driver = driver;
+        this.prevActLocation = vehicle.getStartLocation();
+        this.prevActEndTime = vehicle.getEarliestDeparture();
+        this.size = 0;
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(openPickupStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Appends activity to the sequence.
+     *
+     * @param activity the activity
+     */
+    public void visit(TourActivity activity) {
+        ensureCapacity(size + 1);
+        int pos = size++;
+        double activityArrival = prevActEndTime + transportTime.getTransportTime(prevActLocation, activity.getLocation(), prevActEndTime, driver, vehicle);
+        double activityStart = Math.max(activityArrival, activity.getTheoreticalEarliestOperationStartTime());
+        double activityEnd = activityStart + activityCosts.getActivityDuration(activity, activityArrival, driver, vehicle);
+        activities[pos] = activity;
+        startTimes[pos] = activityStart;
+        endTimes[pos] = activityEnd;
+        open[pos] = false;
+        pickupPositions[pos] = -1;
+        slackTimes[pos] = Double.NaN;
+        if (activity instanceof ServiceActivity || activity instanceof PickupActivity) {
+            open[pos] = true;
+            putOpenPickup(((TourActivity.JobActivity) activity).getJob(), pos);
+        } else if (activity instanceof DeliveryActivity) {
+            Job job = ((TourActivity.JobActivity) activity).getJob();
+            int pickupPos = removeOpenPickup(job);
+            double pickupEnd;
+            if (pickupPos >= 0) {
+                pickupEnd = endTimes[pickupPos];
+                open[pickupPos] = false;
+            } else pickupEnd = vehicle.getEarliestDeparture();
+            pickupPositions[pos] = pickupPos;
+            slackTimes[pos] = job.getMaxTimeInVehicle() - (activityStart - pickupEnd);
+        }
+        prevActLocation = activity.getLocation();
+        prevActEndTime = activityEnd;
+    }
+
+    /**
+     * Determines the latest start times of all visited activities as well as the latest arrival at the end of the
+     * sequence.
+     *
+     * @param ignore job whose open pickup is not considered, i.e. whose delivery is still to be inserted (can be null)
+     * @return latest arrival at the end
+     */
+    public double finish(Job ignore) {
+        double routeEnd;
+        if (!vehicle.isReturnToDepot()) routeEnd = prevActEndTime;
+        else
+            routeEnd = prevActEndTime + transportTime.getTransportTime(prevActLocation, vehicle.getEndLocation(), prevActEndTime, driver, vehicle);
+        heapSize = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (!open[pos]) continue;
+            Job job = ((TourActivity.JobActivity) activities[pos]).getJob();
+            if (job == ignore) continue;
+            push(job.getMaxTimeInVehicle() - (routeEnd - endTimes[pos]), pos);
+        }
+        latestArrivalAtEnd = routeEnd + minSlackTime(size);
+        for (int pos = size - 1; pos >= 0; pos--) {
+            if (!Double.isNaN(slackTimes[pos])) push(slackTimes[pos], pickupPositions[pos]);
+            latestStarts[pos] = startTimes[pos] + minSlackTime(pos);
+        }
+        return latestArrivalAtEnd;
+    }
+
+    /**
+     * @return latest arrival at the end determined by the last call of {@link #finish(Job)}
+     */
+    public double getLatestArrivalAtEnd() {
+        return latestArrivalAtEnd;
+    }
+
+    /**
+     * @return number of visited activities
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position position in the sequence
+     * @return activity visited at position
+     */
+    public TourActivity getActivity(int position) {
+        return activities[position];
+    }
+
+    /**
+     * @param position position in the sequence
+     * @return latest start time of the activity at position determined by the last call of {@link #finish(Job)}
+     */
+    public double getLatestStart(int position) {
+        return latestStarts[position];
+    }
+
+    private void putOpenPickup(Job job, int pos) {
+        int jobIndex = job.getIndex();
+        if (jobIndex <= 0) return;
+        if (jobIndex >= openPickupsByJob.length) {
+            int newLength = Math.max(jobIndex + 1, openPickupsByJob.length * 2);
+            openPickupsByJob = Arrays.copyOf(openPickupsByJob, newLength);
+            openPickupStamps = Arrays.copyOf(openPickupStamps, newLength);
+        }
+        openPickupsByJob[jobIndex] = pos;
+        openPickupStamps[jobIndex] = stamp;
+    }
+
+    private int removeOpenPickup(Job job) {
+        int jobIndex = job.getIndex();
+        if (jobIndex <= 0) {
+            //jobs without index, e.g. not registered in a problem
+            for (int pos = size - 2; pos >= 0; pos--) {
+                if (open[pos] && ((TourActivity.JobActivity) activities[pos]).getJob() == job) return pos;
+            }
+            return -1;
+        }
+        if (jobIndex >= openPickupStamps.length || openPickupStamps[jobIndex] != stamp) return -1;
+        openPickupStamps[jobIndex] = 0;
+        return openPickupsByJob[jobIndex];
+    }
+
+    private void ensureCapacity(int requiredSize) {
+        if (requiredSize <= activities.length) return;
+        int newLength = Math.max(requiredSize, activities.length * 2);
+        activities = Arrays.copyOf(activities, newLength);
+        startTimes = Arrays.copyOf(startTimes, newLength);
+        endTimes = Arrays.copyOf(endTimes, newLength);
+        slackTimes = Arrays.copyOf(slackTimes, newLength);
+        pickupPositions = Arrays.copyOf(pickupPositions, newLength);
+        open = Arrays.copyOf(open, newLength);
+        latestStarts = Arrays.copyOf(latestStarts, newLength);
+        heapSlackTimes = Arrays.copyOf(heapSlackTimes, newLength);
+        heapPickupPositions = Arrays.copyOf(heapPickupPositions, newLength);
+    }
+
+    /*
+     * minimum slack time of the jobs that are in the vehicle at position, i.e. whose pickup position is < position
+     */
+    private double minSlackTime(int position) {
+        while (heapSize > 0 && heapPickupPositions[0] >= position) pop();
+        if (heapSize == 0) return Double.MAX_VALUE;
+        return heapSlackTimes[0];
+    }
+
+    private void push(double slackTime, int pickupPosition) {
+        int pos = heapSize++;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (heapSlackTimes[parent] <= slackTime) break;
+            heapSlackTimes[pos] = heapSlackTimes[parent];
+            heapPickupPositions[pos] = heapPickupPositions[parent];
+            pos = parent;
+        }
+        heapSlackTimes[pos] = slackTime;
+        heapPickupPositions[pos] = pickupPosition;
+    }
+
+    private void pop() {
+        heapSize--;
+        double slackTime = heapSlackTimes[heapSize];
+        int pickupPosition = heapPickupPositions[heapSize];
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapSlackTimes[child + 1] < heapSlackTimes[child]) child++;
+            if (heapSlackTimes[child] >= slackTime) break;
+            heapSlackTimes[pos] = heapSlackTimes[child];
+            heapPickupPositions[pos] = heapPickupPositions[child];
+            pos = child;
+        }
+        heapSlackTimes[pos] = slackTime;
+        heapPickupPositions[pos] = pickupPosition;
+    }
+
+}
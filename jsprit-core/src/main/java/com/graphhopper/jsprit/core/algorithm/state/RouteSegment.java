@@ -0,0 +1,364 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliverService;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Summary of a sequence of consecutive activities that allows to determine time window, duration, cost and load
+ * data of two concatenated sequences in constant time (see Vidal et al. (2013) A hybrid genetic algorithm with adaptive
+ * diversity management for a large class of vehicle routing problems with time-windows).
+ * <p>
+ * <p>Time data consists of
+ * <ul>
+ * <li>duration, i.e. the minimum time to serve the sequence including travel and waiting times,</li>
+ * <li>time warp, i.e. the minimum amount of time window violations, 0 if the sequence can be served without,</li>
+ * <li>earliest and latest start of the first activity to serve the sequence with minimum duration and time warp.</li>
+ * </ul>
+ * <p>Loads are kept per capacity dimension relative to the load at the beginning of the sequence. Deliveries that
+ * are loaded at the depot (i.e. jobs of type Delivery) are summed up in loadAtBeginning.
+ * <p>
+ * <p>Concatenation assumes that travel times and activity durations do not depend on the time of day. Otherwise,
+ * they are evaluated at the earliest possible departure, i.e. the results are approximations.
+ *
+ * @author schroeder
+ */
+public class RouteSegment {
+
+    /**
+     * Concatenates two segments and returns the resulting segment.
+     *
+     * @param segment1    first segment
+     * @param segment2    second segment that is served after segment1
+     * @param travelTime  travel time from the last location of segment1 to the first location of segment2
+     * @param travelCosts travel costs from the last location of segment1 to the first location of segment2
+     * @return concatenated segment
+     */
+    public static RouteSegment concatenate(RouteSegment segment1, RouteSegment segment2, double travelTime, double travelCosts) {
+        RouteSegment segment = new RouteSegment();
+        segment.setConcatenation(segment1, segment2, travelTime, travelCosts);
+        return segment;
+    }
+
+    /**
+     * Returns the segment that consists of activity only.
+     *
+     * @param activity         the activity
+     * @param activityDuration duration to serve activity
+     * @return segment
+     */
+    public static RouteSegment of(TourActivity activity, double activityDuration) {
+        RouteSegment segment = new RouteSegment();
+        segment.set(activity, activityDuration);
+        return segment;
+    }
+
+    /**
+     * Returns a copy of segment.
+     *
+     * @param segment segment to be copied
+     * @return copy
+     */
+    public static RouteSegment copyOf(RouteSegment segment) {
+        RouteSegment copy = new RouteSegment();
+        copy.set(segment);
+        return copy;
+    }
+
+    /**
+     * Returns the segment that represents the start of vehicle.
+     *
+     * @param vehicle the vehicle
+     * @return segment
+     */
+    public static RouteSegment ofStart(Vehicle vehicle) {
+        RouteSegment segment = new RouteSegment();
+        segment.setStart(vehicle);
+        return segment;
+    }
+
+    /**
+     * Returns the segment that represents the end of vehicle. If the vehicle does not return to depot, the segment has
+     * no location and no time window.
+     *
+     * @param vehicle the vehicle
+     * @return segment
+     */
+    public static RouteSegment ofEnd(Vehicle vehicle) {
+        RouteSegment segment = new RouteSegment();
+        segment.setEnd(vehicle);
+        return segment;
+    }
+
+    private Location firstLocation;
+
+    private Location lastLocation;
+
+    private int nuActivities;
+
+    private double duration;
+
+    private double timeWarp;
+
+    private double earliestStart;
+
+    private double latestStart;
+
+    private double transportCosts;
+
+    private int nuLoadDimensions;
+
+    private int[] loadAtBeginning = new int[1];
+
+    private int[] netLoad = new int[1];
+
+    private int[] maxLoad = new int[1];
+
+    RouteSegment() {
+    }
+
+    void set(TourActivity activity, double activityDuration) {
+        firstLocation = activity.getLocation();
+        lastLocation = activity.getLocation();
+        nuActivities = 1;
+        duration = activityDuration;
+        timeWarp = 0.;
+        earliestStart = activity.getTheoreticalEarliestOperationStartTime();
+        latestStart = activity.getTheoreticalLatestOperationStartTime();
+        transportCosts = 0.;
+        Capacity size = activity.getSize();
+        resetLoads(size.getNuOfDimensions());
+        for (int i = 0; i < size.getNuOfDimensions(); i++) {
+            int value = size.get(i);
+            if (activity instanceof DeliverService) loadAtBeginning[i] = -value;
+            netLoad[i] = value;
+            maxLoad[i] = Math.max(0, value);
+        }
+    }
+
+    void set(RouteSegment segment) {
+        firstLocation = segment.firstLocation;
+        lastLocation = segment.lastLocation;
+        nuActivities = segment.nuActivities;
+        duration = segment.duration;
+        timeWarp = segment.timeWarp;
+        earliestStart = segment.earliestStart;
+        latestStart = segment.latestStart;
+        transportCosts = segment.transportCosts;
+        resetLoads(segment.nuLoadDimensions);
+        for (int i = 0; i < nuLoadDimensions; i++) {
+            loadAtBeginning[i] = segment.loadAtBeginning[i];
+            netLoad[i] = segment.netLoad[i];
+            maxLoad[i] = segment.maxLoad[i];
+        }
+    }
+
+    void setStart(Vehicle vehicle) {
+        setDepot(vehicle.getStartLocation(), vehicle.getEarliestDeparture(), vehicle.getLatestArrival());
+    }
+
+    void setEnd(Vehicle vehicle) {
+        if (vehicle.isReturnToDepot()) {
+            setDepot(vehicle.getEndLocation(), vehicle.getEarliestDeparture(), vehicle.getLatestArrival());
+        } else setDepot(null, 0., Double.MAX_VALUE);
+    }
+
+    private void setDepot(Location location, double earliest, double latest) {
+        firstLocation = location;
+        lastLocation = location;
+        nuActivities = 0;
+        duration = 0.;
+        timeWarp = 0.;
+        earliestStart = earliest;
+        latestStart = latest;
+        transportCosts = 0.;
+        resetLoads(1);
+    }
+
+    private void resetLoads(int nuDimensions) {
+        ensureLoadDimensions(nuDimensions);
+        Arrays.fill(loadAtBeginning, 0);
+        Arrays.fill(netLoad, 0);
+        Arrays.fill(maxLoad, 0);
+        nuLoadDimensions = nuDimensions;
+    }
+
+    private void ensureLoadDimensions(int nuDimensions) {
+        if (nuDimensions > loadAtBeginning.length) {
+            loadAtBeginning = Arrays.copyOf(loadAtBeginning, nuDimensions);
+            netLoad = Arrays.copyOf(netLoad, nuDimensions);
+            maxLoad = Arrays.copyOf(maxLoad, nuDimensions);
+        }
+    }
+
+    /*
+     * this must neither be segment1 nor segment2
+     */
+    void setConcatenation(RouteSegment segment1, RouteSegment segment2, double travelTime, double travelCosts) {
+        double delta = segment1.duration - segment1.timeWarp + travelTime;
+        double deltaWaiting = Math.max(segment2.earliestStart - delta - segment1.latestStart, 0.);
+        double deltaTimeWarp = Math.max(segment1.earliestStart + delta - segment2.latestStart, 0.);
+        firstLocation = segment1.firstLocation != null ? segment1.firstLocation : segment2.firstLocation;
+        lastLocation = segment2.lastLocation != null ? segment2.lastLocation : segment1.lastLocation;
+        nuActivities = segment1.nuActivities + segment2.nuActivities;
+        duration = segment1.duration + segment2.duration + travelTime + deltaWaiting;
+        timeWarp = segment1.timeWarp + segment2.timeWarp + deltaTimeWarp;
+        earliestStart = Math.max(segment2.earliestStart - delta, segment1.earliestStart) - deltaWaiting;
+        latestStart = Math.min(segment2.latestStart - delta, segment1.latestStart) + deltaTimeWarp;
+        transportCosts = segment1.transportCosts + segment2.transportCosts + travelCosts;
+        int nuDimensions = Math.max(segment1.nuLoadDimensions, segment2.nuLoadDimensions);
+        ensureLoadDimensions(nuDimensions);
+        for (int i = 0; i < nuDimensions; i++) {
+            loadAtBeginning[i] = segment1.getLoadAtBeginning(i) + segment2.getLoadAtBeginning(i);
+            netLoad[i] = segment1.getNetLoad(i) + segment2.getNetLoad(i);
+            maxLoad[i] = Math.max(segment1.getMaxLoadRelativeToBeginning(i), segment1.getNetLoad(i) + segment2.getMaxLoadRelativeToBeginning(i));
+        }
+        nuLoadDimensions = nuDimensions;
+    }
+
+    /**
+     * @return location of the first activity, or null if there is none (e.g. an open route end)
+     */
+    public Location getFirstLocation() {
+        return firstLocation;
+    }
+
+    /**
+     * @return location of the last activity, or null if there is none (e.g. an open route end)
+     */
+    public Location getLastLocation() {
+        return lastLocation;
+    }
+
+    /**
+     * @return number of job activities, i.e. start and end do not count
+     */
+    public int getNuActivities() {
+        return nuActivities;
+    }
+
+    /**
+     * @return minimum time to serve the segment including travel, waiting and activity durations
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return minimum amount of time window violations, 0 if the segment can be served without violating time windows
+     */
+    public double getTimeWarp() {
+        return timeWarp;
+    }
+
+    /**
+     * @return earliest start of the first activity that results in minimum duration
+     */
+    public double getEarliestStart() {
+        return earliestStart;
+    }
+
+    /**
+     * @return latest start of the first activity that results in minimum duration
+     */
+    public double getLatestStart() {
+        return latestStart;
+    }
+
+    /**
+     * @return sum of transport costs between the activities of this segment
+     */
+    public double getTransportCosts() {
+        return transportCosts;
+    }
+
+    public int getNuOfLoadDimensions() {
+        return nuLoadDimensions;
+    }
+
+    /**
+     * @param dimension capacity dimension
+     * @return sum of deliveries that need to be loaded at the depot
+     */
+    public int getLoadAtBeginning(int dimension) {
+        if (dimension < nuLoadDimensions) return loadAtBeginning[dimension];
+        return 0;
+    }
+
+    /**
+     * @param dimension capacity dimension
+     * @return change of load from the beginning to the end of the segment
+     */
+    public int getNetLoad(int dimension) {
+        if (dimension < nuLoadDimensions) return netLoad[dimension];
+        return 0;
+    }
+
+    /**
+     * @param dimension capacity dimension
+     * @return maximum load in the segment relative to the load at its beginning, at least 0
+     */
+    public int getMaxLoadRelativeToBeginning(int dimension) {
+        if (dimension < nuLoadDimensions) return maxLoad[dimension];
+        return 0;
+    }
+
+    /**
+     * Returns the maximum load if the segment is a complete route, i.e. the deliveries loaded at the depot plus the
+     * maximum load relative to the beginning.
+     *
+     * @param dimension capacity dimension
+     * @return maximum load
+     */
+    public int getMaxLoad(int dimension) {
+        return getLoadAtBeginning(dimension) + getMaxLoadRelativeToBeginning(dimension);
+    }
+
+    /**
+     * @return true if the segment can be served without violating time windows
+     */
+    public boolean isTimeFeasible() {
+        return timeWarp <= 0.;
+    }
+
+    /**
+     * Returns true if the maximum load (assuming the segment is a complete route) does not exceed capacity in any dimension.
+     *
+     * @param capacity the capacity
+     * @return true if load is feasible
+     */
+    public boolean isLoadFeasible(Capacity capacity) {
+        for (int i = 0; i < Math.max(nuLoadDimensions, capacity.getNuOfDimensions()); i++) {
+            if (getMaxLoad(i) > capacity.get(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "[nuActivities=" + nuActivities + "][duration=" + duration + "][timeWarp=" + timeWarp + "][earliestStart="
+            + earliestStart + "][latestStart=" + latestStart + "][transportCosts=" + transportCosts + "]";
+    }
+
+}
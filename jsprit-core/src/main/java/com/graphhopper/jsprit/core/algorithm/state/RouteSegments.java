@@ -0,0 +1,264 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Route segments of a route, i.e. for each position the segment from the start to this position (prefix), the segment
+ * from this position to the end (suffix) and the segment of the activity itself.
+ * <p>
+ * <p>Since segments can be concatenated in constant time (see {@link RouteSegment}), moves can be evaluated in constant
+ * time as well, e.g. inserting an activity at position i is evaluated by
+ * <code>concatenate(concatenate(getPrefix(i), newSegment), getSuffix(i))</code>.
+ * <p>
+ * <p>Segments are calculated for the vehicle and driver of the route. They are maintained by the StateManager
+ * (see {@link StateManager#updateRouteSegments()}) and are only valid until the route changes.
+ *
+ * @author schroeder
+ */
+public class RouteSegments {
+
+    private final VehicleRoutingTransportCosts transportCosts;
+
+    private final VehicleRoutingActivityCosts activityCosts;
+
+    private Vehicle vehicle;
+
+    private Driver driver;
+
+    private int size;
+
+    private RouteSegment[] activitySegments = new RouteSegment[0];
+
+    //prefixes[i] is the segment from the start up to (excluding) the activity at position i
+    private RouteSegment[] prefixes = new RouteSegment[]{new RouteSegment()};
+
+    //suffixes[i] is the segment from the activity at position i (including) to the end
+    private RouteSegment[] suffixes = new RouteSegment[]{new RouteSegment()};
+
+    private final RouteSegment start = new RouteSegment();
+
+    private final RouteSegment end = new RouteSegment();
+
+    private final RouteSegment route = new RouteSegment();
+
+    public RouteSegments(VehicleRoutingTransportCosts transportCosts, VehicleRoutingActivityCosts activityCosts) {
+        this.transportCosts = transportCosts;
+        this.activityCosts = activityCosts;
+    }
+
+    /**
+     * Starts a new route that is served by vehicle and driver. Segments (and arrays) of the previous route are reused.
+     *
+     * @param vehicle the vehicle
+     * @param driver  the driver
+     */
+    void begin(Vehicle vehicle, Driver driver) {
+        this.vehicle = vehicle;
+        this.driver = driver;
+        this.size = 0;
+        start.setStart(vehicle);
+        end.setEnd(vehicle);
+        prefixes[0].set(start);
+    }
+
+    /**
+     * Appends activity and determines its prefix.
+     *
+     * @param activity the activity
+     */
+    void add(TourActivity activity) {
+        ensureCapacity(size + 1);
+        RouteSegment prefix = prefixes[size];
+        double departure = prefix.getEarliestStart() + prefix.getDuration() - prefix.getTimeWarp();
+        double arrival = departure + transportCosts.getTransportTime(prefix.getLastLocation(), activity.getLocation(), departure, driver, vehicle);
+        activitySegments[size].set(activity, activityCosts.getActivityDuration(activity, Math.max(arrival, activity.getTheoreticalEarliestOperationStartTime()), driver, vehicle));
+        setConcatenation(prefixes[size + 1], prefix, activitySegments[size]);
+        size++;
+    }
+
+    /**
+     * Determines suffixes and the segment of the whole route.
+     */
+    void finish() {
+        suffixes[size].set(end);
+        for (int i = size - 1; i >= 0; i--) {
+            setConcatenation(suffixes[i], activitySegments[i], suffixes[i + 1]);
+        }
+        setConcatenation(route, prefixes[size], end);
+    }
+
+    private void ensureCapacity(int requiredSize) {
+        if (requiredSize <= activitySegments.length) return;
+        int newLength = Math.max(requiredSize, activitySegments.length * 2);
+        int oldLength = activitySegments.length;
+        activitySegments = Arrays.copyOf(activitySegments, newLength);
+        prefixes = Arrays.copyOf(prefixes, newLength + 1);
+        suffixes = Arrays.copyOf(suffixes, newLength + 1);
+        for (int i = oldLength; i < newLength; i++) {
+            activitySegments[i] = new RouteSegment();
+            prefixes[i + 1] = new RouteSegment();
+            suffixes[i + 1] = new RouteSegment();
+        }
+    }
+
+    private void setConcatenation(RouteSegment target, RouteSegment segment1, RouteSegment segment2) {
+        target.setConcatenation(segment1, segment2, getTravelTime(segment1, segment2), getTravelCosts(segment1, segment2));
+    }
+
+    private double getDeparture(RouteSegment segment) {
+        return segment.getEarliestStart() + segment.getDuration() - segment.getTimeWarp();
+    }
+
+    private double getTravelTime(RouteSegment segment1, RouteSegment segment2) {
+        if (segment1.getLastLocation() == null || segment2.getFirstLocation() == null) return 0.;
+        return transportCosts.getTransportTime(segment1.getLastLocation(), segment2.getFirstLocation(), getDeparture(segment1), driver, vehicle);
+    }
+
+    private double getTravelCosts(RouteSegment segment1, RouteSegment segment2) {
+        if (segment1.getLastLocation() == null || segment2.getFirstLocation() == null) return 0.;
+        return transportCosts.getTransportCost(segment1.getLastLocation(), segment2.getFirstLocation(), getDeparture(segment1), driver, vehicle);
+    }
+
+    /**
+     * @return vehicle the segments are calculated for
+     */
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    /**
+     * @return number of activities of the route
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position position of an activity, 0 <= position <= size()
+     * @return segment from the start of the route up to (excluding) the activity at position
+     */
+    public RouteSegment getPrefix(int position) {
+        checkPosition(position, size);
+        return prefixes[position];
+    }
+
+    /**
+     * @param position position of an activity, 0 <= position <= size()
+     * @return segment from the activity at position (including) to the end of the route
+     */
+    public RouteSegment getSuffix(int position) {
+        checkPosition(position, size);
+        return suffixes[position];
+    }
+
+    /**
+     * @param position position of an activity, 0 <= position < size()
+     * @return segment of the activity at position
+     */
+    public RouteSegment getActivitySegment(int position) {
+        checkPosition(position, size - 1);
+        return activitySegments[position];
+    }
+
+    /**
+     * @return segment of the whole route including start and end
+     */
+    public RouteSegment getRoute() {
+        return route;
+    }
+
+    private void checkPosition(int position, int max) {
+        if (position < 0 || position > max)
+            throw new IndexOutOfBoundsException("position " + position + " is out of bounds [0," + max + "]");
+    }
+
+    /**
+     * Returns a new segment that consists of activity only.
+     * <p>Its duration is determined as if the activity is started at its earliest operation start time.</p>
+     *
+     * @param activity the activity
+     * @return segment
+     */
+    public RouteSegment createSegment(TourActivity activity) {
+        return RouteSegment.of(activity, activityCosts.getActivityDuration(activity, activity.getTheoreticalEarliestOperationStartTime(), driver, vehicle));
+    }
+
+    /**
+     * Concatenates two segments, i.e. travel time and costs between them are determined for the vehicle and driver of the route.
+     *
+     * @param segment1 first segment
+     * @param segment2 second segment that is served after segment1
+     * @return concatenated segment
+     */
+    public RouteSegment concatenate(RouteSegment segment1, RouteSegment segment2) {
+        return RouteSegment.concatenate(segment1, segment2, getTravelTime(segment1, segment2), getTravelCosts(segment1, segment2));
+    }
+
+    /**
+     * Returns a new segment of the activities from position from (including) to position to (excluding). Unlike
+     * prefixes and suffixes, it remains valid if the route changes. Note that this takes O(to - from).
+     *
+     * @param from first position
+     * @param to   position after the last activity
+     * @return segment
+     */
+    public RouteSegment getSegment(int from, int to) {
+        if (from < 0 || to > size || from >= to)
+            throw new IndexOutOfBoundsException("segment [" + from + "," + to + ") is out of bounds [0," + size + ")");
+        if (to == from + 1) return RouteSegment.copyOf(activitySegments[from]);
+        RouteSegment segment = activitySegments[from];
+        for (int i = from + 1; i < to; i++) {
+            segment = concatenate(segment, activitySegments[i]);
+        }
+        return segment;
+    }
+
+    /**
+     * Evaluates the route that results from inserting activity before the activity at insertionIndex in constant time.
+     *
+     * @param activity       activity to be inserted
+     * @param insertionIndex position of the activity the new activity is inserted before, 0 <= insertionIndex <= size()
+     * @return segment of the resulting route including start and end
+     */
+    public RouteSegment evaluateInsertion(TourActivity activity, int insertionIndex) {
+        return concatenate(concatenate(getPrefix(insertionIndex), createSegment(activity)), getSuffix(insertionIndex));
+    }
+
+    /**
+     * Evaluates the route that results from removing the activities from position from (including) to position to
+     * (excluding) in constant time.
+     *
+     * @param from first position to be removed
+     * @param to   position after the last activity to be removed
+     * @return segment of the resulting route including start and end
+     */
+    public RouteSegment evaluateRemoval(int from, int to) {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("segment [" + from + "," + to + ") is out of bounds [0," + size + ")");
+        return concatenate(getPrefix(from), getSuffix(to));
+    }
+
+}
@@ -21,6 +21,8 @@ import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListeners;
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.CapacityAccumulator;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
@@ -31,6 +33,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.state.ActivityLoadStateGetter;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
@@ -44,7 +47,7 @@ import java.util.*;
  *
  * @author schroeder
  */
-public class StateManager implements RouteAndActivityStateGetter, IterationStartsListener, RuinListener, InsertionStartsListener, JobInsertedListener, InsertionEndsListener {
+public class StateManager implements RouteAndActivityStateGetter, ActivityLoadStateGetter, IterationStartsListener, RuinListener, InsertionStartsListener, JobInsertedListener, InsertionEndsListener {
 
     private RouteActivityVisitor routeActivityVisitor = new RouteActivityVisitor();
 
@@ -62,6 +65,8 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private boolean updateTWs = false;
 
+    private boolean updateRouteSegments = false;
+
     private final int initialNoStates = 21;
 
     private int stateIndexCounter;
@@ -90,6 +95,18 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private final boolean isIndexedBased;
 
+    /*
+     * load states at activities (LOAD, PAST_MAXLOAD and FUTURE_MAXLOAD) are stored in flat int columns, i.e.
+     * loadColumns[loadState][dimension][activityIndex], rather than as Capacity objects
+     */
+    private static final int nuLoadStates = 3;
+
+    private int nuLoadDimensions;
+
+    private int[][][] loadColumns;
+
+    private boolean[][] loadAssigned;
+
     int getMaxIndexOfVehicleTypeIdentifiers() {
         return nuVehicleTypeKeys;
     }
@@ -148,6 +165,21 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
             vehicleDependentRouteStateMap = new HashMap<VehicleRoute, Object[][]>();
 //        }
         problemStates = new Object[initialStateArrayLength];
+        nuLoadDimensions = getNuLoadDimensions(vrp);
+        loadColumns = new int[nuLoadStates][nuLoadDimensions][nuActivities];
+        loadAssigned = new boolean[nuLoadStates][nuActivities];
+    }
+
+    private int getNuLoadDimensions(VehicleRoutingProblem vrp) {
+        int nuDimensions = 1;
+        for (Vehicle v : vrp.getVehicles()) {
+            if (v.getType() != null && v.getType().getCapacityDimensions() != null)
+                nuDimensions = Math.max(nuDimensions, v.getType().getCapacityDimensions().getNuOfDimensions());
+        }
+        for (Job j : vrp.getJobs().values()) {
+            if (j.getSize() != null) nuDimensions = Math.max(nuDimensions, j.getSize().getNuOfDimensions());
+        }
+        return nuDimensions;
     }
 
     private int getNuVehicleTypes(VehicleRoutingProblem vrp) {
@@ -200,6 +232,9 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
             vehicleDependentRouteStateMap.clear();
         }
         Arrays.fill(problemStates,null);
+        for (boolean[] assigned : loadAssigned) {
+            Arrays.fill(assigned, false);
+        }
     }
 
     private void fill_threeDimArr(Object[][][] states, Object o) {
@@ -232,6 +267,8 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     public <T> T getActivityState(TourActivity act, StateId stateId, Class<T> type) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null;
+        int loadState = getLoadStateIndex(stateId);
+        if (loadState >= 0) return type.cast(getLoadCapacity(act.getIndex(), loadState));
         T state;
         try {
             state = type.cast(activityStates[act.getIndex()][stateId.getIndex()]);
@@ -418,9 +455,130 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, StateId stateId, T state) {
+        int loadState = getLoadStateIndex(stateId);
+        if (loadState >= 0) {
+            if (state == null) loadAssigned[loadState][act.getIndex()] = false;
+            else putLoadState(act.getIndex(), loadState, (Capacity) state);
+            return;
+        }
         activityStates[act.getIndex()][stateId.getIndex()] = state;
     }
 
+    private static int getLoadStateIndex(StateId stateId) {
+        int index = stateId.getIndex();
+        if (index == InternalStates.LOAD.getIndex()) return 0;
+        if (index == InternalStates.PAST_MAXLOAD.getIndex()) return 1;
+        if (index == InternalStates.FUTURE_MAXLOAD.getIndex()) return 2;
+        return -1;
+    }
+
+    private static int getLoadStateIndexOrThrow(StateId stateId) {
+        int loadState = getLoadStateIndex(stateId);
+        if (loadState < 0) throw new IllegalArgumentException("state " + stateId + " is no load state");
+        return loadState;
+    }
+
+    private void ensureLoadDimensions(int requiredNuOfDimensions) {
+        if (requiredNuOfDimensions <= nuLoadDimensions) return;
+        for (int l = 0; l < nuLoadStates; l++) {
+            int[][] columns = Arrays.copyOf(loadColumns[l], requiredNuOfDimensions);
+            for (int d = nuLoadDimensions; d < requiredNuOfDimensions; d++) {
+                columns[d] = new int[nuActivities];
+            }
+            loadColumns[l] = columns;
+        }
+        nuLoadDimensions = requiredNuOfDimensions;
+    }
+
+    private void putLoadState(int activityIndex, int loadState, Capacity load) {
+        ensureLoadDimensions(load.getNuOfDimensions());
+        int[][] columns = loadColumns[loadState];
+        for (int d = 0; d < nuLoadDimensions; d++) {
+            columns[d][activityIndex] = load.get(d);
+        }
+        loadAssigned[loadState][activityIndex] = true;
+    }
+
+    private Capacity getLoadCapacity(int activityIndex, int loadState) {
+        if (!loadAssigned[loadState][activityIndex]) return null;
+        Capacity.Builder builder = Capacity.Builder.newInstance();
+        for (int d = 0; d < nuLoadDimensions; d++) {
+            builder.addDimension(d, loadColumns[loadState][d][activityIndex]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Stores the current values of load as load state at act. Values are copied, i.e. load can be modified afterwards.
+     *
+     * @param act     the activity the load state is associated to
+     * @param stateId the load stateId, i.e. InternalStates.LOAD, InternalStates.PAST_MAXLOAD or InternalStates.FUTURE_MAXLOAD
+     * @param load    the load
+     */
+    void putLoadState(TourActivity act, StateId stateId, CapacityAccumulator load) {
+        int loadState = getLoadStateIndexOrThrow(stateId);
+        ensureLoadDimensions(load.getNuOfDimensions());
+        int[][] columns = loadColumns[loadState];
+        for (int d = 0; d < nuLoadDimensions; d++) {
+            columns[d][act.getIndex()] = load.get(d);
+        }
+        loadAssigned[loadState][act.getIndex()] = true;
+    }
+
+    @Override
+    public int getNuOfLoadDimensions() {
+        return nuLoadDimensions;
+    }
+
+    /**
+     * Returns the value of the specified dimension of the load state at act, or 0 if no value is associated.
+     * <p>This is the allocation-free alternative to <code>getActivityState(act, stateId, Capacity.class).get(dimension)</code>.</p>
+     *
+     * @param act       the activity for which a load state is associated to
+     * @param stateId   the load stateId, i.e. InternalStates.LOAD, InternalStates.PAST_MAXLOAD or InternalStates.FUTURE_MAXLOAD
+     * @param dimension the dimension index
+     * @return dimension value
+     * @throws java.lang.IllegalStateException    if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     * @throws java.lang.IllegalArgumentException if stateId is no load state
+     */
+    @Override
+    public int getLoadState(TourActivity act, StateId stateId, int dimension) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        int loadState = getLoadStateIndexOrThrow(stateId);
+        if (act.getIndex() < 0 || dimension >= nuLoadDimensions) return 0;
+        if (!loadAssigned[loadState][act.getIndex()]) return 0;
+        return loadColumns[loadState][dimension][act.getIndex()];
+    }
+
+    /**
+     * Copies the load state at act into target, i.e. without creating a {@link Capacity}. If no value is associated,
+     * target is reset.
+     *
+     * @param act     the activity for which a load state is associated to
+     * @param stateId the load stateId, i.e. InternalStates.LOAD, InternalStates.PAST_MAXLOAD or InternalStates.FUTURE_MAXLOAD
+     * @param target  the accumulator the load is copied to
+     * @return true if a load state is associated to act, false otherwise
+     * @throws java.lang.IllegalStateException    if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     * @throws java.lang.IllegalArgumentException if stateId is no load state
+     */
+    public boolean getLoadState(TourActivity act, StateId stateId, CapacityAccumulator target) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        int loadState = getLoadStateIndexOrThrow(stateId);
+        target.reset();
+        if (act.getIndex() < 0 || !loadAssigned[loadState][act.getIndex()]) return false;
+        for (int d = 0; d < nuLoadDimensions; d++) {
+            target.set(d, loadColumns[loadState][d][act.getIndex()]);
+        }
+        return true;
+    }
+
+    @Override
+    public int getRouteLoadState(VehicleRoute route, StateId stateId, int dimension) {
+        Capacity load = getRouteState(route, stateId, Capacity.class);
+        if (load == null) return 0;
+        return load.get(dimension);
+    }
+
     <T> void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, StateId stateId, T state) {
         vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
     }
@@ -632,11 +790,34 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         return updateTWs;
     }
 
+    /**
+     * Maintains {@link RouteSegments} of each route such that moves can be evaluated in constant time
+     * (see {@link #getRouteSegments(VehicleRoute)}). Travel times, transport and activity costs are taken from the
+     * VehicleRoutingProblem.
+     */
+    public void updateRouteSegments() {
+        if (!updateRouteSegments) {
+            updateRouteSegments = true;
+            addActivityVisitor(new UpdateRouteSegments(this, vrp.getTransportCosts(), vrp.getActivityCosts()));
+        }
+    }
+
+    /**
+     * Returns the route segments of route, or null if route is empty or route segments are not maintained
+     * (see {@link #updateRouteSegments()}).
+     *
+     * @param route the route
+     * @return route segments
+     */
+    public RouteSegments getRouteSegments(VehicleRoute route) {
+        return getRouteState(route, InternalStates.ROUTE_SEGMENTS, RouteSegments.class);
+    }
+
     /**
      * Updates skill states.
      */
     public void updateSkillStates() {
-        addActivityVisitor(new UpdateSkills(this));
+        addActivityVisitor(new UpdateSkills(this, vrp));
     }
 
 }
@@ -20,6 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.JobInsertedListener;
 import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.CapacityAccumulator;
 import com.graphhopper.jsprit.core.problem.job.Delivery;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Pickup;
@@ -48,7 +49,11 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
     /*
      * default has one dimension with a value of zero
      */
-    private Capacity currentLoad;
+    private final CapacityAccumulator currentLoad = new CapacityAccumulator();
+
+    private final CapacityAccumulator depotLoad = new CapacityAccumulator();
+
+    private final CapacityAccumulator endLoad = new CapacityAccumulator();
 
     private Capacity defaultValue;
 
@@ -62,36 +67,37 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
 
     @Override
     public void begin(VehicleRoute route) {
-        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
-        if (currentLoad == null) currentLoad = defaultValue;
+        Capacity loadAtBeginning = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        if (loadAtBeginning == null) currentLoad.reset();
+        else currentLoad.set(loadAtBeginning);
         this.route = route;
     }
 
     @Override
     public void visit(TourActivity act) {
-        currentLoad = Capacity.addup(currentLoad, act.getSize());
-        stateManager.putInternalTypedActivityState(act, InternalStates.LOAD, currentLoad);
+        currentLoad.add(act.getSize());
+        stateManager.putLoadState(act, InternalStates.LOAD, currentLoad);
 //		assert currentLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "currentLoad at activity must not be > vehicleCapacity";
 //		assert currentLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "currentLoad at act must not be < 0 in one of the applied dimensions";
     }
 
     @Override
     public void finish() {
-        currentLoad = Capacity.Builder.newInstance().build();
+        currentLoad.reset();
     }
 
     void insertionStarts(VehicleRoute route) {
-        Capacity loadAtDepot = Capacity.Builder.newInstance().build();
-        Capacity loadAtEnd = Capacity.Builder.newInstance().build();
+        depotLoad.reset();
+        endLoad.reset();
         for (Job j : route.getTourActivities().getJobs()) {
             if (j instanceof Delivery) {
-                loadAtDepot = Capacity.addup(loadAtDepot, j.getSize());
+                depotLoad.add(j.getSize());
             } else if (j instanceof Pickup || j instanceof Service) {
-                loadAtEnd = Capacity.addup(loadAtEnd, j.getSize());
+                endLoad.add(j.getSize());
             }
         }
-        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_BEGINNING, loadAtDepot);
-        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_END, loadAtEnd);
+        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_BEGINNING, depotLoad.toCapacity());
+        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_END, endLoad.toCapacity());
     }
 
     @Override
@@ -0,0 +1,69 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+/**
+ * Updates {@link RouteSegments} of a route, i.e. prefixes are determined while visiting activities and suffixes
+ * in one backward pass when finishing. Segments of a route are reused when the route is updated again.
+ *
+ * @author schroeder
+ */
+public class UpdateRouteSegments implements ActivityVisitor, StateUpdater {
+
+    private final StateManager stateManager;
+
+    private final VehicleRoutingTransportCosts transportCosts;
+
+    private final VehicleRoutingActivityCosts activityCosts;
+
+    private VehicleRoute route;
+
+    private RouteSegments segments;
+
+    public UpdateRouteSegments(StateManager stateManager, VehicleRoutingTransportCosts transportCosts, VehicleRoutingActivityCosts activityCosts) {
+        this.stateManager = stateManager;
+        this.transportCosts = transportCosts;
+        this.activityCosts = activityCosts;
+    }
+
+    @Override
+    public void begin(VehicleRoute route) {
+        this.route = route;
+        segments = stateManager.getRouteState(route, InternalStates.ROUTE_SEGMENTS, RouteSegments.class);
+        if (segments == null) segments = new RouteSegments(transportCosts, activityCosts);
+        segments.begin(route.getVehicle(), route.getDriver());
+    }
+
+    @Override
+    public void visit(TourActivity activity) {
+        segments.add(activity);
+    }
+
+    @Override
+    public void finish() {
+        segments.finish();
+        stateManager.putTypedInternalRouteState(route, InternalStates.ROUTE_SEGMENTS, segments);
+    }
+
+}
@@ -19,6 +19,8 @@
 package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
@@ -34,10 +36,23 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
 
     private VehicleRoute route;
 
+    private VehicleRoutingProblem vrp;
+
     public UpdateSkills(StateManager statesManager) {
         this.statesManager = statesManager;
     }
 
+    /**
+     * Merges the skills of jobs as represented by vrp, i.e. as bitsets.
+     *
+     * @param statesManager state manager
+     * @param vrp           problem
+     */
+    public UpdateSkills(StateManager statesManager, VehicleRoutingProblem vrp) {
+        this.statesManager = statesManager;
+        this.vrp = vrp;
+    }
+
     @Override
     public void begin(VehicleRoute route) {
         this.route = route;
@@ -47,8 +62,9 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
     @Override
     public void visit(TourActivity activity) {
         if (activity instanceof TourActivity.JobActivity) {
-            Skills skills = ((TourActivity.JobActivity) activity).getJob().getRequiredSkills();
-            skillBuilder.addAllSkills(skills.values());
+            Job job = ((TourActivity.JobActivity) activity).getJob();
+            Skills skills = vrp == null ? job.getRequiredSkills() : vrp.getRequiredSkills(job);
+            skillBuilder.addAllSkills(skills);
         }
     }
 
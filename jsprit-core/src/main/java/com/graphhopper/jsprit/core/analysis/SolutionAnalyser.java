@@ -21,6 +21,8 @@ package com.graphhopper.jsprit.core.analysis;
 import com.graphhopper.jsprit.core.algorithm.VariablePlusFixedSolutionCostCalculatorFactory;
 import com.graphhopper.jsprit.core.algorithm.state.*;
 import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.CapacityAccumulator;
+import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
@@ -35,7 +37,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Calculates a set of statistics for a solution.
@@ -406,9 +407,12 @@ public class SolutionAnalyser {
 
         private boolean skillConstraintViolatedOnRoute;
 
-        private SkillUpdater(StateManager stateManager, StateId skill_id) {
+        private final VehicleRoutingProblem vrp;
+
+        private SkillUpdater(StateManager stateManager, StateId skill_id, VehicleRoutingProblem vrp) {
             this.stateManager = stateManager;
             this.skill_id = skill_id;
+            this.vrp = vrp;
         }
 
         @Override
@@ -421,12 +425,10 @@ public class SolutionAnalyser {
         public void visit(TourActivity activity) {
             boolean violatedAtActivity = false;
             if (activity instanceof TourActivity.JobActivity) {
-                Set<String> requiredForActivity = ((TourActivity.JobActivity) activity).getJob().getRequiredSkills().values();
-                for (String skill : requiredForActivity) {
-                    if (!route.getVehicle().getSkills().containsSkill(skill)) {
-                        violatedAtActivity = true;
-                        skillConstraintViolatedOnRoute = true;
-                    }
+                Skills requiredForActivity = vrp.getRequiredSkills(((TourActivity.JobActivity) activity).getJob());
+                if (!vrp.getSkills(route.getVehicle()).containsAllSkills(requiredForActivity)) {
+                    violatedAtActivity = true;
+                    skillConstraintViolatedOnRoute = true;
                 }
             }
             stateManager.putActivityState(activity, skill_id, violatedAtActivity);
@@ -444,6 +446,9 @@ public class SolutionAnalyser {
 
     private StateManager stateManager;
 
+    //reused to read load states without creating intermediate capacities
+    private final CapacityAccumulator load = new CapacityAccumulator();
+
     private TransportDistance distanceCalculator;
 
     private StateId waiting_time_id;
@@ -548,7 +553,7 @@ public class SolutionAnalyser {
         stateManager.addStateUpdater(new SumUpActivityTimes(waiting_time_id, transport_time_id, service_time_id, too_late_id, stateManager, activityPolicy, vrp.getActivityCosts()));
         stateManager.addStateUpdater(new DistanceUpdater(distance_id, stateManager, distanceCalculator));
         stateManager.addStateUpdater(new BackhaulAndShipmentUpdater(backhaul_id, shipment_id, stateManager));
-        stateManager.addStateUpdater(new SkillUpdater(stateManager, skill_id));
+        stateManager.addStateUpdater(new SkillUpdater(stateManager, skill_id, vrp));
         stateManager.addStateUpdater(new LoadAndActivityCounter(stateManager));
         stateManager.addStateUpdater(new LastTransportUpdater(stateManager, vrp.getTransportCosts(), distanceCalculator, last_transport_distance_id, last_transport_time_id, last_transport_cost_id));
     }
@@ -662,7 +667,8 @@ public class SolutionAnalyser {
         if (activity instanceof Start) return getLoadAtBeginning(route);
         if (activity instanceof End) return getLoadAtEnd(route);
         verifyThatRouteContainsAct(activity, route);
-        return stateManager.getActivityState(activity, InternalStates.LOAD, Capacity.class);
+        if (!stateManager.getLoadState(activity, InternalStates.LOAD, load)) return null;
+        return load.toCapacity();
     }
 
     private void verifyThatRouteContainsAct(TourActivity activity, VehicleRoute route) {
@@ -682,11 +688,9 @@ public class SolutionAnalyser {
         if (activity instanceof Start) return getLoadAtBeginning(route);
         if (activity instanceof End) return getLoadAtEnd(route);
         verifyThatRouteContainsAct(activity, route);
-        Capacity afterAct = stateManager.getActivityState(activity, InternalStates.LOAD, Capacity.class);
-        if (afterAct != null && activity.getSize() != null) {
-            return Capacity.subtract(afterAct, activity.getSize());
-        } else if (afterAct != null) return afterAct;
-        else return null;
+        if (!stateManager.getLoadState(activity, InternalStates.LOAD, load)) return null;
+        if (activity.getSize() != null) load.subtract(activity.getSize());
+        return load.toCapacity();
     }
 
     /**
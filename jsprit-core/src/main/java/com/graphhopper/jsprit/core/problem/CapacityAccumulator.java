@@ -0,0 +1,197 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem;
+
+import java.util.Arrays;
+
+/**
+ * Mutable counterpart of {@link Capacity} to accumulate loads in place.
+ * <p>
+ * <p>Whereas {@link Capacity#addup(Capacity, Capacity)} and {@link Capacity#max(Capacity, Capacity)} create a new
+ * capacity with each call, this accumulator modifies its own values. It grows automatically if a capacity with
+ * more dimensions is added. It is meant to be reused (e.g. while visiting all activities of a route) and is not thread-safe.
+ *
+ * @author schroeder
+ */
+public class CapacityAccumulator {
+
+    private int[] values;
+
+    private int nuOfDimensions;
+
+    /**
+     * Constructs an accumulator with one dimension and a value of 0.
+     */
+    public CapacityAccumulator() {
+        this(1);
+    }
+
+    /**
+     * Constructs an accumulator with the specified number of dimensions, each with a value of 0.
+     *
+     * @param nuOfDimensions initial number of dimensions
+     */
+    public CapacityAccumulator(int nuOfDimensions) {
+        if (nuOfDimensions < 1) throw new IllegalArgumentException("number of dimensions must be at least 1");
+        this.values = new int[nuOfDimensions];
+        this.nuOfDimensions = nuOfDimensions;
+    }
+
+    private void ensureDimensions(int requiredNuOfDimensions) {
+        if (requiredNuOfDimensions > values.length) {
+            values = Arrays.copyOf(values, requiredNuOfDimensions);
+        }
+        if (requiredNuOfDimensions > nuOfDimensions) nuOfDimensions = requiredNuOfDimensions;
+    }
+
+    /**
+     * Sets all dimensions to 0 and shrinks this accumulator to one dimension.
+     *
+     * @return this accumulator
+     */
+    public CapacityAccumulator reset() {
+        Arrays.fill(values, 0, nuOfDimensions, 0);
+        nuOfDimensions = 1;
+        return this;
+    }
+
+    /**
+     * Sets this accumulator to the values of the specified capacity.
+     *
+     * @param capacity capacity to be copied
+     * @return this accumulator
+     */
+    public CapacityAccumulator set(Capacity capacity) {
+        reset();
+        return add(capacity);
+    }
+
+    /**
+     * Adds up capacity, i.e. adds each and every dimension of capacity to this accumulator.
+     *
+     * @param capacity capacity to be added
+     * @return this accumulator
+     */
+    public CapacityAccumulator add(Capacity capacity) {
+        ensureDimensions(capacity.getNuOfDimensions());
+        for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+            values[i] += capacity.get(i);
+        }
+        return this;
+    }
+
+    /**
+     * Subtracts each and every dimension of capacity from this accumulator.
+     *
+     * @param capacity capacity to subtract
+     * @return this accumulator
+     */
+    public CapacityAccumulator subtract(Capacity capacity) {
+        ensureDimensions(capacity.getNuOfDimensions());
+        for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+            values[i] -= capacity.get(i);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the specified dimension to value.
+     *
+     * @param index dimension index
+     * @param value the value
+     * @return this accumulator
+     */
+    public CapacityAccumulator set(int index, int value) {
+        ensureDimensions(index + 1);
+        values[index] = value;
+        return this;
+    }
+
+    /**
+     * Sets the specified dimension to the maximum of its current value and value.
+     *
+     * @param index dimension index
+     * @param value value to compare
+     * @return this accumulator
+     */
+    public CapacityAccumulator max(int index, int value) {
+        ensureDimensions(index + 1);
+        if (value > values[index]) values[index] = value;
+        return this;
+    }
+
+    /**
+     * Sets each dimension to the maximum of its current value and the corresponding value of other.
+     *
+     * @param other accumulator to compare
+     * @return this accumulator
+     */
+    public CapacityAccumulator max(CapacityAccumulator other) {
+        for (int i = 0; i < other.nuOfDimensions; i++) {
+            max(i, other.values[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Returns value of capacity-dimension with specified index, or 0 if the dimension does not exist.
+     *
+     * @param index dimension index
+     * @return the according dimension value
+     */
+    public int get(int index) {
+        if (index < nuOfDimensions) return values[index];
+        return 0;
+    }
+
+    public int getNuOfDimensions() {
+        return nuOfDimensions;
+    }
+
+    /**
+     * Returns true if none of the dimensions is greater than the corresponding dimension in toCompare.
+     *
+     * @param toCompare the capacity to compare
+     * @return true if this accumulator is less or equal than toCompare
+     */
+    public boolean isLessOrEqual(Capacity toCompare) {
+        for (int i = 0; i < nuOfDimensions; i++) {
+            if (values[i] > toCompare.get(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns an immutable copy of the current values.
+     *
+     * @return capacity
+     */
+    public Capacity toCapacity() {
+        Capacity.Builder builder = Capacity.Builder.newInstance();
+        for (int i = 0; i < nuOfDimensions; i++) {
+            builder.addDimension(i, values[i]);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return toCapacity().toString();
+    }
+
+}
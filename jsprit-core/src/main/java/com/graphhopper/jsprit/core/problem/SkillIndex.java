@@ -0,0 +1,103 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each distinct skill of a problem a bit position such that {@link Skills} can be represented as bitset.
+ * <p>It is created when the problem is built. Interning does not change the skill containers of jobs and vehicles, but
+ * creates bitset represented copies that are kept by the problem. Skills interned by the same index can be compared with
+ * a few word operations.
+ *
+ * @author schroeder
+ */
+class SkillIndex {
+
+    private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+    private final List<String> skills = new ArrayList<String>();
+
+    //original skill container to its bitset represented copy
+    private final Map<Skills, Skills> interned = new IdentityHashMap<Skills, Skills>();
+
+    //most jobs do not require skills, thus all empty skill containers share one copy that needs no entry in interned
+    private Skills empty;
+
+    /**
+     * Assigns bit positions to the skills if not yet done and returns a bitset represented copy of the skill container.
+     *
+     * @param skills skill container
+     * @return interned copy of skills
+     */
+    Skills intern(Skills skills) {
+        if (skills.isEmpty()) return getEmpty();
+        Skills internedSkills = interned.get(skills);
+        if (internedSkills != null) return internedSkills;
+        long[] bits = new long[0];
+        for (String skill : skills.values()) {
+            Integer index = indices.get(skill);
+            if (index == null) {
+                index = this.skills.size();
+                indices.put(skill, index);
+                this.skills.add(skill);
+            }
+            bits = Skills.set(bits, index);
+        }
+        internedSkills = Skills.interned(this, bits, skills.values());
+        interned.put(skills, internedSkills);
+        return internedSkills;
+    }
+
+    /**
+     * @return interned copy of skills or skills itself if it has not been interned by this index
+     */
+    Skills getInterned(Skills skills) {
+        Skills internedSkills = interned.get(skills);
+        if (internedSkills == null) return skills.isEmpty() ? getEmpty() : skills;
+        return internedSkills;
+    }
+
+    private Skills getEmpty() {
+        if (empty == null) empty = Skills.interned(this, new long[0], Collections.<String>emptySet());
+        return empty;
+    }
+
+    /**
+     * @return bit position of skill or -1 if skill is unknown
+     */
+    int getIndex(String skill) {
+        Integer index = indices.get(skill);
+        if (index == null) return -1;
+        return index;
+    }
+
+    String getSkill(int index) {
+        return skills.get(index);
+    }
+
+    int size() {
+        return skills.size();
+    }
+
+}
@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.problem;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -25,6 +26,10 @@ import java.util.Set;
 
 /**
  * Skill container managing skills
+ * <p>Skills are immutable. When a {@link VehicleRoutingProblem} is built, it keeps copies of the skills of its jobs and vehicles
+ * that are represented as bitsets (see {@link VehicleRoutingProblem#getRequiredSkills(com.graphhopper.jsprit.core.problem.job.Job)}
+ * and {@link VehicleRoutingProblem#getSkills(com.graphhopper.jsprit.core.problem.vehicle.Vehicle)}). Between those,
+ * {@link #containsAllSkills(Skills)} boils down to a few word operations.
  */
 public class Skills {
 
@@ -41,6 +46,12 @@ public class Skills {
 
         private Set<String> skills = new HashSet<String>();
 
+        private SkillIndex index;
+
+        private long[] bits;
+
+        private boolean mixed = false;
+
         /**
          * Adds skill. Skill is transformed into lowerCase.
          *
@@ -63,6 +74,23 @@ public class Skills {
             return this;
         }
 
+        /**
+         * Adds all skills of a skill container. If skills are represented as bitset, only bits are merged.
+         *
+         * @param skills skill container whose skills are to be added
+         * @return builder
+         */
+        public Builder addAllSkills(Skills skills) {
+            if (skills.index != null && !mixed && (index == null || index == skills.index)) {
+                index = skills.index;
+                bits = or(bits, skills.bits);
+            } else {
+                mixed = true;
+                this.skills.addAll(skills.values());
+            }
+            return this;
+        }
+
         /**
          * Builds the skill container and returns it.
          *
@@ -74,10 +102,76 @@ public class Skills {
 
     }
 
-    private Set<String> skills = new HashSet<String>();
+    static long[] set(long[] bits, int index) {
+        int word = index >>> 6;
+        if (word >= bits.length) bits = Arrays.copyOf(bits, word + 1);
+        bits[word] |= 1L << index;
+        return bits;
+    }
+
+    private static long[] or(long[] bits, long[] other) {
+        if (bits == null) return other.clone();
+        if (other.length > bits.length) bits = Arrays.copyOf(bits, other.length);
+        for (int i = 0; i < other.length; i++) bits[i] |= other[i];
+        return bits;
+    }
+
+    //decoded lazily if skills are represented as bitset
+    private volatile Set<String> skills;
+
+    private final SkillIndex index;
+
+    private final long[] bits;
 
     private Skills(Builder builder) {
-        skills.addAll(builder.skills);
+        long[] b = null;
+        if (builder.index != null && !builder.mixed) {
+            //copy, since the builder might be reused
+            b = builder.bits.clone();
+            for (String skill : builder.skills) {
+                int i = builder.index.getIndex(skill);
+                if (i < 0) {
+                    b = null;
+                    break;
+                }
+                b = set(b, i);
+            }
+        }
+        if (b != null) {
+            index = builder.index;
+            bits = b;
+        } else {
+            index = null;
+            bits = null;
+            Set<String> s = new HashSet<String>(builder.skills);
+            if (builder.index != null) s.addAll(decode(builder.index, builder.bits));
+            skills = s;
+        }
+    }
+
+    private Skills(SkillIndex index, long[] bits, Set<String> skills) {
+        this.index = index;
+        this.bits = bits;
+        this.skills = skills;
+    }
+
+    /**
+     * Creates skills represented as bitset of index.
+     */
+    static Skills interned(SkillIndex index, long[] bits, Set<String> skills) {
+        return new Skills(index, bits, new HashSet<String>(skills));
+    }
+
+    private static Set<String> decode(SkillIndex index, long[] bits) {
+        Set<String> skills = new HashSet<String>();
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                skills.add(index.getSkill(w * 64 + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        return skills;
     }
 
     /**
@@ -86,7 +180,24 @@ public class Skills {
      * @return set of skills in this containter
      */
     public Set<String> values() {
-        return Collections.unmodifiableSet(skills);
+        return Collections.unmodifiableSet(getSkillSet());
+    }
+
+    private Set<String> getSkillSet() {
+        Set<String> s = skills;
+        if (s == null) {
+            s = decode(index, bits);
+            skills = s;
+        }
+        return s;
+    }
+
+    boolean isEmpty() {
+        if (bits == null) return getSkillSet().isEmpty();
+        for (long word : bits) {
+            if (word != 0) return false;
+        }
+        return true;
     }
 
     public String toString() {
@@ -109,7 +220,30 @@ public class Skills {
      * @return true if skill is included, false otherwise
      */
     public boolean containsSkill(String skill) {
-        return skills.contains(skill.toLowerCase());
+        return getSkillSet().contains(skill.toLowerCase());
+    }
+
+    /**
+     * Returns true if this container contains all skills of the specified container. If both are represented as bitset
+     * of the same problem, this takes a few word operations.
+     *
+     * @param required skills that are checked whether they are in this container
+     * @return true if all required skills are included, false otherwise
+     */
+    public boolean containsAllSkills(Skills required) {
+        if (index != null && index == required.index) {
+            long[] r = required.bits;
+            for (int i = 0; i < r.length; i++) {
+                long available = i < bits.length ? bits[i] : 0L;
+                if ((r[i] & ~available) != 0L) return false;
+            }
+            return true;
+        }
+        Set<String> available = getSkillSet();
+        for (String skill : required.getSkillSet()) {
+            if (!available.contains(skill)) return false;
+        }
+        return true;
     }
 
     @Override
@@ -119,13 +253,11 @@ public class Skills {
 
         Skills skills1 = (Skills) o;
 
-        if (skills != null ? !skills.equals(skills1.skills) : skills1.skills != null) return false;
-
-        return true;
+        return getSkillSet().equals(skills1.getSkillSet());
     }
 
     @Override
     public int hashCode() {
-        return skills != null ? skills.hashCode() : 0;
+        return getSkillSet().hashCode();
     }
 }
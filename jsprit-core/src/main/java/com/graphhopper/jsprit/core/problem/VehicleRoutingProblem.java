@@ -93,6 +93,8 @@ public class VehicleRoutingProblem {
 
         private Set<Vehicle> uniqueVehicles = new LinkedHashSet<Vehicle>();
 
+        private SkillIndex skillIndex;
+
         private Set<String> addedVehicleIds = new LinkedHashSet<String>();
 
         private boolean hasBreaks = false;
@@ -353,7 +355,6 @@ public class VehicleRoutingProblem {
             if (jobs.containsKey(job.getId())) {
                 logger.warn("job " + job + " already in job list. overrides existing job.");
             }
-            addLocationToTentativeLocations(job);
 //            tentative_coordinates.put(job.getPickupLocation().getId(), job.getPickupLocation().getCoordinate());
 //            tentative_coordinates.put(job.getDeliveryLocation().getId(), job.getDeliveryLocation().getCoordinate());
             jobs.put(job.getId(), job);
@@ -444,9 +445,22 @@ public class VehicleRoutingProblem {
             boolean hasBreaks = addBreaksToActivityMap();
             if (hasBreaks && fleetSize.equals(FleetSize.INFINITE))
                 throw new UnsupportedOperationException("breaks are not yet supported when dealing with infinite fleet. either set it to finite or omit breaks.");
+            internSkills();
             return new VehicleRoutingProblem(this);
         }
 
+        private void internSkills() {
+            skillIndex = new SkillIndex();
+            for (Job job : tentativeJobs.values()) {
+                if (job.getRequiredSkills() != null) skillIndex.intern(job.getRequiredSkills());
+            }
+            for (Vehicle vehicle : uniqueVehicles) {
+                if (vehicle.getSkills() != null) skillIndex.intern(vehicle.getSkills());
+                if (vehicle.getBreak() != null && vehicle.getBreak().getRequiredSkills() != null)
+                    skillIndex.intern(vehicle.getBreak().getRequiredSkills());
+            }
+        }
+
         @SuppressWarnings("UnusedDeclaration")
         public Builder addLocation(String locationId, Coordinate coordinate) {
             tentative_coordinates.put(locationId, coordinate);
@@ -510,7 +524,6 @@ public class VehicleRoutingProblem {
 
         private Builder addService(Service service) {
 //            tentative_coordinates.put(service.getLocation().getId(), service.getLocation().getCoordinate());
-            addLocationToTentativeLocations(service);
             if (jobs.containsKey(service.getId())) {
                 logger.warn("service " + service + " already in job list. overrides existing job.");
             }
@@ -575,6 +588,8 @@ public class VehicleRoutingProblem {
 
     private int nuActivities;
 
+    private final SkillIndex skillIndex;
+
     private final JobActivityFactory jobActivityFactory = new JobActivityFactory() {
 
         @Override
@@ -596,6 +611,7 @@ public class VehicleRoutingProblem {
         this.nuActivities = builder.activityIndexCounter;
         this.allLocations = builder.allLocations;
         this.allJobs = builder.tentativeJobs;
+        this.skillIndex = builder.skillIndex;
         logger.info("setup problem: {}", this);
     }
 
@@ -680,6 +696,33 @@ public class VehicleRoutingProblem {
         return activityCosts;
     }
 
+    /**
+     * Returns the skills required by job. If job is part of this problem, they are represented as bitset such that
+     * {@link Skills#containsAllSkills(Skills)} takes a few word operations when called with skills of this problem.
+     * The skills of the job itself are not changed.
+     *
+     * @param job the job
+     * @return required skills
+     */
+    public Skills getRequiredSkills(Job job) {
+        Skills skills = job.getRequiredSkills();
+        if (skills == null) return null;
+        return skillIndex.getInterned(skills);
+    }
+
+    /**
+     * Returns the skills of vehicle. If vehicle is part of this problem, they are represented as bitset (see
+     * {@link #getRequiredSkills(Job)}).
+     *
+     * @param vehicle the vehicle
+     * @return skills
+     */
+    public Skills getSkills(Vehicle vehicle) {
+        Skills skills = vehicle.getSkills();
+        if (skills == null) return null;
+        return skillIndex.getInterned(skills);
+    }
+
     public Collection<Location> getAllLocations(){
         return allLocations;
     }
@@ -92,6 +92,44 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
     public Collection<HardActivityConstraint> getLowPrioHardActivityConstraints() {
         return actLevelConstraintManager.getLowPrioConstraints();
     }
+
+    /**
+     * Returns the evaluation statistics of hard activity constraints, i.e. of critical, high and low priority constraints,
+     * each in their current order of evaluation.
+     *
+     * @return statistics of hard activity constraints
+     */
+    public List<ConstraintStatistics> getHardActivityConstraintStatistics() {
+        return actLevelConstraintManager.getStatistics();
+    }
+
+    /**
+     * @return statistics of hard route constraints in their current order of evaluation
+     */
+    public List<ConstraintStatistics> getHardRouteConstraintStatistics() {
+        return hardRouteConstraintManager.getStatistics();
+    }
+
+    public void resetConstraintStatistics() {
+        actLevelConstraintManager.resetStatistics();
+        hardRouteConstraintManager.resetStatistics();
+    }
+
+    /**
+     * Sets whether hard constraints are periodically re-ordered such that cheap and selective ones are evaluated first,
+     * i.e. the ones with most rejections per nanosecond of evaluation. It is switched off by default, thus constraints
+     * are evaluated in the order they were added. Critical and high priority activity constraints as well as route
+     * constraints are re-ordered since whether an insertion is feasible does not depend on order. However, the order
+     * depends on measured evaluation times, thus the constraint that is reported to reject an insertion (e.g. in the
+     * reason codes of unassigned jobs) might differ between runs with the same random seed.
+     *
+     * @param adaptiveOrdering whether constraints are re-ordered
+     */
+    public void setAdaptiveConstraintOrdering(boolean adaptiveOrdering) {
+        actLevelConstraintManager.setAdaptiveOrdering(adaptiveOrdering);
+        hardRouteConstraintManager.setAdaptiveOrdering(adaptiveOrdering);
+    }
+
 //    public Collection<HardActivityConstraint> getHardActivityConstraints() {
 //        return actLevelConstraintManager.g;
 //    }
@@ -160,7 +198,7 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
 
     public void addSkillsConstraint() {
         if (!skillconstraintSet) {
-            addConstraint(new HardSkillConstraint(stateManager));
+            addConstraint(new HardSkillConstraint(stateManager, vrp));
             skillconstraintSet = true;
         }
     }
@@ -193,6 +231,27 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
         return actLevelConstraintManager.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
     }
 
+    /**
+     * Evaluates hard activity constraints like {@link #fulfilled(JobInsertionContext, TourActivity, TourActivity, TourActivity, double)}
+     * and adds the simple class names of constraints that are not fulfilled to failedConstraintNames.
+     *
+     * @param failedConstraintNames collection the names of failed constraints are added to
+     * @return status
+     */
+    public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<String> failedConstraintNames) {
+        return actLevelConstraintManager.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime, failedConstraintNames);
+    }
+
+    /**
+     * Evaluates hard route constraints and returns the first that is not fulfilled.
+     *
+     * @param insertionContext insertion context
+     * @return the violated constraint or null if all hard route constraints are fulfilled
+     */
+    public HardRouteConstraint getViolatedHardRouteConstraint(JobInsertionContext insertionContext) {
+        return hardRouteConstraintManager.getViolatedConstraint(insertionContext);
+    }
+
     public Collection<Constraint> getConstraints() {
         List<Constraint> constraints = new ArrayList<Constraint>();
         constraints.addAll(actLevelConstraintManager.getAllConstraints());
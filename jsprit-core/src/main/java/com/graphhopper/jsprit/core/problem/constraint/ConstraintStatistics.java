@@ -0,0 +1,137 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Evaluation statistics of a hard constraint, i.e. how often it was evaluated, how often it rejected an insertion and how long
+ * an evaluation takes on average.
+ * <p>If adaptive ordering is switched on, constraint managers use them to evaluate cheap and selective constraints first.
+ * Evaluation times are sampled. Counts are recorded per thread and merged periodically (see
+ * {@link ConstraintStatisticsRecorder}), thus if insertions are calculated concurrently, counts of other threads might lag
+ * behind.
+ *
+ * @author schroeder
+ */
+public class ConstraintStatistics {
+
+    private final HardConstraint constraint;
+
+    //position in registration order
+    final int id;
+
+    private volatile long noEvaluations;
+
+    private volatile long noRejections;
+
+    private volatile long noBreaks;
+
+    private volatile long noTimedEvaluations;
+
+    private volatile long totalNanos;
+
+    ConstraintStatistics(HardConstraint constraint, int id) {
+        this.constraint = constraint;
+        this.id = id;
+    }
+
+    public HardConstraint getConstraint() {
+        return constraint;
+    }
+
+    public long getNoEvaluations() {
+        return noEvaluations;
+    }
+
+    /**
+     * @return number of evaluations that did not fulfill the constraint
+     */
+    public long getNoRejections() {
+        return noRejections;
+    }
+
+    /**
+     * @return number of evaluations that returned NOT_FULFILLED_BREAK (activity level constraints only)
+     */
+    public long getNoBreaks() {
+        return noBreaks;
+    }
+
+    public double getRejectionRate() {
+        if (noEvaluations == 0) return 0.;
+        return (double) noRejections / (double) noEvaluations;
+    }
+
+    /**
+     * @return average time of an evaluation in nanoseconds, based on sampled evaluations
+     */
+    public double getAvgEvaluationTime() {
+        if (noTimedEvaluations == 0) return 0.;
+        return (double) totalNanos / (double) noTimedEvaluations;
+    }
+
+    /*
+     * only called by ConstraintStatisticsRecorder while holding its lock
+     */
+    void add(long evaluations, long rejections, long breaks, long timedEvaluations, long nanos) {
+        noEvaluations += evaluations;
+        noRejections += rejections;
+        noBreaks += breaks;
+        noTimedEvaluations += timedEvaluations;
+        totalNanos += nanos;
+    }
+
+    void reset() {
+        noEvaluations = 0;
+        noRejections = 0;
+        noBreaks = 0;
+        noTimedEvaluations = 0;
+        totalNanos = 0;
+    }
+
+    /**
+     * Returns the positions of the statistics ordered by decreasing number of rejections per nanosecond, i.e. the constraint that
+     * most likely ends the evaluation at the lowest costs comes first. Ties keep the given order.
+     *
+     * @param statistics statistics
+     * @param breaksOnly whether only NOT_FULFILLED_BREAK ends the evaluation
+     * @return positions
+     */
+    static Integer[] order(ConstraintStatistics[] statistics, boolean breaksOnly) {
+        //compute scores once such that the comparator stays consistent while other threads merge counts
+        final double[] scores = new double[statistics.length];
+        Integer[] positions = new Integer[statistics.length];
+        for (int i = 0; i < statistics.length; i++) {
+            ConstraintStatistics s = statistics[i];
+            double rate = (double) ((breaksOnly ? s.noBreaks : s.noRejections) + 1) / (double) (s.noEvaluations + 2);
+            double avgTime = (double) (s.totalNanos + 1) / (double) (s.noTimedEvaluations + 1);
+            scores[i] = rate / avgTime;
+            positions[i] = i;
+        }
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(scores[o2], scores[o1]);
+            }
+        });
+        return positions;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import java.util.Arrays;
+
+/**
+ * Records evaluations of hard constraints per thread, such that evaluating constraints concurrently does neither lose
+ * counts nor write to shared memory. A thread merges its counts into the shared {@link ConstraintStatistics} whenever
+ * its constraint manager re-orders constraints and when statistics are requested.
+ *
+ * @author schroeder
+ */
+class ConstraintStatisticsRecorder {
+
+    static final int EVALUATIONS = 0;
+
+    static final int REJECTIONS = 1;
+
+    static final int BREAKS = 2;
+
+    static final int TIMED_EVALUATIONS = 3;
+
+    static final int NANOS = 4;
+
+    private static final int NO_COUNTERS = 5;
+
+    /**
+     * counts of a single thread, indexed by id of constraint statistics and counter
+     */
+    static class Counts {
+
+        private long[] counts = new long[0];
+
+        private int epoch;
+
+        long noEvaluations;
+
+        void ensureCapacity(int noConstraints) {
+            if (counts.length < noConstraints * NO_COUNTERS) counts = Arrays.copyOf(counts, noConstraints * NO_COUNTERS);
+        }
+
+        void add(int id, int counter, long value) {
+            counts[id * NO_COUNTERS + counter] += value;
+        }
+
+    }
+
+    private final ThreadLocal<Counts> counts = new ThreadLocal<Counts>() {
+
+        @Override
+        protected Counts initialValue() {
+            Counts c = new Counts();
+            c.epoch = epoch;
+            return c;
+        }
+
+    };
+
+    //incremented on reset such that counts recorded before are discarded
+    private volatile int epoch;
+
+    /**
+     * @return counts of the calling thread
+     */
+    Counts getCounts() {
+        return counts.get();
+    }
+
+    /**
+     * Merges counts of the calling thread into statistics, whose ids are their positions.
+     */
+    synchronized void merge(Counts c, ConstraintStatistics[] statistics) {
+        if (c.epoch == epoch) {
+            int n = Math.min(statistics.length, c.counts.length / NO_COUNTERS);
+            for (int id = 0; id < n; id++) {
+                int offset = id * NO_COUNTERS;
+                statistics[id].add(c.counts[offset + EVALUATIONS], c.counts[offset + REJECTIONS], c.counts[offset + BREAKS],
+                    c.counts[offset + TIMED_EVALUATIONS], c.counts[offset + NANOS]);
+            }
+        }
+        Arrays.fill(c.counts, 0L);
+        c.epoch = epoch;
+    }
+
+    /**
+     * Resets statistics and discards counts that other threads recorded so far.
+     */
+    synchronized void reset(ConstraintStatistics[] statistics) {
+        epoch++;
+        for (ConstraintStatistics s : statistics) s.reset();
+        Counts c = counts.get();
+        Arrays.fill(c.counts, 0L);
+        c.epoch = epoch;
+    }
+
+    /**
+     * Returns the order of statistics based on a consistent snapshot (see {@link ConstraintStatistics#order(ConstraintStatistics[], boolean)}).
+     */
+    synchronized Integer[] order(ConstraintStatistics[] statistics, boolean breaksOnly) {
+        return ConstraintStatistics.order(statistics, breaksOnly);
+    }
+
+}
@@ -21,29 +21,104 @@ import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-
+/**
+ * Evaluates hard activity constraints by priority.
+ * <p>Within critical and high priority, all constraints are evaluated unless one returns NOT_FULFILLED_BREAK. The status does
+ * therefore not depend on the order of evaluation. If adaptive ordering is switched on, these constraints are periodically
+ * re-ordered such that the ones that break most often per nanosecond come first. Since this order depends on measured
+ * evaluation times, the constraint reported first as not fulfilled might then differ from run to run. By default, constraints
+ * are evaluated in the order they were added. Low priority constraints return the first status that is not FULFILLED, thus
+ * they are always evaluated in the order they were added.
+ */
 class HardActivityLevelConstraintManager implements HardActivityConstraint {
 
+    static final int SAMPLING_MASK = 31;
+
+    private static class Group {
+
+        final HardActivityConstraint[] constraints;
+
+        final ConstraintStatistics[] statistics;
+
+        Group(HardActivityConstraint[] constraints, ConstraintStatistics[] statistics) {
+            this.constraints = constraints;
+            this.statistics = statistics;
+        }
+
+        Group add(HardActivityConstraint constraint, ConstraintStatistics statistics) {
+            HardActivityConstraint[] c = Arrays.copyOf(constraints, constraints.length + 1);
+            ConstraintStatistics[] s = Arrays.copyOf(this.statistics, this.statistics.length + 1);
+            c[constraints.length] = constraint;
+            s[this.statistics.length] = statistics;
+            return new Group(c, s);
+        }
+
+        Group reorder(ConstraintStatisticsRecorder recorder) {
+            if (constraints.length < 2) return this;
+            Integer[] order = recorder.order(statistics, true);
+            HardActivityConstraint[] c = new HardActivityConstraint[constraints.length];
+            ConstraintStatistics[] s = new ConstraintStatistics[statistics.length];
+            for (int i = 0; i < order.length; i++) {
+                c[i] = constraints[order[i]];
+                s[i] = statistics[order[i]];
+            }
+            return new Group(c, s);
+        }
+
+    }
+
     private Collection<HardActivityConstraint> criticalConstraints = new ArrayList<HardActivityConstraint>();
 
     private Collection<HardActivityConstraint> highPrioConstraints = new ArrayList<HardActivityConstraint>();
 
     private Collection<HardActivityConstraint> lowPrioConstraints = new ArrayList<HardActivityConstraint>();
 
+    private volatile Group critical = new Group(new HardActivityConstraint[0], new ConstraintStatistics[0]);
+
+    private volatile Group highPrio = critical;
+
+    private volatile Group lowPrio = critical;
+
+    //statistics in registration order, i.e. by their id
+    private volatile ConstraintStatistics[] statisticsById = new ConstraintStatistics[0];
+
+    private final ConstraintStatisticsRecorder recorder = new ConstraintStatisticsRecorder();
+
+    private volatile boolean adaptiveOrdering = false;
+
+    private int reorderInterval = 10000;
+
     public void addConstraint(HardActivityConstraint constraint, ConstraintManager.Priority priority) {
+        ConstraintStatistics[] byId = Arrays.copyOf(statisticsById, statisticsById.length + 1);
+        ConstraintStatistics statistics = new ConstraintStatistics(constraint, statisticsById.length);
+        byId[statisticsById.length] = statistics;
+        statisticsById = byId;
         if (priority.equals(ConstraintManager.Priority.CRITICAL)) {
             criticalConstraints.add(constraint);
+            critical = critical.add(constraint, statistics);
         } else if (priority.equals(ConstraintManager.Priority.HIGH)) {
             highPrioConstraints.add(constraint);
+            highPrio = highPrio.add(constraint, statistics);
         } else {
             lowPrioConstraints.add(constraint);
+            lowPrio = lowPrio.add(constraint, statistics);
         }
     }
 
+    void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+
+    void setReorderInterval(int reorderInterval) {
+        if (reorderInterval < 1) throw new IllegalArgumentException("reorder interval must be at least 1");
+        this.reorderInterval = reorderInterval;
+    }
+
     Collection<HardActivityConstraint> getCriticalConstraints() {
         return Collections.unmodifiableCollection(criticalConstraints);
     }
@@ -64,41 +139,102 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
         return Collections.unmodifiableCollection(c);
     }
 
+    /**
+     * @return statistics of critical, high and low priority constraints, each in current order of evaluation
+     */
+    List<ConstraintStatistics> getStatistics() {
+        recorder.merge(recorder.getCounts(), statisticsById);
+        List<ConstraintStatistics> s = new ArrayList<ConstraintStatistics>();
+        s.addAll(Arrays.asList(critical.statistics));
+        s.addAll(Arrays.asList(highPrio.statistics));
+        s.addAll(Arrays.asList(lowPrio.statistics));
+        return Collections.unmodifiableList(s);
+    }
+
+    void resetStatistics() {
+        recorder.reset(statisticsById);
+    }
+
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
-        ConstraintsStatus notFulfilled = null;
-        for (HardActivityConstraint c : criticalConstraints) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
-                return status;
-            } else {
-                if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    notFulfilled = status;
-                }
+        return fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime, null);
+    }
+
+    /**
+     * Evaluates constraints and adds the simple class names of the constraints that are not fulfilled to failedConstraintNames
+     * (if not null).
+     */
+    ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<String> failedConstraintNames) {
+        ConstraintStatisticsRecorder.Counts counts = recorder.getCounts();
+        ConstraintStatistics[] byId = statisticsById;
+        counts.ensureCapacity(byId.length);
+        long n = counts.noEvaluations++;
+        boolean timed = (n & SAMPLING_MASK) == 0;
+        if (n > 0 && n % reorderInterval == 0) {
+            recorder.merge(counts, byId);
+            if (adaptiveOrdering) {
+                critical = critical.reorder(recorder);
+                highPrio = highPrio.reorder(recorder);
             }
         }
-        if (notFulfilled != null) return notFulfilled;
-
-        for (HardActivityConstraint c : highPrioConstraints) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+        ConstraintsStatus status = fulfilledAll(critical, counts, timed, iFacts, prevAct, newAct, nextAct, prevActDepTime, failedConstraintNames);
+        if (status != ConstraintsStatus.FULFILLED) return status;
+
+        status = fulfilledAll(highPrio, counts, timed, iFacts, prevAct, newAct, nextAct, prevActDepTime, failedConstraintNames);
+        if (status != ConstraintsStatus.FULFILLED) return status;
+
+        Group group = lowPrio;
+        for (int i = 0; i < group.constraints.length; i++) {
+            status = evaluate(group, i, counts, timed, iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            if (status == ConstraintsStatus.NOT_FULFILLED_BREAK || status == ConstraintsStatus.NOT_FULFILLED) {
+                if (failedConstraintNames != null)
+                    failedConstraintNames.add(group.constraints[i].getClass().getSimpleName());
                 return status;
-            } else {
-                if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    notFulfilled = status;
-                }
             }
         }
-        if (notFulfilled != null) return notFulfilled;
 
-        for (HardActivityConstraint constraint : lowPrioConstraints) {
-            ConstraintsStatus status = constraint.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK) || status.equals(ConstraintsStatus.NOT_FULFILLED)) {
+        return ConstraintsStatus.FULFILLED;
+    }
+
+    private static ConstraintsStatus fulfilledAll(Group group, ConstraintStatisticsRecorder.Counts counts, boolean timed, JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<String> failedConstraintNames) {
+        ConstraintsStatus notFulfilled = null;
+        List<String> failed = null;
+        for (int i = 0; i < group.constraints.length; i++) {
+            ConstraintsStatus status = evaluate(group, i, counts, timed, iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            if (status == ConstraintsStatus.NOT_FULFILLED_BREAK) {
+                if (failedConstraintNames != null)
+                    failedConstraintNames.add(group.constraints[i].getClass().getSimpleName());
                 return status;
+            } else if (status == ConstraintsStatus.NOT_FULFILLED) {
+                notFulfilled = status;
+                if (failedConstraintNames != null) {
+                    if (failed == null) failed = new ArrayList<String>();
+                    failed.add(group.constraints[i].getClass().getSimpleName());
+                }
             }
         }
+        if (notFulfilled == null) return ConstraintsStatus.FULFILLED;
+        if (failed != null) failedConstraintNames.addAll(failed);
+        return notFulfilled;
+    }
 
-        return ConstraintsStatus.FULFILLED;
+    private static ConstraintsStatus evaluate(Group group, int i, ConstraintStatisticsRecorder.Counts counts, boolean timed, JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+        int id = group.statistics[i].id;
+        ConstraintsStatus status;
+        if (timed) {
+            long start = System.nanoTime();
+            status = group.constraints[i].fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            counts.add(id, ConstraintStatisticsRecorder.NANOS, System.nanoTime() - start);
+            counts.add(id, ConstraintStatisticsRecorder.TIMED_EVALUATIONS, 1);
+        } else {
+            status = group.constraints[i].fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        }
+        counts.add(id, ConstraintStatisticsRecorder.EVALUATIONS, 1);
+        if (status != ConstraintsStatus.FULFILLED) {
+            counts.add(id, ConstraintStatisticsRecorder.REJECTIONS, 1);
+            if (status == ConstraintsStatus.NOT_FULFILLED_BREAK) counts.add(id, ConstraintStatisticsRecorder.BREAKS, 1);
+        }
+        return status;
     }
 
 }
@@ -20,30 +20,134 @@ package com.graphhopper.jsprit.core.problem.constraint;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
-
+/**
+ * Evaluates hard route constraints. By default, constraints are evaluated in the order they were added. If adaptive
+ * ordering is switched on, they are periodically re-ordered such that the ones that reject most often per nanosecond come
+ * first.
+ */
 class HardRouteLevelConstraintManager implements HardRouteConstraint {
 
+    private static class Group {
+
+        final HardRouteConstraint[] constraints;
+
+        final ConstraintStatistics[] statistics;
+
+        Group(HardRouteConstraint[] constraints, ConstraintStatistics[] statistics) {
+            this.constraints = constraints;
+            this.statistics = statistics;
+        }
+
+    }
+
     private Collection<HardRouteConstraint> hardConstraints = new ArrayList<HardRouteConstraint>();
 
+    private volatile Group group = new Group(new HardRouteConstraint[0], new ConstraintStatistics[0]);
+
+    //statistics in registration order, i.e. by their id
+    private volatile ConstraintStatistics[] statisticsById = new ConstraintStatistics[0];
+
+    private final ConstraintStatisticsRecorder recorder = new ConstraintStatisticsRecorder();
+
+    private volatile boolean adaptiveOrdering = false;
+
+    private int reorderInterval = 10000;
+
     public void addConstraint(HardRouteConstraint constraint) {
         hardConstraints.add(constraint);
+        Group g = group;
+        HardRouteConstraint[] c = Arrays.copyOf(g.constraints, g.constraints.length + 1);
+        ConstraintStatistics[] s = Arrays.copyOf(g.statistics, g.statistics.length + 1);
+        c[g.constraints.length] = constraint;
+        s[g.statistics.length] = new ConstraintStatistics(constraint, statisticsById.length);
+        ConstraintStatistics[] byId = Arrays.copyOf(statisticsById, statisticsById.length + 1);
+        byId[statisticsById.length] = s[g.statistics.length];
+        statisticsById = byId;
+        group = new Group(c, s);
+    }
+
+    void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+
+    void setReorderInterval(int reorderInterval) {
+        if (reorderInterval < 1) throw new IllegalArgumentException("reorder interval must be at least 1");
+        this.reorderInterval = reorderInterval;
     }
 
     Collection<HardRouteConstraint> getConstraints() {
         return Collections.unmodifiableCollection(hardConstraints);
     }
 
+    /**
+     * @return statistics of constraints in current order of evaluation
+     */
+    List<ConstraintStatistics> getStatistics() {
+        recorder.merge(recorder.getCounts(), statisticsById);
+        return Collections.unmodifiableList(Arrays.asList(group.statistics));
+    }
+
+    void resetStatistics() {
+        recorder.reset(statisticsById);
+    }
+
+    private void reorder() {
+        Group g = group;
+        if (g.constraints.length < 2) return;
+        Integer[] order = recorder.order(g.statistics, false);
+        HardRouteConstraint[] c = new HardRouteConstraint[g.constraints.length];
+        ConstraintStatistics[] s = new ConstraintStatistics[g.statistics.length];
+        for (int i = 0; i < order.length; i++) {
+            c[i] = g.constraints[order[i]];
+            s[i] = g.statistics[order[i]];
+        }
+        group = new Group(c, s);
+    }
+
     @Override
     public boolean fulfilled(JobInsertionContext insertionContext) {
-        for (HardRouteConstraint constraint : hardConstraints) {
-            if (!constraint.fulfilled(insertionContext)) {
-                return false;
+        return getViolatedConstraint(insertionContext) == null;
+    }
+
+    /**
+     * @return the first constraint that is not fulfilled or null if all are fulfilled
+     */
+    HardRouteConstraint getViolatedConstraint(JobInsertionContext insertionContext) {
+        ConstraintStatisticsRecorder.Counts counts = recorder.getCounts();
+        ConstraintStatistics[] byId = statisticsById;
+        counts.ensureCapacity(byId.length);
+        long n = counts.noEvaluations++;
+        boolean timed = (n & HardActivityLevelConstraintManager.SAMPLING_MASK) == 0;
+        if (n > 0 && n % reorderInterval == 0) {
+            recorder.merge(counts, byId);
+            if (adaptiveOrdering) reorder();
+        }
+        Group g = group;
+        HardRouteConstraint[] c = g.constraints;
+        ConstraintStatistics[] s = g.statistics;
+        for (int i = 0; i < c.length; i++) {
+            int id = s[i].id;
+            boolean fulfilled;
+            if (timed) {
+                long start = System.nanoTime();
+                fulfilled = c[i].fulfilled(insertionContext);
+                counts.add(id, ConstraintStatisticsRecorder.NANOS, System.nanoTime() - start);
+                counts.add(id, ConstraintStatisticsRecorder.TIMED_EVALUATIONS, 1);
+            } else {
+                fulfilled = c[i].fulfilled(insertionContext);
+            }
+            counts.add(id, ConstraintStatisticsRecorder.EVALUATIONS, 1);
+            if (!fulfilled) {
+                counts.add(id, ConstraintStatisticsRecorder.REJECTIONS, 1);
+                return c[i];
             }
         }
-        return true;
+        return null;
     }
 
 }
@@ -20,6 +20,7 @@ package com.graphhopper.jsprit.core.problem.constraint;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
 import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
 
@@ -32,25 +33,40 @@ public class HardSkillConstraint implements HardRouteConstraint {
 
     private RouteAndActivityStateGetter states;
 
+    private VehicleRoutingProblem vrp;
+
     public HardSkillConstraint(RouteAndActivityStateGetter states) {
         this.states = states;
     }
 
+    /**
+     * Compares skills as represented by vrp, i.e. as bitsets.
+     *
+     * @param states state getter
+     * @param vrp    problem
+     */
+    public HardSkillConstraint(RouteAndActivityStateGetter states, VehicleRoutingProblem vrp) {
+        this.states = states;
+        this.vrp = vrp;
+    }
+
     @Override
     public boolean fulfilled(JobInsertionContext insertionContext) {
-        for (String skill : insertionContext.getJob().getRequiredSkills().values()) {
-            if (!insertionContext.getNewVehicle().getSkills().containsSkill(skill)) {
-                return false;
-            }
+        Skills vehicleSkills;
+        Skills requiredSkills;
+        if (vrp == null) {
+            vehicleSkills = insertionContext.getNewVehicle().getSkills();
+            requiredSkills = insertionContext.getJob().getRequiredSkills();
+        } else {
+            vehicleSkills = vrp.getSkills(insertionContext.getNewVehicle());
+            requiredSkills = vrp.getRequiredSkills(insertionContext.getJob());
+        }
+        if (!vehicleSkills.containsAllSkills(requiredSkills)) {
+            return false;
         }
         Skills requiredSkillsForRoute = states.getRouteState(insertionContext.getRoute(), InternalStates.SKILLS, Skills.class);
         if (requiredSkillsForRoute == null) requiredSkillsForRoute = defaultSkills;
-        for (String skill : requiredSkillsForRoute.values()) {
-            if (!insertionContext.getNewVehicle().getSkills().containsSkill(skill)) {
-                return false;
-            }
-        }
-        return true;
+        return vehicleSkills.containsAllSkills(requiredSkillsForRoute);
     }
 
 }
@@ -18,24 +18,18 @@
 
 package com.graphhopper.jsprit.core.problem.constraint;
 
+import com.graphhopper.jsprit.core.algorithm.state.MaxTimeInVehicleLatestStarts;
 import com.graphhopper.jsprit.core.algorithm.state.StateId;
 import com.graphhopper.jsprit.core.algorithm.state.StateManager;
-import com.graphhopper.jsprit.core.algorithm.state.UpdateMaxTimeInVehicle;
-import com.graphhopper.jsprit.core.algorithm.state.UpdateVehicleDependentPracticalTimeWindows;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.cost.TransportTime;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
-import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliveryActivity;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.PickupActivity;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
-import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 
 /**
@@ -53,6 +47,19 @@ public class MaxTimeInVehicleConstraint implements HardActivityConstraint {
 
     private final StateManager stateManager;
 
+    /*
+     * evaluates routes with the pickup of the new shipment inserted; constraints are checked concurrently, thus each
+     * thread gets its own (reusable) instance
+     */
+    private final ThreadLocal<MaxTimeInVehicleLatestStarts> latestStarts = new ThreadLocal<MaxTimeInVehicleLatestStarts>() {
+
+        @Override
+        protected MaxTimeInVehicleLatestStarts initialValue() {
+            return new MaxTimeInVehicleLatestStarts(transportTime, activityCosts);
+        }
+
+    };
+
     public MaxTimeInVehicleConstraint(TransportTime transportTime, VehicleRoutingActivityCosts activityCosts, StateId latestStartId, StateManager stateManager, VehicleRoutingProblem vrp) {
         this.transportTime = transportTime;
         this.latestStartId = latestStartId;
@@ -116,29 +123,25 @@ public class MaxTimeInVehicleConstraint implements HardActivityConstraint {
         } else {
             boolean isShipment = iFacts.getAssociatedActivities().size() == 2;
             if (newActIsDelivery && isShipment) {
-                StateManager localStateManager = new StateManager(vrp);
-                StateId stateId = localStateManager.createStateId("local-slack");
-                UpdateMaxTimeInVehicle updateMaxTimeInVehicle = new UpdateMaxTimeInVehicle(localStateManager, stateId, transportTime, activityCosts);
-                updateMaxTimeInVehicle.setVehiclesToUpdate(new UpdateVehicleDependentPracticalTimeWindows.VehiclesToUpdate() {
-                    @Override
-                    public Collection<Vehicle> get(VehicleRoute route) {
-                        return Arrays.asList(iFacts.getNewVehicle());
-                    }
-                });
-                updateMaxTimeInVehicle.begin(iFacts.getRoute());
-                List<TourActivity> tourActivities = new ArrayList<>(iFacts.getRoute().getActivities());
-                tourActivities.add(iFacts.getRelatedActivityContext().getInsertionIndex(), iFacts.getAssociatedActivities().get(0));
-                for (TourActivity act : tourActivities) {
-                    updateMaxTimeInVehicle.visit(act);
+                MaxTimeInVehicleLatestStarts localLatestStarts = latestStarts.get();
+                localLatestStarts.begin(iFacts.getNewVehicle(), iFacts.getRoute().getDriver());
+                List<TourActivity> tourActivities = iFacts.getRoute().getActivities();
+                TourActivity pickup = iFacts.getAssociatedActivities().get(0);
+                int pickupIndex = iFacts.getRelatedActivityContext().getInsertionIndex();
+                int nextActPosition = -1;
+                for (int i = 0; i <= tourActivities.size(); i++) {
+                    if (i == pickupIndex) localLatestStarts.visit(pickup);
+                    if (i == tourActivities.size()) break;
+                    TourActivity act = tourActivities.get(i);
+                    if (act == nextAct) nextActPosition = localLatestStarts.size();
+                    localLatestStarts.visit(act);
                 }
-                updateMaxTimeInVehicle.finish(tourActivities, iFacts.getJob());
+                double latestArrivalAtEnd = localLatestStarts.finish(iFacts.getJob());
 
                 double latest;
                 if (iFacts.getRoute().isEmpty()) latest = Double.MAX_VALUE;
-                else if (nextAct instanceof End) {
-                    latest = localStateManager.getRouteState(iFacts.getRoute(), iFacts.getNewVehicle(), stateId, Double.class);
-                } else
-                    latest = localStateManager.getActivityState(nextAct, iFacts.getNewVehicle(), stateId, Double.class);
+                else if (nextAct instanceof End) latest = latestArrivalAtEnd;
+                else latest = localLatestStarts.getLatestStart(nextActPosition);
 
                 if (nextActStart > latest) {
                     return ConstraintsStatus.NOT_FULFILLED;
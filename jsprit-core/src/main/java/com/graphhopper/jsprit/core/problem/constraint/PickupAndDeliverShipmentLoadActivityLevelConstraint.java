@@ -24,6 +24,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliverShipme
 import com.graphhopper.jsprit.core.problem.solution.route.activity.PickupShipment;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.Start;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.state.ActivityLoadStateGetter;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
 
 
@@ -39,6 +40,8 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
 
     private RouteAndActivityStateGetter stateManager;
 
+    private ActivityLoadStateGetter loadStateGetter;
+
     private Capacity defaultValue;
 
     /**
@@ -52,6 +55,7 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
     public PickupAndDeliverShipmentLoadActivityLevelConstraint(RouteAndActivityStateGetter stateManager) {
         super();
         this.stateManager = stateManager;
+        if (stateManager instanceof ActivityLoadStateGetter) loadStateGetter = (ActivityLoadStateGetter) stateManager;
         defaultValue = Capacity.Builder.newInstance().build();
     }
 
@@ -63,25 +67,39 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
         if (!(newAct instanceof PickupShipment) && !(newAct instanceof DeliverShipment)) {
             return ConstraintsStatus.FULFILLED;
         }
-        Capacity loadAtPrevAct;
-        if (prevAct instanceof Start) {
-            loadAtPrevAct = stateManager.getRouteState(iFacts.getRoute(), InternalStates.LOAD_AT_BEGINNING, Capacity.class);
-            if (loadAtPrevAct == null) loadAtPrevAct = defaultValue;
-        } else {
-            loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
-            if (loadAtPrevAct == null) loadAtPrevAct = defaultValue;
-        }
+        Capacity capacity = iFacts.getNewVehicle().getType().getCapacityDimensions();
         if (newAct instanceof PickupShipment) {
-            if (!Capacity.addup(loadAtPrevAct, newAct.getSize()).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions())) {
+            if (!isLessOrEqual(iFacts, prevAct, newAct.getSize(), 1, capacity)) {
                 return ConstraintsStatus.NOT_FULFILLED;
             }
         }
         if (newAct instanceof DeliverShipment) {
-            if (!Capacity.addup(loadAtPrevAct, Capacity.invert(newAct.getSize())).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions()))
+            if (!isLessOrEqual(iFacts, prevAct, newAct.getSize(), -1, capacity))
                 return ConstraintsStatus.NOT_FULFILLED_BREAK;
         }
         return ConstraintsStatus.FULFILLED;
     }
 
+    /*
+     * checks whether loadAtPrevAct + sign * size <= capacity without creating intermediate capacities
+     */
+    private boolean isLessOrEqual(JobInsertionContext iFacts, TourActivity prevAct, Capacity size, int sign, Capacity capacity) {
+        if (loadStateGetter != null) {
+            boolean atStart = prevAct instanceof Start;
+            int nuOfDimensions = Math.max(loadStateGetter.getNuOfLoadDimensions(), size.getNuOfDimensions());
+            for (int i = 0; i < nuOfDimensions; i++) {
+                int load = atStart ? loadStateGetter.getRouteLoadState(iFacts.getRoute(), InternalStates.LOAD_AT_BEGINNING, i) : loadStateGetter.getLoadState(prevAct, InternalStates.LOAD, i);
+                if (load + sign * size.get(i) > capacity.get(i)) return false;
+            }
+            return true;
+        }
+        Capacity loadAtPrevAct;
+        if (prevAct instanceof Start) loadAtPrevAct = stateManager.getRouteState(iFacts.getRoute(), InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        else loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
+        if (loadAtPrevAct == null) loadAtPrevAct = defaultValue;
+        if (sign < 0) return Capacity.isDifferenceLessOrEqual(loadAtPrevAct, size, capacity);
+        return Capacity.isSumLessOrEqual(loadAtPrevAct, size, capacity);
+    }
+
 
 }
@@ -18,9 +18,11 @@
 package com.graphhopper.jsprit.core.problem.constraint;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.StateId;
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.*;
+import com.graphhopper.jsprit.core.problem.solution.route.state.ActivityLoadStateGetter;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
 
 
@@ -28,6 +30,9 @@ import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivity
  * Ensures load constraint for inserting ServiceActivity.
  * <p>
  * <p>When using this, you need to use<br>
+ * <p>
+ * <p>If the stateManager provides load states dimension by dimension (see {@link ActivityLoadStateGetter}), loads at
+ * activities and at the start of the route are checked without creating any intermediate capacities.
  *
  * @author schroeder
  */
@@ -35,40 +40,51 @@ public class ServiceLoadActivityLevelConstraint implements HardActivityConstrain
 
     private RouteAndActivityStateGetter stateManager;
 
+    private ActivityLoadStateGetter loadStateGetter;
+
     private Capacity defaultValue;
 
     public ServiceLoadActivityLevelConstraint(RouteAndActivityStateGetter stateManager) {
         super();
         this.stateManager = stateManager;
+        if (stateManager instanceof ActivityLoadStateGetter) loadStateGetter = (ActivityLoadStateGetter) stateManager;
         defaultValue = Capacity.Builder.newInstance().build();
     }
 
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
-        Capacity futureMaxLoad;
-        Capacity prevMaxLoad;
-        if (prevAct instanceof Start) {
-            futureMaxLoad = stateManager.getRouteState(iFacts.getRoute(), InternalStates.MAXLOAD, Capacity.class);
-            if (futureMaxLoad == null) futureMaxLoad = defaultValue;
-            prevMaxLoad = stateManager.getRouteState(iFacts.getRoute(), InternalStates.LOAD_AT_BEGINNING, Capacity.class);
-            if (prevMaxLoad == null) prevMaxLoad = defaultValue;
-        } else {
-            futureMaxLoad = stateManager.getActivityState(prevAct, InternalStates.FUTURE_MAXLOAD, Capacity.class);
-            if (futureMaxLoad == null) futureMaxLoad = defaultValue;
-            prevMaxLoad = stateManager.getActivityState(prevAct, InternalStates.PAST_MAXLOAD, Capacity.class);
-            if (prevMaxLoad == null) prevMaxLoad = defaultValue;
-
-        }
+        Capacity capacity = iFacts.getNewVehicle().getType().getCapacityDimensions();
         if (newAct instanceof PickupService || newAct instanceof ServiceActivity) {
-            if (!Capacity.addup(newAct.getSize(), futureMaxLoad).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions())) {
+            if (!isLessOrEqual(iFacts, prevAct, InternalStates.MAXLOAD, InternalStates.FUTURE_MAXLOAD, newAct.getSize(), 1, capacity)) {
                 return ConstraintsStatus.NOT_FULFILLED;
             }
         }
         if (newAct instanceof DeliverService) {
-            if (!Capacity.addup(Capacity.invert(newAct.getSize()), prevMaxLoad).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions())) {
+            if (!isLessOrEqual(iFacts, prevAct, InternalStates.LOAD_AT_BEGINNING, InternalStates.PAST_MAXLOAD, newAct.getSize(), -1, capacity)) {
                 return ConstraintsStatus.NOT_FULFILLED_BREAK;
             }
         }
         return ConstraintsStatus.FULFILLED;
     }
+
+    /*
+     * checks whether load + sign * size <= capacity, whereas load is the route state at start and the activity state otherwise
+     */
+    private boolean isLessOrEqual(JobInsertionContext iFacts, TourActivity prevAct, StateId routeStateId, StateId activityStateId, Capacity size, int sign, Capacity capacity) {
+        if (loadStateGetter != null) {
+            boolean atStart = prevAct instanceof Start;
+            int nuOfDimensions = Math.max(loadStateGetter.getNuOfLoadDimensions(), size.getNuOfDimensions());
+            for (int i = 0; i < nuOfDimensions; i++) {
+                int load = atStart ? loadStateGetter.getRouteLoadState(iFacts.getRoute(), routeStateId, i) : loadStateGetter.getLoadState(prevAct, activityStateId, i);
+                if (load + sign * size.get(i) > capacity.get(i)) return false;
+            }
+            return true;
+        }
+        Capacity load;
+        if (prevAct instanceof Start) load = stateManager.getRouteState(iFacts.getRoute(), routeStateId, Capacity.class);
+        else load = stateManager.getActivityState(prevAct, activityStateId, Capacity.class);
+        if (load == null) load = defaultValue;
+        if (sign < 0) return Capacity.isDifferenceLessOrEqual(load, size, capacity);
+        return Capacity.isSumLessOrEqual(load, size, capacity);
+    }
 }
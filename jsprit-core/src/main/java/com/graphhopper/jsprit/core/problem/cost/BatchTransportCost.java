@@ -0,0 +1,45 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.cost;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * Transport costs that can calculate the costs from one location to many locations at once.
+ * <p>Pre-processing steps that need many costs (e.g. job neighborhoods and clustering) use it if the transport costs implement it.
+ * Results must be the same as calling {@link TransportCost#getTransportCost(Location, Location, double, Driver, Vehicle)} for each location.
+ *
+ * @author schroeder
+ */
+public interface BatchTransportCost {
+
+    /**
+     * Calculates the transport costs from one location to many locations.
+     *
+     * @param from          from location
+     * @param to            to locations
+     * @param departureTime departure time at from location
+     * @param driver        the driver
+     * @param vehicle       the vehicle
+     * @param costs         array the costs are written to, i.e. costs[i] are the costs from from to to[i]
+     */
+    public void getTransportCosts(Location from, Location[] to, double departureTime, Driver driver, Vehicle vehicle, double[] costs);
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route;
+
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from job to the route serving it.
+ * <p>It registers itself as {@link TourActivities.JobListener} at the tour activities of its routes, thus it is kept up to date
+ * whenever activities are added or removed. Several indices can listen to the same routes, e.g. if ruin strategies are nested. Looking up the route of a job is O(1) (provided jobs are indexed by the
+ * {@link com.graphhopper.jsprit.core.problem.VehicleRoutingProblem}). Note that copies of routes (see {@link VehicleRoute#copyOf(VehicleRoute)})
+ * are not indexed, i.e. build a new index for a copied collection of routes.
+ * <p>The index only knows the route of a job, not its position within the route. Positions shift with every insertion
+ * and removal, thus use {@link TourActivities#getActivities()} to locate the activities of a job within its route.
+ * <p>So far the index is only used by the ruin strategies (see {@link com.graphhopper.jsprit.core.algorithm.ruin.AbstractRuinStrategy}),
+ * i.e. insertion, {@link com.graphhopper.jsprit.core.analysis.SolutionAnalyser} and constraints still locate jobs themselves.
+ * Ruin strategies index the routes once per ruin since each iteration ruins a new copy of a solution.
+ * <p>Call {@link #detach()} once the index is not needed anymore, otherwise its routes keep informing it.
+ *
+ * @author schroeder
+ */
+public class JobRouteIndex {
+
+    private class RouteListener implements TourActivities.JobListener {
+
+        private final VehicleRoute route;
+
+        RouteListener(VehicleRoute route) {
+            this.route = route;
+        }
+
+        @Override
+        public void jobAdded(Job job) {
+            put(job, route);
+        }
+
+        @Override
+        public void jobRemoved(Job job) {
+            remove(job, route);
+        }
+
+    }
+
+    /**
+     * Creates an index of the specified routes.
+     *
+     * @param routes routes to be indexed
+     * @return index
+     */
+    public static JobRouteIndex newInstance(Collection<VehicleRoute> routes) {
+        JobRouteIndex index = new JobRouteIndex();
+        for (VehicleRoute route : routes) index.addRoute(route);
+        return index;
+    }
+
+    private VehicleRoute[] routeOfJob = new VehicleRoute[16];
+
+    private Job[] jobs = new Job[16];
+
+    //true if different jobs have been put with the same index, e.g. breaks or jobs not added to the problem
+    private boolean ambiguousIndices = false;
+
+    private final List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+
+    private final Map<VehicleRoute, RouteListener> listeners = new IdentityHashMap<VehicleRoute, RouteListener>();
+
+    /**
+     * Adds route and its jobs to the index. Adding a route that is already indexed has no effect.
+     *
+     * @param route route to be indexed
+     */
+    public void addRoute(VehicleRoute route) {
+        if (listeners.containsKey(route)) return;
+        RouteListener listener = new RouteListener(route);
+        listeners.put(route, listener);
+        routes.add(route);
+        route.getTourActivities().addJobListener(listener);
+        for (Job job : route.getTourActivities().getJobs()) put(job, route);
+    }
+
+    /**
+     * Removes route and its jobs from the index.
+     *
+     * @param route route to be removed
+     */
+    public void removeRoute(VehicleRoute route) {
+        RouteListener listener = listeners.remove(route);
+        if (listener == null) return;
+        routes.remove(route);
+        route.getTourActivities().removeJobListener(listener);
+        for (Job job : route.getTourActivities().getJobs()) remove(job, route);
+    }
+
+    /**
+     * Returns the route serving the specified job.
+     *
+     * @param job the job
+     * @return the route serving job, or null if no indexed route serves it
+     */
+    public VehicleRoute getRoute(Job job) {
+        int index = job.getIndex();
+        if (index >= 0 && index < routeOfJob.length && job.equals(jobs[index])) {
+            VehicleRoute route = routeOfJob[index];
+            if (route != null && route.getTourActivities().servesJob(job)) return route;
+        }
+        if (!ambiguousIndices) return null;
+        for (VehicleRoute route : routes) {
+            if (route.getTourActivities().servesJob(job)) return route;
+        }
+        return null;
+    }
+
+    /**
+     * Stops listening to the routes.
+     */
+    public void detach() {
+        for (VehicleRoute route : routes) route.getTourActivities().removeJobListener(listeners.get(route));
+        routes.clear();
+        listeners.clear();
+        Arrays.fill(routeOfJob, null);
+        Arrays.fill(jobs, null);
+        ambiguousIndices = false;
+    }
+
+    private void put(Job job, VehicleRoute route) {
+        int index = job.getIndex();
+        if (index < 0) {
+            ambiguousIndices = true;
+            return;
+        }
+        if (index >= routeOfJob.length) {
+            int newLength = Math.max(index + 1, routeOfJob.length * 2);
+            routeOfJob = Arrays.copyOf(routeOfJob, newLength);
+            jobs = Arrays.copyOf(jobs, newLength);
+        }
+        if (jobs[index] != null && routeOfJob[index] != null && !jobs[index].equals(job)) ambiguousIndices = true;
+        jobs[index] = job;
+        routeOfJob[index] = route;
+    }
+
+    private void remove(Job job, VehicleRoute route) {
+        int index = job.getIndex();
+        if (index >= 0 && index < routeOfJob.length && routeOfJob[index] == route && job.equals(jobs[index])) {
+            routeOfJob[index] = null;
+        }
+    }
+
+}
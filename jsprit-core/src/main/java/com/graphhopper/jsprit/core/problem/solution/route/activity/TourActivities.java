@@ -67,12 +67,36 @@ public class TourActivities {
         }
     }
 
+    /**
+     * Listener that is informed whenever a job is added to or removed from this activity sequence.
+     */
+    public interface JobListener {
+
+        /**
+         * Informs that the first activity of job has been added.
+         *
+         * @param job the job added
+         */
+        public void jobAdded(Job job);
+
+        /**
+         * Informs that the last activity of job has been removed.
+         *
+         * @param job the job removed
+         */
+        public void jobRemoved(Job job);
+
+    }
+
     private final ArrayList<TourActivity> tourActivities = new ArrayList<TourActivity>();
 
-    private final Set<Job> jobs = new HashSet<Job>();
+    //memorizes the number of activities per job, such that removing an activity does not require to look for other activities of its job
+    private final Map<Job, Integer> jobs = new HashMap<Job, Integer>();
 
     private ReverseActivityIterator backward;
 
+    private final List<JobListener> jobListeners = new ArrayList<JobListener>();
+
     private TourActivities(TourActivities tour2copy) {
         for (TourActivity tourAct : tour2copy.getActivities()) {
             TourActivity newAct = tourAct.duplicate();
@@ -98,7 +122,7 @@ public class TourActivities {
     }
 
     public Collection<Job> getJobs() {
-        return Collections.unmodifiableSet(jobs);
+        return Collections.unmodifiableSet(jobs.keySet());
     }
 
     /**
@@ -106,7 +130,40 @@ public class TourActivities {
      * @return true if job is in jobList, otherwise false.
      */
     public boolean servesJob(Job job) {
-        return jobs.contains(job);
+        return jobs.containsKey(job);
+    }
+
+    /**
+     * Adds a listener that is informed about jobs added and removed. Copies of this activity sequence do not inherit
+     * listeners.
+     *
+     * @param jobListener the listener to be added
+     */
+    public void addJobListener(JobListener jobListener) {
+        if (jobListener == null) throw new IllegalArgumentException("job listener must not be null");
+        jobListeners.add(jobListener);
+    }
+
+    /**
+     * Removes the specified listener.
+     *
+     * @param jobListener the listener to be removed
+     * @return true if the listener has been removed, false if it was not registered
+     */
+    public boolean removeJobListener(JobListener jobListener) {
+        return jobListeners.remove(jobListener);
+    }
+
+    public List<JobListener> getJobListeners() {
+        return Collections.unmodifiableList(jobListeners);
+    }
+
+    private void informJobAdded(Job job) {
+        for (int i = 0; i < jobListeners.size(); i++) jobListeners.get(i).jobAdded(job);
+    }
+
+    private void informJobRemoved(Job job) {
+        for (int i = 0; i < jobListeners.size(); i++) jobListeners.get(i).jobRemoved(job);
     }
 
     @Override
@@ -123,25 +180,26 @@ public class TourActivities {
      * @return true if job has been removed, otherwise false.
      */
     public boolean removeJob(Job job) {
-        boolean jobRemoved = false;
-        if (!jobs.contains(job)) {
+        Integer noActivities = jobs.remove(job);
+        if (noActivities == null) {
             return false;
-        } else {
-            jobRemoved = jobs.remove(job);
         }
+        int activitiesToRemove = noActivities;
         boolean activityRemoved = false;
         Iterator<TourActivity> iterator = tourActivities.iterator();
-        while (iterator.hasNext()) {
+        while (iterator.hasNext() && activitiesToRemove > 0) {
             TourActivity c = iterator.next();
             if (c instanceof JobActivity) {
                 Job underlyingJob = ((JobActivity) c).getJob();
                 if (job.equals(underlyingJob)) {
                     iterator.remove();
                     activityRemoved = true;
+                    activitiesToRemove--;
                 }
             }
         }
-        assert jobRemoved == activityRemoved : "job removed, but belonging activity not.";
+        assert activityRemoved : "job removed, but belonging activity not.";
+        informJobRemoved(job);
         return activityRemoved;
     }
 
@@ -155,29 +213,30 @@ public class TourActivities {
      * @return true if activity has been removed, false otherwise
      */
     public boolean removeActivity(TourActivity activity) {
-        Job job = null;
-        if (activity instanceof JobActivity) {
-            job = ((JobActivity) activity).getJob();
-        }
-        boolean jobIsAlsoAssociateToOtherActs = false;
-        boolean actRemoved = false;
-        List<TourActivity> acts = new ArrayList<TourActivity>(tourActivities);
-        for (TourActivity act : acts) {
-            if (act == activity) {
-                tourActivities.remove(act);
-                actRemoved = true;
-            } else {
-                if (act instanceof JobActivity && job != null) {
-                    if (((JobActivity) act).getJob().equals(job)) {
-                        jobIsAlsoAssociateToOtherActs = true;
-                    }
-                }
+        int index = -1;
+        for (int i = 0; i < tourActivities.size(); i++) {
+            if (tourActivities.get(i) == activity) {
+                index = i;
+                break;
             }
         }
-        if (!jobIsAlsoAssociateToOtherActs && actRemoved) {
+        if (index < 0) return false;
+        tourActivities.remove(index);
+        if (activity instanceof JobActivity) {
+            removeJobActivity(((JobActivity) activity).getJob());
+        }
+        return true;
+    }
+
+    private void removeJobActivity(Job job) {
+        Integer noActivities = jobs.get(job);
+        if (noActivities == null) return;
+        if (noActivities > 1) {
+            jobs.put(job, noActivities - 1);
+        } else {
             jobs.remove(job);
+            informJobRemoved(job);
         }
-        return actRemoved;
     }
 
 
@@ -227,8 +286,11 @@ public class TourActivities {
     private void addJob(TourActivity act) {
         if (act instanceof JobActivity) {
             Job job = ((JobActivity) act).getJob();
-//            if(job instanceof Service) assert !jobs.contains(job);
-            jobs.add(job);
+            Integer noActivities = jobs.get(job);
+            if (noActivities == null) {
+                jobs.put(job, 1);
+                informJobAdded(job);
+            } else jobs.put(job, noActivities + 1);
         }
     }
 
@@ -0,0 +1,59 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route.state;
+
+import com.graphhopper.jsprit.core.algorithm.state.StateId;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+/**
+ * Provides load states at activities dimension by dimension, i.e. without creating
+ * {@link com.graphhopper.jsprit.core.problem.Capacity} objects.
+ *
+ * @author schroeder
+ */
+public interface ActivityLoadStateGetter {
+
+    /**
+     * Returns the number of load dimensions that are stored.
+     *
+     * @return number of load dimensions
+     */
+    public int getNuOfLoadDimensions();
+
+    /**
+     * Returns the value of the specified dimension of the load state at act, or 0 if no value is associated.
+     *
+     * @param act       the activity for which a load state is associated to
+     * @param stateId   the load stateId, e.g. InternalStates.LOAD
+     * @param dimension the dimension index
+     * @return dimension value
+     */
+    public int getLoadState(TourActivity act, StateId stateId, int dimension);
+
+    /**
+     * Returns the value of the specified dimension of the load state of route, or 0 if no value is associated.
+     *
+     * @param route     the route for which a load state is associated to
+     * @param stateId   the load stateId, e.g. InternalStates.LOAD_AT_BEGINNING
+     * @param dimension the dimension index
+     * @return dimension value
+     */
+    public int getRouteLoadState(VehicleRoute route, StateId stateId, int dimension);
+
+}
@@ -33,6 +33,8 @@ public class FiniteFleetManagerFactory implements VehicleFleetManagerFactory {
 
     private Random random = RandomNumberGeneration.getRandom();
 
+    private boolean threadSafe = false;
+
     /**
      * Constucts the factory.
      *
@@ -47,6 +49,15 @@ public class FiniteFleetManagerFactory implements VehicleFleetManagerFactory {
         this.random = random;
     }
 
+    /**
+     * Sets whether the fleetmanager can safely be shared by several threads, e.g. parallel search workers. Default is false.
+     *
+     * @param threadSafe true if the fleetmanager needs to be thread-safe
+     */
+    public void setThreadSafe(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+    }
+
     /**
      * Creates the finite fleetmanager.
      *
@@ -57,7 +68,9 @@ public class FiniteFleetManagerFactory implements VehicleFleetManagerFactory {
     public VehicleFleetManager createFleetManager() {
         if (vehicles == null) throw new IllegalStateException("vehicles is null. this must not be.");
         if (vehicles.isEmpty()) throw new IllegalStateException("vehicle-collection is empty. this must not be");
-        VehicleFleetManagerImpl vehicleFleetManager = new VehicleFleetManagerImpl(vehicles);
+        VehicleFleetManagerImpl vehicleFleetManager;
+        if (threadSafe) vehicleFleetManager = new SynchronizedVehicleFleetManager(vehicles);
+        else vehicleFleetManager = new VehicleFleetManagerImpl(vehicles);
         vehicleFleetManager.setRandom(random);
         vehicleFleetManager.init();
         return vehicleFleetManager;
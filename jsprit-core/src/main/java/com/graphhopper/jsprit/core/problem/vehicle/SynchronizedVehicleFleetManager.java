@@ -0,0 +1,75 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.vehicle;
+
+import java.util.Collection;
+
+/**
+ * Thread-safe fleet manager that can be shared by parallel search workers.
+ * <p>Each operation holds the lock of this manager. Returned collections are immutable snapshots, thus they can be
+ * iterated without holding the lock.
+ *
+ * @author schroeder
+ */
+class SynchronizedVehicleFleetManager extends VehicleFleetManagerImpl {
+
+    SynchronizedVehicleFleetManager(Collection<Vehicle> vehicles) {
+        super(vehicles);
+    }
+
+    @Override
+    public synchronized Collection<Vehicle> getAvailableVehicles() {
+        return super.getAvailableVehicles();
+    }
+
+    @Override
+    public synchronized Collection<Vehicle> getAvailableVehicles(Vehicle withoutThisType) {
+        return super.getAvailableVehicles(withoutThisType);
+    }
+
+    @Override
+    public synchronized Vehicle getAvailableVehicle(VehicleTypeKey vehicleTypeIdentifier) {
+        return super.getAvailableVehicle(vehicleTypeIdentifier);
+    }
+
+    @Override
+    public synchronized void lock(Vehicle vehicle) {
+        super.lock(vehicle);
+    }
+
+    @Override
+    public synchronized void unlock(Vehicle vehicle) {
+        super.unlock(vehicle);
+    }
+
+    @Override
+    public synchronized boolean isLocked(Vehicle vehicle) {
+        return super.isLocked(vehicle);
+    }
+
+    @Override
+    public synchronized void unlockAll() {
+        super.unlockAll();
+    }
+
+    @Override
+    public String toString() {
+        return "[name=synchronizedFiniteVehicles]";
+    }
+
+}
@@ -21,9 +21,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 class VehicleFleetManagerImpl implements VehicleFleetManager {
@@ -32,40 +37,124 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
         return new VehicleFleetManagerImpl(vehicles);
     }
 
+    /*
+     * vehicles of one type in the order they have been added, i.e. a doubly linked free-list over vehicle indices.
+     * rank 'index' of this list is the vehicle that is currently offered. 'current' points to it (or is -1 if index >= size)
+     * such that lock, unlock and getVehicle are O(1) and behave exactly as the former array-list based container did.
+     */
     static class TypeContainer {
 
-        private ArrayList<Vehicle> vehicleList;
+        private final Vehicle[] vehicleArr;
+
+        private final int[] prev;
+
+        private final int[] next;
+
+        private final long[] rank;
+
+        private final boolean[] contained;
+
+        private int first = -1;
+
+        private int last = -1;
+
+        private int size = 0;
+
+        private long rankCounter = 0;
 
         private int index = 0;
 
-        TypeContainer() {
+        private int current = -1;
+
+        TypeContainer(Vehicle[] vehicleArr, int[] prev, int[] next, long[] rank, boolean[] contained) {
             super();
-            vehicleList = new ArrayList<Vehicle>();
+            this.vehicleArr = vehicleArr;
+            this.prev = prev;
+            this.next = next;
+            this.rank = rank;
+            this.contained = contained;
         }
 
-        void add(Vehicle vehicle) {
-            if (vehicleList.contains(vehicle)) {
+        void add(Vehicle vehicle, int i) {
+            if (contained[i]) {
                 throw new IllegalStateException("cannot add vehicle twice " + vehicle.getId());
             }
-            vehicleList.add(vehicle);
+            contained[i] = true;
+            rank[i] = rankCounter++;
+            prev[i] = last;
+            next[i] = -1;
+            if (last == -1) first = i;
+            else next[last] = i;
+            last = i;
+            if (current == -1 && index == size) current = i;
+            size++;
         }
 
-        void remove(Vehicle vehicle) {
-            vehicleList.remove(vehicle);
+        void remove(int i) {
+            if (!contained[i]) return;
+            //vehicles behind the current one move up, thus the current vehicle is the next one
+            if (current != -1 && rank[i] <= rank[current]) current = next[current];
+            if (prev[i] == -1) first = next[i];
+            else next[prev[i]] = next[i];
+            if (next[i] == -1) last = prev[i];
+            else prev[next[i]] = prev[i];
+            contained[i] = false;
+            size--;
         }
 
         Vehicle getVehicle() {
-            if(index >= vehicleList.size()) index = 0;
-            Vehicle vehicle = vehicleList.get(index);
-            return vehicle;
+            if (current == -1) {
+                index = 0;
+                current = first;
+            }
+            return vehicleArr[current];
         }
 
-        void incIndex(){
+        void incIndex() {
             index++;
+            if (current != -1) current = next[current];
         }
 
         boolean isEmpty() {
-            return vehicleList.isEmpty();
+            return size == 0;
+        }
+
+    }
+
+    /*
+     * immutable snapshot of available vehicles that is valid as long as version does not change.
+     */
+    private static class AvailableVehicles {
+
+        final int version;
+
+        final Vehicle[] vehicles;
+
+        final int[] typeIndices;
+
+        final List<Vehicle> all;
+
+        final AtomicReferenceArray<List<Vehicle>> withoutType;
+
+        AvailableVehicles(int version, Vehicle[] vehicles, int[] typeIndices, int noTypes) {
+            this.version = version;
+            this.vehicles = vehicles;
+            this.typeIndices = typeIndices;
+            this.all = Collections.unmodifiableList(Arrays.asList(vehicles));
+            this.withoutType = new AtomicReferenceArray<>(noTypes);
+        }
+
+        List<Vehicle> getWithout(int typeIndex) {
+            List<Vehicle> list = withoutType.get(typeIndex);
+            if (list == null) {
+                List<Vehicle> l = new ArrayList<>(vehicles.length);
+                for (int i = 0; i < vehicles.length; i++) {
+                    if (typeIndices[i] != typeIndex) l.add(vehicles[i]);
+                }
+                list = Collections.unmodifiableList(l);
+                withoutType.set(typeIndex, list);
+            }
+            return list;
         }
 
     }
@@ -82,14 +171,44 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
 
     private Random random;
 
+    private int version = 0;
+
+    private volatile AvailableVehicles availableVehicles;
+
+    //only used if vehicles are not indexed by a VehicleRoutingProblem
+    private Map<Vehicle, Integer> slots;
+
     VehicleFleetManagerImpl(Collection<Vehicle> vehicles) {
         super();
         this.vehicles = vehicles;
         int arrSize = vehicles.size() + 2;
+        boolean indexed = true;
+        boolean[] used = new boolean[arrSize];
+        for (Vehicle v : vehicles) {
+            if (v.getIndex() < 1 || v.getIndex() >= arrSize || used[v.getIndex()]) {
+                indexed = false;
+                break;
+            }
+            used[v.getIndex()] = true;
+        }
+        if (!indexed) {
+            slots = new HashMap<>();
+            for (Vehicle v : vehicles) {
+                if (!slots.containsKey(v)) slots.put(v, slots.size() + 1);
+            }
+        }
         locked = new boolean[arrSize];
         vehicleArr = new Vehicle[arrSize];
     }
 
+    private int slotOf(Vehicle vehicle) {
+        if (slots != null) {
+            Integer slot = slots.get(vehicle);
+            if (slot != null) return slot;
+        }
+        return vehicle.getIndex();
+    }
+
     void setRandom(Random random) {
         this.random = random;
     }
@@ -112,12 +231,16 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
             }
         }
         vehicleTypes = new TypeContainer[maxTypeIndex+1];
+        int[] prev = new int[vehicleArr.length];
+        int[] next = new int[vehicleArr.length];
+        long[] rank = new long[vehicleArr.length];
+        boolean[] contained = new boolean[vehicleArr.length];
         for(int i=0;i< vehicleTypes.length;i++){
-            TypeContainer typeContainer = new TypeContainer();
+            TypeContainer typeContainer = new TypeContainer(vehicleArr, prev, next, rank, contained);
             vehicleTypes[i] = typeContainer;
         }
         for (Vehicle v : vehicles) {
-            vehicleArr[v.getIndex()]=v;
+            vehicleArr[slotOf(v)]=v;
             addVehicle(v);
         }
     }
@@ -126,40 +249,53 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
         if (v.getType() == null) {
             throw new IllegalStateException("vehicle needs type");
         }
-        vehicleTypes[v.getVehicleTypeIdentifier().getIndex()].add(v);
+        vehicleTypes[v.getVehicleTypeIdentifier().getIndex()].add(v, slotOf(v));
     }
 
     private void removeVehicle(Vehicle v) {
-        vehicleTypes[v.getVehicleTypeIdentifier().getIndex()].remove(v);
+        vehicleTypes[v.getVehicleTypeIdentifier().getIndex()].remove(slotOf(v));
     }
 
 
+    private AvailableVehicles getAvailableVehiclesSnapshot() {
+        AvailableVehicles snapshot = availableVehicles;
+        if (snapshot == null || snapshot.version != version) {
+            int noAvailable = 0;
+            for (TypeContainer typeContainer : vehicleTypes) {
+                if (!typeContainer.isEmpty()) noAvailable++;
+            }
+            Vehicle[] available = new Vehicle[noAvailable];
+            int[] typeIndices = new int[noAvailable];
+            int j = 0;
+            for(int i=0;i< vehicleTypes.length;i++){
+                if(!vehicleTypes[i].isEmpty()){
+                    available[j] = vehicleTypes[i].getVehicle();
+                    typeIndices[j] = i;
+                    j++;
+                }
+            }
+            snapshot = new AvailableVehicles(version, available, typeIndices, vehicleTypes.length);
+            availableVehicles = snapshot;
+        }
+        return snapshot;
+    }
+
     /**
-     * Returns a collection of available vehicles.
+     * Returns a collection of available vehicles, i.e. one vehicle per type.
      * <p>
-     * <p>If there is no vehicle with a certain type and location anymore, it looks up whether a penalty vehicle has been specified with
-     * this type and location. If so, it returns this penalty vehicle. If not, no vehicle with this type and location is returned.
+     * <p>The returned collection is an unmodifiable view that is shared by subsequent calls until a vehicle is locked or unlocked.
      */
     @Override
     public Collection<Vehicle> getAvailableVehicles() {
-        List<Vehicle> vehicles = new ArrayList<Vehicle>();
-        for(int i=0;i< vehicleTypes.length;i++){
-            if(!vehicleTypes[i].isEmpty()){
-                vehicles.add(vehicleTypes[i].getVehicle());
-            }
-        }
-        return vehicles;
+        return getAvailableVehiclesSnapshot().all;
     }
 
     @Override
     public Collection<Vehicle> getAvailableVehicles(Vehicle withoutThisType) {
-        List<Vehicle> vehicles = new ArrayList<Vehicle>();
-        for(int i=0;i< vehicleTypes.length;i++){
-            if(!vehicleTypes[i].isEmpty() && i != withoutThisType.getVehicleTypeIdentifier().getIndex()){
-                vehicles.add(vehicleTypes[i].getVehicle());
-            }
-        }
-        return vehicles;
+        int typeIndex = withoutThisType.getVehicleTypeIdentifier().getIndex();
+        AvailableVehicles snapshot = getAvailableVehiclesSnapshot();
+        if (typeIndex < 0 || typeIndex >= vehicleTypes.length) return snapshot.all;
+        return snapshot.getWithout(typeIndex);
     }
 
 
@@ -179,12 +315,13 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
         if (vehicles.isEmpty() || vehicle instanceof VehicleImpl.NoVehicle) {
             return;
         }
-        if(locked[vehicle.getIndex()]){
+        if(locked[slotOf(vehicle)]){
             throw new IllegalStateException("cannot lock vehicle twice " + vehicle.getId());
         }
         else{
-            locked[vehicle.getIndex()] = true;
+            locked[slotOf(vehicle)] = true;
             removeVehicle(vehicle);
+            version++;
         }
     }
 
@@ -196,8 +333,9 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
         if (vehicle == null || vehicles.isEmpty() || vehicle instanceof VehicleImpl.NoVehicle) {
             return;
         }
-        locked[vehicle.getIndex()] = false;
+        locked[slotOf(vehicle)] = false;
         addVehicle(vehicle);
+        version++;
     }
 
     /* (non-Javadoc)
@@ -205,7 +343,7 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
      */
     @Override
     public boolean isLocked(Vehicle vehicle) {
-        return locked[vehicle.getIndex()];
+        return locked[slotOf(vehicle)];
     }
 
     /* (non-Javadoc)
@@ -221,6 +359,7 @@ class VehicleFleetManagerImpl implements VehicleFleetManager {
         for(int i=0;i<vehicleTypes.length;i++){
             vehicleTypes[i].incIndex();
         }
+        version++;
     }
 
 }
@@ -19,11 +19,19 @@ package com.graphhopper.jsprit.core.problem.vehicle;
 
 import com.graphhopper.jsprit.core.problem.AbstractVehicle;
 import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Key to identify similar vehicles
  * <p>
- * <p>Two vehicles are equal if they share the same type, the same start and end-location and the same earliestStart and latestStart.
+ * <p>Two vehicles are equal if they share the same type, the same start and end-location, the same earliestStart and latestStart,
+ * the same skills and a break with the same time windows, duration and location. Such vehicles are interchangeable, i.e. the key
+ * defines the equivalence class of a vehicle. The classes are indexed when the problem is built.
  *
  * @author stefan
  */
@@ -36,8 +44,15 @@ public class VehicleTypeKey extends AbstractVehicle.AbstractTypeKey {
     public final double latestEnd;
     public final Skills skills;
     public final boolean returnToDepot;
+    public final List<TimeWindow> breakTimeWindows;
+    public final double breakDuration;
+    public final String breakLocationId;
 
     public VehicleTypeKey(String typeId, String startLocationId, String endLocationId, double earliestStart, double latestEnd, Skills skills, boolean returnToDepot) {
+        this(typeId, startLocationId, endLocationId, earliestStart, latestEnd, skills, returnToDepot, null);
+    }
+
+    public VehicleTypeKey(String typeId, String startLocationId, String endLocationId, double earliestStart, double latestEnd, Skills skills, boolean returnToDepot, Break aBreak) {
         super();
         this.type = typeId;
         this.startLocationId = startLocationId;
@@ -46,6 +61,15 @@ public class VehicleTypeKey extends AbstractVehicle.AbstractTypeKey {
         this.latestEnd = latestEnd;
         this.skills = skills;
         this.returnToDepot = returnToDepot;
+        if (aBreak == null) {
+            this.breakTimeWindows = Collections.emptyList();
+            this.breakDuration = 0.;
+            this.breakLocationId = null;
+        } else {
+            this.breakTimeWindows = Collections.unmodifiableList(new ArrayList<>(aBreak.getTimeWindows()));
+            this.breakDuration = aBreak.getServiceDuration();
+            this.breakLocationId = aBreak.getLocation() == null ? null : aBreak.getLocation().getId();
+        }
     }
 
     @Override
@@ -62,6 +86,9 @@ public class VehicleTypeKey extends AbstractVehicle.AbstractTypeKey {
         if (!skills.equals(that.skills)) return false;
         if (!startLocationId.equals(that.startLocationId)) return false;
         if (!type.equals(that.type)) return false;
+        if (Double.compare(that.breakDuration, breakDuration) != 0) return false;
+        if (!breakTimeWindows.equals(that.breakTimeWindows)) return false;
+        if (breakLocationId != null ? !breakLocationId.equals(that.breakLocationId) : that.breakLocationId != null) return false;
 
         return true;
     }
@@ -79,6 +106,10 @@ public class VehicleTypeKey extends AbstractVehicle.AbstractTypeKey {
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         result = 31 * result + skills.hashCode();
         result = 31 * result + (returnToDepot ? 1 : 0);
+        result = 31 * result + breakTimeWindows.hashCode();
+        temp = Double.doubleToLongBits(breakDuration);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (breakLocationId != null ? breakLocationId.hashCode() : 0);
         return result;
     }
 
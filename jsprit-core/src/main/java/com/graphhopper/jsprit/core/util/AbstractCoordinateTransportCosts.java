@@ -0,0 +1,67 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.BatchTransportCost;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * Base class of transport costs whose costs are distances between coordinates times the vehicle's cost per distance unit,
+ * e.g. {@link EuclideanCosts} and {@link GreatCircleCosts}.
+ * <p>It implements the one-to-many costs of {@link BatchTransportCost}. Subclasses only provide the distance calculation.
+ *
+ * @author schroeder
+ */
+public abstract class AbstractCoordinateTransportCosts extends AbstractForwardVehicleRoutingTransportCosts implements BatchTransportCost {
+
+    /**
+     * Calculates the distances from one coordinate to many coordinates (including any detour factor).
+     *
+     * @param fromX     x of from coordinate
+     * @param fromY     y of from coordinate
+     * @param xs        x of to coordinates
+     * @param ys        y of to coordinates
+     * @param distances array the distances are written to
+     * @param length    number of to coordinates
+     */
+    protected abstract void calculateDistances(double fromX, double fromY, double[] xs, double[] ys, double[] distances, int length);
+
+    @Override
+    public void getTransportCosts(Location from, Location[] to, double departureTime, Driver driver, Vehicle vehicle, double[] costs) {
+        if (from.getCoordinate() == null)
+            throw new NullPointerException("cannot calculate distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
+        double[] xs = new double[to.length];
+        double[] ys = new double[to.length];
+        for (int i = 0; i < to.length; i++) {
+            Coordinate coordinate = to[i].getCoordinate();
+            if (coordinate == null)
+                throw new NullPointerException("cannot calculate distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
+            xs[i] = coordinate.getX();
+            ys[i] = coordinate.getY();
+        }
+        calculateDistances(from.getCoordinate().getX(), from.getCoordinate().getY(), xs, ys, costs, to.length);
+        if (vehicle != null && vehicle.getType() != null) {
+            double perDistanceUnit = vehicle.getType().getVehicleCostParams().perDistanceUnit;
+            for (int i = 0; i < to.length; i++) costs[i] = costs[i] * perDistanceUnit;
+        }
+    }
+
+}
@@ -0,0 +1,374 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Decorator that caches transport times, costs and distances of another {@link VehicleRoutingTransportCosts}.
+ * <p>Entries are keyed by from and to location index and the {@link VehicleTypeKey} of the vehicle. Thus, the decorated costs
+ * must not depend on departure time or driver, and locations must have an index (see {@link Location.Builder#setIndex(int)}).
+ * Relations between locations without index and relations of vehicles without type key are not cached.
+ * <p>The cache is a bounded hash table with one entry per slot. Reads are lock-free, and writes just replace a slot.
+ * It can therefore be used by concurrent insertion strategies. If two relations compete for a slot, the {@link Eviction} policy
+ * determines which one stays.
+ * <p>Backward times and costs are served from the cache only if the decorated costs are {@link AbstractForwardVehicleRoutingTransportCosts},
+ * i.e. backward and forward values are the same. Otherwise they are delegated.
+ * <p>If the decorated costs implement {@link TransportDistance}, the builder returns a {@link WithTransportDistance} that caches
+ * distances as well.
+ *
+ * @author schroeder
+ */
+public class CachedVehicleRoutingTransportCosts implements VehicleRoutingTransportCosts {
+
+    /**
+     * Cache of costs that also provide distances.
+     *
+     * @author schroeder
+     */
+    public static final class WithTransportDistance extends CachedVehicleRoutingTransportCosts implements TransportDistance {
+
+        private final TransportDistance transportDistance;
+
+        private final Table distances;
+
+        private WithTransportDistance(Builder builder) {
+            super(builder);
+            this.transportDistance = (TransportDistance) builder.costs;
+            this.distances = new Table(builder.capacity);
+        }
+
+        @Override
+        public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+            if (!isCacheable(from, to, vehicle)) return transportDistance.getDistance(from, to, departureTime, vehicle);
+            VehicleTypeKey typeKey = typeKey(vehicle);
+            int slot = distances.slot(from.getIndex(), to.getIndex(), typeKey);
+            Entry e = distances.get(slot, from.getIndex(), to.getIndex(), typeKey);
+            if (e != null) {
+                hit();
+                return e.value;
+            }
+            miss();
+            double distance = transportDistance.getDistance(from, to, departureTime, vehicle);
+            distances.put(slot, new Entry(from.getIndex(), to.getIndex(), typeKey, distance), eviction);
+            return distance;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            distances.clear();
+        }
+
+    }
+
+    /**
+     * Determines what happens if a relation is to be cached in an occupied slot.
+     */
+    public enum Eviction {
+
+        /**
+         * the new relation replaces the old one
+         */
+        REPLACE,
+
+        /**
+         * the old relation stays, i.e. the first relations cached stay until {@link #clear()} is called
+         */
+        RETAIN
+
+    }
+
+    /**
+     * Builder that builds the cache.
+     *
+     * @author schroeder
+     */
+    public static class Builder {
+
+        private final VehicleRoutingTransportCosts costs;
+
+        private int capacity = 1 << 16;
+
+        private Eviction eviction = Eviction.REPLACE;
+
+        private boolean recordStatistics = false;
+
+        /**
+         * Creates a new builder returning the cache-builder.
+         *
+         * @param costs the costs to be cached
+         * @return builder
+         */
+        public static Builder newInstance(VehicleRoutingTransportCosts costs) {
+            return new Builder(costs);
+        }
+
+        private Builder(VehicleRoutingTransportCosts costs) {
+            if (costs == null) throw new IllegalArgumentException("costs must not be null");
+            this.costs = costs;
+        }
+
+        /**
+         * Sets the maximum number of relations cached (per value, i.e. time, cost and distance). It is rounded up to the next power of 2.
+         * Default is 65536.
+         *
+         * @param capacity the capacity
+         * @return builder
+         */
+        public Builder setCapacity(int capacity) {
+            if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("capacity must be in [1, 2^30]");
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the eviction policy. Default is {@link Eviction#REPLACE}.
+         *
+         * @param eviction the eviction policy
+         * @return builder
+         */
+        public Builder setEviction(Eviction eviction) {
+            this.eviction = eviction;
+            return this;
+        }
+
+        /**
+         * Sets whether hits and misses are to be counted. Default is false, since counting is shared across threads.
+         *
+         * @param recordStatistics true if hits and misses are to be counted
+         * @return builder
+         */
+        public Builder setRecordStatistics(boolean recordStatistics) {
+            this.recordStatistics = recordStatistics;
+            return this;
+        }
+
+        /**
+         * Builds the cache. It is a {@link WithTransportDistance} if the decorated costs implement {@link TransportDistance}.
+         *
+         * @return the cache
+         */
+        public CachedVehicleRoutingTransportCosts build() {
+            if (costs instanceof TransportDistance) return new WithTransportDistance(this);
+            return new CachedVehicleRoutingTransportCosts(this);
+        }
+
+    }
+
+    private static final class Entry {
+
+        final int from;
+
+        final int to;
+
+        final VehicleTypeKey typeKey;
+
+        final double value;
+
+        Entry(int from, int to, VehicleTypeKey typeKey, double value) {
+            this.from = from;
+            this.to = to;
+            this.typeKey = typeKey;
+            this.value = value;
+        }
+
+    }
+
+    /*
+     * entries are immutable, thus they are safely published by plain array writes
+     */
+    private static final class Table {
+
+        final Entry[] entries;
+
+        final int mask;
+
+        Table(int capacity) {
+            int size = Integer.highestOneBit(capacity);
+            if (size < capacity) size <<= 1;
+            entries = new Entry[size];
+            mask = size - 1;
+        }
+
+        int slot(int from, int to, VehicleTypeKey typeKey) {
+            long h = (((long) from) << 32 | (to & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+            if (typeKey != null) h += typeKey.getIndex() * 0xC2B2AE3D27D4EB4FL;
+            h ^= h >>> 29;
+            return (int) h & mask;
+        }
+
+        Entry get(int slot, int from, int to, VehicleTypeKey typeKey) {
+            Entry e = entries[slot];
+            if (e == null || e.from != from || e.to != to) return null;
+            if (e.typeKey == typeKey) return e;
+            if (e.typeKey != null && e.typeKey.equals(typeKey)) return e;
+            return null;
+        }
+
+        void put(int slot, Entry entry, Eviction eviction) {
+            if (eviction == Eviction.RETAIN && entries[slot] != null) return;
+            entries[slot] = entry;
+        }
+
+        void clear() {
+            for (int i = 0; i < entries.length; i++) entries[i] = null;
+        }
+
+    }
+
+    private final VehicleRoutingTransportCosts costs;
+
+    private final boolean forwardEqualsBackward;
+
+    final Eviction eviction;
+
+    private final boolean recordStatistics;
+
+    private final Table times;
+
+    private final Table transportCosts;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private CachedVehicleRoutingTransportCosts(Builder builder) {
+        this.costs = builder.costs;
+        this.forwardEqualsBackward = costs instanceof AbstractForwardVehicleRoutingTransportCosts;
+        this.eviction = builder.eviction;
+        this.recordStatistics = builder.recordStatistics;
+        this.times = new Table(builder.capacity);
+        this.transportCosts = new Table(builder.capacity);
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (!isCacheable(from, to, vehicle)) return costs.getTransportTime(from, to, departureTime, driver, vehicle);
+        VehicleTypeKey typeKey = typeKey(vehicle);
+        int slot = times.slot(from.getIndex(), to.getIndex(), typeKey);
+        Entry e = times.get(slot, from.getIndex(), to.getIndex(), typeKey);
+        if (e != null) {
+            hit();
+            return e.value;
+        }
+        miss();
+        double time = costs.getTransportTime(from, to, departureTime, driver, vehicle);
+        times.put(slot, new Entry(from.getIndex(), to.getIndex(), typeKey, time), eviction);
+        return time;
+    }
+
+    @Override
+    public double getBackwardTransportTime(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        if (forwardEqualsBackward) return getTransportTime(from, to, arrivalTime, driver, vehicle);
+        return costs.getBackwardTransportTime(from, to, arrivalTime, driver, vehicle);
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (!isCacheable(from, to, vehicle)) return costs.getTransportCost(from, to, departureTime, driver, vehicle);
+        VehicleTypeKey typeKey = typeKey(vehicle);
+        int slot = transportCosts.slot(from.getIndex(), to.getIndex(), typeKey);
+        Entry e = transportCosts.get(slot, from.getIndex(), to.getIndex(), typeKey);
+        if (e != null) {
+            hit();
+            return e.value;
+        }
+        miss();
+        double cost = costs.getTransportCost(from, to, departureTime, driver, vehicle);
+        transportCosts.put(slot, new Entry(from.getIndex(), to.getIndex(), typeKey, cost), eviction);
+        return cost;
+    }
+
+    @Override
+    public double getBackwardTransportCost(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        if (forwardEqualsBackward) return getTransportCost(from, to, arrivalTime, driver, vehicle);
+        return costs.getBackwardTransportCost(from, to, arrivalTime, driver, vehicle);
+    }
+
+    private static boolean isCacheable(Location from, Location to, Vehicle vehicle) {
+        if (vehicle != null && vehicle.getVehicleTypeIdentifier() == null) return false;
+        return from.getIndex() >= 0 && to.getIndex() >= 0;
+    }
+
+    private static VehicleTypeKey typeKey(Vehicle vehicle) {
+        if (vehicle == null) return null;
+        return vehicle.getVehicleTypeIdentifier();
+    }
+
+    void hit() {
+        if (recordStatistics) hits.incrementAndGet();
+    }
+
+    void miss() {
+        if (recordStatistics) misses.incrementAndGet();
+    }
+
+    /**
+     * Removes all cached relations and resets statistics.
+     */
+    public void clear() {
+        times.clear();
+        transportCosts.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * @return number of lookups served from the cache (only counted if statistics are recorded)
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups delegated to the decorated costs (only counted if statistics are recorded)
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return share of lookups served from the cache, or 0 if nothing has been recorded
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        if (total == 0) return 0.;
+        return (double) h / (double) total;
+    }
+
+    public VehicleRoutingTransportCosts getCachedCosts() {
+        return costs;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=cachedCosts][costs=" + costs + "]";
+    }
+
+}
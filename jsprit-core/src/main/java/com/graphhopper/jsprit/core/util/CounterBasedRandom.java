@@ -0,0 +1,93 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+/**
+ * Counter-based random numbers, i.e. a random number is a hash of a seed and a few counters such as iteration, activity
+ * index and vehicle index.
+ * <p>In contrast to {@link java.util.Random}, there is no state that changes when a number is drawn. Thus, it is allocation-free,
+ * can be shared by any number of threads without contention, and the number drawn for a given seed and counters does not
+ * depend on how threads interleave or on how often numbers were drawn before. It suits noise makers that are called
+ * concurrently, e.g. when insertion costs are calculated in parallel.
+ * <p>Counters are mixed with the SplitMix64 finalizer.
+ *
+ * @author schroeder
+ */
+public class CounterBasedRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    private final long seed;
+
+    public CounterBasedRandom(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a hash of seed and counters whose bits are uniformly distributed.
+     *
+     * @param seed     seed
+     * @param counter1 first counter
+     * @param counter2 second counter
+     * @param counter3 third counter
+     * @return hash
+     */
+    public static long hash(long seed, long counter1, long counter2, long counter3) {
+        long h = mix(seed + GOLDEN_GAMMA);
+        h = mix(h + counter1 * GOLDEN_GAMMA);
+        h = mix(h + counter2 * GOLDEN_GAMMA);
+        return mix(h + counter3 * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a long for the counters.
+     */
+    public long nextLong(long counter1, long counter2, long counter3) {
+        return hash(seed, counter1, counter2, counter3);
+    }
+
+    /**
+     * Returns a double uniformly distributed in [0,1) for the counters.
+     */
+    public double nextDouble(long counter1, long counter2, long counter3) {
+        return (nextLong(counter1, counter2, counter3) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns a normally distributed double with mean 0 and standard deviation 1 for the counters (Box-Muller).
+     */
+    public double nextGaussian(long counter1, long counter2, long counter3) {
+        long h = nextLong(counter1, counter2, counter3);
+        double u1 = ((h >>> 11) + 1) * DOUBLE_UNIT;
+        double u2 = (mix(h + GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT;
+        return Math.sqrt(-2. * Math.log(u1)) * Math.cos(2. * Math.PI * u2);
+    }
+
+}
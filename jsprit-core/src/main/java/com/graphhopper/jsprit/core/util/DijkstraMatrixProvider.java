@@ -0,0 +1,241 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import java.util.Arrays;
+
+/**
+ * {@link MatrixProvider} that calculates fastest paths with Dijkstra's algorithm on an in-memory road network.
+ * <p>Nodes of the network are identified by location indices. Distances are the lengths of the fastest paths.
+ * It serves as a local stand-in for a routing engine.
+ *
+ * @author schroeder
+ */
+public class DijkstraMatrixProvider implements MatrixProvider {
+
+    /**
+     * Builder that builds the road network.
+     *
+     * @author schroeder
+     */
+    public static class Builder {
+
+        private final int noNodes;
+
+        private int noEdges = 0;
+
+        private int[] edgeFrom = new int[16];
+
+        private int[] edgeTo = new int[16];
+
+        private double[] edgeTime = new double[16];
+
+        private double[] edgeDistance = new double[16];
+
+        public static Builder newInstance(int noNodes) {
+            return new Builder(noNodes);
+        }
+
+        private Builder(int noNodes) {
+            this.noNodes = noNodes;
+        }
+
+        /**
+         * Adds a directed edge.
+         *
+         * @param fromNode from node, i.e. location index
+         * @param toNode   to node, i.e. location index
+         * @param time     time to traverse the edge
+         * @param distance length of the edge
+         * @return builder
+         */
+        public Builder addEdge(int fromNode, int toNode, double time, double distance) {
+            if (fromNode < 0 || fromNode >= noNodes || toNode < 0 || toNode >= noNodes)
+                throw new IllegalArgumentException("edge from " + fromNode + " to " + toNode + " refers to unknown node");
+            if (time < 0) throw new IllegalArgumentException("time must not be negative");
+            if (noEdges == edgeFrom.length) {
+                int newLength = edgeFrom.length * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, newLength);
+                edgeTo = Arrays.copyOf(edgeTo, newLength);
+                edgeTime = Arrays.copyOf(edgeTime, newLength);
+                edgeDistance = Arrays.copyOf(edgeDistance, newLength);
+            }
+            edgeFrom[noEdges] = fromNode;
+            edgeTo[noEdges] = toNode;
+            edgeTime[noEdges] = time;
+            edgeDistance[noEdges] = distance;
+            noEdges++;
+            return this;
+        }
+
+        /**
+         * Adds an edge in both directions.
+         */
+        public Builder addBidirectionalEdge(int node1, int node2, double time, double distance) {
+            addEdge(node1, node2, time, distance);
+            addEdge(node2, node1, time, distance);
+            return this;
+        }
+
+        public DijkstraMatrixProvider build() {
+            return new DijkstraMatrixProvider(this);
+        }
+
+    }
+
+    private final int noNodes;
+
+    //adjacency in compressed sparse row format
+    private final int[] firstEdge;
+
+    private final int[] edgeTo;
+
+    private final double[] edgeTime;
+
+    private final double[] edgeDistance;
+
+    private DijkstraMatrixProvider(Builder builder) {
+        noNodes = builder.noNodes;
+        firstEdge = new int[noNodes + 1];
+        for (int e = 0; e < builder.noEdges; e++) firstEdge[builder.edgeFrom[e] + 1]++;
+        for (int n = 0; n < noNodes; n++) firstEdge[n + 1] += firstEdge[n];
+        edgeTo = new int[builder.noEdges];
+        edgeTime = new double[builder.noEdges];
+        edgeDistance = new double[builder.noEdges];
+        int[] next = Arrays.copyOf(firstEdge, noNodes);
+        for (int e = 0; e < builder.noEdges; e++) {
+            int pos = next[builder.edgeFrom[e]]++;
+            edgeTo[pos] = builder.edgeTo[e];
+            edgeTime[pos] = builder.edgeTime[e];
+            edgeDistance[pos] = builder.edgeDistance[e];
+        }
+    }
+
+    public int getNoNodes() {
+        return noNodes;
+    }
+
+    @Override
+    public void calculate(int[] fromIndices, int[] toIndices, double[] times, double[] distances) {
+        double[] time = new double[noNodes];
+        double[] distance = new double[noNodes];
+        boolean[] settled = new boolean[noNodes];
+        boolean[] isTarget = new boolean[noNodes];
+        int noTargets = 0;
+        for (int to : toIndices) {
+            if (!isTarget[to]) noTargets++;
+            isTarget[to] = true;
+        }
+        Heap heap = new Heap(noNodes);
+        for (int i = 0; i < fromIndices.length; i++) {
+            Arrays.fill(time, Double.POSITIVE_INFINITY);
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            Arrays.fill(settled, false);
+            heap.clear();
+            int source = fromIndices[i];
+            time[source] = 0.;
+            distance[source] = 0.;
+            heap.push(source, 0.);
+            int targetsSettled = 0;
+            while (!heap.isEmpty() && targetsSettled < noTargets) {
+                int node = heap.pop();
+                if (settled[node]) continue;
+                settled[node] = true;
+                if (isTarget[node]) targetsSettled++;
+                for (int e = firstEdge[node]; e < firstEdge[node + 1]; e++) {
+                    int neighbor = edgeTo[e];
+                    double t = time[node] + edgeTime[e];
+                    if (!settled[neighbor] && t < time[neighbor]) {
+                        time[neighbor] = t;
+                        distance[neighbor] = distance[node] + edgeDistance[e];
+                        heap.push(neighbor, t);
+                    }
+                }
+            }
+            int offset = i * toIndices.length;
+            for (int j = 0; j < toIndices.length; j++) {
+                times[offset + j] = time[toIndices[j]];
+                distances[offset + j] = distance[toIndices[j]];
+            }
+        }
+    }
+
+    /*
+     * binary min-heap with lazy deletion, i.e. a node can be contained several times
+     */
+    private static class Heap {
+
+        private int[] nodes;
+
+        private double[] keys;
+
+        private int size = 0;
+
+        Heap(int capacity) {
+            nodes = new int[Math.max(capacity, 1)];
+            keys = new double[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int pos = size++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                nodes[pos] = nodes[parent];
+                keys[pos] = keys[parent];
+                pos = parent;
+            }
+            nodes[pos] = node;
+            keys[pos] = key;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            int node = nodes[size];
+            double key = keys[size];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                nodes[pos] = nodes[child];
+                keys[pos] = keys[child];
+                pos = child;
+            }
+            nodes[pos] = node;
+            keys[pos] = key;
+            return top;
+        }
+
+    }
+
+}
@@ -21,7 +21,6 @@
 package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.Location;
-import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -30,7 +29,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 /**
  * @author stefan schroeder
  */
-public class EuclideanCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class EuclideanCosts extends AbstractCoordinateTransportCosts implements TransportDistance {
 
     public int speed = 1;
 
@@ -73,6 +72,12 @@ public class EuclideanCosts extends AbstractForwardVehicleRoutingTransportCosts
         return EuclideanDistanceCalculator.calculateDistance(from, to) * detourFactor;
     }
 
+    @Override
+    protected void calculateDistances(double fromX, double fromY, double[] xs, double[] ys, double[] distances, int length) {
+        EuclideanDistanceCalculator.calculateDistances(fromX, fromY, xs, ys, distances, length);
+        for (int i = 0; i < length; i++) distances[i] = distances[i] * detourFactor;
+    }
+
     @Override
     public double getTransportTime(Location from, Location to, double time, Driver driver, Vehicle vehicle) {
         double distance;
@@ -26,4 +26,23 @@ public class EuclideanDistanceCalculator {
         return Math.sqrt((xDiff * xDiff) + (yDiff * yDiff));
     }
 
+    /**
+     * Calculates the distances from one coordinate to many coordinates packed in two arrays.
+     * <p>The loop works on primitive arrays only, such that it can be unrolled and vectorized by the JIT.
+     *
+     * @param fromX     x of from coordinate
+     * @param fromY     y of from coordinate
+     * @param xs        x of to coordinates
+     * @param ys        y of to coordinates
+     * @param distances array the distances are written to, i.e. distances[i] is the distance to (xs[i], ys[i])
+     * @param length    number of to coordinates
+     */
+    public static void calculateDistances(double fromX, double fromY, double[] xs, double[] ys, double[] distances, int length) {
+        for (int i = 0; i < length; i++) {
+            double xDiff = fromX - xs[i];
+            double yDiff = fromY - ys[i];
+            distances[i] = Math.sqrt((xDiff * xDiff) + (yDiff * yDiff));
+        }
+    }
+
 }
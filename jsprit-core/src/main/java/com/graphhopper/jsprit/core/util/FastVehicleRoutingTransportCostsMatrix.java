@@ -29,11 +29,36 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
  * CostMatrix that allows pre-compiled time and distance-matrices to be considered as {@link com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts}
  * in the {@link com.graphhopper.jsprit.core.problem.VehicleRoutingProblem}.
  * <p>Note that you can also use it with distance matrix only (or time matrix).
+ * <p>By default, values are stored as doubles. If times and distances are integral (or a fixed precision is sufficient), they can
+ * be stored as ints or unsigned shorts instead (see {@link StorageMode}). A value is then stored as Math.round(value * scaleFactor)
+ * and read as storedValue / scaleFactor. This reduces memory 4 (ints) to 8 (unsigned shorts) times.
  *
  * @author schroeder
  */
 public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
 
+    /**
+     * Determines how times and distances are stored.
+     */
+    public enum StorageMode {
+
+        /**
+         * double values, no loss of precision
+         */
+        DOUBLE,
+
+        /**
+         * int values, i.e. values scaled by scaleFactor must be in [Integer.MIN_VALUE, Integer.MAX_VALUE]
+         */
+        INT32,
+
+        /**
+         * unsigned short values, i.e. values scaled by scaleFactor must be in [0, 65535]
+         */
+        UINT16
+
+    }
+
     /**
      * Builder that builds the matrix.
      *
@@ -45,8 +70,20 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
 
         private double[][][] matrix;
 
+        private int[] intMatrix;
+
+        private char[] uint16Matrix;
+
         private final int noLocations;
 
+        private final StorageMode storageMode;
+
+        private double timeScaleFactor = 1.;
+
+        private double distanceScaleFactor = 1.;
+
+        private boolean valuesAdded = false;
+
         /**
          * Creates a new builder returning the matrix-builder.
          * <p>If you want to consider symmetric matrices, set isSymmetric to true.
@@ -55,15 +92,61 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public static Builder newInstance(int noLocations, boolean isSymmetric) {
-            return new Builder(noLocations, isSymmetric);
+            return new Builder(noLocations, isSymmetric, StorageMode.DOUBLE);
+        }
+
+        /**
+         * Creates a new builder returning the matrix-builder that stores times and distances according to the storage mode.
+         *
+         * @param noLocations number of locations
+         * @param isSymmetric true if matrix is symmetric, false otherwise
+         * @param storageMode how values are stored
+         * @return builder
+         */
+        public static Builder newInstance(int noLocations, boolean isSymmetric, StorageMode storageMode) {
+            return new Builder(noLocations, isSymmetric, storageMode);
         }
 
-        private Builder(int noLocations, boolean isSymmetric) {
+        private Builder(int noLocations, boolean isSymmetric, StorageMode storageMode) {
             this.isSymmetric = isSymmetric;
-            matrix = new double[noLocations][noLocations][2];
+            this.storageMode = storageMode;
+            if (storageMode == StorageMode.DOUBLE) matrix = new double[noLocations][noLocations][2];
+            else if (storageMode == StorageMode.INT32) intMatrix = new int[noLocations * noLocations * 2];
+            else uint16Matrix = new char[noLocations * noLocations * 2];
             this.noLocations = noLocations;
         }
 
+        /**
+         * Sets the factor times are multiplied with before they are stored as ints or unsigned shorts, e.g. 10 to keep one decimal place.
+         * Default is 1. It must be set before adding values.
+         *
+         * @param timeScaleFactor the scale factor
+         * @return builder
+         */
+        public Builder setTimeScaleFactor(double timeScaleFactor) {
+            checkScaleFactor(timeScaleFactor);
+            this.timeScaleFactor = timeScaleFactor;
+            return this;
+        }
+
+        /**
+         * Sets the factor distances are multiplied with before they are stored as ints or unsigned shorts, e.g. 0.1 to store
+         * distances in units of 10. Default is 1. It must be set before adding values.
+         *
+         * @param distanceScaleFactor the scale factor
+         * @return builder
+         */
+        public Builder setDistanceScaleFactor(double distanceScaleFactor) {
+            checkScaleFactor(distanceScaleFactor);
+            this.distanceScaleFactor = distanceScaleFactor;
+            return this;
+        }
+
+        private void checkScaleFactor(double scaleFactor) {
+            if (valuesAdded) throw new IllegalStateException("scale factor must be set before adding values");
+            if (scaleFactor <= 0) throw new IllegalArgumentException("scale factor must be greater than 0");
+        }
+
         /**
          * Adds a transport-distance for a particular relation.
          *
@@ -78,10 +161,28 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
         }
 
         private void add(int fromIndex, int toIndex, int indicatorIndex, double value) {
-            if (isSymmetric) {
-                if (fromIndex < toIndex) matrix[fromIndex][toIndex][indicatorIndex] = value;
-                else matrix[toIndex][fromIndex][indicatorIndex] = value;
-            } else matrix[fromIndex][toIndex][indicatorIndex] = value;
+            valuesAdded = true;
+            if (isSymmetric && fromIndex >= toIndex) {
+                int tmp = fromIndex;
+                fromIndex = toIndex;
+                toIndex = tmp;
+            }
+            if (storageMode == StorageMode.DOUBLE) {
+                matrix[fromIndex][toIndex][indicatorIndex] = value;
+                return;
+            }
+            double scaleFactor = indicatorIndex == 0 ? distanceScaleFactor : timeScaleFactor;
+            long scaled = Math.round(value * scaleFactor);
+            int position = (fromIndex * noLocations + toIndex) * 2 + indicatorIndex;
+            if (storageMode == StorageMode.INT32) {
+                if (scaled < Integer.MIN_VALUE || scaled > Integer.MAX_VALUE)
+                    throw new IllegalArgumentException("value " + value + " scaled by " + scaleFactor + " does not fit into an int");
+                intMatrix[position] = (int) scaled;
+            } else {
+                if (scaled < 0 || scaled > Character.MAX_VALUE)
+                    throw new IllegalArgumentException("value " + value + " scaled by " + scaleFactor + " does not fit into an unsigned short");
+                uint16Matrix[position] = (char) scaled;
+            }
         }
 
         /**
@@ -118,21 +219,72 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
 
     private final double[][][] matrix;
 
+    private final int[] intMatrix;
+
+    private final char[] uint16Matrix;
+
+    private final StorageMode storageMode;
+
+    private final double timeScaleFactor;
+
+    private final double distanceScaleFactor;
+
+    //inverse scale factors by indicator index, i.e. distance (index=0) and time (index=1)
+    private final double[] inverseScaleFactors;
+
     private int noLocations;
 
     private FastVehicleRoutingTransportCostsMatrix(Builder builder) {
         this.isSymmetric = builder.isSymmetric;
         matrix = builder.matrix;
+        intMatrix = builder.intMatrix;
+        uint16Matrix = builder.uint16Matrix;
+        storageMode = builder.storageMode;
+        timeScaleFactor = builder.timeScaleFactor;
+        distanceScaleFactor = builder.distanceScaleFactor;
+        inverseScaleFactors = new double[]{1. / builder.distanceScaleFactor, 1. / builder.timeScaleFactor};
         noLocations = builder.noLocations;
     }
 
     /**
      * First dim is from, second to and third indicates whether it is a distance value (index=0) or time value (index=1).
+     * <p>If values are not stored as doubles, this creates a new array each time it is called.
      *
      * @return
      */
     public double[][][] getMatrix() {
-        return matrix;
+        if (storageMode == StorageMode.DOUBLE) return matrix;
+        double[][][] copy = new double[noLocations][noLocations][2];
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                for (int indicatorIndex = 0; indicatorIndex < 2; indicatorIndex++) {
+                    copy[from][to][indicatorIndex] = getStored(from, to, indicatorIndex);
+                }
+            }
+        }
+        return copy;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * @return factor times are multiplied with before they are stored as ints or unsigned shorts
+     */
+    public double getTimeScaleFactor() {
+        return timeScaleFactor;
+    }
+
+    /**
+     * @return factor distances are multiplied with before they are stored as ints or unsigned shorts
+     */
+    public double getDistanceScaleFactor() {
+        return distanceScaleFactor;
+    }
+
+    public boolean isSymmetric() {
+        return isSymmetric;
     }
 
     @Override
@@ -144,14 +296,15 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
     }
 
     private double get(int from, int to, int indicatorIndex) {
-        double value;
-        if (isSymmetric) {
-            if (from < to) value = matrix[from][to][indicatorIndex];
-            else value = matrix[to][from][indicatorIndex];
-        } else {
-            value = matrix[from][to][indicatorIndex];
-        }
-        return value;
+        if (isSymmetric && from >= to) return getStored(to, from, indicatorIndex);
+        return getStored(from, to, indicatorIndex);
+    }
+
+    private double getStored(int from, int to, int indicatorIndex) {
+        if (storageMode == StorageMode.DOUBLE) return matrix[from][to][indicatorIndex];
+        int position = (from * noLocations + to) * 2 + indicatorIndex;
+        if (storageMode == StorageMode.INT32) return intMatrix[position] * inverseScaleFactors[indicatorIndex];
+        return uint16Matrix[position] * inverseScaleFactors[indicatorIndex];
     }
 
     /**
@@ -19,7 +19,6 @@ package com.graphhopper.jsprit.core.util;
 
 
 import com.graphhopper.jsprit.core.problem.Location;
-import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -28,7 +27,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
  * @author stefan schroeder
  */
 
-public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class GreatCircleCosts extends AbstractCoordinateTransportCosts implements TransportDistance {
 
     private double speed = 1.;
 
@@ -50,6 +49,14 @@ public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCost
         this.detour = detour;
     }
 
+    public double getDetour() {
+        return detour;
+    }
+
+    public DistanceUnit getDistanceUnit() {
+        return distanceUnit;
+    }
+
     private DistanceUnit distanceUnit = DistanceUnit.Kilometer;
 
    public GreatCircleCosts() {
@@ -90,6 +97,12 @@ public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCost
         return GreatCircleDistanceCalculator.calculateDistance(from, to, distanceUnit) * detour;
     }
 
+    @Override
+    protected void calculateDistances(double fromX, double fromY, double[] xs, double[] ys, double[] distances, int length) {
+        GreatCircleDistanceCalculator.calculateDistances(fromX, fromY, xs, ys, distanceUnit, distances, length);
+        for (int i = 0; i < length; i++) distances[i] = distances[i] * detour;
+    }
+
     @Override
     public double getTransportTime(Location from, Location to, double time, Driver driver, Vehicle vehicle) {
         return calculateDistance(from, to) / speed;
@@ -57,4 +57,45 @@ public class GreatCircleDistanceCalculator {
         return distance;
     }
 
+    /**
+     * Returns the great circle distance that corresponds to a central angle.
+     *
+     * @param centralAngle central angle in radians
+     * @param distanceUnit distance unit
+     * @return great circle distance
+     */
+    public static double calculateDistance(double centralAngle, DistanceUnit distanceUnit) {
+        double distance = R * centralAngle;
+        if (distanceUnit.equals(DistanceUnit.Meter)) {
+            distance = distance * 1000.;
+        }
+        return distance;
+    }
+
+    /**
+     * Harversine method for one coordinate to many coordinates packed in two arrays.
+     * <p>Sine and cosine of the from coordinate are only calculated once, and the loop works on primitive arrays only.
+     *
+     * @param fromLon      longitude (x) of from coordinate
+     * @param fromLat      latitude (y) of from coordinate
+     * @param lons         longitudes (x) of to coordinates
+     * @param lats         latitudes (y) of to coordinates
+     * @param distanceUnit distance unit
+     * @param distances    array the distances are written to, i.e. distances[i] is the distance to (lons[i], lats[i])
+     * @param length       number of to coordinates
+     */
+    public static void calculateDistances(double fromLon, double fromLat, double[] lons, double[] lats, DistanceUnit distanceUnit, double[] distances, int length) {
+        double cosLat1 = Math.cos(Math.toRadians(fromLat));
+        double factor = distanceUnit.equals(DistanceUnit.Meter) ? 1000. : 1.;
+        for (int i = 0; i < length; i++) {
+            double delta_Lat = Math.toRadians(lats[i] - fromLat);
+            double delta_Lon = Math.toRadians(lons[i] - fromLon);
+            double sinLat = Math.sin(delta_Lat / 2);
+            double sinLon = Math.sin(delta_Lon / 2);
+            double a = sinLat * sinLat + sinLon * sinLon * cosLat1 * Math.cos(Math.toRadians(lats[i]));
+            double c = 2 * Math.asin(Math.sqrt(a));
+            distances[i] = R * c * factor;
+        }
+    }
+
 }
@@ -0,0 +1,328 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+import java.util.Arrays;
+
+
+/**
+ * CostMatrix whose cells are filled on demand by a {@link MatrixProvider}, e.g. a routing engine.
+ * <p>Since most search strategies only look at nearby relations, usually just a small share of all n^2 cells is ever requested.
+ * Cells that are requested but not yet known are collected and resolved in one many-to-many request to the provider as soon as
+ * batchSize cells are pending (or {@link #flush()} is called). Until a cell is resolved, the fallback costs (e.g.
+ * {@link EuclideanCosts} or {@link GreatCircleCosts}) are used to estimate it. If no fallback is set, requested cells are resolved
+ * immediately together with the ones pending.
+ * <p>Resolved cells are kept in a growable hash table. Reads are lock-free, resolving cells is synchronized.
+ *
+ * @author schroeder
+ */
+public class LazyVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+
+    /**
+     * Builder that builds the matrix.
+     *
+     * @author schroeder
+     */
+    public static class Builder {
+
+        private final MatrixProvider provider;
+
+        private VehicleRoutingTransportCosts fallback;
+
+        private int batchSize = 100;
+
+        private int initialCapacity = 1024;
+
+        public static Builder newInstance(MatrixProvider provider) {
+            return new Builder(provider);
+        }
+
+        private Builder(MatrixProvider provider) {
+            if (provider == null) throw new IllegalArgumentException("provider must not be null");
+            this.provider = provider;
+        }
+
+        /**
+         * Sets the costs that estimate cells not yet resolved. Default is null, i.e. cells are resolved immediately.
+         *
+         * @param fallback costs to estimate unresolved cells
+         * @return builder
+         */
+        public Builder setFallback(VehicleRoutingTransportCosts fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        /**
+         * Sets the number of pending cells that triggers a request to the provider. Default is 100.
+         *
+         * @param batchSize the batch size
+         * @return builder
+         */
+        public Builder setBatchSize(int batchSize) {
+            if (batchSize < 1) throw new IllegalArgumentException("batch size must be at least 1");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of cells that can be stored before the store needs to grow. Default is 1024.
+         *
+         * @param initialCapacity initial capacity
+         * @return builder
+         */
+        public Builder setInitialCapacity(int initialCapacity) {
+            if (initialCapacity < 1) throw new IllegalArgumentException("initial capacity must be at least 1");
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        public LazyVehicleRoutingTransportCostsMatrix build() {
+            return new LazyVehicleRoutingTransportCostsMatrix(this);
+        }
+
+    }
+
+    private static final class Cell {
+
+        final long key;
+
+        final double time;
+
+        final double distance;
+
+        Cell(long key, double time, double distance) {
+            this.key = key;
+            this.time = time;
+            this.distance = distance;
+        }
+
+    }
+
+    /*
+     * open addressing with linear probing. cells are immutable, thus they are safely published by plain array writes.
+     */
+    private static final class Store {
+
+        final Cell[] cells;
+
+        final int mask;
+
+        Store(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            cells = new Cell[size];
+            mask = size - 1;
+        }
+
+        static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        Cell get(long key) {
+            int slot = hash(key) & mask;
+            while (true) {
+                Cell c = cells[slot];
+                if (c == null) return null;
+                if (c.key == key) return c;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        void put(Cell cell) {
+            int slot = hash(cell.key) & mask;
+            while (cells[slot] != null && cells[slot].key != cell.key) slot = (slot + 1) & mask;
+            cells[slot] = cell;
+        }
+
+    }
+
+    private final MatrixProvider provider;
+
+    private final VehicleRoutingTransportCosts fallback;
+
+    private final int batchSize;
+
+    private volatile Store store;
+
+    private int noCells = 0;
+
+    private long[] pending;
+
+    private int noPending = 0;
+
+    private long noRequests = 0;
+
+    private LazyVehicleRoutingTransportCostsMatrix(Builder builder) {
+        this.provider = builder.provider;
+        this.fallback = builder.fallback;
+        this.batchSize = builder.batchSize;
+        this.store = new Store(builder.initialCapacity);
+        this.pending = new long[batchSize];
+    }
+
+    private static long key(int from, int to) {
+        return ((long) from) << 32 | (to & 0xffffffffL);
+    }
+
+    private Cell getCell(Location from, Location to) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        long key = key(from.getIndex(), to.getIndex());
+        Cell cell = store.get(key);
+        if (cell != null) return cell;
+        return request(key);
+    }
+
+    private synchronized Cell request(long key) {
+        Cell cell = store.get(key);
+        if (cell != null) return cell;
+        boolean alreadyPending = false;
+        for (int i = 0; i < noPending; i++) {
+            if (pending[i] == key) {
+                alreadyPending = true;
+                break;
+            }
+        }
+        if (!alreadyPending) pending[noPending++] = key;
+        if (fallback == null || noPending >= batchSize) {
+            resolvePending();
+            return store.get(key);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves all pending cells.
+     */
+    public synchronized void flush() {
+        if (noPending > 0) resolvePending();
+    }
+
+    private void resolvePending() {
+        int[] froms = new int[noPending];
+        int[] tos = new int[noPending];
+        int noFroms = 0;
+        int noTos = 0;
+        for (int i = 0; i < noPending; i++) {
+            noFroms = addDistinct(froms, noFroms, (int) (pending[i] >>> 32));
+            noTos = addDistinct(tos, noTos, (int) pending[i]);
+        }
+        froms = Arrays.copyOf(froms, noFroms);
+        tos = Arrays.copyOf(tos, noTos);
+        double[] times = new double[noFroms * noTos];
+        double[] distances = new double[noFroms * noTos];
+        provider.calculate(froms, tos, times, distances);
+        noRequests++;
+        ensureCapacity(noCells + noFroms * noTos);
+        Store s = store;
+        for (int i = 0; i < noFroms; i++) {
+            for (int j = 0; j < noTos; j++) {
+                long key = key(froms[i], tos[j]);
+                if (s.get(key) == null) noCells++;
+                s.put(new Cell(key, times[i * noTos + j], distances[i * noTos + j]));
+            }
+        }
+        noPending = 0;
+    }
+
+    private static int addDistinct(int[] values, int noValues, int value) {
+        for (int i = 0; i < noValues; i++) {
+            if (values[i] == value) return noValues;
+        }
+        values[noValues] = value;
+        return noValues + 1;
+    }
+
+    private void ensureCapacity(int noCellsRequired) {
+        Store s = store;
+        if (noCellsRequired * 2 <= s.cells.length) return;
+        Store grown = new Store(noCellsRequired * 2);
+        for (Cell c : s.cells) {
+            if (c != null) grown.put(c);
+        }
+        store = grown;
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        Cell cell = getCell(from, to);
+        if (cell == null) return fallback.getTransportTime(from, to, departureTime, driver, vehicle);
+        return cell.time;
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        Cell cell = getCell(from, to);
+        if (cell == null) return estimateDistance(from, to, departureTime, vehicle);
+        return cell.distance;
+    }
+
+    private double estimateDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        if (fallback instanceof TransportDistance)
+            return ((TransportDistance) fallback).getDistance(from, to, departureTime, vehicle);
+        return fallback.getTransportCost(from, to, departureTime, null, null);
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        Cell cell = getCell(from, to);
+        double time;
+        double distance;
+        if (cell == null) {
+            time = fallback.getTransportTime(from, to, departureTime, driver, vehicle);
+            distance = estimateDistance(from, to, departureTime, vehicle);
+        } else {
+            time = cell.time;
+            distance = cell.distance;
+        }
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * time;
+    }
+
+    /**
+     * @return number of cells resolved so far
+     */
+    public synchronized int getNoResolvedCells() {
+        return noCells;
+    }
+
+    /**
+     * @return number of cells waiting to be resolved
+     */
+    public synchronized int getNoPendingCells() {
+        return noPending;
+    }
+
+    /**
+     * @return number of many-to-many requests sent to the provider so far
+     */
+    public synchronized long getNoProviderRequests() {
+        return noRequests;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+/**
+ * Provides travel times and distances for many-to-many requests, e.g. by querying a routing engine.
+ * <p>It is used by {@link LazyVehicleRoutingTransportCostsMatrix} to fill matrix cells on demand.
+ *
+ * @author schroeder
+ */
+public interface MatrixProvider {
+
+    /**
+     * Calculates times and distances from each from location to each to location.
+     * <p>Results are written row by row, i.e. the relation fromIndices[i] to toIndices[j] goes to
+     * times[i * toIndices.length + j] and distances[i * toIndices.length + j]. Unreachable relations should be
+     * reported as Double.POSITIVE_INFINITY.
+     *
+     * @param fromIndices location indices of from locations
+     * @param toIndices   location indices of to locations
+     * @param times       array of length fromIndices.length * toIndices.length the times are written to
+     * @param distances   array of length fromIndices.length * toIndices.length the distances are written to
+     */
+    public void calculate(int[] fromIndices, int[] toIndices, double[] times, double[] distances);
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * CostMatrix that holds one pre-compiled time and distance matrix per vehicle profile (see {@link com.graphhopper.jsprit.core.problem.vehicle.VehicleType#getProfile()}),
+ * e.g. bike, car and truck. All profiles share the same location indices.
+ * <p>All profiles are stored contiguously in one time and one distance array. The profile of a vehicle is memorized by the index of its
+ * {@link VehicleTypeKey} which is the same index {@link com.graphhopper.jsprit.core.algorithm.state.StateManager} uses for vehicle dependent states.
+ * Thus, there is no need to dispatch on the vehicle type in every call. If you need many lookups for the same vehicle,
+ * get its {@link Profile} once with {@link #getProfile(Vehicle)}, then every lookup is a plain array read.
+ * <p>If the vehicle is null, the first profile added is used.
+ *
+ * @author schroeder
+ */
+public class MultiProfileVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+
+    /**
+     * Builder that builds the matrix.
+     *
+     * @author schroeder
+     */
+    public static class Builder {
+
+        private final int noLocations;
+
+        private final List<String> profiles = new ArrayList<String>();
+
+        private final Map<String, double[]> times = new HashMap<String, double[]>();
+
+        private final Map<String, double[]> distances = new HashMap<String, double[]>();
+
+        /**
+         * Creates a new builder returning the matrix-builder.
+         *
+         * @param noLocations number of locations
+         * @return builder
+         */
+        public static Builder newInstance(int noLocations) {
+            return new Builder(noLocations);
+        }
+
+        private Builder(int noLocations) {
+            this.noLocations = noLocations;
+        }
+
+        /**
+         * Adds a profile. Profiles that are not added explicitly are added when adding the first time or distance for them.
+         *
+         * @param profile the profile, e.g. car
+         * @return builder
+         */
+        public Builder addProfile(String profile) {
+            if (!profiles.contains(profile)) {
+                profiles.add(profile);
+                times.put(profile, new double[noLocations * noLocations]);
+                distances.put(profile, new double[noLocations * noLocations]);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a transport-distance for a particular relation and profile.
+         *
+         * @param profile   the profile
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param distance  the distance to be added
+         * @return builder
+         */
+        public Builder addTransportDistance(String profile, int fromIndex, int toIndex, double distance) {
+            addProfile(profile);
+            distances.get(profile)[fromIndex * noLocations + toIndex] = distance;
+            return this;
+        }
+
+        /**
+         * Adds transport-time for a particular relation and profile.
+         *
+         * @param profile   the profile
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param time      the time to be added
+         * @return builder
+         */
+        public Builder addTransportTime(String profile, int fromIndex, int toIndex, double time) {
+            addProfile(profile);
+            times.get(profile)[fromIndex * noLocations + toIndex] = time;
+            return this;
+        }
+
+        public Builder addTransportTimeAndDistance(String profile, int fromIndex, int toIndex, double time, double distance) {
+            addTransportTime(profile, fromIndex, toIndex, time);
+            addTransportDistance(profile, fromIndex, toIndex, distance);
+            return this;
+        }
+
+        /**
+         * Builds the matrix.
+         *
+         * @return matrix
+         */
+        public MultiProfileVehicleRoutingTransportCostsMatrix build() {
+            if (profiles.isEmpty()) throw new IllegalStateException("at least one profile must be added");
+            return new MultiProfileVehicleRoutingTransportCostsMatrix(this);
+        }
+
+    }
+
+    /**
+     * View on the matrix of a single profile.
+     */
+    public static final class Profile {
+
+        private final String name;
+
+        private final double[] times;
+
+        private final double[] distances;
+
+        private final int offset;
+
+        private final int noLocations;
+
+        private Profile(String name, double[] times, double[] distances, int offset, int noLocations) {
+            this.name = name;
+            this.times = times;
+            this.distances = distances;
+            this.offset = offset;
+            this.noLocations = noLocations;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getTransportTime(int fromIndex, int toIndex) {
+            return times[offset + fromIndex * noLocations + toIndex];
+        }
+
+        public double getDistance(int fromIndex, int toIndex) {
+            return distances[offset + fromIndex * noLocations + toIndex];
+        }
+
+    }
+
+    /*
+     * memorizes the profile of each vehicle class, i.e. by the index of its type key. the profile names of the vehicles
+     * are kept to detect indices that stem from another VehicleRoutingProblem. they are usually identical, thus
+     * comparing references suffices.
+     */
+    private static class ProfileCache {
+
+        final String[] profileNames;
+
+        final Profile[] profiles;
+
+        ProfileCache(String[] profileNames, Profile[] profiles) {
+            this.profileNames = profileNames;
+            this.profiles = profiles;
+        }
+
+    }
+
+    private final int noLocations;
+
+    private final double[] times;
+
+    private final double[] distances;
+
+    private final Map<String, Profile> profiles = new HashMap<String, Profile>();
+
+    private final Profile defaultProfile;
+
+    private volatile ProfileCache cache = new ProfileCache(new String[0], new Profile[0]);
+
+    private MultiProfileVehicleRoutingTransportCostsMatrix(Builder builder) {
+        noLocations = builder.noLocations;
+        int size = noLocations * noLocations;
+        times = new double[builder.profiles.size() * size];
+        distances = new double[builder.profiles.size() * size];
+        Profile first = null;
+        for (int i = 0; i < builder.profiles.size(); i++) {
+            String name = builder.profiles.get(i);
+            System.arraycopy(builder.times.get(name), 0, times, i * size, size);
+            System.arraycopy(builder.distances.get(name), 0, distances, i * size, size);
+            Profile profile = new Profile(name, times, distances, i * size, noLocations);
+            profiles.put(name, profile);
+            if (first == null) first = profile;
+        }
+        defaultProfile = first;
+    }
+
+    /**
+     * Returns the profile the specified vehicle uses.
+     *
+     * @param vehicle the vehicle
+     * @return the profile
+     * @throws IllegalArgumentException if the matrix does not contain the vehicle's profile
+     */
+    public Profile getProfile(Vehicle vehicle) {
+        if (vehicle == null) return defaultProfile;
+        VehicleTypeKey key = vehicle.getVehicleTypeIdentifier();
+        if (key == null) return getProfile(vehicle.getType().getProfile());
+        //type keys that have not been indexed by a VehicleRoutingProblem have index 0
+        int classId = key.getIndex();
+        String profileName = vehicle.getType().getProfile();
+        ProfileCache c = cache;
+        if (classId > 0 && classId < c.profiles.length) {
+            Profile p = c.profiles[classId];
+            if (p != null && (c.profileNames[classId] == profileName || p.name.equals(profileName))) return p;
+        }
+        return memorize(classId, profileName, getProfile(profileName));
+    }
+
+    /**
+     * Returns the profile with the specified name.
+     *
+     * @param profile the name of the profile
+     * @return the profile
+     * @throws IllegalArgumentException if the matrix does not contain the profile
+     */
+    public Profile getProfile(String profile) {
+        Profile p = profiles.get(profile);
+        if (p == null) throw new IllegalArgumentException("matrix does not contain profile " + profile);
+        return p;
+    }
+
+    private synchronized Profile memorize(int classId, String profileName, Profile profile) {
+        if (classId < 1) return profile;
+        ProfileCache c = cache;
+        int length = Math.max(c.profiles.length, classId + 1);
+        String[] profileNames = Arrays.copyOf(c.profileNames, length);
+        Profile[] memorizedProfiles = Arrays.copyOf(c.profiles, length);
+        profileNames[classId] = profileName;
+        memorizedProfiles[classId] = profile;
+        cache = new ProfileCache(profileNames, memorizedProfiles);
+        return profile;
+    }
+
+    Profile getMemorizedProfile(int classId) {
+        ProfileCache c = cache;
+        return classId < c.profiles.length ? c.profiles[classId] : null;
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        return getProfile(vehicle).getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getProfile(vehicle).getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        Profile profile = getProfile(vehicle);
+        double distance = profile.getDistance(from.getIndex(), to.getIndex());
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * profile.getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    private void checkIndices(Location from, Location to) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public int getNoProfiles() {
+        return profiles.size();
+    }
+
+}
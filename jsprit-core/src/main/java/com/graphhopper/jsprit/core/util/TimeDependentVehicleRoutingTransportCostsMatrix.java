@@ -0,0 +1,287 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+
+/**
+ * Time-dependent cost matrix that allows pre-compiled travel times per time bin to be considered as
+ * {@link com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts} in the
+ * {@link com.graphhopper.jsprit.core.problem.VehicleRoutingProblem}.
+ * <p>The planning horizon is divided into noBins bins of equal length. Bin b starts at b * binLength and its travel time
+ * is the travel time when departing exactly at the start of the bin. Between two bin starts, travel times are
+ * interpolated linearly. Before the first bin the travel time of the first bin applies, after the start of the last bin
+ * the travel time of the last bin applies.
+ * <p>Travel times are stored in one flat array (from, to, bin) and distances in another flat array (from, to).
+ * Thus looking up a travel time is a constant time operation.
+ * <p>When building the matrix, travel times are corrected such that the FIFO (first-in first-out) property holds, i.e. departing later
+ * never lets you arrive earlier. This is required for {@link #getBackwardTransportTime(Location, Location, double, Driver, Vehicle)},
+ * which determines the latest departure time to arrive at the given arrival time.
+ *
+ * @author schroeder
+ */
+public class TimeDependentVehicleRoutingTransportCostsMatrix implements VehicleRoutingTransportCosts, TransportDistance {
+
+    /**
+     * Builder that builds the matrix.
+     *
+     * @author schroeder
+     */
+    public static class Builder {
+
+        private final int noLocations;
+
+        private final int noBins;
+
+        private final double binLength;
+
+        private final double[] times;
+
+        private final double[] distances;
+
+        /**
+         * Creates a new builder returning the matrix-builder.
+         *
+         * @param noLocations number of locations
+         * @param noBins      number of time bins
+         * @param binLength   length of a single time bin
+         * @return builder
+         */
+        public static Builder newInstance(int noLocations, int noBins, double binLength) {
+            return new Builder(noLocations, noBins, binLength);
+        }
+
+        private Builder(int noLocations, int noBins, double binLength) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
+            if (noBins < 1) throw new IllegalArgumentException("number of time bins must be at least 1");
+            if (binLength <= 0) throw new IllegalArgumentException("length of time bin must be greater than 0");
+            this.noLocations = noLocations;
+            this.noBins = noBins;
+            this.binLength = binLength;
+            long noTimes = (long) noLocations * noLocations * noBins;
+            if (noTimes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("matrix of " + noLocations + " locations and " + noBins + " time bins requires "
+                    + noTimes + " entries, but an array holds at most " + Integer.MAX_VALUE);
+            }
+            this.times = new double[(int) noTimes];
+            this.distances = new double[noLocations * noLocations];
+        }
+
+        /**
+         * Adds a transport-distance for a particular relation. Distances do not depend on time.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param distance  the distance to be added
+         * @return builder
+         */
+        public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
+            distances[fromIndex * noLocations + toIndex] = distance;
+            return this;
+        }
+
+        /**
+         * Adds transport-time for a particular relation when departing at the start of the specified time bin.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param bin       the time bin
+         * @param time      the time to be added
+         * @return builder
+         */
+        public Builder addTransportTime(int fromIndex, int toIndex, int bin, double time) {
+            if (bin < 0 || bin >= noBins) throw new IllegalArgumentException("time bin " + bin + " does not exist");
+            times[(fromIndex * noLocations + toIndex) * noBins + bin] = time;
+            return this;
+        }
+
+        /**
+         * Adds the same transport-time for all time bins of a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param time      the time to be added
+         * @return builder
+         */
+        public Builder addTransportTime(int fromIndex, int toIndex, double time) {
+            for (int bin = 0; bin < noBins; bin++) addTransportTime(fromIndex, toIndex, bin, time);
+            return this;
+        }
+
+        /**
+         * Builds the matrix.
+         *
+         * @return matrix
+         */
+        public TimeDependentVehicleRoutingTransportCostsMatrix build() {
+            makeFifo();
+            return new TimeDependentVehicleRoutingTransportCostsMatrix(this);
+        }
+
+        /*
+         * with linear interpolation, FIFO holds if travel time does not decrease faster than time passes from
+         * one bin to the next one.
+         */
+        private void makeFifo() {
+            for (int offset = 0; offset < times.length; offset += noBins) {
+                for (int bin = 1; bin < noBins; bin++) {
+                    double minTime = times[offset + bin - 1] - binLength;
+                    if (times[offset + bin] < minTime) times[offset + bin] = minTime;
+                }
+            }
+        }
+
+    }
+
+    private final int noLocations;
+
+    private final int noBins;
+
+    private final double binLength;
+
+    private final double[] times;
+
+    private final double[] distances;
+
+    private TimeDependentVehicleRoutingTransportCostsMatrix(Builder builder) {
+        this.noLocations = builder.noLocations;
+        this.noBins = builder.noBins;
+        this.binLength = builder.binLength;
+        this.times = builder.times;
+        this.distances = builder.distances;
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        return getTransportTime(from.getIndex(), to.getIndex(), departureTime);
+    }
+
+    /**
+     * Returns the transport time from fromIndex to toIndex when departing at departureTime.
+     *
+     * @param fromIndex     from location index
+     * @param toIndex       to location index
+     * @param departureTime departure time at from location
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex, double departureTime) {
+        int offset = (fromIndex * noLocations + toIndex) * noBins;
+        if (departureTime <= 0) return times[offset];
+        double binPosition = departureTime / binLength;
+        if (binPosition >= noBins - 1) return times[offset + noBins - 1];
+        int bin = (int) binPosition;
+        double fraction = binPosition - bin;
+        double t0 = times[offset + bin];
+        return t0 + (times[offset + bin + 1] - t0) * fraction;
+    }
+
+    /**
+     * Returns the transport time from fromIndex to toIndex such that one arrives at toIndex at arrivalTime, i.e.
+     * it determines the latest departure time at fromIndex and returns arrivalTime minus this departure time.
+     *
+     * @param fromIndex   from location index
+     * @param toIndex     to location index
+     * @param arrivalTime arrival time at to location
+     * @return the transport time
+     */
+    public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime) {
+        int offset = (fromIndex * noLocations + toIndex) * noBins;
+        if (arrivalTime <= times[offset]) return times[offset];
+        int last = noBins - 1;
+        if (arrivalTime >= last * binLength + times[offset + last]) return times[offset + last];
+        //arrival times at bin starts are non-decreasing (FIFO), thus find the segment by binary search
+        int lower = 0;
+        int upper = last;
+        while (upper - lower > 1) {
+            int mid = (lower + upper) >>> 1;
+            if (mid * binLength + times[offset + mid] <= arrivalTime) lower = mid;
+            else upper = mid;
+        }
+        double t0 = times[offset + lower];
+        double slope = (times[offset + upper] - t0) / binLength;
+        double binStart = lower * binLength;
+        double departureTime = binStart + (arrivalTime - binStart - t0) / (1. + slope);
+        return arrivalTime - departureTime;
+    }
+
+    @Override
+    public double getBackwardTransportTime(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        return getBackwardTransportTime(from.getIndex(), to.getIndex(), arrivalTime);
+    }
+
+    /**
+     * Returns the distance from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return distances[fromIndex * noLocations + toIndex];
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        checkIndices(from, to);
+        return getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        double distance = getDistance(from.getIndex(), to.getIndex());
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex(), departureTime);
+    }
+
+    @Override
+    public double getBackwardTransportCost(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        double distance = getDistance(from.getIndex(), to.getIndex());
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * getBackwardTransportTime(from.getIndex(), to.getIndex(), arrivalTime);
+    }
+
+    private void checkIndices(Location from, Location to) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public int getNoBins() {
+        return noBins;
+    }
+
+    public double getBinLength() {
+        return binLength;
+    }
+
+}
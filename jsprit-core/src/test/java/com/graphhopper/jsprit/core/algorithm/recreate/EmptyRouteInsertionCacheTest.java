@@ -0,0 +1,176 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class EmptyRouteInsertionCacheTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private Vehicle v1;
+
+    private Vehicle v2;
+
+    private Service service;
+
+    private JobInsertionCostsCalculator calc;
+
+    @Before
+    public void doBefore() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").build();
+        v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance("depot")).setType(type).build();
+        v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("depot")).setType(type).build();
+        service = Service.Builder.newInstance("s").setLocation(Location.newInstance("loc")).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addVehicle(v2).addJob(service).build();
+        calc = mock(JobInsertionCostsCalculator.class);
+        when(calc.getInsertionData(any(VehicleRoute.class), any(Job.class), any(Vehicle.class), anyDouble(), any(com.graphhopper.jsprit.core.problem.driver.Driver.class), anyDouble()))
+            .thenAnswer(new org.mockito.stubbing.Answer<InsertionData>() {
+                @Override
+                public InsertionData answer(org.mockito.invocation.InvocationOnMock invocation) throws Throwable {
+                    VehicleRoute route = (VehicleRoute) invocation.getArguments()[0];
+                    Vehicle vehicle = (Vehicle) invocation.getArguments()[2];
+                    InsertionData iData = new InsertionData(10., InsertionData.NO_INDEX, 0, vehicle, null);
+                    iData.getEvents().add(new SwitchVehicle(route, vehicle, 0.));
+                    return iData;
+                }
+            });
+    }
+
+    private VehicleTypeDependentJobInsertionCalculator calculator(VehicleFleetManager fleetManager, EmptyRouteInsertionCache cache) {
+        VehicleTypeDependentJobInsertionCalculator insertion = new VehicleTypeDependentJobInsertionCalculator(vrp, fleetManager, calc);
+        insertion.setEmptyRouteInsertionCache(cache);
+        return insertion;
+    }
+
+    @Test
+    public void vehicleClassesShouldBeEqual() {
+        assertEquals(v1.getVehicleTypeIdentifier(), v2.getVehicleTypeIdentifier());
+        assertEquals(v1.getVehicleTypeIdentifier().getIndex(), v2.getVehicleTypeIdentifier().getIndex());
+    }
+
+    @Test
+    public void whenInsertingIntoEmptyRoutesTwice_itShouldBeCalculatedOnce() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1));
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        VehicleTypeDependentJobInsertionCalculator insertion = calculator(fleetManager, cache);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        InsertionData iData = insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        assertEquals(10., iData.getInsertionCost(), 0.01);
+        verify(calc, times(1)).getInsertionData(any(VehicleRoute.class), eq(service), eq(v1), anyDouble(), any(com.graphhopper.jsprit.core.problem.driver.Driver.class), eq(Double.MAX_VALUE));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void whenAnotherVehicleOfSameClassIsOffered_itShouldBeReboundToIt() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1), Collections.singletonList(v2));
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        VehicleTypeDependentJobInsertionCalculator insertion = calculator(fleetManager, cache);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        VehicleRoute route = VehicleRoute.emptyRoute();
+        InsertionData iData = insertion.getInsertionData(route, service, null, 0., null, Double.MAX_VALUE);
+        assertSame(v2, iData.getSelectedVehicle());
+        SwitchVehicle switchVehicle = (SwitchVehicle) iData.getEvents().get(0);
+        assertSame(route, switchVehicle.getRoute());
+        assertSame(v2, switchVehicle.getVehicle());
+        verify(calc, times(1)).getInsertionData(any(VehicleRoute.class), any(Job.class), any(Vehicle.class), anyDouble(), any(com.graphhopper.jsprit.core.problem.driver.Driver.class), anyDouble());
+    }
+
+    @Test
+    public void whenInsertionStarts_itShouldBeInvalidated() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1));
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        VehicleTypeDependentJobInsertionCalculator insertion = calculator(fleetManager, cache);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        cache.informInsertionStarts(Collections.<VehicleRoute>emptyList(), Collections.<Job>singletonList(service));
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        verify(calc, times(2)).getInsertionData(any(VehicleRoute.class), any(Job.class), any(Vehicle.class), anyDouble(), any(com.graphhopper.jsprit.core.problem.driver.Driver.class), anyDouble());
+    }
+
+    @Test
+    public void whenCachedCostsExceedBestKnownCosts_itShouldReturnNoInsertion() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1));
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        VehicleTypeDependentJobInsertionCalculator insertion = calculator(fleetManager, cache);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        assertTrue(insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, 5.) instanceof InsertionData.NoInsertionFound);
+    }
+
+    @Test
+    public void bestInsertionIntoEmptyRouteShouldBeMemorised() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1));
+        when(fleetManager.getAvailableVehicle(v1.getVehicleTypeIdentifier())).thenReturn(v1);
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        VehicleTypeDependentJobInsertionCalculator insertion = calculator(fleetManager, cache);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        verify(fleetManager, times(1)).getAvailableVehicles();
+        assertNotNull(cache.getBest(service, VehicleRoute.emptyRoute(), fleetManager));
+    }
+
+    @Test
+    public void whenLastVehicleOfSelectedClassIsLocked_bestInsertionShouldBeInvalid() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1));
+        when(fleetManager.getAvailableVehicle(v1.getVehicleTypeIdentifier())).thenReturn(v1);
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        VehicleTypeDependentJobInsertionCalculator insertion = calculator(fleetManager, cache);
+        insertion.getInsertionData(VehicleRoute.emptyRoute(), service, null, 0., null, Double.MAX_VALUE);
+        when(fleetManager.getAvailableVehicle(v1.getVehicleTypeIdentifier())).thenReturn(null);
+        cache.vehicleSwitched(VehicleRoute.emptyRoute(), VehicleImpl.createNoVehicle(), v1);
+        assertNull(cache.getBest(service, VehicleRoute.emptyRoute(), fleetManager));
+    }
+
+    @Test
+    public void whenClassBecomesAvailable_bestInsertionShouldBeInvalid() {
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Collections.singletonList(v1));
+        when(fleetManager.getAvailableVehicle(v1.getVehicleTypeIdentifier())).thenReturn(null);
+        EmptyRouteInsertionCache cache = new EmptyRouteInsertionCache(vrp);
+        cache.putBest(service, new InsertionData.NoInsertionFound());
+        assertNotNull(cache.getBest(service, VehicleRoute.emptyRoute(), fleetManager));
+        when(fleetManager.getAvailableVehicle(v1.getVehicleTypeIdentifier())).thenReturn(v1);
+        assertNotNull(cache.getBest(service, VehicleRoute.emptyRoute(), fleetManager));
+        cache.vehicleSwitched(VehicleRoute.emptyRoute(), v1, v2);
+        assertNull(cache.getBest(service, VehicleRoute.emptyRoute(), fleetManager));
+    }
+
+}
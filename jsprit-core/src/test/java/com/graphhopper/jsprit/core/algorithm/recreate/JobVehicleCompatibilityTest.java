@@ -0,0 +1,136 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+public class JobVehicleCompatibilityTest {
+
+    private VehicleImpl small;
+
+    private VehicleImpl skilled;
+
+    private VehicleImpl late;
+
+    private Service bigService;
+
+    private Service skillService;
+
+    private Service earlyService;
+
+    private Shipment lateShipment;
+
+    @Before
+    public void doBefore() {
+        VehicleTypeImpl smallType = VehicleTypeImpl.Builder.newInstance("small").addCapacityDimension(0, 5).build();
+        VehicleTypeImpl bigType = VehicleTypeImpl.Builder.newInstance("big").addCapacityDimension(0, 20).build();
+        small = VehicleImpl.Builder.newInstance("small").setStartLocation(Location.newInstance(0, 0)).setType(smallType)
+            .setLatestArrival(100).build();
+        skilled = VehicleImpl.Builder.newInstance("skilled").setStartLocation(Location.newInstance(0, 0)).setType(bigType)
+            .addSkill("cooling").setLatestArrival(100).build();
+        late = VehicleImpl.Builder.newInstance("late").setStartLocation(Location.newInstance(0, 0)).setType(bigType)
+            .setEarliestStart(50).setLatestArrival(200).build();
+        bigService = Service.Builder.newInstance("big").setLocation(Location.newInstance(1, 1)).addSizeDimension(0, 10).build();
+        skillService = Service.Builder.newInstance("skill").setLocation(Location.newInstance(1, 1)).addRequiredSkill("cooling").build();
+        earlyService = Service.Builder.newInstance("early").setLocation(Location.newInstance(1, 1))
+            .addTimeWindow(0, 10).addTimeWindow(20, 30).build();
+        lateShipment = Shipment.Builder.newInstance("lateShipment").setPickupLocation(Location.newInstance(1, 1))
+            .setDeliveryLocation(Location.newInstance(2, 2)).setDeliveryTimeWindow(TimeWindow.newInstance(150, 160)).build();
+    }
+
+    private ConstraintManager constraintManager(VehicleRoutingProblem vrp) {
+        ConstraintManager constraintManager = new ConstraintManager(vrp, new StateManager(vrp));
+        constraintManager.addLoadConstraint();
+        constraintManager.addSkillsConstraint();
+        constraintManager.addTimeWindowConstraint();
+        return constraintManager;
+    }
+
+    @Test
+    public void incompatiblePairsShouldBeDetected() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(small).addVehicle(skilled).addVehicle(late)
+            .addJob(bigService).addJob(skillService).addJob(earlyService).addJob(lateShipment).build();
+        JobVehicleCompatibility compatibility = new JobVehicleCompatibility(vrp, constraintManager(vrp));
+        assertFalse(compatibility.isCompatible(bigService, small));
+        assertTrue(compatibility.isCompatible(bigService, skilled));
+        assertFalse(compatibility.isCompatible(skillService, small));
+        assertTrue(compatibility.isCompatible(skillService, skilled));
+        assertFalse(compatibility.isCompatible(skillService, late));
+        assertTrue(compatibility.isCompatible(earlyService, small));
+        assertFalse(compatibility.isCompatible(earlyService, late));
+        assertFalse(compatibility.isCompatible(lateShipment, small));
+        assertTrue(compatibility.isCompatible(lateShipment, late));
+        assertEquals(6, compatibility.getNoIncompatiblePairs());
+        assertEquals(5, compatibility.getNoPrunedEvaluations());
+        assertEquals("HardSkillConstraint", compatibility.getViolatedConstraintName(skillService, small));
+        assertEquals("ServiceLoadRouteLevelConstraint", compatibility.getViolatedConstraintName(bigService, small));
+        assertEquals("VehicleDependentTimeWindowConstraints", compatibility.getViolatedConstraintName(earlyService, late));
+    }
+
+    @Test
+    public void whenConstraintsAreMissing_pairsShouldBeCompatible() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(small).addVehicle(skilled)
+            .addJob(bigService).addJob(skillService).build();
+        JobVehicleCompatibility compatibility = new JobVehicleCompatibility(vrp, new ConstraintManager(vrp, new StateManager(vrp)));
+        assertTrue(compatibility.isCompatible(bigService, small));
+        assertTrue(compatibility.isCompatible(skillService, small));
+        assertEquals(0, compatibility.getNoIncompatiblePairs());
+    }
+
+    @Test
+    public void insertionShouldSkipIncompatibleVehicles() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(small).addVehicle(skilled)
+            .addJob(skillService).build();
+        JobVehicleCompatibility compatibility = new JobVehicleCompatibility(vrp, constraintManager(vrp));
+        VehicleFleetManager fleetManager = mock(VehicleFleetManager.class);
+        when(fleetManager.getAvailableVehicles()).thenReturn(Arrays.<com.graphhopper.jsprit.core.problem.vehicle.Vehicle>asList(small, skilled));
+        JobInsertionCostsCalculator calc = mock(JobInsertionCostsCalculator.class);
+        VehicleRoute route = VehicleRoute.emptyRoute();
+        when(calc.getInsertionData(any(VehicleRoute.class), any(Service.class), any(VehicleImpl.class), anyDouble(), any(com.graphhopper.jsprit.core.problem.driver.Driver.class), anyDouble()))
+            .thenReturn(new InsertionData(10., 0, 0, skilled, null));
+        VehicleTypeDependentJobInsertionCalculator insertion = new VehicleTypeDependentJobInsertionCalculator(vrp, fleetManager, calc);
+        insertion.setCompatibility(compatibility);
+        InsertionData iData = insertion.getInsertionData(route, skillService, null, 0., null, Double.MAX_VALUE);
+        assertEquals(10., iData.getInsertionCost(), 0.01);
+        verify(calc, never()).getInsertionData(route, skillService, small, small.getEarliestDeparture(), null, Double.MAX_VALUE);
+        InsertionData noInsertion = insertion.getInsertionData(route, skillService, small, 0., null, Double.MAX_VALUE);
+        assertTrue(noInsertion instanceof InsertionData.NoInsertionFound);
+        assertEquals(Arrays.asList("HardSkillConstraint"), noInsertion.getFailedConstraintNames());
+        assertEquals(2, compatibility.getNoPrunedEvaluations());
+    }
+
+}
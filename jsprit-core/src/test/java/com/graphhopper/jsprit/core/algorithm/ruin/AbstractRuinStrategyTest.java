@@ -0,0 +1,94 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AbstractRuinStrategyTest {
+
+    @Test
+    public void whenRuinStrategiesAreNested_bothShouldUseUpToDateIndices() {
+        final Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance("loc1")).build();
+        final Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance("start")).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("start")).build();
+        final VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(s1).addJob(s2)
+            .addVehicle(v1).addVehicle(v2).build();
+        final VehicleRoute route1 = VehicleRoute.Builder.newInstance(v1).setJobActivityFactory(vrp.getJobActivityFactory())
+            .addService(s1).addService(s2).build();
+        final VehicleRoute route2 = VehicleRoute.Builder.newInstance(v2).build();
+
+        //removes s1 and moves s2 to route2
+        final AbstractRuinStrategy inner = new AbstractRuinStrategy(vrp) {
+
+            @Override
+            public Collection<Job> ruinRoutes(Collection<VehicleRoute> vehicleRoutes) {
+                assertEquals(2, route1.getTourActivities().getJobListeners().size());
+                List<Job> unassigned = new ArrayList<Job>();
+                if (removeJob(s1, vehicleRoutes)) unassigned.add(s1);
+                assertTrue(removeJob(s2, vehicleRoutes));
+                route2.getTourActivities().addActivity(vrp.getJobActivityFactory().createActivities(s2).get(0));
+                assertSame(route2, getRouteOf(s2, vehicleRoutes));
+                return unassigned;
+            }
+
+        };
+
+        final List<Job> removedByOuter = new ArrayList<Job>();
+        AbstractRuinStrategy outer = new AbstractRuinStrategy(vrp) {
+
+            @Override
+            public Collection<Job> ruinRoutes(Collection<VehicleRoute> vehicleRoutes) {
+                assertSame(route1, getRouteOf(s2, vehicleRoutes));
+                List<Job> unassigned = new ArrayList<Job>(inner.ruin(vehicleRoutes));
+                assertEquals(1, route1.getTourActivities().getJobListeners().size());
+                assertSame(route2, getRouteOf(s2, vehicleRoutes));
+                if (removeJob(s2, vehicleRoutes)) {
+                    unassigned.add(s2);
+                    removedByOuter.add(s2);
+                }
+                return unassigned;
+            }
+
+        };
+
+        Collection<Job> unassigned = outer.ruin(Arrays.asList(route1, route2));
+        assertEquals(2, unassigned.size());
+        assertEquals(Arrays.<Job>asList(s2), removedByOuter);
+        assertTrue(route1.isEmpty());
+        assertTrue(route2.isEmpty());
+        assertTrue(route1.getTourActivities().getJobListeners().isEmpty());
+        assertTrue(route2.getTourActivities().getJobListeners().isEmpty());
+    }
+
+}
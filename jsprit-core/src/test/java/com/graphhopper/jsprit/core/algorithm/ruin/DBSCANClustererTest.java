@@ -19,15 +19,22 @@
 package com.graphhopper.jsprit.core.algorithm.ruin;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.util.EuclideanCosts;
 import junit.framework.Assert;
+import org.apache.commons.math3.ml.clustering.Cluster;
+import org.apache.commons.math3.ml.clustering.Clusterable;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
 import org.junit.Test;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Created by schroeder on 06/03/15.
@@ -86,4 +93,155 @@ public class DBSCANClustererTest {
         Assert.assertEquals(3, cluster.size());
 
     }
+
+    static class CountingCosts extends EuclideanCosts {
+
+        int calls = 0;
+
+        @Override
+        public double getTransportCost(Location from, Location to, double time, Driver driver, Vehicle vehicle) {
+            calls++;
+            return super.getTransportCost(from, to, time, driver, vehicle);
+        }
+
+    }
+
+    private VehicleRoute randomRoute(Random random, int noServices, int noShipments) {
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(v);
+        for (int i = 0; i < noServices; i++) {
+            builder.addService(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(30), random.nextInt(30))).build());
+        }
+        List<Shipment> shipments = new ArrayList<Shipment>();
+        for (int i = 0; i < noShipments; i++) {
+            Shipment shipment = Shipment.Builder.newInstance("shipment" + i).setPickupLocation(Location.newInstance(random.nextInt(30), random.nextInt(30)))
+                .setDeliveryLocation(Location.newInstance(random.nextInt(30), random.nextInt(30))).build();
+            builder.addPickup(shipment);
+            shipments.add(shipment);
+        }
+        for (Shipment shipment : shipments) builder.addDelivery(shipment);
+        return builder.build();
+    }
+
+    static class JobPoint implements Clusterable {
+
+        final Job job;
+
+        final List<Location> locations = new ArrayList<Location>();
+
+        final double[] point;
+
+        JobPoint(Job job, int id) {
+            this.job = job;
+            this.point = new double[]{id};
+        }
+
+        @Override
+        public double[] getPoint() {
+            return point;
+        }
+
+    }
+
+    /*
+     * clusters as commons-math's DBSCANClusterer did
+     */
+    private List<List<Job>> commonsMathClusters(VehicleRoute route, double eps, int minPts) {
+        Map<Job, JobPoint> points = new HashMap<Job, JobPoint>();
+        for (TourActivity act : route.getActivities()) {
+            Job job = ((TourActivity.JobActivity) act).getJob();
+            if (!points.containsKey(job)) points.put(job, new JobPoint(job, 0));
+            points.get(job).locations.add(act.getLocation());
+        }
+        final List<JobPoint> pointList = new ArrayList<JobPoint>();
+        for (Job job : points.keySet()) {
+            JobPoint p = new JobPoint(job, pointList.size());
+            p.locations.addAll(points.get(job).locations);
+            pointList.add(p);
+        }
+        final EuclideanCosts costs = new EuclideanCosts();
+        DistanceMeasure measure = new DistanceMeasure() {
+            @Override
+            public double compute(double[] a, double[] b) {
+                JobPoint p1 = pointList.get((int) a[0]);
+                JobPoint p2 = pointList.get((int) b[0]);
+                double sum = 0;
+                for (Location l1 : p1.locations) {
+                    for (Location l2 : p2.locations) sum += costs.getTransportCost(l1, l2, 0, null, null);
+                }
+                return sum / (p1.locations.size() * p2.locations.size());
+            }
+        };
+        List<List<Job>> clusters = new ArrayList<List<Job>>();
+        for (Cluster<JobPoint> c : new org.apache.commons.math3.ml.clustering.DBSCANClusterer<JobPoint>(eps, minPts, measure).cluster(pointList)) {
+            List<Job> jobs = new ArrayList<Job>();
+            for (JobPoint p : c.getPoints()) jobs.add(p.job);
+            clusters.add(jobs);
+        }
+        return clusters;
+    }
+
+    @Test
+    public void itShouldReturnSameClustersAsCommonsMath() {
+        Random random = new Random(3);
+        DBSCANClusterer c = new DBSCANClusterer(new EuclideanCosts());
+        for (int i = 0; i < 30; i++) {
+            VehicleRoute route = randomRoute(random, 20 + random.nextInt(20), random.nextInt(5));
+            double eps = 1 + random.nextInt(6);
+            int minPts = 1 + random.nextInt(3);
+            c.setEpsDistance(eps);
+            c.setMinPts(minPts);
+            Assert.assertEquals(commonsMathClusters(route, eps, minPts), c.getClusters(route));
+            Assert.assertEquals(commonsMathClusters(route, eps, minPts), c.getClusters(VehicleRoute.copyOf(route)));
+        }
+    }
+
+    @Test
+    public void whenRouteIsUnchanged_distancesShouldBeReused() {
+        CountingCosts costs = new CountingCosts();
+        VehicleRoute route = randomRoute(new Random(1), 10, 2);
+        DBSCANClusterer c = new DBSCANClusterer(costs);
+        c.setEpsDistance(5);
+        List<List<Job>> clusters = c.getClusters(route);
+        int calls = costs.calls;
+        Assert.assertTrue(calls > 0);
+        Assert.assertEquals(clusters, c.getClusters(VehicleRoute.copyOf(route)));
+        Assert.assertEquals(calls, costs.calls);
+
+        route.getTourActivities().removeActivity(route.getActivities().get(0));
+        c.getClusters(route);
+        Assert.assertTrue(costs.calls > calls);
+    }
+
+    @Test
+    public void whenCacheCapacityIsExceeded_leastRecentlyUsedRouteShouldBeEvicted() {
+        CountingCosts costs = new CountingCosts();
+        VehicleRoute route1 = randomRoute(new Random(1), 9, 1);
+        VehicleRoute route2 = randomRoute(new Random(2), 9, 1);
+        DBSCANClusterer c = new DBSCANClusterer(costs);
+        c.setEpsDistance(5);
+        c.setCacheCapacity(2 * 10 * 10);
+        c.getClusters(route1);
+        int calls = costs.calls;
+        c.getClusters(route1);
+        Assert.assertEquals(calls, costs.calls);
+
+        c.getClusters(route2);
+        calls = costs.calls;
+        c.getClusters(route1);
+        Assert.assertTrue(costs.calls > calls);
+    }
+
+    @Test
+    public void whenRouteExceedsCacheCapacity_itShouldNotBeCached() {
+        CountingCosts costs = new CountingCosts();
+        VehicleRoute route = randomRoute(new Random(1), 9, 1);
+        DBSCANClusterer c = new DBSCANClusterer(costs);
+        c.setEpsDistance(5);
+        c.setCacheCapacity(2 * 10 * 10 - 1);
+        List<List<Job>> clusters = c.getClusters(route);
+        int calls = costs.calls;
+        Assert.assertEquals(clusters, c.getClusters(route));
+        Assert.assertTrue(costs.calls > calls);
+    }
 }
@@ -25,11 +25,17 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import junit.framework.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -37,6 +43,9 @@ import static org.junit.Assert.assertTrue;
 
 public class JobNeighborhoodsOptimizedTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     VehicleRoutingProblem vrp;
 
     JobDistance jobDistance;
@@ -143,4 +152,129 @@ public class JobNeighborhoodsOptimizedTest {
 
 
 
+    @Test
+    public void whenCapacityExceedsNoJobs_itShouldBeCapped() {
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(vrp, jobDistance, 100);
+        jn.initialise();
+        Iterator<Job> iter = jn.getNearestNeighborsIterator(100, target);
+        int count = 0;
+        while (iter.hasNext()) {
+            iter.next();
+            count++;
+        }
+        assertEquals(6, count);
+        assertEquals(6., jn.getMaxDistance(), 0.01);
+    }
+
+    @Test
+    public void distancesShouldBeStoredInAscendingOrder() {
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(vrp, jobDistance, 4);
+        jn.initialise();
+        assertEquals(1., jn.getNeighborDistance(s7, 0), 0.01);
+        assertEquals(2., jn.getNeighborDistance(s7, 1), 0.01);
+        assertEquals(3., jn.getNeighborDistance(s7, 2), 0.01);
+        assertEquals(4., jn.getNeighborDistance(s7, 3), 0.01);
+    }
+
+    @Test
+    public void boundedHeapShouldBreakTiesLikeStableSort() {
+        JobNeighborhoodsOptimized.BoundedNeighborHeap heap = new JobNeighborhoodsOptimized.BoundedNeighborHeap(3);
+        double[] values = {5., 1., 3., 1., 0., 3.};
+        for (int i = 0; i < values.length; i++) heap.offer(i, values[i]);
+        int[] positions = new int[3];
+        double[] distances = new double[3];
+        heap.drainAscending(positions, distances);
+        assertEquals(4, positions[0]);
+        assertEquals(1, positions[1]);
+        assertEquals(3, positions[2]);
+        assertEquals(1., distances[2], 0.01);
+    }
+
+    @Test
+    public void parallelComputationShouldEqualSequentialComputation() {
+        VehicleRoutingProblem randomVrp = randomProblem(200);
+        JobNeighborhoodsOptimized sequential = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 20);
+        sequential.initialise();
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        JobNeighborhoodsOptimized parallel = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 20);
+        parallel.setExecutorService(es, 3);
+        parallel.initialise();
+        es.shutdown();
+        assertSameNeighborhoods(randomVrp, sequential, parallel);
+        assertEquals(sequential.getMaxDistance(), parallel.getMaxDistance(), 0.);
+    }
+
+    @Test
+    public void whenInterruptedWhilePreProcessing_itShouldThrowAndKeepInterruptFlag() {
+        VehicleRoutingProblem randomVrp = randomProblem(200);
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        JobNeighborhoodsOptimized parallel = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 20);
+        parallel.setExecutorService(es, 3);
+        Thread.currentThread().interrupt();
+        boolean thrown = false;
+        try {
+            parallel.initialise();
+        } catch (RuntimeException e) {
+            thrown = true;
+        } finally {
+            assertTrue(Thread.interrupted());
+            es.shutdown();
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void whenCapacityChanges_neighborhoodsShouldBePersistedInAnotherFile() throws Exception {
+        VehicleRoutingProblem randomVrp = randomProblem(50);
+        File dir = folder.newFolder();
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 10);
+        jn.setPersistenceDirectory(dir);
+        jn.initialise();
+        JobNeighborhoodsOptimized jn2 = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 5);
+        jn2.setPersistenceDirectory(dir);
+        jn2.initialise();
+        assertEquals(2, dir.listFiles().length);
+    }
+
+    @Test
+    public void whenProblemIsUnchanged_neighborhoodsShouldBeReadFromFile() throws Exception {
+        VehicleRoutingProblem randomVrp = randomProblem(50);
+        File dir = folder.newFolder();
+        JobNeighborhoodsOptimized computed = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 10);
+        computed.setPersistenceDirectory(dir);
+        computed.initialise();
+        File file = dir.listFiles()[0];
+        long lastModified = file.lastModified();
+        assertTrue(file.setLastModified(lastModified - 10000));
+
+        JobNeighborhoodsOptimized read = new JobNeighborhoodsOptimized(randomVrp, jobDistance, 10);
+        read.setPersistenceDirectory(dir);
+        read.initialise();
+        assertEquals(lastModified - 10000, file.lastModified(), 1000);
+        assertSameNeighborhoods(randomVrp, computed, read);
+        assertEquals(computed.getMaxDistance(), read.getMaxDistance(), 0.);
+    }
+
+    private VehicleRoutingProblem randomProblem(int noJobs) {
+        Random random = new Random(42);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < noJobs; i++) {
+            //integer coordinates produce ties
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(20), random.nextInt(20))).build());
+        }
+        return builder.build();
+    }
+
+    private void assertSameNeighborhoods(VehicleRoutingProblem vrp, JobNeighborhoodsOptimized expected, JobNeighborhoodsOptimized actual) {
+        for (Job job : vrp.getJobs().values()) {
+            Iterator<Job> expectedIter = expected.getNearestNeighborsIterator(100, job);
+            Iterator<Job> actualIter = actual.getNearestNeighborsIterator(100, job);
+            while (expectedIter.hasNext()) {
+                assertTrue(actualIter.hasNext());
+                assertEquals(expectedIter.next(), actualIter.next());
+            }
+            assertTrue(!actualIter.hasNext());
+        }
+    }
+
 }
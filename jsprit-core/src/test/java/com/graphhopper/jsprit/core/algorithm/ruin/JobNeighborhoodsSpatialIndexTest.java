@@ -0,0 +1,134 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.DistanceUnit;
+import com.graphhopper.jsprit.core.util.EuclideanCosts;
+import com.graphhopper.jsprit.core.util.GreatCircleCosts;
+import com.graphhopper.jsprit.core.util.ManhattanCosts;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JobNeighborhoodsSpatialIndexTest {
+
+    private VehicleRoutingProblem problem(int noServices, int noShipments, VehicleRoutingTransportCosts costs, double scale, boolean integerCoordinates) {
+        Random random = new Random(4711);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < noServices; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(location(random, scale, integerCoordinates)).build());
+        }
+        for (int i = 0; i < noShipments; i++) {
+            builder.addJob(Shipment.Builder.newInstance("shipment" + i).setPickupLocation(location(random, scale, integerCoordinates))
+                .setDeliveryLocation(location(random, scale, integerCoordinates)).build());
+        }
+        if (costs != null) builder.setRoutingCost(costs);
+        return builder.build();
+    }
+
+    private Location location(Random random, double scale, boolean integerCoordinate) {
+        if (integerCoordinate) return Location.newInstance(random.nextInt((int) scale), random.nextInt((int) scale));
+        return Location.newInstance(random.nextDouble() * scale, random.nextDouble() * scale);
+    }
+
+    private void assertSameAsAllPairs(VehicleRoutingProblem vrp, int capacity) {
+        JobNeighborhoodsOptimized expected = new JobNeighborhoodsOptimized(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), capacity);
+        expected.initialise();
+        JobNeighborhoodsSpatialIndex actual = new JobNeighborhoodsSpatialIndex(vrp, capacity);
+        actual.initialise();
+        assertEquals(expected.getMaxDistance(), actual.getMaxDistance(), 0.);
+        for (Job job : vrp.getJobs().values()) {
+            Iterator<Job> expectedIter = expected.getNearestNeighborsIterator(capacity, job);
+            Iterator<Job> actualIter = actual.getNearestNeighborsIterator(capacity, job);
+            while (expectedIter.hasNext()) {
+                assertTrue(actualIter.hasNext());
+                assertEquals(expectedIter.next(), actualIter.next());
+            }
+            assertFalse(actualIter.hasNext());
+        }
+    }
+
+    @Test
+    public void euclideanNeighborhoodsShouldEqualAllPairsNeighborhoods() {
+        assertSameAsAllPairs(problem(150, 50, new EuclideanCosts(), 100., false), 60);
+    }
+
+    @Test
+    public void whenCoordinatesAreTied_neighborsShouldBeInSameOrder() {
+        assertSameAsAllPairs(problem(150, 30, null, 10., true), 100);
+    }
+
+    @Test
+    public void greatCircleNeighborhoodsShouldEqualAllPairsNeighborhoods() {
+        GreatCircleCosts costs = new GreatCircleCosts(DistanceUnit.Meter);
+        costs.setDetour(1.3);
+        assertSameAsAllPairs(problem(150, 50, costs, 10., false), 60);
+    }
+
+    @Test
+    public void whenIteratingWithoutBound_itShouldReturnCapacityNeighbors() {
+        VehicleRoutingProblem vrp = problem(20, 0, null, 100., false);
+        JobNeighborhoodsSpatialIndex neighborhoods = new JobNeighborhoodsSpatialIndex(vrp, 5);
+        neighborhoods.initialise();
+        Iterator<Job> iter = neighborhoods.getNearestNeighborsIterator(100, vrp.getJobs().get("s0"));
+        int count = 0;
+        while (iter.hasNext()) {
+            iter.next();
+            count++;
+        }
+        assertEquals(5, count);
+    }
+
+    @Test
+    public void whenCostsAreNotCoordinateBased_itShouldNotBeApplicable() {
+        assertFalse(JobNeighborhoodsSpatialIndex.isApplicable(problem(10, 0, new ManhattanCosts(), 100., false)));
+        assertTrue(JobNeighborhoodsSpatialIndex.isApplicable(problem(10, 0, new EuclideanCosts(), 100., false)));
+    }
+
+    @Test
+    public void whenCostsSubclassCoordinateBasedCosts_itShouldNotBeApplicable() {
+        EuclideanCosts costs = new EuclideanCosts() {
+
+            @Override
+            public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+                return 2. * super.getDistance(from, to, departureTime, vehicle);
+            }
+
+        };
+        assertFalse(JobNeighborhoodsSpatialIndex.isApplicable(problem(10, 0, costs, 100., false)));
+    }
+
+    @Test
+    public void whenJobHasNoCoordinate_itShouldNotBeApplicable() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance()
+            .addJob(Service.Builder.newInstance("s").setLocation(Location.newInstance("loc")).build()).build();
+        assertFalse(JobNeighborhoodsSpatialIndex.isApplicable(vrp));
+    }
+
+}
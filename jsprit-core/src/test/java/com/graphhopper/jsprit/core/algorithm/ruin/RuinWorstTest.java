@@ -20,16 +20,18 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.NoiseMaker;
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.*;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -214,4 +216,103 @@ public class RuinWorstTest {
     }
 
 
+    @Test
+    public void itShouldRemoveSameJobsAsFullRecalculation() {
+        for (boolean withNoise : new boolean[]{false, true}) {
+            Random random = new Random(11);
+            VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+            List<VehicleImpl> vehicles = new ArrayList<VehicleImpl>();
+            for (int i = 0; i < 4; i++) {
+                VehicleImpl v = VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance(50, 50)).build();
+                vehicles.add(v);
+                vrpBuilder.addVehicle(v);
+            }
+            List<Job> jobs = new ArrayList<Job>();
+            for (int i = 0; i < 60; i++) {
+                Location location = Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100);
+                if (i % 5 == 0) {
+                    jobs.add(Shipment.Builder.newInstance("shipment" + i).setPickupLocation(location)
+                        .setDeliveryLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100)).build());
+                } else jobs.add(Service.Builder.newInstance("s" + i).setLocation(location).build());
+            }
+            vrpBuilder.addAllJobs(jobs);
+            VehicleRoutingProblem vrp = vrpBuilder.build();
+
+            RuinWorst worst = new RuinWorst(vrp, 25);
+            if (withNoise) worst.setNoiseMaker(noiseMaker(new Random(7)));
+            Collection<Job> unassigned = worst.ruinRoutes(routes(vrp, vehicles, jobs));
+
+            List<Job> expected = removeWorstByFullRecalculation(vrp, routes(vrp, vehicles, jobs), 25, withNoise ? noiseMaker(new Random(7)) : noiseMaker(null));
+            assertEquals(expected, new ArrayList<Job>(unassigned));
+        }
+    }
+
+    private NoiseMaker noiseMaker(final Random random) {
+        return new NoiseMaker() {
+            @Override
+            public double makeNoise() {
+                if (random == null) return 0.;
+                return random.nextDouble() < 0.5 ? 20. * random.nextGaussian() : 0.;
+            }
+        };
+    }
+
+    private List<VehicleRoute> routes(VehicleRoutingProblem vrp, List<VehicleImpl> vehicles, List<Job> jobs) {
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (int r = 0; r < vehicles.size(); r++) {
+            VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicles.get(r)).setJobActivityFactory(vrp.getJobActivityFactory());
+            List<Shipment> open = new ArrayList<Shipment>();
+            for (int j = r; j < jobs.size(); j += vehicles.size()) {
+                Job job = jobs.get(j);
+                if (job instanceof Shipment) {
+                    routeBuilder.addPickup((Shipment) job);
+                    open.add((Shipment) job);
+                } else routeBuilder.addService((Service) job);
+                if (open.size() == 2) routeBuilder.addDelivery(open.remove(0));
+            }
+            for (Shipment shipment : open) routeBuilder.addDelivery(shipment);
+            routes.add(routeBuilder.build());
+        }
+        return routes;
+    }
+
+    /*
+     * the former implementation that recalculates all savings in each step
+     */
+    private List<Job> removeWorstByFullRecalculation(VehicleRoutingProblem vrp, List<VehicleRoute> routes, int noToRemove, NoiseMaker noiseMaker) {
+        List<Job> removed = new ArrayList<Job>();
+        for (int k = 0; k < noToRemove; k++) {
+            Job worst = null;
+            double bestSavings = Double.MIN_VALUE;
+            for (VehicleRoute route : routes) {
+                if (route.isEmpty()) continue;
+                Map<Job, Double> savingsMap = new LinkedHashMap<Job, Double>();
+                List<TourActivity> acts = route.getActivities();
+                for (int i = 0; i < acts.size(); i++) {
+                    TourActivity before = i == 0 ? route.getStart() : acts.get(i - 1);
+                    TourActivity after = i == acts.size() - 1 ? route.getEnd() : acts.get(i + 1);
+                    double savings = c(vrp, before, acts.get(i), route) + c(vrp, acts.get(i), after, route) - c(vrp, before, after, route);
+                    savings = Math.max(0, savings + noiseMaker.makeNoise());
+                    Job job = ((TourActivity.JobActivity) acts.get(i)).getJob();
+                    savingsMap.put(job, savingsMap.containsKey(job) ? savingsMap.get(job) + savings : savings);
+                }
+                for (Map.Entry<Job, Double> e : savingsMap.entrySet()) {
+                    if (e.getValue() > bestSavings) {
+                        bestSavings = e.getValue();
+                        worst = e.getKey();
+                    }
+                }
+            }
+            if (worst == null) break;
+            for (VehicleRoute route : routes) {
+                if (route.getTourActivities().removeJob(worst)) removed.add(worst);
+            }
+        }
+        return removed;
+    }
+
+    private double c(VehicleRoutingProblem vrp, TourActivity from, TourActivity to, VehicleRoute route) {
+        return vrp.getTransportCosts().getTransportCost(from.getLocation(), to.getLocation(), from.getEndTime(), DriverImpl.noDriver(), route.getVehicle());
+    }
+
 }
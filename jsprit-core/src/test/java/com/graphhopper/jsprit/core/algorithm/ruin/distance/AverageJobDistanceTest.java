@@ -18,10 +18,12 @@
 package com.graphhopper.jsprit.core.algorithm.ruin.distance;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.CrowFlyCosts;
+import com.graphhopper.jsprit.core.util.EuclideanCosts;
 import com.graphhopper.jsprit.core.util.Locations;
 import org.junit.Before;
 import org.junit.Test;
@@ -78,4 +80,23 @@ public class AverageJobDistanceTest {
         double dist = new AvgServiceAndShipmentDistance(routingCosts).getDistance(s1, s2);
         assertEquals(0.0, dist, 0.01);
     }
+
+    @Test
+    public void batchDistancesShouldEqualSingleDistances() {
+        Job[] jobs = new Job[]{
+            Service.Builder.newInstance("s1").setLocation(Location.newInstance(0, 0)).build(),
+            Service.Builder.newInstance("s2").setLocation(Location.newInstance(3, 4)).build(),
+            Shipment.Builder.newInstance("s3").setPickupLocation(Location.newInstance(1, 1)).setDeliveryLocation(Location.newInstance(5, 5)).build(),
+            Service.Builder.newInstance("s4").setLocation(Location.newInstance(10, 2)).build()
+        };
+        AvgServiceAndShipmentDistance jobDistance = new AvgServiceAndShipmentDistance(new EuclideanCosts());
+        double[] distances = new double[jobs.length];
+        for (Job from : jobs) {
+            jobDistance.getDistances(from, jobs, distances);
+            for (int k = 0; k < jobs.length; k++) {
+                assertEquals(jobDistance.getDistance(from, jobs[k]), distances[k], 0.000001);
+            }
+        }
+    }
+
 }
@@ -31,6 +31,9 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -329,4 +332,57 @@ public class LoadStateTest {
         Capacity atAct = stateManager.getActivityState(shipment_route.getActivities().get(3), InternalStates.PAST_MAXLOAD, Capacity.class);
         assertEquals(15, atAct.get(0));
     }
+
+    @Test
+    public void loadStatesShouldBeAvailableDimensionByDimension() {
+        stateManager.informInsertionStarts(Arrays.asList(shipment_route), Collections.<Job>emptyList());
+        assertEquals(15, stateManager.getLoadState(shipment_route.getActivities().get(1), InternalStates.LOAD, 0));
+        assertEquals(15, stateManager.getLoadState(shipment_route.getActivities().get(1), InternalStates.FUTURE_MAXLOAD, 0));
+        assertEquals(15, stateManager.getLoadState(shipment_route.getActivities().get(3), InternalStates.PAST_MAXLOAD, 0));
+        assertEquals(0, stateManager.getLoadState(shipment_route.getActivities().get(3), InternalStates.LOAD, 0));
+        assertEquals(0, stateManager.getLoadState(shipment_route.getActivities().get(1), InternalStates.LOAD, 3));
+    }
+
+    @Test
+    public void loadStatesShouldBeCopiedIntoAccumulator() {
+        stateManager.informInsertionStarts(Arrays.asList(shipment_route), Collections.<Job>emptyList());
+        CapacityAccumulator load = new CapacityAccumulator();
+        assertTrue(stateManager.getLoadState(shipment_route.getActivities().get(1), InternalStates.LOAD, load));
+        assertEquals(15, load.get(0));
+        assertTrue(stateManager.getLoadState(shipment_route.getActivities().get(3), InternalStates.PAST_MAXLOAD, load));
+        assertEquals(15, load.get(0));
+        stateManager.clear();
+        assertFalse(stateManager.getLoadState(shipment_route.getActivities().get(1), InternalStates.LOAD, load));
+        assertEquals(0, load.get(0));
+    }
+
+    @Test
+    public void routeLoadStatesShouldBeAvailableDimensionByDimension() {
+        stateManager.informInsertionStarts(Arrays.asList(serviceRoute), Collections.<Job>emptyList());
+        Capacity atBeginning = stateManager.getRouteState(serviceRoute, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        assertEquals(atBeginning.get(0), stateManager.getRouteLoadState(serviceRoute, InternalStates.LOAD_AT_BEGINNING, 0));
+        assertEquals(0, stateManager.getRouteLoadState(serviceRoute, InternalStates.LOAD_AT_BEGINNING, 5));
+    }
+
+    @Test
+    public void whenStatesAreCleared_loadStatesShouldBeRemoved() {
+        stateManager.informInsertionStarts(Arrays.asList(serviceRoute), Collections.<Job>emptyList());
+        stateManager.clear();
+        assertNull(stateManager.getActivityState(serviceRoute.getActivities().get(0), InternalStates.LOAD, Capacity.class));
+        assertEquals(0, stateManager.getLoadState(serviceRoute.getActivities().get(0), InternalStates.LOAD, 0));
+    }
+
+    @Test
+    public void whenLoadHasMoreDimensions_loadColumnsShouldGrow() {
+        Capacity load = Capacity.Builder.newInstance().addDimension(0, 1).addDimension(2, 3).build();
+        stateManager.putInternalTypedActivityState(serviceRoute.getActivities().get(0), InternalStates.LOAD, load);
+        assertEquals(3, stateManager.getNuOfLoadDimensions());
+        assertEquals(3, stateManager.getLoadState(serviceRoute.getActivities().get(0), InternalStates.LOAD, 2));
+        assertEquals(load, stateManager.getActivityState(serviceRoute.getActivities().get(0), InternalStates.LOAD, Capacity.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenRequestingNonLoadStateDimensionByDimension_itShouldThrowException() {
+        stateManager.getLoadState(serviceRoute.getActivities().get(0), InternalStates.COSTS, 0);
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MaxTimeInVehicleLatestStartsTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private Shipment s1;
+
+    private Shipment s2;
+
+    private Delivery d1;
+
+    private MaxTimeInVehicleLatestStarts latestStarts;
+
+    @Before
+    public void doBefore() {
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        s1 = Shipment.Builder.newInstance("s1").setPickupLocation(Location.newInstance(10, 0))
+            .setDeliveryLocation(Location.newInstance(30, 0)).setMaxTimeInVehicle(30).build();
+        s2 = Shipment.Builder.newInstance("s2").setPickupLocation(Location.newInstance(10, 0))
+            .setDeliveryLocation(Location.newInstance(30, 0)).setMaxTimeInVehicle(100).build();
+        d1 = Delivery.Builder.newInstance("d1").setLocation(Location.newInstance(40, 0)).setMaxTimeInVehicle(50).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(s1).addJob(s2).addJob(d1).build();
+        latestStarts = new MaxTimeInVehicleLatestStarts(vrp.getTransportCosts(), vrp.getActivityCosts());
+    }
+
+    private TourActivity act(int job, int index) {
+        List<? extends TourActivity> acts = vrp.getActivities(job == 1 ? s1 : (job == 2 ? s2 : d1));
+        return acts.get(index);
+    }
+
+    @Test
+    public void latestStartShouldBeDeterminedBySlackOfJobsInVehicle() {
+        latestStarts.begin(vehicle, null);
+        latestStarts.visit(act(1, 0));
+        latestStarts.visit(act(1, 1));
+        double latestArrivalAtEnd = latestStarts.finish(null);
+        assertEquals(2, latestStarts.size());
+        //pickup: no job in vehicle yet
+        assertEquals(10. + Double.MAX_VALUE, latestStarts.getLatestStart(0), 0.01);
+        //delivery: 30 - (30 - 10)
+        assertEquals(40., latestStarts.getLatestStart(1), 0.01);
+        assertEquals(60. + Double.MAX_VALUE, latestArrivalAtEnd, 0.01);
+    }
+
+    @Test
+    public void deliveriesShouldRestrictAllPrecedingActivities() {
+        latestStarts.begin(vehicle, null);
+        latestStarts.visit(act(1, 0));
+        latestStarts.visit(act(1, 1));
+        latestStarts.visit(act(3, 0));
+        latestStarts.finish(null);
+        //d1 is loaded at depot and delivered at 40, i.e. slack is 50 - 40
+        assertEquals(20., latestStarts.getLatestStart(0), 0.01);
+        assertEquals(40., latestStarts.getLatestStart(1), 0.01);
+        assertEquals(50., latestStarts.getLatestStart(2), 0.01);
+    }
+
+    @Test
+    public void openPickupShouldRestrictRouteEndUnlessIgnored() {
+        latestStarts.begin(vehicle, null);
+        latestStarts.visit(act(2, 0));
+        assertEquals(100. - (20. - 10.) + 20., latestStarts.finish(null), 0.01);
+        assertEquals(20. + Double.MAX_VALUE, latestStarts.finish(s2), 0.01);
+    }
+
+    @Test
+    public void whenReused_itShouldForgetPreviousSequence() {
+        latestStarts.begin(vehicle, null);
+        latestStarts.visit(act(2, 0));
+        latestStarts.visit(act(1, 0));
+        latestStarts.finish(null);
+        latestStarts.begin(vehicle, null);
+        latestStarts.visit(act(1, 0));
+        latestStarts.visit(act(1, 1));
+        latestStarts.finish(null);
+        assertEquals(2, latestStarts.size());
+        assertEquals(40., latestStarts.getLatestStart(1), 0.01);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RouteSegmentTest {
+
+    private TourActivity activity(double earliest, double latest, int size) {
+        TourActivity act = mock(TourActivity.class);
+        when(act.getLocation()).thenReturn(Location.newInstance(0, 0));
+        when(act.getTheoreticalEarliestOperationStartTime()).thenReturn(earliest);
+        when(act.getTheoreticalLatestOperationStartTime()).thenReturn(latest);
+        when(act.getSize()).thenReturn(Capacity.Builder.newInstance().addDimension(0, size).build());
+        return act;
+    }
+
+    @Test
+    public void singleActivitySegmentShouldBeCorrect() {
+        RouteSegment segment = RouteSegment.of(activity(10, 20, 3), 5);
+        assertEquals(1, segment.getNuActivities());
+        assertEquals(5., segment.getDuration(), 0.01);
+        assertEquals(0., segment.getTimeWarp(), 0.01);
+        assertEquals(10., segment.getEarliestStart(), 0.01);
+        assertEquals(20., segment.getLatestStart(), 0.01);
+        assertEquals(3, segment.getNetLoad(0));
+        assertEquals(3, segment.getMaxLoad(0));
+    }
+
+    @Test
+    public void whenSecondSegmentOpensLater_concatenationShouldWait() {
+        RouteSegment segment = RouteSegment.concatenate(RouteSegment.of(activity(0, 10, 0), 5), RouteSegment.of(activity(50, 60, 0), 5), 10, 7);
+        //even when starting at 10, the vehicle needs to wait 50 - 15 - 10 = 25
+        assertEquals(45., segment.getDuration(), 0.01);
+        assertEquals(0., segment.getTimeWarp(), 0.01);
+        assertEquals(10., segment.getEarliestStart(), 0.01);
+        assertEquals(10., segment.getLatestStart(), 0.01);
+        assertEquals(7., segment.getTransportCosts(), 0.01);
+        assertTrue(segment.isTimeFeasible());
+    }
+
+    @Test
+    public void whenSecondSegmentOpensWithinReach_concatenationShouldNarrowStartWindow() {
+        RouteSegment segment = RouteSegment.concatenate(RouteSegment.of(activity(0, 40, 0), 5), RouteSegment.of(activity(30, 60, 0), 5), 10, 0);
+        assertEquals(20., segment.getDuration(), 0.01);
+        assertEquals(15., segment.getEarliestStart(), 0.01);
+        assertEquals(40., segment.getLatestStart(), 0.01);
+        assertTrue(segment.isTimeFeasible());
+    }
+
+    @Test
+    public void whenSecondSegmentClosesTooEarly_concatenationShouldWarpTime() {
+        RouteSegment segment = RouteSegment.concatenate(RouteSegment.of(activity(20, 30, 0), 5), RouteSegment.of(activity(0, 10, 0), 5), 10, 0);
+        assertEquals(25., segment.getTimeWarp(), 0.01);
+        assertEquals(20., segment.getEarliestStart(), 0.01);
+        assertEquals(20., segment.getLatestStart(), 0.01);
+        assertFalse(segment.isTimeFeasible());
+    }
+
+    @Test
+    public void concatenationShouldBeAssociative() {
+        RouteSegment s1 = RouteSegment.of(activity(0, 40, 0), 5);
+        RouteSegment s2 = RouteSegment.of(activity(30, 35, 0), 5);
+        RouteSegment s3 = RouteSegment.of(activity(10, 45, 0), 5);
+        RouteSegment left = RouteSegment.concatenate(RouteSegment.concatenate(s1, s2, 10, 1), s3, 10, 1);
+        RouteSegment right = RouteSegment.concatenate(s1, RouteSegment.concatenate(s2, s3, 10, 1), 10, 1);
+        assertEquals(left.getDuration(), right.getDuration(), 0.01);
+        assertEquals(left.getTimeWarp(), right.getTimeWarp(), 0.01);
+        assertEquals(left.getEarliestStart(), right.getEarliestStart(), 0.01);
+        assertEquals(left.getLatestStart(), right.getLatestStart(), 0.01);
+        assertEquals(left.getTransportCosts(), right.getTransportCosts(), 0.01);
+    }
+
+    @Test
+    public void loadsShouldBeConcatenated() {
+        RouteSegment segment = RouteSegment.concatenate(RouteSegment.of(activity(0, 100, 4), 0), RouteSegment.of(activity(0, 100, -2), 0), 0, 0);
+        segment = RouteSegment.concatenate(segment, RouteSegment.of(activity(0, 100, 3), 0), 0, 0);
+        assertEquals(5, segment.getNetLoad(0));
+        assertEquals(5, segment.getMaxLoad(0));
+        assertTrue(segment.isLoadFeasible(Capacity.Builder.newInstance().addDimension(0, 5).build()));
+        assertFalse(segment.isLoadFeasible(Capacity.Builder.newInstance().addDimension(0, 4).build()));
+    }
+
+    @Test
+    public void whenVehicleDoesNotReturn_endShouldHaveNoLocation() {
+        Vehicle vehicle = mock(Vehicle.class);
+        when(vehicle.isReturnToDepot()).thenReturn(false);
+        RouteSegment end = RouteSegment.ofEnd(vehicle);
+        assertNull(end.getFirstLocation());
+        assertEquals(0, end.getNuActivities());
+    }
+
+}
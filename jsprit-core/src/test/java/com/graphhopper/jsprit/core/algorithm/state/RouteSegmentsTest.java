@@ -0,0 +1,220 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Pickup;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RouteSegmentsTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private List<Job> jobs;
+
+    private Random random;
+
+    @Before
+    public void doBefore() {
+        random = new Random(4711);
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 15).build();
+        vehicle = VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(0, 0))
+            .setEarliestStart(0).setLatestArrival(300).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle);
+        jobs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            double earliest = random.nextInt(150);
+            Service.Builder<? extends Service> builder;
+            if (i % 3 == 0) builder = Delivery.Builder.newInstance("d" + i);
+            else if (i % 3 == 1) builder = Pickup.Builder.newInstance("p" + i);
+            else builder = Service.Builder.newInstance("s" + i);
+            Job job = builder.setLocation(Location.newInstance(random.nextInt(30), random.nextInt(30)))
+                .setServiceTime(random.nextInt(10)).addSizeDimension(0, 1 + random.nextInt(4))
+                .setTimeWindow(TimeWindow.newInstance(earliest, earliest + 20 + random.nextInt(100))).build();
+            jobs.add(job);
+            vrpBuilder.addJob(job);
+        }
+        vrp = vrpBuilder.build();
+    }
+
+    private VehicleRoute route(List<Job> routeJobs) {
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (Job job : routeJobs) builder.addService((Service) job);
+        return builder.build();
+    }
+
+    private RouteSegments segments(VehicleRoute route) {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateRouteSegments();
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        return stateManager.getRouteSegments(route);
+    }
+
+    /*
+     * simulates the route starting at the earliest departure. arriving late warps time back to the latest start.
+     */
+    private double[] simulate(List<TourActivity> activities) {
+        double time = vehicle.getEarliestDeparture();
+        double timeWarp = 0.;
+        double costs = 0.;
+        int load = 0;
+        for (TourActivity act : activities) {
+            if (act.getSize().get(0) < 0) load -= act.getSize().get(0);
+        }
+        int maxLoad = load;
+        Location prev = vehicle.getStartLocation();
+        for (TourActivity act : activities) {
+            costs += vrp.getTransportCosts().getTransportCost(prev, act.getLocation(), time, null, vehicle);
+            time += vrp.getTransportCosts().getTransportTime(prev, act.getLocation(), time, null, vehicle);
+            time = Math.max(time, act.getTheoreticalEarliestOperationStartTime());
+            if (time > act.getTheoreticalLatestOperationStartTime()) {
+                timeWarp += time - act.getTheoreticalLatestOperationStartTime();
+                time = act.getTheoreticalLatestOperationStartTime();
+            }
+            time += act.getOperationTime();
+            load += act.getSize().get(0);
+            maxLoad = Math.max(maxLoad, load);
+            prev = act.getLocation();
+        }
+        costs += vrp.getTransportCosts().getTransportCost(prev, vehicle.getEndLocation(), time, null, vehicle);
+        time += vrp.getTransportCosts().getTransportTime(prev, vehicle.getEndLocation(), time, null, vehicle);
+        if (time > vehicle.getLatestArrival()) timeWarp += time - vehicle.getLatestArrival();
+        return new double[]{timeWarp, costs, maxLoad};
+    }
+
+    private void assertSegment(double[] expected, RouteSegment segment) {
+        assertEquals(expected[0], segment.getTimeWarp(), 0.01);
+        assertEquals(expected[1], segment.getTransportCosts(), 0.01);
+        assertEquals((int) expected[2], segment.getMaxLoad(0));
+        assertEquals(expected[0] == 0., segment.isTimeFeasible());
+    }
+
+    @Test
+    public void routeSegmentShouldMatchSimulation() {
+        for (int run = 0; run < 50; run++) {
+            List<Job> routeJobs = new ArrayList<>(jobs);
+            Collections.shuffle(routeJobs, random);
+            routeJobs = routeJobs.subList(0, 1 + random.nextInt(6));
+            VehicleRoute route = route(routeJobs);
+            RouteSegments segments = segments(route);
+            assertEquals(routeJobs.size(), segments.size());
+            assertSegment(simulate(route.getActivities()), segments.getRoute());
+        }
+    }
+
+    @Test
+    public void evaluatedInsertionShouldMatchSimulation() {
+        for (int run = 0; run < 50; run++) {
+            List<Job> routeJobs = new ArrayList<>(jobs);
+            Collections.shuffle(routeJobs, random);
+            Job toInsert = routeJobs.get(0);
+            routeJobs = routeJobs.subList(1, 2 + random.nextInt(6));
+            VehicleRoute route = route(routeJobs);
+            RouteSegments segments = segments(route);
+            TourActivity newAct = vrp.copyAndGetActivities(toInsert).get(0);
+            for (int i = 0; i <= route.getActivities().size(); i++) {
+                List<TourActivity> acts = new ArrayList<>(route.getActivities());
+                acts.add(i, newAct);
+                assertSegment(simulate(acts), segments.evaluateInsertion(newAct, i));
+            }
+        }
+    }
+
+    @Test
+    public void evaluatedRemovalShouldMatchSimulation() {
+        for (int run = 0; run < 50; run++) {
+            List<Job> routeJobs = new ArrayList<>(jobs);
+            Collections.shuffle(routeJobs, random);
+            routeJobs = routeJobs.subList(0, 1 + random.nextInt(6));
+            VehicleRoute route = route(routeJobs);
+            RouteSegments segments = segments(route);
+            int from = random.nextInt(routeJobs.size());
+            int to = from + 1 + random.nextInt(routeJobs.size() - from);
+            List<TourActivity> acts = new ArrayList<>(route.getActivities());
+            acts.subList(from, to).clear();
+            assertSegment(simulate(acts), segments.evaluateRemoval(from, to));
+        }
+    }
+
+    @Test
+    public void whenRouteIsUpdated_segmentsShouldBeReused() {
+        VehicleRoute route = route(jobs.subList(0, 3));
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateRouteSegments();
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        RouteSegments segments = stateManager.getRouteSegments(route);
+        route.getTourActivities().removeJob(jobs.get(0));
+        stateManager.reCalculateStates(route);
+        assertSame(segments, stateManager.getRouteSegments(route));
+        assertEquals(2, segments.size());
+        assertEquals(simulate(route.getActivities())[1], segments.getRoute().getTransportCosts(), 0.01);
+    }
+
+    @Test
+    public void whenRouteIsUpdated_segmentOfSingleActivityShouldNotChange() {
+        VehicleRoute route = route(jobs.subList(0, 3));
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateRouteSegments();
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        RouteSegments segments = stateManager.getRouteSegments(route);
+        RouteSegment segment = segments.getSegment(0, 1);
+        assertNotSame(segments.getActivitySegment(0), segment);
+        int netLoad = segment.getNetLoad(0);
+        double latestStart = segment.getLatestStart();
+        route.getTourActivities().removeJob(jobs.get(0));
+        stateManager.reCalculateStates(route);
+        assertEquals(netLoad, segment.getNetLoad(0));
+        assertEquals(latestStart, segment.getLatestStart(), 0.001);
+    }
+
+    @Test
+    public void whenRouteIsEmpty_segmentsShouldBeNull() {
+        VehicleRoute route = VehicleRoute.emptyRoute();
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateRouteSegments();
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertNull(stateManager.getRouteSegments(route));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void whenPositionIsOutOfBounds_itShouldThrowException() {
+        segments(route(jobs.subList(0, 2))).getPrefix(3);
+    }
+
+}
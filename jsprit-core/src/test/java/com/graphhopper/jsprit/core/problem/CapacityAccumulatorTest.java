@@ -0,0 +1,105 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CapacityAccumulatorTest {
+
+    @Test
+    public void whenAddingCapacities_itShouldSumUpEachDimension() {
+        CapacityAccumulator acc = new CapacityAccumulator();
+        acc.add(Capacity.Builder.newInstance().addDimension(0, 1).build());
+        acc.add(Capacity.Builder.newInstance().addDimension(0, 2).addDimension(2, 3).build());
+        assertEquals(3, acc.getNuOfDimensions());
+        assertEquals(3, acc.get(0));
+        assertEquals(0, acc.get(1));
+        assertEquals(3, acc.get(2));
+        assertEquals(0, acc.get(5));
+    }
+
+    @Test
+    public void whenSubtractingCapacity_itShouldSubtractEachDimension() {
+        Capacity cap = Capacity.Builder.newInstance().addDimension(0, 5).addDimension(1, 2).build();
+        CapacityAccumulator acc = new CapacityAccumulator().set(cap).subtract(Capacity.Builder.newInstance().addDimension(1, 3).build());
+        assertEquals(5, acc.get(0));
+        assertEquals(-1, acc.get(1));
+    }
+
+    @Test
+    public void whenSettingCapacity_itShouldForgetPreviousValues() {
+        CapacityAccumulator acc = new CapacityAccumulator();
+        acc.add(Capacity.Builder.newInstance().addDimension(0, 1).addDimension(1, 1).build());
+        acc.set(Capacity.Builder.newInstance().addDimension(0, 4).build());
+        assertEquals(1, acc.getNuOfDimensions());
+        assertEquals(4, acc.get(0));
+        assertEquals(0, acc.get(1));
+    }
+
+    @Test
+    public void maxShouldBeDeterminedPerDimension() {
+        CapacityAccumulator acc = new CapacityAccumulator().set(Capacity.Builder.newInstance().addDimension(0, 4).addDimension(1, 1).build());
+        CapacityAccumulator other = new CapacityAccumulator().set(Capacity.Builder.newInstance().addDimension(0, 2).addDimension(1, 3).build());
+        acc.max(other);
+        assertEquals(4, acc.get(0));
+        assertEquals(3, acc.get(1));
+        acc.max(2, 7);
+        assertEquals(7, acc.get(2));
+    }
+
+    @Test
+    public void resultsShouldEqualImmutableCapacityOperations() {
+        Capacity cap1 = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build();
+        Capacity cap2 = Capacity.Builder.newInstance().addDimension(0, 3).addDimension(1, 5).addDimension(2, 1).build();
+        assertEquals(Capacity.addup(cap1, cap2), new CapacityAccumulator().set(cap1).add(cap2).toCapacity());
+        assertEquals(Capacity.subtract(cap1, cap2), new CapacityAccumulator().set(cap1).subtract(cap2).toCapacity());
+    }
+
+    @Test
+    public void isLessOrEqualShouldCompareEachDimension() {
+        Capacity capacity = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build();
+        CapacityAccumulator acc = new CapacityAccumulator().set(Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build());
+        assertTrue(acc.isLessOrEqual(capacity));
+        acc.add(Capacity.Builder.newInstance().addDimension(1, 1).build());
+        assertFalse(acc.isLessOrEqual(capacity));
+    }
+
+    @Test
+    public void toCapacityShouldReturnCopy() {
+        CapacityAccumulator acc = new CapacityAccumulator().set(Capacity.Builder.newInstance().addDimension(0, 1).build());
+        Capacity copy = acc.toCapacity();
+        acc.add(Capacity.Builder.newInstance().addDimension(0, 1).build());
+        assertEquals(1, copy.get(0));
+    }
+
+    @Test
+    public void setDimensionShouldGrowAccumulator() {
+        CapacityAccumulator acc = new CapacityAccumulator().set(2, -3);
+        assertEquals(3, acc.getNuOfDimensions());
+        assertEquals(-3, acc.get(2));
+        assertEquals(0, acc.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNuOfDimensionsIsZero_itShouldThrowException() {
+        new CapacityAccumulator(0);
+    }
+
+}
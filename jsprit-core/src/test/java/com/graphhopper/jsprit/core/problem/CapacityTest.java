@@ -383,4 +383,21 @@ public class CapacityTest {
         Capacity cap2 = Capacity.Builder.newInstance().addDimension(0,10).addDimension(2, 1000).addDimension(1,100).build();
         Assert.assertTrue(cap1.equals(cap2));
     }
+    @Test
+    public void isSumLessOrEqualShouldEqualAddupAndCompare() {
+        Capacity cap1 = Capacity.Builder.newInstance().addDimension(0, 5).addDimension(1, 2).build();
+        Capacity cap2 = Capacity.Builder.newInstance().addDimension(0, 5).addDimension(2, 1).build();
+        Capacity capacity = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).addDimension(2, 1).build();
+        assertTrue(Capacity.isSumLessOrEqual(cap1, cap2, capacity));
+        assertFalse(Capacity.isSumLessOrEqual(cap1, cap2, Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build()));
+    }
+
+    @Test
+    public void isDifferenceLessOrEqualShouldEqualSubtractAndCompare() {
+        Capacity cap = Capacity.Builder.newInstance().addDimension(0, 5).addDimension(1, 4).build();
+        Capacity cap2subtract = Capacity.Builder.newInstance().addDimension(0, 1).addDimension(1, 2).build();
+        assertTrue(Capacity.isDifferenceLessOrEqual(cap, cap2subtract, Capacity.Builder.newInstance().addDimension(0, 4).addDimension(1, 2).build()));
+        assertFalse(Capacity.isDifferenceLessOrEqual(cap, cap2subtract, Capacity.Builder.newInstance().addDimension(0, 3).addDimension(1, 2).build()));
+    }
+
 }
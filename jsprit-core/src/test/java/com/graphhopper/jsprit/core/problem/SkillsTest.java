@@ -18,11 +18,17 @@
 
 package com.graphhopper.jsprit.core.problem;
 
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import org.junit.Test;
 
 import java.util.HashSet;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -107,4 +113,90 @@ public class SkillsTest {
         assertTrue(skills.containsSkill("skill1"));
     }
 
+    @Test
+    public void whenSkillsAreInterned_containsAllSkillsShouldWorkOnBits() {
+        SkillIndex index = new SkillIndex();
+        Skills.Builder vehicleSkills = Skills.Builder.newInstance();
+        for (int i = 0; i < 100; i++) vehicleSkills.addSkill("skill" + i);
+        Skills available = index.intern(vehicleSkills.build());
+        Skills required = index.intern(Skills.Builder.newInstance().addSkill("skill99").addSkill("skill3").build());
+        Skills missing = index.intern(Skills.Builder.newInstance().addSkill("skill3").addSkill("other").build());
+        assertTrue(available.containsAllSkills(required));
+        assertFalse(available.containsAllSkills(missing));
+        assertFalse(required.containsAllSkills(available));
+        assertTrue(missing.containsSkill("OTHER"));
+        assertEquals(101, index.size());
+    }
+
+    @Test
+    public void whenSkillsAreInterned_originalShouldBeKeptAndCopyReturned() {
+        SkillIndex index = new SkillIndex();
+        Skills original = Skills.Builder.newInstance().addSkill("a").build();
+        Skills interned = index.intern(original);
+        assertNotSame(original, interned);
+        assertSame(interned, index.intern(original));
+        assertSame(interned, index.getInterned(original));
+        assertEquals(original, interned);
+        Skills other = Skills.Builder.newInstance().addSkill("a").build();
+        assertSame(other, index.getInterned(other));
+    }
+
+    @Test
+    public void whenSkillsAreInternedByDifferentIndices_containsAllSkillsShouldCompareStrings() {
+        Skills available = new SkillIndex().intern(Skills.Builder.newInstance().addSkill("a").addSkill("b").build());
+        Skills required = new SkillIndex().intern(Skills.Builder.newInstance().addSkill("b").build());
+        assertTrue(available.containsAllSkills(required));
+        assertFalse(required.containsAllSkills(available));
+    }
+
+    @Test
+    public void whenInternedSkillsAreMerged_unionShouldBeBitsetWithSameValues() {
+        SkillIndex index = new SkillIndex();
+        Skills s1 = index.intern(Skills.Builder.newInstance().addSkill("a").addSkill("b").build());
+        Skills s2 = index.intern(Skills.Builder.newInstance().addSkill("c").build());
+        Skills vehicle = index.intern(Skills.Builder.newInstance().addSkill("a").addSkill("b").addSkill("c").build());
+        Skills union = Skills.Builder.newInstance().addAllSkills(s1).addAllSkills(s2).build();
+        assertEquals(vehicle, union);
+        assertTrue(vehicle.containsAllSkills(union));
+        assertTrue(union.containsSkill("c"));
+        Skills withUnknownSkill = Skills.Builder.newInstance().addAllSkills(s1).addSkill("d").build();
+        assertFalse(vehicle.containsAllSkills(withUnknownSkill));
+        assertEquals(3, withUnknownSkill.values().size());
+    }
+
+    @Test
+    public void whenProblemIsBuilt_itShouldKeepInternedSkillsWithoutChangingThoseOfJobsAndVehicles() {
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1)).addRequiredSkill("a").build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0)).addSkill("a").addSkill("b").build();
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance().addJob(service).addVehicle(vehicle);
+        VehicleRoutingProblem vrp1 = builder.build();
+        VehicleRoutingProblem vrp2 = builder.build();
+        Skills required = vrp1.getRequiredSkills(service);
+        assertNotSame(service.getRequiredSkills(), required);
+        assertEquals(service.getRequiredSkills(), required);
+        assertNotSame(required, vrp2.getRequiredSkills(service));
+        assertTrue(vrp1.getSkills(vehicle).containsAllSkills(required));
+        assertFalse(required.containsAllSkills(vrp1.getSkills(vehicle)));
+        assertTrue(vrp2.getSkills(vehicle).containsAllSkills(vrp2.getRequiredSkills(service)));
+    }
+
+    @Test
+    public void whenBuilderIsReused_builtSkillsShouldNotChange() {
+        SkillIndex index = new SkillIndex();
+        Skills a = index.intern(Skills.Builder.newInstance().addSkill("a").build());
+        Skills b = index.intern(Skills.Builder.newInstance().addSkill("b").build());
+        index.intern(Skills.Builder.newInstance().addSkill("c").build());
+        Skills.Builder builder = Skills.Builder.newInstance().addAllSkills(a);
+        Skills first = builder.build();
+        builder.addAllSkills(b);
+        Skills second = builder.build();
+        builder.addSkill("c");
+        builder.build();
+        assertEquals(1, first.values().size());
+        assertTrue(first.containsSkill("a"));
+        assertFalse(first.containsSkill("b"));
+        assertEquals(2, second.values().size());
+        assertFalse(second.containsSkill("c"));
+    }
+
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HardActivityLevelConstraintManagerTest {
+
+    private HardActivityConstraint constraint(ConstraintsStatus status) {
+        HardActivityConstraint c = mock(HardActivityConstraint.class);
+        when(c.fulfilled(null, null, null, null, 0.)).thenReturn(status);
+        return c;
+    }
+
+    private ConstraintsStatus evaluate(HardActivityLevelConstraintManager manager) {
+        return manager.fulfilled(null, null, null, null, 0.);
+    }
+
+    @Test
+    public void statisticsShouldCountEvaluationsAndRejections() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        HardActivityConstraint fulfilled = constraint(ConstraintsStatus.FULFILLED);
+        HardActivityConstraint notFulfilled = constraint(ConstraintsStatus.NOT_FULFILLED);
+        manager.addConstraint(fulfilled, ConstraintManager.Priority.HIGH);
+        manager.addConstraint(notFulfilled, ConstraintManager.Priority.HIGH);
+        for (int i = 0; i < 10; i++) assertEquals(ConstraintsStatus.NOT_FULFILLED, evaluate(manager));
+        List<ConstraintStatistics> statistics = manager.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals(10, statistics.get(0).getNoEvaluations());
+        assertEquals(0, statistics.get(0).getNoRejections());
+        assertEquals(10, statistics.get(1).getNoRejections());
+        assertEquals(1., statistics.get(1).getRejectionRate(), 0.001);
+        manager.resetStatistics();
+        assertEquals(0, statistics.get(1).getNoEvaluations());
+    }
+
+    @Test
+    public void whenConstraintBreaksOften_itShouldBeEvaluatedFirst() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.setReorderInterval(100);
+        manager.setAdaptiveOrdering(true);
+        HardActivityConstraint fulfilled = constraint(ConstraintsStatus.FULFILLED);
+        HardActivityConstraint notFulfilled = constraint(ConstraintsStatus.NOT_FULFILLED);
+        HardActivityConstraint breaking = constraint(ConstraintsStatus.NOT_FULFILLED_BREAK);
+        manager.addConstraint(fulfilled, ConstraintManager.Priority.HIGH);
+        manager.addConstraint(notFulfilled, ConstraintManager.Priority.HIGH);
+        manager.addConstraint(breaking, ConstraintManager.Priority.HIGH);
+        for (int i = 0; i < 200; i++) assertEquals(ConstraintsStatus.NOT_FULFILLED_BREAK, evaluate(manager));
+        assertSame(breaking, manager.getStatistics().get(0).getConstraint());
+        assertEquals(100, manager.getStatistics().get(1).getNoEvaluations());
+        //registration order is kept
+        assertSame(fulfilled, manager.getHighPrioConstraints().iterator().next());
+    }
+
+    @Test
+    public void lowPrioConstraintsShouldKeepTheirOrder() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.setReorderInterval(100);
+        manager.setAdaptiveOrdering(true);
+        HardActivityConstraint notFulfilled = constraint(ConstraintsStatus.NOT_FULFILLED);
+        HardActivityConstraint breaking = constraint(ConstraintsStatus.NOT_FULFILLED_BREAK);
+        manager.addConstraint(notFulfilled, ConstraintManager.Priority.LOW);
+        manager.addConstraint(breaking, ConstraintManager.Priority.LOW);
+        for (int i = 0; i < 200; i++) assertEquals(ConstraintsStatus.NOT_FULFILLED, evaluate(manager));
+        assertSame(notFulfilled, manager.getStatistics().get(0).getConstraint());
+    }
+
+    @Test
+    public void whenAdaptiveOrderingIsSwitchedOff_constraintsShouldKeepTheirOrder() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.setReorderInterval(100);
+        manager.setAdaptiveOrdering(false);
+        HardActivityConstraint fulfilled = constraint(ConstraintsStatus.FULFILLED);
+        HardActivityConstraint breaking = constraint(ConstraintsStatus.NOT_FULFILLED_BREAK);
+        manager.addConstraint(fulfilled, ConstraintManager.Priority.CRITICAL);
+        manager.addConstraint(breaking, ConstraintManager.Priority.CRITICAL);
+        for (int i = 0; i < 200; i++) evaluate(manager);
+        assertSame(fulfilled, manager.getStatistics().get(0).getConstraint());
+    }
+
+    @Test
+    public void byDefault_constraintsShouldKeepTheirOrder() {
+        HardActivityLevelConstraintManager activityManager = new HardActivityLevelConstraintManager();
+        activityManager.setReorderInterval(100);
+        HardActivityConstraint fulfilled = constraint(ConstraintsStatus.FULFILLED);
+        activityManager.addConstraint(fulfilled, ConstraintManager.Priority.HIGH);
+        activityManager.addConstraint(constraint(ConstraintsStatus.NOT_FULFILLED_BREAK), ConstraintManager.Priority.HIGH);
+        for (int i = 0; i < 200; i++) evaluate(activityManager);
+        assertSame(fulfilled, activityManager.getStatistics().get(0).getConstraint());
+
+        HardRouteLevelConstraintManager routeManager = new HardRouteLevelConstraintManager();
+        routeManager.setReorderInterval(100);
+        HardRouteConstraint fulfilledRouteConstraint = mock(HardRouteConstraint.class);
+        when(fulfilledRouteConstraint.fulfilled(null)).thenReturn(true);
+        routeManager.addConstraint(fulfilledRouteConstraint);
+        routeManager.addConstraint(mock(HardRouteConstraint.class));
+        for (int i = 0; i < 200; i++) routeManager.fulfilled((JobInsertionContext) null);
+        assertSame(fulfilledRouteConstraint, routeManager.getStatistics().get(0).getConstraint());
+    }
+
+    @Test
+    public void whenEvaluatedConcurrently_noEvaluationShouldBeLost() throws InterruptedException {
+        final HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.setReorderInterval(100);
+        manager.setAdaptiveOrdering(true);
+        manager.addConstraint(constraint(ConstraintsStatus.FULFILLED), ConstraintManager.Priority.HIGH);
+        manager.addConstraint(constraint(ConstraintsStatus.NOT_FULFILLED), ConstraintManager.Priority.HIGH);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10050; i++) evaluate(manager);
+                    //merges the remaining counts of this thread
+                    manager.getStatistics();
+                }
+
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        for (ConstraintStatistics statistics : manager.getStatistics()) {
+            assertEquals(4 * 10050, statistics.getNoEvaluations());
+        }
+    }
+
+    @Test
+    public void routeConstraintThatRejectsShouldBeEvaluatedFirst() {
+        HardRouteLevelConstraintManager manager = new HardRouteLevelConstraintManager();
+        manager.setReorderInterval(100);
+        manager.setAdaptiveOrdering(true);
+        HardRouteConstraint fulfilled = mock(HardRouteConstraint.class);
+        when(fulfilled.fulfilled(null)).thenReturn(true);
+        HardRouteConstraint rejecting = mock(HardRouteConstraint.class);
+        when(rejecting.fulfilled(null)).thenReturn(false);
+        manager.addConstraint(fulfilled);
+        manager.addConstraint(rejecting);
+        for (int i = 0; i < 200; i++) assertEquals(false, manager.fulfilled((JobInsertionContext) null));
+        assertSame(rejecting, manager.getStatistics().get(0).getConstraint());
+        assertEquals(100, manager.getStatistics().get(1).getNoEvaluations());
+    }
+
+    @Test
+    public void whenConstraintsRejectEqually_cheaperConstraintShouldBeEvaluatedFirst() {
+        HardRouteLevelConstraintManager manager = new HardRouteLevelConstraintManager();
+        manager.setReorderInterval(50);
+        manager.setAdaptiveOrdering(true);
+        HardRouteConstraint slow = new HardRouteConstraint() {
+
+            @Override
+            public boolean fulfilled(JobInsertionContext insertionContext) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+
+        };
+        HardRouteConstraint fast = mock(HardRouteConstraint.class);
+        when(fast.fulfilled(null)).thenReturn(true);
+        manager.addConstraint(slow);
+        manager.addConstraint(fast);
+        for (int i = 0; i < 51; i++) assertEquals(true, manager.fulfilled((JobInsertionContext) null));
+        assertSame(fast, manager.getStatistics().get(0).getConstraint());
+    }
+
+    @Test
+    public void failedConstraintNamesShouldBeCollected() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.addConstraint(constraint(ConstraintsStatus.FULFILLED), ConstraintManager.Priority.HIGH);
+        HardActivityConstraint notFulfilled = constraint(ConstraintsStatus.NOT_FULFILLED);
+        manager.addConstraint(notFulfilled, ConstraintManager.Priority.HIGH);
+        manager.addConstraint(constraint(ConstraintsStatus.NOT_FULFILLED_BREAK), ConstraintManager.Priority.LOW);
+        List<String> failed = new ArrayList<>();
+        assertEquals(ConstraintsStatus.NOT_FULFILLED, manager.fulfilled(null, null, null, null, 0., failed));
+        assertEquals(1, failed.size());
+        assertEquals(notFulfilled.getClass().getSimpleName(), failed.get(0));
+    }
+
+}
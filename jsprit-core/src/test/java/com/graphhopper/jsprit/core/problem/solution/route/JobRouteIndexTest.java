@@ -0,0 +1,129 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JobRouteIndexTest {
+
+    private Service s1;
+
+    private Service s2;
+
+    private Shipment shipment;
+
+    private VehicleRoute route1;
+
+    private VehicleRoute route2;
+
+    @Before
+    public void doBefore() {
+        s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance("loc1")).build();
+        s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        shipment = Shipment.Builder.newInstance("shipment").setPickupLocation(Location.newInstance("p"))
+            .setDeliveryLocation(Location.newInstance("d")).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance("start")).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("start")).build();
+        VehicleRoutingProblem.Builder.newInstance().addJob(s1).addJob(s2).addJob(shipment).addVehicle(v1).addVehicle(v2).build();
+        route1 = VehicleRoute.Builder.newInstance(v1).addService(s1).addPickup(shipment).addDelivery(shipment).build();
+        route2 = VehicleRoute.Builder.newInstance(v2).build();
+    }
+
+    @Test
+    public void itShouldReturnRouteOfJob() {
+        JobRouteIndex index = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        assertSame(route1, index.getRoute(s1));
+        assertSame(route1, index.getRoute(shipment));
+        assertNull(index.getRoute(s2));
+    }
+
+    @Test
+    public void whenJobsAreMoved_itShouldBeUpToDate() {
+        JobRouteIndex index = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        route1.getTourActivities().removeJob(s1);
+        assertNull(index.getRoute(s1));
+        TourActivity pickup = route1.getActivities().get(0);
+        TourActivity delivery = route1.getActivities().get(1);
+        route2.getTourActivities().addActivity(pickup);
+        assertSame(route2, index.getRoute(shipment));
+        route1.getTourActivities().removeActivity(pickup);
+        assertSame(route2, index.getRoute(shipment));
+        route1.getTourActivities().removeActivity(delivery);
+        route2.getTourActivities().addActivity(delivery);
+        assertSame(route2, index.getRoute(shipment));
+        route2.getTourActivities().removeActivity(pickup);
+        assertSame(route2, index.getRoute(shipment));
+        route2.getTourActivities().removeJob(shipment);
+        assertNull(index.getRoute(shipment));
+    }
+
+    @Test
+    public void whenDetached_routesShouldNotInformIndexAnymore() {
+        JobRouteIndex index = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        index.detach();
+        assertTrue(route1.getTourActivities().getJobListeners().isEmpty());
+        assertNull(index.getRoute(s1));
+    }
+
+    @Test
+    public void whenTwoIndicesListenToTheSameRoutes_bothShouldBeUpToDate() {
+        JobRouteIndex index1 = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        JobRouteIndex index2 = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        TourActivity service = route1.getActivities().get(0);
+        route1.getTourActivities().removeActivity(service);
+        route2.getTourActivities().addActivity(service);
+        assertSame(route2, index1.getRoute(s1));
+        assertSame(route2, index2.getRoute(s1));
+        index2.detach();
+        assertEquals(1, route1.getTourActivities().getJobListeners().size());
+        route2.getTourActivities().removeActivity(service);
+        route1.getTourActivities().addActivity(service);
+        assertSame(route1, index1.getRoute(s1));
+    }
+
+    @Test
+    public void whenRouteIsAddedTwice_itShouldBeListenedToOnce() {
+        JobRouteIndex index = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        index.addRoute(route1);
+        assertEquals(1, route1.getTourActivities().getJobListeners().size());
+        index.removeRoute(route1);
+        assertTrue(route1.getTourActivities().getJobListeners().isEmpty());
+        assertNull(index.getRoute(s1));
+    }
+
+    @Test
+    public void copiedRoutesShouldNotBeIndexed() {
+        JobRouteIndex index = JobRouteIndex.newInstance(Arrays.asList(route1, route2));
+        VehicleRoute copy = VehicleRoute.copyOf(route1);
+        assertTrue(copy.getTourActivities().getJobListeners().isEmpty());
+        copy.getTourActivities().removeJob(s1);
+        assertSame(route1, index.getRoute(s1));
+    }
+
+}
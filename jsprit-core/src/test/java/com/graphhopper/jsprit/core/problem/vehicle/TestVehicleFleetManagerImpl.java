@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -209,6 +210,76 @@ public class TestVehicleFleetManagerImpl {
         assertTrue(vehicleInCollection(v2, vehicles));
     }
 
+    @Test
+    public void whenNothingIsLockedOrUnlocked_availableVehiclesShouldBeSameView() {
+        Collection<Vehicle> vehicles = fleetManager.getAvailableVehicles();
+        assertSame(vehicles, fleetManager.getAvailableVehicles());
+        assertSame(fleetManager.getAvailableVehicles(v1), fleetManager.getAvailableVehicles(v1));
+        fleetManager.lock(v1);
+        assertNotSame(vehicles, fleetManager.getAvailableVehicles());
+        assertEquals(2, vehicles.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void availableVehiclesShouldBeUnmodifiable() {
+        fleetManager.getAvailableVehicles().clear();
+    }
+
+    @Test
+    public void whenLockingAndUnlockingRandomly_itShouldOfferSameVehiclesAsListBasedContainer() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").build();
+        List<Vehicle> vehicles = new ArrayList<Vehicle>();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 10; i++) {
+            VehicleImpl v = VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance("loc")).setType(type).build();
+            vehicles.add(v);
+            vrpBuilder.addVehicle(v);
+        }
+        vrpBuilder.build();
+        VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vehicles).createFleetManager();
+        //reference: vehicles in list order, the one at position index is offered
+        List<Vehicle> available = new ArrayList<Vehicle>(vehicles);
+        int index = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            Vehicle v = vehicles.get(random.nextInt(vehicles.size()));
+            int op = random.nextInt(20);
+            if (op == 0) {
+                fleetManager.unlockAll();
+                for (Vehicle veh : vehicles) {
+                    if (!available.contains(veh)) available.add(veh);
+                }
+                index++;
+            } else if (fleetManager.isLocked(v)) {
+                fleetManager.unlock(v);
+                available.add(v);
+            } else {
+                fleetManager.lock(v);
+                available.remove(v);
+            }
+            if (available.isEmpty()) {
+                assertTrue(fleetManager.getAvailableVehicles().isEmpty());
+            } else {
+                if (index >= available.size()) index = 0;
+                Collection<Vehicle> offered = fleetManager.getAvailableVehicles();
+                assertEquals(1, offered.size());
+                assertSame(available.get(index), offered.iterator().next());
+            }
+        }
+    }
+
+    @Test
+    public void threadSafeFleetManagerShouldBeSynchronized() {
+        FiniteFleetManagerFactory factory = new FiniteFleetManagerFactory(Arrays.<Vehicle>asList(v1, v2));
+        factory.setThreadSafe(true);
+        VehicleFleetManager fleetManager = factory.createFleetManager();
+        assertTrue(fleetManager instanceof SynchronizedVehicleFleetManager);
+        fleetManager.lock(v1);
+        assertEquals(1, fleetManager.getAvailableVehicles().size());
+        fleetManager.unlockAll();
+        assertEquals(2, fleetManager.getAvailableVehicles().size());
+    }
+
     private boolean vehicleInCollection(Vehicle v, Collection<Vehicle> vehicles) {
         for (Vehicle veh : vehicles) {
             if (veh == v) return true;
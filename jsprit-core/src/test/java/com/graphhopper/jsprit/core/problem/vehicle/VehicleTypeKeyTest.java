@@ -20,6 +20,8 @@ package com.graphhopper.jsprit.core.problem.vehicle;
 
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
 import org.junit.Test;
 
 import static org.junit.Assert.assertFalse;
@@ -44,4 +46,25 @@ public class VehicleTypeKeyTest {
             .addSkill("skill3").build();
         assertFalse(v1.getVehicleTypeIdentifier().equals(v2.getVehicleTypeIdentifier()));
     }
+
+    @Test
+    public void whenBreaksAreEqual_typeIdentifierShouldBeEqual() {
+        Vehicle v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance("start"))
+            .setBreak(Break.Builder.newInstance("b1").addTimeWindow(TimeWindow.newInstance(10, 20)).setServiceTime(5).build()).build();
+        Vehicle v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("start"))
+            .setBreak(Break.Builder.newInstance("b2").addTimeWindow(TimeWindow.newInstance(10, 20)).setServiceTime(5).build()).build();
+        assertTrue(v1.getVehicleTypeIdentifier().equals(v2.getVehicleTypeIdentifier()));
+        assertTrue(v1.getVehicleTypeIdentifier().hashCode() == v2.getVehicleTypeIdentifier().hashCode());
+    }
+
+    @Test
+    public void whenBreaksDiffer_typeIdentifierShouldNotBeEqual() {
+        Vehicle v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance("start"))
+            .setBreak(Break.Builder.newInstance("b1").addTimeWindow(TimeWindow.newInstance(10, 20)).setServiceTime(5).build()).build();
+        Vehicle v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("start"))
+            .setBreak(Break.Builder.newInstance("b2").addTimeWindow(TimeWindow.newInstance(30, 40)).setServiceTime(5).build()).build();
+        Vehicle v3 = VehicleImpl.Builder.newInstance("v3").setStartLocation(Location.newInstance("start")).build();
+        assertFalse(v1.getVehicleTypeIdentifier().equals(v2.getVehicleTypeIdentifier()));
+        assertFalse(v1.getVehicleTypeIdentifier().equals(v3.getVehicleTypeIdentifier()));
+    }
 }
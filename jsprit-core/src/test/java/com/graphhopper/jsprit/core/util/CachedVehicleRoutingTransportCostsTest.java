@@ -0,0 +1,137 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachedVehicleRoutingTransportCostsTest {
+
+    static class CountingCosts extends AbstractForwardVehicleRoutingTransportCosts {
+
+        int calls = 0;
+
+        @Override
+        public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            calls++;
+            return from.getIndex() * 10 + to.getIndex();
+        }
+
+        @Override
+        public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            calls++;
+            double costPerTime = vehicle == null ? 1. : vehicle.getType().getVehicleCostParams().perTransportTimeUnit;
+            return (from.getIndex() * 10 + to.getIndex()) * costPerTime;
+        }
+
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    private VehicleImpl vehicle(String id, String typeId, double costPerTime) {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance(typeId).setCostPerTime(costPerTime).build();
+        return VehicleImpl.Builder.newInstance(id).setStartLocation(loc(0)).setType(type).build();
+    }
+
+    @Test
+    public void whenRelationIsRequestedTwice_itShouldBeComputedOnce() {
+        CountingCosts costs = new CountingCosts();
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(costs).setRecordStatistics(true).build();
+        assertEquals(12., cache.getTransportTime(loc(1), loc(2), 0., null, null), 0.01);
+        assertEquals(12., cache.getTransportTime(loc(1), loc(2), 100., null, null), 0.01);
+        assertEquals(21., cache.getTransportTime(loc(2), loc(1), 0., null, null), 0.01);
+        assertEquals(2, costs.calls);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1. / 3., cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void backwardValuesOfForwardCostsShouldBeServedFromCache() {
+        CountingCosts costs = new CountingCosts();
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(costs).build();
+        cache.getTransportTime(loc(1), loc(2), 0., null, null);
+        assertEquals(12., cache.getBackwardTransportTime(loc(1), loc(2), 50., null, null), 0.01);
+        assertEquals(1, costs.calls);
+    }
+
+    @Test
+    public void costsShouldBeCachedPerVehicleType() {
+        CountingCosts costs = new CountingCosts();
+        VehicleImpl v1 = vehicle("v1", "cheap", 1.);
+        VehicleImpl v2 = vehicle("v2", "expensive", 2.);
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addVehicle(v2).build();
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(costs).build();
+        assertEquals(12., cache.getTransportCost(loc(1), loc(2), 0., null, v1), 0.01);
+        assertEquals(24., cache.getTransportCost(loc(1), loc(2), 0., null, v2), 0.01);
+        assertEquals(12., cache.getTransportCost(loc(1), loc(2), 0., null, v1), 0.01);
+        assertEquals(24., cache.getTransportCost(loc(1), loc(2), 0., null, v2), 0.01);
+    }
+
+    @Test
+    public void whenCapacityIsExceeded_itShouldStillReturnCorrectValues() {
+        CountingCosts costs = new CountingCosts();
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(costs)
+            .setCapacity(2).setEviction(CachedVehicleRoutingTransportCosts.Eviction.RETAIN).build();
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i * 10 + 1, cache.getTransportTime(loc(i), loc(1), 0., null, null), 0.01);
+            }
+        }
+    }
+
+    @Test
+    public void whenLocationHasNoIndex_itShouldDelegate() {
+        CountingCosts costs = new CountingCosts();
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(costs).build();
+        Location noIndex = Location.newInstance("x");
+        cache.getTransportTime(noIndex, noIndex, 0., null, null);
+        cache.getTransportTime(noIndex, noIndex, 0., null, null);
+        assertEquals(2, costs.calls);
+    }
+
+    @Test
+    public void whenCostsDoNotProvideDistance_cacheShouldNotProvideDistanceEither() {
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(new CountingCosts()).build();
+        assertFalse(cache instanceof TransportDistance);
+    }
+
+    @Test
+    public void whenCostsProvideDistance_itShouldBeCached() {
+        EuclideanCosts costs = new EuclideanCosts();
+        CachedVehicleRoutingTransportCosts cache = CachedVehicleRoutingTransportCosts.Builder.newInstance(costs).setRecordStatistics(true).build();
+        assertTrue(cache instanceof TransportDistance);
+        Location from = Location.Builder.newInstance().setIndex(0).setCoordinate(Coordinate.newInstance(0, 0)).build();
+        Location to = Location.Builder.newInstance().setIndex(1).setCoordinate(Coordinate.newInstance(3, 4)).build();
+        assertEquals(5., ((TransportDistance) cache).getDistance(from, to, 0., null), 0.01);
+        assertEquals(5., ((TransportDistance) cache).getDistance(from, to, 0., null), 0.01);
+        assertEquals(1, cache.getHits());
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CounterBasedRandomTest {
+
+    @Test
+    public void sameSeedAndCountersShouldGiveSameNumbers() {
+        CounterBasedRandom r1 = new CounterBasedRandom(42);
+        CounterBasedRandom r2 = new CounterBasedRandom(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(r1.nextDouble(i, 2, 3), r2.nextDouble(i, 2, 3), 0.);
+            assertEquals(r1.nextDouble(i, 2, 3), r1.nextDouble(i, 2, 3), 0.);
+        }
+    }
+
+    @Test
+    public void differentSeedsOrCountersShouldGiveDifferentNumbers() {
+        CounterBasedRandom r = new CounterBasedRandom(42);
+        assertNotEquals(r.nextLong(1, 2, 3), r.nextLong(1, 3, 2));
+        assertNotEquals(r.nextLong(1, 2, 3), r.nextLong(2, 1, 3));
+        assertNotEquals(r.nextLong(1, 2, 3), new CounterBasedRandom(43).nextLong(1, 2, 3));
+    }
+
+    @Test
+    public void doublesShouldBeUniformlyDistributedInUnitInterval() {
+        CounterBasedRandom r = new CounterBasedRandom(7);
+        int n = 100000;
+        double sum = 0.;
+        int[] bins = new int[10];
+        for (int i = 0; i < n; i++) {
+            double d = r.nextDouble(0, i, 0);
+            assertTrue(d >= 0. && d < 1.);
+            sum += d;
+            bins[(int) (d * 10)]++;
+        }
+        assertEquals(0.5, sum / n, 0.01);
+        for (int bin : bins) assertEquals(n / 10, bin, n / 100);
+    }
+
+    @Test
+    public void gaussiansShouldHaveMeanZeroAndStandardDeviationOne() {
+        CounterBasedRandom r = new CounterBasedRandom(7);
+        int n = 100000;
+        double sum = 0.;
+        double sumOfSquares = 0.;
+        for (int i = 0; i < n; i++) {
+            double g = r.nextGaussian(i, 0, 0);
+            sum += g;
+            sumOfSquares += g * g;
+        }
+        double mean = sum / n;
+        assertEquals(0., mean, 0.02);
+        assertEquals(1., Math.sqrt(sumOfSquares / n - mean * mean), 0.02);
+    }
+
+}
@@ -18,11 +18,20 @@
 package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -109,5 +118,95 @@ public class FastVehicleRoutingTransportCostsMatrixTest {
         assertEquals(16., matrix.getTransportCost(loc(2), loc(1), 0.0, null, vehicle), 0.1);
     }
 
+    @Test
+    public void whenStoringValuesAsInts_itShouldReturnScaledValues() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false, FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32);
+        matrixBuilder.setTimeScaleFactor(10.).setDistanceScaleFactor(0.1);
+        matrixBuilder.addTransportTimeAndDistance(1, 2, 2.34, 1234.);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(2.3, matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.0001);
+        assertEquals(1230., matrix.getDistance(1, 2), 0.0001);
+        assertEquals(2.3, matrix.getMatrix()[1][2][1], 0.0001);
+    }
+
+    @Test
+    public void whenStoringValuesAsUnsignedShortsInSymmetricMatrix_itShouldReturnCorrectValues() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true, FastVehicleRoutingTransportCostsMatrix.StorageMode.UINT16);
+        matrixBuilder.addTransportTimeAndDistance(2, 1, 65000., 100.);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(65000., matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.0001);
+        assertEquals(65000., matrix.getTransportTime(loc(2), loc(1), 0.0, null, null), 0.0001);
+        assertEquals(100., matrix.getDistance(1, 2), 0.0001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenValueDoesNotFitIntoUnsignedShort_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false, FastVehicleRoutingTransportCostsMatrix.StorageMode.UINT16)
+            .addTransportTime(1, 2, 70000.);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenScaleFactorIsSetAfterAddingValues_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false, FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32)
+            .addTransportTime(1, 2, 7.).setTimeScaleFactor(10.);
+    }
+
+    @Test
+    public void quantisedMatricesOfSolomonInstanceShouldBeAccurate() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        new SolomonReader(vrpBuilder).read(getClass().getResourceAsStream("/com/graphhopper/jsprit/core/algorithm/C101.txt"));
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        List<Coordinate> coordinates = new ArrayList<Coordinate>();
+        for (Job job : vrp.getJobs().values()) coordinates.add(((Service) job).getLocation().getCoordinate());
+        for (Vehicle vehicle : vrp.getVehicles()) coordinates.add(vehicle.getStartLocation().getCoordinate());
+        assertQuantisedMatricesAreAccurate(coordinates);
+    }
+
+    @Test
+    public void quantisedMatricesOfCordeauInstanceShouldBeAccurate() throws IOException {
+        assertQuantisedMatricesAreAccurate(readCordeauCoordinates("/com/graphhopper/jsprit/core/util/p01"));
+    }
+
+    private List<Coordinate> readCordeauCoordinates(String resource) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(resource)));
+        List<Coordinate> coordinates = new ArrayList<Coordinate>();
+        String[] header = reader.readLine().trim().split("\\s+");
+        int nOfCustomers = Integer.parseInt(header[2]);
+        int nOfDepots = Integer.parseInt(header[3]);
+        for (int i = 0; i < nOfDepots; i++) reader.readLine();
+        for (int i = 0; i < nOfCustomers + nOfDepots; i++) {
+            String[] tokens = reader.readLine().trim().split("\\s+");
+            coordinates.add(new Coordinate(Double.parseDouble(tokens[1]), Double.parseDouble(tokens[2])));
+        }
+        reader.close();
+        return coordinates;
+    }
+
+    private void assertQuantisedMatricesAreAccurate(List<Coordinate> coordinates) {
+        int n = coordinates.size();
+        FastVehicleRoutingTransportCostsMatrix.Builder doubles = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(n, false);
+        FastVehicleRoutingTransportCostsMatrix.Builder ints = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(n, false, FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32)
+            .setTimeScaleFactor(1000.).setDistanceScaleFactor(1000.);
+        FastVehicleRoutingTransportCostsMatrix.Builder shorts = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(n, false, FastVehicleRoutingTransportCostsMatrix.StorageMode.UINT16)
+            .setTimeScaleFactor(100.).setDistanceScaleFactor(100.);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double distance = EuclideanDistanceCalculator.calculateDistance(coordinates.get(i), coordinates.get(j));
+                doubles.addTransportTimeAndDistance(i, j, distance, distance);
+                ints.addTransportTimeAndDistance(i, j, distance, distance);
+                shorts.addTransportTimeAndDistance(i, j, distance, distance);
+            }
+        }
+        FastVehicleRoutingTransportCostsMatrix doubleMatrix = doubles.build();
+        FastVehicleRoutingTransportCostsMatrix intMatrix = ints.build();
+        FastVehicleRoutingTransportCostsMatrix shortMatrix = shorts.build();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(doubleMatrix.getDistance(i, j), intMatrix.getDistance(i, j), 0.0005);
+                assertEquals(doubleMatrix.getTransportTime(loc(i), loc(j), 0., null, null), intMatrix.getTransportTime(loc(i), loc(j), 0., null, null), 0.0005);
+                assertEquals(doubleMatrix.getDistance(i, j), shortMatrix.getDistance(i, j), 0.005);
+            }
+        }
+    }
 
 }
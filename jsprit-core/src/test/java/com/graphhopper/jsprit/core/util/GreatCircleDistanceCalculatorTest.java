@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.util;
 
+import com.graphhopper.jsprit.core.problem.Location;
 import junit.framework.Assert;
 import org.junit.Test;
 
@@ -58,4 +59,36 @@ public class GreatCircleDistanceCalculatorTest {
         Assert.assertEquals(600000, greatCircle, 30000.);
     }
 
+    @Test
+    public void batchDistancesShouldEqualSingleDistances() {
+        double[] lons = {8.3858333, 12.1333333, 13.4, -0.12};
+        double[] lats = {49.0047222, 54.0833333, 52.52, 51.5};
+        double[] distances = new double[lons.length];
+        GreatCircleDistanceCalculator.calculateDistances(lons[0], lats[0], lons, lats, DistanceUnit.Meter, distances, lons.length);
+        for (int i = 0; i < lons.length; i++) {
+            double expected = GreatCircleDistanceCalculator.calculateDistance(
+                Coordinate.newInstance(lons[0], lats[0]),
+                Coordinate.newInstance(lons[i], lats[i]),
+                DistanceUnit.Meter
+            );
+            Assert.assertEquals(expected, distances[i], 0.000001);
+        }
+    }
+
+    @Test
+    public void batchCostsShouldEqualSingleCosts() {
+        GreatCircleCosts costs = new GreatCircleCosts();
+        costs.setDetour(1.3);
+        Location[] locations = new Location[]{
+            Location.newInstance(8.3858333, 49.0047222),
+            Location.newInstance(12.1333333, 54.0833333),
+            Location.newInstance(13.4, 52.52)
+        };
+        double[] batch = new double[locations.length];
+        costs.getTransportCosts(locations[1], locations, 0., null, null, batch);
+        for (int i = 0; i < locations.length; i++) {
+            Assert.assertEquals(costs.getTransportCost(locations[1], locations[i], 0., null, null), batch[i], 0.000001);
+        }
+    }
+
 }
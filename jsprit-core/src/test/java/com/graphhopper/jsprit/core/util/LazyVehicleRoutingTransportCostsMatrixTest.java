@@ -0,0 +1,117 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LazyVehicleRoutingTransportCostsMatrixTest {
+
+    /*
+     * 0 -- 1 -- 2 -- 3 with a slow shortcut 0 -- 3
+     */
+    private DijkstraMatrixProvider network() {
+        return DijkstraMatrixProvider.Builder.newInstance(4)
+            .addBidirectionalEdge(0, 1, 10., 100.)
+            .addBidirectionalEdge(1, 2, 10., 100.)
+            .addBidirectionalEdge(2, 3, 10., 100.)
+            .addBidirectionalEdge(0, 3, 50., 150.)
+            .build();
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).setCoordinate(Coordinate.newInstance(index, 0)).build();
+    }
+
+    @Test
+    public void dijkstraShouldFindFastestPaths() {
+        double[] times = new double[4];
+        double[] distances = new double[4];
+        network().calculate(new int[]{0, 3}, new int[]{2, 3}, times, distances);
+        assertEquals(20., times[0], 0.01);
+        assertEquals(30., times[1], 0.01);
+        assertEquals(300., distances[1], 0.01);
+        assertEquals(10., times[2], 0.01);
+        assertEquals(0., times[3], 0.01);
+    }
+
+    @Test
+    public void whenNodeIsUnreachable_itShouldReturnInfinity() {
+        DijkstraMatrixProvider provider = DijkstraMatrixProvider.Builder.newInstance(2).build();
+        double[] times = new double[1];
+        double[] distances = new double[1];
+        provider.calculate(new int[]{0}, new int[]{1}, times, distances);
+        assertEquals(Double.POSITIVE_INFINITY, times[0], 0.01);
+    }
+
+    @Test
+    public void whenNoFallbackIsSet_itShouldResolveImmediately() {
+        LazyVehicleRoutingTransportCostsMatrix matrix = LazyVehicleRoutingTransportCostsMatrix.Builder.newInstance(network()).build();
+        assertEquals(30., matrix.getTransportTime(loc(0), loc(3), 0., null, null), 0.01);
+        assertEquals(300., matrix.getDistance(loc(0), loc(3), 0., null), 0.01);
+        assertEquals(300., matrix.getTransportCost(loc(0), loc(3), 0., null, null), 0.01);
+        assertEquals(1, matrix.getNoResolvedCells());
+        assertEquals(1, matrix.getNoProviderRequests());
+    }
+
+    @Test
+    public void whenFallbackIsSet_itShouldEstimateUntilBatchIsComplete() {
+        LazyVehicleRoutingTransportCostsMatrix matrix = LazyVehicleRoutingTransportCostsMatrix.Builder.newInstance(network())
+            .setFallback(new EuclideanCosts()).setBatchSize(3).build();
+        assertEquals(3., matrix.getTransportTime(loc(0), loc(3), 0., null, null), 0.01);
+        assertEquals(1., matrix.getTransportTime(loc(1), loc(2), 0., null, null), 0.01);
+        assertEquals(3., matrix.getTransportTime(loc(0), loc(3), 0., null, null), 0.01);
+        assertEquals(2, matrix.getNoPendingCells());
+        assertEquals(0, matrix.getNoProviderRequests());
+        //completes the batch: froms {0, 1, 3}, tos {3, 2, 0}
+        assertEquals(30., matrix.getTransportTime(loc(3), loc(0), 0., null, null), 0.01);
+        assertEquals(1, matrix.getNoProviderRequests());
+        assertEquals(9, matrix.getNoResolvedCells());
+        assertEquals(30., matrix.getTransportTime(loc(0), loc(3), 0., null, null), 0.01);
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, null), 0.01);
+        assertEquals(20., matrix.getTransportTime(loc(1), loc(3), 0., null, null), 0.01);
+    }
+
+    @Test
+    public void flushShouldResolvePendingCells() {
+        LazyVehicleRoutingTransportCostsMatrix matrix = LazyVehicleRoutingTransportCostsMatrix.Builder.newInstance(network())
+            .setFallback(new EuclideanCosts()).build();
+        matrix.getTransportTime(loc(0), loc(2), 0., null, null);
+        matrix.flush();
+        assertEquals(20., matrix.getTransportTime(loc(0), loc(2), 0., null, null), 0.01);
+        assertEquals(0, matrix.getNoPendingCells());
+    }
+
+    @Test
+    public void storeShouldGrow() {
+        int n = 60;
+        DijkstraMatrixProvider.Builder builder = DijkstraMatrixProvider.Builder.newInstance(n);
+        for (int i = 0; i < n - 1; i++) builder.addBidirectionalEdge(i, i + 1, 1., 1.);
+        LazyVehicleRoutingTransportCostsMatrix matrix = LazyVehicleRoutingTransportCostsMatrix.Builder.newInstance(builder.build())
+            .setInitialCapacity(4).build();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(Math.abs(i - j), matrix.getTransportTime(loc(i), loc(j), 0., null, null), 0.01);
+            }
+        }
+        assertEquals(n * n, matrix.getNoResolvedCells());
+    }
+
+}
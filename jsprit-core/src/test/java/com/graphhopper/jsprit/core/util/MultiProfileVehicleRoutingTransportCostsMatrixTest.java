@@ -0,0 +1,121 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MultiProfileVehicleRoutingTransportCostsMatrixTest {
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    private MultiProfileVehicleRoutingTransportCostsMatrix matrix() {
+        MultiProfileVehicleRoutingTransportCostsMatrix.Builder builder = MultiProfileVehicleRoutingTransportCostsMatrix.Builder.newInstance(3);
+        builder.addTransportTimeAndDistance("car", 1, 2, 10., 100.);
+        builder.addTransportTimeAndDistance("bike", 1, 2, 40., 80.);
+        return builder.build();
+    }
+
+    private VehicleImpl vehicle(String id, String profile) {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance(profile + "_type").setProfile(profile)
+            .setCostPerDistance(1.).setCostPerTime(2.).build();
+        return VehicleImpl.Builder.newInstance(id).setStartLocation(loc(0)).setType(type).build();
+    }
+
+    @Test
+    public void whenVehiclesHaveDifferentProfiles_itShouldReturnProfileDependentValues() {
+        VehicleImpl car = vehicle("v1", "car");
+        VehicleImpl bike = vehicle("v2", "bike");
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(car).addVehicle(bike).build();
+        MultiProfileVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car), 0.01);
+        assertEquals(40., matrix.getTransportTime(loc(1), loc(2), 0., null, bike), 0.01);
+        assertEquals(100., matrix.getDistance(loc(1), loc(2), 0., car), 0.01);
+        assertEquals(80., matrix.getDistance(loc(1), loc(2), 0., bike), 0.01);
+        assertEquals(120., matrix.getTransportCost(loc(1), loc(2), 0., null, car), 0.01);
+        assertEquals(160., matrix.getTransportCost(loc(1), loc(2), 0., null, bike), 0.01);
+    }
+
+    @Test
+    public void whenVehiclesOfSameClassAlternate_profileShouldBeMemorizedOnce() {
+        VehicleImpl car1 = vehicle("v1", "car");
+        VehicleImpl car2 = vehicle("v2", "car");
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(car1).addVehicle(car2).build();
+        MultiProfileVehicleRoutingTransportCostsMatrix matrix = matrix();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car1), 0.01);
+            assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car2), 0.01);
+        }
+        int classId = car1.getVehicleTypeIdentifier().getIndex();
+        assertEquals(classId, car2.getVehicleTypeIdentifier().getIndex());
+        assertSame(matrix.getProfile("car"), matrix.getMemorizedProfile(classId));
+    }
+
+    @Test
+    public void whenClassIdsStemFromAnotherProblem_itShouldReturnProfileOfVehicle() {
+        VehicleImpl car = vehicle("v1", "car");
+        VehicleImpl bike = vehicle("v2", "bike");
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(car).build();
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(bike).build();
+        assertEquals(car.getVehicleTypeIdentifier().getIndex(), bike.getVehicleTypeIdentifier().getIndex());
+        MultiProfileVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car), 0.01);
+        assertEquals(40., matrix.getTransportTime(loc(1), loc(2), 0., null, bike), 0.01);
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car), 0.01);
+    }
+
+    @Test
+    public void whenVehiclesAreNotIndexed_itShouldStillReturnProfileDependentValues() {
+        VehicleImpl car = vehicle("v1", "car");
+        VehicleImpl bike = vehicle("v2", "bike");
+        MultiProfileVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car), 0.01);
+        assertEquals(40., matrix.getTransportTime(loc(1), loc(2), 0., null, bike), 0.01);
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, car), 0.01);
+    }
+
+    @Test
+    public void boundProfileShouldReturnSameValues() {
+        VehicleImpl bike = vehicle("v2", "bike");
+        MultiProfileVehicleRoutingTransportCostsMatrix matrix = matrix();
+        MultiProfileVehicleRoutingTransportCostsMatrix.Profile profile = matrix.getProfile(bike);
+        assertSame(matrix.getProfile("bike"), profile);
+        assertEquals(40., profile.getTransportTime(1, 2), 0.01);
+        assertEquals(80., profile.getDistance(1, 2), 0.01);
+    }
+
+    @Test
+    public void whenVehicleIsNull_itShouldUseFirstProfile() {
+        MultiProfileVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(100., matrix.getTransportCost(loc(1), loc(2), 0., null, null), 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenProfileIsMissing_itShouldThrowException() {
+        matrix().getTransportTime(loc(1), loc(2), 0., null, vehicle("v3", "truck"));
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TimeDependentVehicleRoutingTransportCostsMatrixTest {
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    private TimeDependentVehicleRoutingTransportCostsMatrix matrix() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder builder = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, 3, 100.);
+        builder.addTransportTime(1, 2, 0, 10.);
+        builder.addTransportTime(1, 2, 1, 50.);
+        builder.addTransportTime(1, 2, 2, 20.);
+        builder.addTransportDistance(1, 2, 30.);
+        return builder.build();
+    }
+
+    @Test
+    public void whenDepartingAtBinStart_itShouldReturnBinTime() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), 0., null, null), 0.001);
+        assertEquals(50., matrix.getTransportTime(loc(1), loc(2), 100., null, null), 0.001);
+        assertEquals(20., matrix.getTransportTime(loc(1), loc(2), 200., null, null), 0.001);
+    }
+
+    @Test
+    public void whenDepartingWithinBin_itShouldInterpolate() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(30., matrix.getTransportTime(loc(1), loc(2), 50., null, null), 0.001);
+        assertEquals(35., matrix.getTransportTime(loc(1), loc(2), 150., null, null), 0.001);
+    }
+
+    @Test
+    public void whenDepartingOutsideHorizon_itShouldReturnFirstOrLastBin() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = matrix();
+        assertEquals(10., matrix.getTransportTime(loc(1), loc(2), -10., null, null), 0.001);
+        assertEquals(20., matrix.getTransportTime(loc(1), loc(2), 1000., null, null), 0.001);
+    }
+
+    @Test
+    public void backwardTimeShouldBeConsistentWithForwardTime() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = matrix();
+        for (double departure = 0.; departure < 300.; departure += 7.) {
+            double forward = matrix.getTransportTime(loc(1), loc(2), departure, null, null);
+            double arrival = departure + forward;
+            assertEquals(forward, matrix.getBackwardTransportTime(loc(1), loc(2), arrival, null, null), 0.001);
+        }
+    }
+
+    @Test
+    public void whenTimesDecreaseTooFast_itShouldEnforceFifo() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder builder = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(2, 2, 10.);
+        builder.addTransportTime(0, 1, 0, 100.);
+        builder.addTransportTime(0, 1, 1, 20.);
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = builder.build();
+        assertEquals(90., matrix.getTransportTime(0, 1, 10.), 0.001);
+        double prevArrival = Double.NEGATIVE_INFINITY;
+        for (double departure = 0.; departure < 20.; departure += 0.5) {
+            double arrival = departure + matrix.getTransportTime(0, 1, departure);
+            assertTrue(arrival >= prevArrival);
+            prevArrival = arrival;
+        }
+    }
+
+    @Test
+    public void whenVehicleIsSet_costsShouldConsiderDistanceAndTime() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = matrix();
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+        assertEquals(30. + 2. * 50., matrix.getTransportCost(loc(1), loc(2), 100., null, vehicle), 0.001);
+        assertEquals(30., matrix.getTransportCost(loc(1), loc(2), 100., null, null), 0.001);
+        assertEquals(30., matrix.getDistance(loc(1), loc(2), 100., null), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenBinDoesNotExist_itShouldThrowException() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(2, 2, 10.).addTransportTime(0, 1, 2, 10.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMatrixExceedsArraySize_itShouldThrowException() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(50000, 24, 3600.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenLocationHasNoIndex_distanceShouldThrowException() {
+        matrix().getDistance(Location.newInstance("loc"), loc(2), 0., null);
+    }
+
+}
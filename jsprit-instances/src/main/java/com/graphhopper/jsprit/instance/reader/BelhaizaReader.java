@@ -28,11 +28,6 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-
 
 /**
  * Reader that reads the well-known solomon-instances.
@@ -79,30 +74,28 @@ public class BelhaizaReader {
 
 	public void read(String solomonFile){
 		vrpBuilder.setFleetSize(FleetSize.INFINITE);
-		BufferedReader reader = getReader(solomonFile);
+		LineTokenizer tokenizer = LineTokenizer.open(solomonFile);
 		int vehicleCapacity = 0;
 		int counter = 0;
-		String line;
-		while((line = readLine(reader)) != null){
-			String[] tokens = line.replace("\r", "").trim().split("\\s+");
+		while(tokenizer.nextLine()){
 			counter++;
 			if(counter == 2){
-				vehicleCapacity = Integer.parseInt(tokens[1]);
+				vehicleCapacity = tokenizer.getInt(1);
 				continue;
 			}
 			if(counter > 2){
-				if(tokens.length < 7) continue;
-                Coordinate coord = makeCoord(tokens[1],tokens[2]);
-				String customerId = tokens[0];
-				int demand = Integer.parseInt(tokens[4]);
-				double serviceTime = Double.parseDouble(tokens[3])*timeProjectionFactor;
+				if(tokenizer.getNoTokens() < 7) continue;
+                Coordinate coord = makeCoord(tokenizer.getDouble(1),tokenizer.getDouble(2));
+				String customerId = tokenizer.getString(0);
+				int demand = tokenizer.getInt(4);
+				double serviceTime = tokenizer.getDouble(3)*timeProjectionFactor;
 				if(counter == 3){
 					VehicleTypeImpl.Builder typeBuilder = VehicleTypeImpl.Builder.newInstance("solomonType").addCapacityDimension(0, vehicleCapacity);
 					typeBuilder.setCostPerDistance(1.0*variableCostProjectionFactor).setFixedCost(fixedCostPerVehicle)
                     .setCostPerWaitingTime(0.8);
                     System.out.println("fix: " + fixedCostPerVehicle + "; perDistance: 1.0; perWaitingTime: 0.8");
                     VehicleTypeImpl vehicleType = typeBuilder.build();
-					double end = Double.parseDouble(tokens[8])*timeProjectionFactor;
+					double end = tokenizer.getDouble(8)*timeProjectionFactor;
 					for(int i=0;i<10;i++) {
 						VehicleImpl vehicle = VehicleImpl.Builder.newInstance("solomonVehicle"+(i+1)).setEarliestStart(0.).setLatestArrival(end)
 								.setStartLocation(Location.Builder.newInstance().setId(customerId)
@@ -114,62 +107,27 @@ public class BelhaizaReader {
 				else{
 					Service.Builder serviceBuilder = Service.Builder.newInstance(customerId);
 					serviceBuilder.addSizeDimension(0, demand).setLocation(Location.Builder.newInstance().setCoordinate(coord).setId(customerId).build()).setServiceTime(serviceTime);
-					int noTimeWindows = Integer.parseInt(tokens[7]);
+					int noTimeWindows = tokenizer.getInt(7);
 					for(int i=0;i<noTimeWindows*2;i=i+2){
-						double earliest = Double.parseDouble(tokens[8+i]);
-						double latest = Double.parseDouble(tokens[8+i+1]);
+						double earliest = tokenizer.getDouble(8+i);
+						double latest = tokenizer.getDouble(8+i+1);
 						serviceBuilder.addTimeWindow(earliest,latest);
 					}
 					vrpBuilder.addJob(serviceBuilder.build());
 				}
 			}
 		}
-		close(reader);
+		tokenizer.close();
 	}
 
 	public void setCoordProjectionFactor(double coordProjectionFactor) {
 		this.coordProjectionFactor = coordProjectionFactor;
 	}
 
-	private void close(BufferedReader reader)  {
-		try {
-			reader.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-			logger.error(e.toString());
-			System.exit(1);
-		}
-	}
-
-	private String readLine(BufferedReader reader) {
-		try {
-			return reader.readLine();
-		} catch (IOException e) {
-			e.printStackTrace();
-			logger.error(e.toString());
-			System.exit(1);
-			return null;
-		}
-	}
-
-	private Coordinate makeCoord(String xString, String yString) {
-		double x = Double.parseDouble(xString);
-		double y = Double.parseDouble(yString);
+	private Coordinate makeCoord(double x, double y) {
 		return new Coordinate(x*coordProjectionFactor,y*coordProjectionFactor);
 	}
 
-	private BufferedReader getReader(String solomonFile) {
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(solomonFile));
-		} catch (FileNotFoundException e1) {
-			e1.printStackTrace();
-			logger.error(e1.toString());
-			System.exit(1);
-		}
-		return reader;
-	}
-
 	public void setTimeProjectionFactor(double timeProjection) {
 		this.timeProjectionFactor=timeProjection;
 
@@ -28,10 +28,6 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 
 
 /**
@@ -67,72 +63,40 @@ public class ChristofidesReader {
      */
     public void read(String fileName) {
         vrpBuilder.setFleetSize(FleetSize.INFINITE);
-        BufferedReader reader = getReader(fileName);
+        LineTokenizer tokenizer = LineTokenizer.open(fileName);
         int vehicleCapacity = 0;
         double serviceTime = 0.0;
         double endTime = Double.MAX_VALUE;
         int counter = 0;
-        String line;
-        while ((line = readLine(reader)) != null) {
-            line = line.replace("\r", "");
-            line = line.trim();
-            String[] tokens = line.split(" ");
+        while (tokenizer.nextLine()) {
             if (counter == 0) {
-                vehicleCapacity = Integer.parseInt(tokens[1].trim());
-                endTime = Double.parseDouble(tokens[2].trim());
-                serviceTime = Double.parseDouble(tokens[3].trim());
+                vehicleCapacity = tokenizer.getInt(1);
+                endTime = tokenizer.getDouble(2);
+                serviceTime = tokenizer.getDouble(3);
             } else if (counter == 1) {
-                Coordinate depotCoord = makeCoord(tokens[0].trim(), tokens[1].trim());
+                Coordinate depotCoord = makeCoord(tokenizer.getDouble(0), tokenizer.getDouble(1));
                 VehicleTypeImpl vehicleType = VehicleTypeImpl.Builder.newInstance("christophidesType").addCapacityDimension(0, vehicleCapacity).
                     setCostPerDistance(1.0).build();
                 VehicleImpl vehicle = VehicleImpl.Builder.newInstance("christophidesVehicle").setLatestArrival(endTime).setStartLocation(Location.newInstance(depotCoord.getX(), depotCoord.getY())).
                     setType(vehicleType).build();
                 vrpBuilder.addVehicle(vehicle);
             } else {
-                Coordinate customerCoord = makeCoord(tokens[0].trim(), tokens[1].trim());
-                int demand = Integer.parseInt(tokens[2].trim());
+                Coordinate customerCoord = makeCoord(tokenizer.getDouble(0), tokenizer.getDouble(1));
+                int demand = tokenizer.getInt(2);
                 String customer = Integer.valueOf(counter - 1).toString();
                 Service service = Service.Builder.newInstance(customer).addSizeDimension(0, demand).setServiceTime(serviceTime).setLocation(Location.newInstance(customerCoord.getX(), customerCoord.getY())).build();
                 vrpBuilder.addJob(service);
             }
             counter++;
         }
-        close(reader);
+        tokenizer.close();
     }
 
     public void setCoordProjectionFactor(double coordProjectionFactor) {
         this.coordProjectionFactor = coordProjectionFactor;
     }
 
-    private void close(BufferedReader reader) {
-        try {
-            reader.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private String readLine(BufferedReader reader) {
-        try {
-            return reader.readLine();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private Coordinate makeCoord(String xString, String yString) {
-        double x = Double.parseDouble(xString);
-        double y = Double.parseDouble(yString);
+    private Coordinate makeCoord(double x, double y) {
         return new Coordinate(x * coordProjectionFactor, y * coordProjectionFactor);
     }
-
-    private BufferedReader getReader(String solomonFile) {
-        BufferedReader reader = null;
-        try {
-            reader = new BufferedReader(new FileReader(solomonFile));
-        } catch (FileNotFoundException e1) {
-            throw new RuntimeException(e1);
-        }
-        return reader;
-    }
 }
@@ -29,10 +29,6 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -63,32 +59,28 @@ public class CordeauReader {
 
     public void read(String fileName) {
         vrpBuilder.setFleetSize(FleetSize.FINITE);
-        BufferedReader reader = getReader(fileName);
+        LineTokenizer tokenizer = LineTokenizer.open(fileName);
         int vrpType;
         int nOfDepots = 0;
         int nOfCustomers = 0;
         int nOfVehiclesAtEachDepot = 0;
 
         int counter = 0;
-        String line;
         List<List<Builder>> vehiclesAtDepot = new ArrayList<List<Builder>>();
         int depotCounter = 0;
-        while ((line = readLine(reader)) != null) {
-            line = line.replace("\r", "");
-            line = line.trim();
-            String[] tokens = line.split("\\s+");
+        while (tokenizer.nextLine()) {
             if (counter == 0) {
-                vrpType = Integer.parseInt(tokens[0].trim());
+                vrpType = tokenizer.getInt(0);
                 if (vrpType != 2)
                     throw new IllegalStateException("expect vrpType to be equal to 2 and thus to be MDVRP");
-                nOfVehiclesAtEachDepot = Integer.parseInt(tokens[1].trim());
-                nOfCustomers = Integer.parseInt(tokens[2].trim());
-                nOfDepots = Integer.parseInt(tokens[3].trim());
+                nOfVehiclesAtEachDepot = tokenizer.getInt(1);
+                nOfCustomers = tokenizer.getInt(2);
+                nOfDepots = tokenizer.getInt(3);
             } else if (counter <= nOfDepots) {
                 String depot = Integer.valueOf(counter).toString();
-                int duration = Integer.parseInt(tokens[0].trim());
+                int duration = tokenizer.getInt(0);
                 if (duration == 0) duration = 999999;
-                int capacity = Integer.parseInt(tokens[1].trim());
+                int capacity = tokenizer.getInt(1);
                 VehicleTypeImpl vehicleType = VehicleTypeImpl.Builder.newInstance(counter + "_cordeauType").addCapacityDimension(0, capacity).
                     setCostPerDistance(1.0).setFixedCost(0).build();
                 List<Builder> builders = new ArrayList<VehicleImpl.Builder>();
@@ -99,15 +91,15 @@ public class CordeauReader {
                 }
                 vehiclesAtDepot.add(builders);
             } else if (counter <= (nOfCustomers + nOfDepots)) {
-                String id = tokens[0].trim();
-                Coordinate customerCoord = makeCoord(tokens[1].trim(), tokens[2].trim());
-                double serviceTime = Double.parseDouble(tokens[3].trim());
-                int demand = Integer.parseInt(tokens[4].trim());
+                String id = tokenizer.getString(0);
+                Coordinate customerCoord = makeCoord(tokenizer.getDouble(1), tokenizer.getDouble(2));
+                double serviceTime = tokenizer.getDouble(3);
+                int demand = tokenizer.getInt(4);
                 Service service = Service.Builder.newInstance(id).addSizeDimension(0, demand).setServiceTime(serviceTime)
                     .setLocation(Location.Builder.newInstance().setId(id).setCoordinate(customerCoord).build()).build();
                 vrpBuilder.addJob(service);
             } else if (counter <= (nOfCustomers + nOfDepots + nOfDepots)) {
-                Coordinate depotCoord = makeCoord(tokens[1].trim(), tokens[2].trim());
+                Coordinate depotCoord = makeCoord(tokenizer.getDouble(1), tokenizer.getDouble(2));
                 List<Builder> vBuilders = vehiclesAtDepot.get(depotCounter);
                 for (Builder vBuilder : vBuilders) {
                     vBuilder.setStartLocation(Location.newInstance(depotCoord.getX(), depotCoord.getY()));
@@ -120,42 +112,14 @@ public class CordeauReader {
             }
             counter++;
         }
-        close(reader);
+        tokenizer.close();
     }
 
     public void setCoordProjectionFactor(double coordProjectionFactor) {
         this.coordProjectionFactor = coordProjectionFactor;
     }
 
-    private void close(BufferedReader reader) {
-        try {
-            reader.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private String readLine(BufferedReader reader) {
-        try {
-            return reader.readLine();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private Coordinate makeCoord(String xString, String yString) {
-        double x = Double.parseDouble(xString);
-        double y = Double.parseDouble(yString);
+    private Coordinate makeCoord(double x, double y) {
         return new Coordinate(x * coordProjectionFactor, y * coordProjectionFactor);
     }
-
-    private BufferedReader getReader(String solomonFile) {
-        BufferedReader reader = null;
-        try {
-            reader = new BufferedReader(new FileReader(solomonFile));
-        } catch (FileNotFoundException e1) {
-            throw new RuntimeException(e1);
-        }
-        return reader;
-    }
 }
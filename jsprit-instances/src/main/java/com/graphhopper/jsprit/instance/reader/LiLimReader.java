@@ -29,10 +29,6 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -138,69 +134,32 @@ public class LiLimReader {
 
     }
 
-    private BufferedReader getReader(String file) {
-        BufferedReader reader = null;
-        try {
-            reader = new BufferedReader(new FileReader(file));
-        } catch (FileNotFoundException e1) {
-            throw new RuntimeException(e1);
-        }
-        return reader;
-    }
-
     private void readShipments(String file) {
-        BufferedReader reader = getReader(file);
-        String line = null;
+        LineTokenizer tokenizer = LineTokenizer.open(file);
         boolean firstLine = true;
-        try {
-            while ((line = reader.readLine()) != null) {
-                line = line.replace("\r", "");
-                line = line.trim();
-                String[] tokens = line.split("\t");
-                if (firstLine) {
-                    int vehicleCapacity = getInt(tokens[1]);
-                    this.vehicleCapacity = vehicleCapacity;
-                    firstLine = false;
-                    continue;
-                } else {
-                    String customerId = tokens[0];
-                    Coordinate coord = makeCoord(tokens[1], tokens[2]);
-                    int demand = getInt(tokens[3]);
-                    double startTimeWindow = getDouble(tokens[4]);
-                    double endTimeWindow = getDouble(tokens[5]);
-                    double serviceTime = getDouble(tokens[6]);
-//					vrpBuilder.addLocation(customerId, coord);
-                    customers.put(customerId, new CustomerData(coord, startTimeWindow, endTimeWindow, serviceTime));
-                    if (customerId.equals("0")) {
-                        depotId = customerId;
-                        depotOpeningTime = startTimeWindow;
-                        depotClosingTime = endTimeWindow;
-                    }
-                    if (demand > 0) {
-                        relations.add(new Relation(customerId, tokens[8], demand));
-                    }
-                }
+        while (tokenizer.nextLine()) {
+            if (firstLine) {
+                this.vehicleCapacity = tokenizer.getInt(1);
+                firstLine = false;
+                continue;
+            }
+            String customerId = tokenizer.getString(0);
+            Coordinate coord = new Coordinate(tokenizer.getDouble(1), tokenizer.getDouble(2));
+            int demand = tokenizer.getInt(3);
+            double startTimeWindow = tokenizer.getDouble(4);
+            double endTimeWindow = tokenizer.getDouble(5);
+            double serviceTime = tokenizer.getDouble(6);
+            customers.put(customerId, new CustomerData(coord, startTimeWindow, endTimeWindow, serviceTime));
+            if (customerId.equals("0")) {
+                depotId = customerId;
+                depotOpeningTime = startTimeWindow;
+                depotClosingTime = endTimeWindow;
+            }
+            if (demand > 0) {
+                relations.add(new Relation(customerId, tokenizer.getString(8), demand));
             }
-            reader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-
+        tokenizer.close();
     }
 
-    private Coordinate makeCoord(String xString, String yString) {
-        double x = Double.parseDouble(xString);
-        double y = Double.parseDouble(yString);
-        return new Coordinate(x, y);
-    }
-
-    private double getDouble(String string) {
-        return Double.parseDouble(string);
-    }
-
-    private int getInt(String string) {
-        return Integer.parseInt(string);
-    }
-
-
 }
@@ -0,0 +1,235 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.instance.reader;
+
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads whitespace separated text files line by line and splits each line into tokens.
+ * <p>Unlike BufferedReader.readLine() combined with String.split(regex), it neither compiles regular expressions nor
+ * creates strings for lines and tokens. Lines are copied into a reusable char buffer and tokens are only
+ * materialized on request. Plain decimal numbers are parsed directly from the buffer, other notations are delegated to
+ * Integer.parseInt and Double.parseDouble.
+ * <p>Lines are terminated by '\n', '\r' or "\r\n". Tokens are separated by blanks and tabs.
+ *
+ * @author schroeder
+ */
+public class LineTokenizer {
+
+    private static final double[] POWERS_OF_TEN = new double[16];
+
+    static {
+        POWERS_OF_TEN[0] = 1.;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.;
+    }
+
+    //up to 15 digits, a mantissa is exactly representable as double
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * Opens the specified file.
+     *
+     * @param fileName the file name
+     * @return tokenizer reading fileName
+     * @throws RuntimeException if file cannot be found
+     */
+    public static LineTokenizer open(String fileName) {
+        try {
+            return new LineTokenizer(new FileReader(fileName));
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[1 << 16];
+
+    private int bufferPos = 0;
+
+    private int bufferEnd = 0;
+
+    private boolean endOfInput = false;
+
+    private boolean skipLineFeed = false;
+
+    private char[] line = new char[256];
+
+    private int lineLength = 0;
+
+    private int[] tokenStarts = new int[16];
+
+    private int[] tokenEnds = new int[16];
+
+    private int noTokens = 0;
+
+    public LineTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return false if there is no further line
+     */
+    public boolean nextLine() {
+        lineLength = 0;
+        noTokens = 0;
+        boolean lineRead = false;
+        while (true) {
+            if (bufferPos == bufferEnd && !fill()) {
+                if (!lineRead) return false;
+                break;
+            }
+            char c = buffer[bufferPos++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') continue;
+            }
+            lineRead = true;
+            if (c == '\n') break;
+            if (c == '\r') {
+                skipLineFeed = true;
+                break;
+            }
+            if (lineLength == line.length) line = Arrays.copyOf(line, line.length * 2);
+            line[lineLength++] = c;
+        }
+        tokenize();
+        return true;
+    }
+
+    private boolean fill() {
+        if (endOfInput) return false;
+        try {
+            int n = reader.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                endOfInput = true;
+                return false;
+            }
+            bufferPos = 0;
+            bufferEnd = n;
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void tokenize() {
+        int i = 0;
+        while (i < lineLength) {
+            while (i < lineLength && isSeparator(line[i])) i++;
+            if (i == lineLength) break;
+            int start = i;
+            while (i < lineLength && !isSeparator(line[i])) i++;
+            if (noTokens == tokenStarts.length) {
+                tokenStarts = Arrays.copyOf(tokenStarts, noTokens * 2);
+                tokenEnds = Arrays.copyOf(tokenEnds, noTokens * 2);
+            }
+            tokenStarts[noTokens] = start;
+            tokenEnds[noTokens] = i;
+            noTokens++;
+        }
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * @return number of tokens of the current line
+     */
+    public int getNoTokens() {
+        return noTokens;
+    }
+
+    /**
+     * @return true if the current line has no tokens
+     */
+    public boolean isEmpty() {
+        return noTokens == 0;
+    }
+
+    private void checkToken(int token) {
+        if (token < 0 || token >= noTokens)
+            throw new IndexOutOfBoundsException("token " + token + " does not exist. line has only " + noTokens + " tokens");
+    }
+
+    public String getString(int token) {
+        checkToken(token);
+        return new String(line, tokenStarts[token], tokenEnds[token] - tokenStarts[token]);
+    }
+
+    public int getInt(int token) {
+        checkToken(token);
+        int pos = tokenStarts[token];
+        int end = tokenEnds[token];
+        boolean negative = line[pos] == '-';
+        if (negative || line[pos] == '+') pos++;
+        //up to 9 digits, int cannot overflow
+        if (pos == end || end - pos > 9) return Integer.parseInt(getString(token));
+        int value = 0;
+        for (; pos < end; pos++) {
+            char c = line[pos];
+            if (c < '0' || c > '9') return Integer.parseInt(getString(token));
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public double getDouble(int token) {
+        checkToken(token);
+        int pos = tokenStarts[token];
+        int end = tokenEnds[token];
+        boolean negative = line[pos] == '-';
+        if (negative || line[pos] == '+') pos++;
+        long mantissa = 0;
+        int noDigits = 0;
+        int noFractionDigits = 0;
+        boolean fraction = false;
+        for (; pos < end; pos++) {
+            char c = line[pos];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                noDigits++;
+                if (fraction) noFractionDigits++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return Double.parseDouble(getString(token));
+            }
+        }
+        if (noDigits == 0 || noDigits > MAX_EXACT_DIGITS) return Double.parseDouble(getString(token));
+        //mantissa and power of ten are exact, thus the division is correctly rounded like Double.parseDouble
+        double value = mantissa / POWERS_OF_TEN[noFractionDigits];
+        return negative ? -value : value;
+    }
+
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -29,11 +29,6 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-
 
 /**
  * Reader that reads the well-known solomon-instances.
@@ -77,28 +72,24 @@ public class SolomonReader {
 
     public void read(String solomonFile) {
         vrpBuilder.setFleetSize(FleetSize.INFINITE);
-        BufferedReader reader = getReader(solomonFile);
+        LineTokenizer tokenizer = LineTokenizer.open(solomonFile);
         int vehicleCapacity = 0;
 
         int counter = 0;
-        String line;
-        while ((line = readLine(reader)) != null) {
-            line = line.replace("\r", "");
-            line = line.trim();
-            String[] tokens = line.split(" +");
+        while (tokenizer.nextLine()) {
             counter++;
             if (counter == 5) {
-                vehicleCapacity = Integer.parseInt(tokens[1]);
+                vehicleCapacity = tokenizer.getInt(1);
                 continue;
             }
             if (counter > 9) {
-                if (tokens.length < 7) continue;
-                Coordinate coord = makeCoord(tokens[1], tokens[2]);
-                String customerId = tokens[0];
-                int demand = Integer.parseInt(tokens[3]);
-                double start = Double.parseDouble(tokens[4]) * timeProjectionFactor;
-                double end = Double.parseDouble(tokens[5]) * timeProjectionFactor;
-                double serviceTime = Double.parseDouble(tokens[6]) * timeProjectionFactor;
+                if (tokenizer.getNoTokens() < 7) continue;
+                Coordinate coord = makeCoord(tokenizer.getDouble(1), tokenizer.getDouble(2));
+                String customerId = tokenizer.getString(0);
+                int demand = tokenizer.getInt(3);
+                double start = tokenizer.getDouble(4) * timeProjectionFactor;
+                double end = tokenizer.getDouble(5) * timeProjectionFactor;
+                double serviceTime = tokenizer.getDouble(6) * timeProjectionFactor;
                 if (counter == 10) {
                     VehicleTypeImpl.Builder typeBuilder = VehicleTypeImpl.Builder.newInstance("solomonType").addCapacityDimension(0, vehicleCapacity);
                     typeBuilder.setCostPerDistance(1.0 * variableCostProjectionFactor).setFixedCost(fixedCostPerVehicle);
@@ -117,45 +108,17 @@ public class SolomonReader {
                 }
             }
         }
-        close(reader);
+        tokenizer.close();
     }
 
     public void setCoordProjectionFactor(double coordProjectionFactor) {
         this.coordProjectionFactor = coordProjectionFactor;
     }
 
-    private void close(BufferedReader reader) {
-        try {
-            reader.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private String readLine(BufferedReader reader) {
-        try {
-            return reader.readLine();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private Coordinate makeCoord(String xString, String yString) {
-        double x = Double.parseDouble(xString);
-        double y = Double.parseDouble(yString);
+    private Coordinate makeCoord(double x, double y) {
         return new Coordinate(x * coordProjectionFactor, y * coordProjectionFactor);
     }
 
-    private BufferedReader getReader(String solomonFile) {
-        BufferedReader reader = null;
-        try {
-            reader = new BufferedReader(new FileReader(solomonFile));
-        } catch (FileNotFoundException e1) {
-            throw new RuntimeException(e1);
-        }
-        return reader;
-    }
-
     public void setTimeProjectionFactor(double timeProjection) {
         this.timeProjectionFactor = timeProjection;
 
@@ -28,10 +28,122 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.*;
 
 
+/**
+ * Loads sets of benchmark instances.
+ * <p>The instances of a set are read in parallel, one file per task, and returned in their natural order.
+ */
 public class Instances {
 
+    private static class CordeauInstance implements Callable<BenchmarkInstance> {
+
+        private final String name;
+
+        private final String file;
+
+        CordeauInstance(String name, String file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        @Override
+        public BenchmarkInstance call() {
+            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+            new CordeauReader(builder).read(file);
+            return new BenchmarkInstance(name, builder.build(), getBestKnown(file), null);
+        }
+
+    }
+
+    private static class ChristofidesInstance implements Callable<BenchmarkInstance> {
+
+        private final String name;
+
+        private final String file;
+
+        private final double bestKnown;
+
+        ChristofidesInstance(String name, String file, double bestKnown) {
+            this.name = name;
+            this.file = file;
+            this.bestKnown = bestKnown;
+        }
+
+        @Override
+        public BenchmarkInstance call() {
+            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+            new ChristofidesReader(builder).read(file);
+            return new BenchmarkInstance(name, builder.build(), bestKnown, null);
+        }
+
+    }
+
+    private static class SolomonInstance implements Callable<BenchmarkInstance> {
+
+        private final String name;
+
+        private final String file;
+
+        private final double bestKnown;
+
+        private final double bestKnownVehicles;
+
+        SolomonInstance(String name, String file, double bestKnown, double bestKnownVehicles) {
+            this.name = name;
+            this.file = file;
+            this.bestKnown = bestKnown;
+            this.bestKnownVehicles = bestKnownVehicles;
+        }
+
+        @Override
+        public BenchmarkInstance call() {
+            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+            new SolomonReader(builder).read(file);
+            return new BenchmarkInstance(name, builder.build(), bestKnown, bestKnownVehicles);
+        }
+
+    }
+
+    private static Collection<BenchmarkInstance> readAll(List<? extends Callable<BenchmarkInstance>> readers) {
+        int noThreads = Math.max(1, Math.min(readers.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(noThreads);
+        try {
+            Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
+            for (Future<BenchmarkInstance> future : executor.invokeAll(readers)) {
+                instances.add(future.get());
+            }
+            return instances;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Collection<BenchmarkInstance> getAllSolomon(String inputFolder, String prefix, List<Double> bestKnown, List<Double> bestKnownVehicles) {
+        List<SolomonInstance> readers = new ArrayList<SolomonInstance>();
+        for (int i = 0; i < bestKnown.size(); i++) {
+            String name = prefix + getInstanceNu(i + 1);
+            readers.add(new SolomonInstance(name, inputFolder + "/" + name + ".txt", bestKnown.get(i), bestKnownVehicles.get(i)));
+        }
+        return readAll(readers);
+    }
+
+    private static Collection<BenchmarkInstance> getAllCordeau(String inputFolder, String prefix, int noInstances) {
+        List<CordeauInstance> readers = new ArrayList<CordeauInstance>();
+        for (int i = 0; i < noInstances; i++) {
+            String name = prefix + getInstanceNu(i + 1);
+            readers.add(new CordeauInstance(name, inputFolder + "/" + name));
+        }
+        return readAll(readers);
+    }
+
     /**
      * Returns a collection of {@link BenchmarkInstance} which are Cordeau's p instances.
      * <p>Note that this assumes that within the folder 'inputFolder' 23 p-instances are located with their original name, i.e. p01,p02,...,p23.
@@ -41,15 +153,7 @@ public class Instances {
      * @return a collection of {@link BenchmarkInstance}
      */
     public static Collection<BenchmarkInstance> getAllCordeauP(String inputFolder) {
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 23; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/p" + getInstanceNu(i + 1);
-            new CordeauReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("p" + getInstanceNu(i + 1), p, getBestKnown(file), null));
-        }
-        return instances;
+        return getAllCordeau(inputFolder, "p", 23);
     }
 
 
@@ -83,15 +187,7 @@ public class Instances {
      * @return a collection of {@link BenchmarkInstance}
      */
     public static Collection<BenchmarkInstance> getAllCordeauPR(String inputFolder) {
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 10; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/pr" + getInstanceNu(i + 1);
-            new CordeauReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("pr" + getInstanceNu(i + 1), p, getBestKnown(file), null));
-        }
-        return instances;
+        return getAllCordeau(inputFolder, "pr", 10);
     }
 
     /**
@@ -103,15 +199,12 @@ public class Instances {
      */
     public static Collection<BenchmarkInstance> getAllChristofides(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(524.61, 835.26, 826.14, 1028.42, 1291.29, 555.43, 909.68, 865.49, 1162.55, 1395.85, 1042.11, 819.56, 1541.14, 866.37);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
+        List<ChristofidesInstance> readers = new ArrayList<ChristofidesInstance>();
         for (int i = 0; i < 14; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
             String file = inputFolder + "/vrpnc" + (i + 1) + ".txt";
-            new ChristofidesReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("vrpnc" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), null));
+            readers.add(new ChristofidesInstance("vrpnc" + getInstanceNu(i + 1), file, bestKnown.get(i)));
         }
-        return instances;
+        return readAll(readers);
     }
 
     /**
@@ -125,15 +218,7 @@ public class Instances {
     public static Collection<BenchmarkInstance> getAllSolomonC1(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(828.94, 828.94, 828.06, 824.78, 828.94, 828.94, 828.94, 828.94, 828.94);
         List<Double> bestKnowVehicles = Arrays.asList(10.0, 10.0, 10.0, 10.0, 10.0, 10.0, 10.0, 10.0, 10.0);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 9; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/C1" + getInstanceNu(i + 1) + ".txt";
-            new SolomonReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("C1" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), bestKnowVehicles.get(i).doubleValue()));
-        }
-        return instances;
+        return getAllSolomon(inputFolder, "C1", bestKnown, bestKnowVehicles);
     }
 
     /**
@@ -147,15 +232,7 @@ public class Instances {
     public static Collection<BenchmarkInstance> getAllSolomonC2(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(591.56, 591.56, 591.17, 590.60, 588.88, 588.49, 588.29, 588.32);
         List<Double> bestKnowVehicles = Arrays.asList(3.0, 3.0, 3.0, 3.0, 3.0, 3.0, 3.0, 3.0);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 8; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/C2" + getInstanceNu(i + 1) + ".txt";
-            new SolomonReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("C2" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), bestKnowVehicles.get(i).doubleValue()));
-        }
-        return instances;
+        return getAllSolomon(inputFolder, "C2", bestKnown, bestKnowVehicles);
     }
 
     /**
@@ -169,15 +246,7 @@ public class Instances {
     public static Collection<BenchmarkInstance> getAllSolomonR1(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(1650.80, 1486.12, 1292.68, 1007.31, 1377.11, 1252.03, 1104.66, 960.88, 1194.73, 1118.84, 1096.72, 982.14);
         List<Double> bestKnowVehicles = Arrays.asList(19.0, 17.0, 13.0, 9.0, 14.0, 12.0, 10.0, 9.0, 11.0, 10.0, 10.0, 9.0);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 12; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/R1" + getInstanceNu(i + 1) + ".txt";
-            new SolomonReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("R1" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), bestKnowVehicles.get(i).doubleValue()));
-        }
-        return instances;
+        return getAllSolomon(inputFolder, "R1", bestKnown, bestKnowVehicles);
     }
 
     /**
@@ -192,15 +261,7 @@ public class Instances {
     public static Collection<BenchmarkInstance> getAllSolomonR2(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(1252.37, 1191.70, 939.50, 825.52, 994.42, 906.14, 890.61, 726.82, 909.16, 939.37, 885.71);
         List<Double> bestKnowVehicles = Arrays.asList(4.0, 3.0, 3.0, 2.0, 3.0, 3.0, 2.0, 2.0, 3.0, 3.0, 2.0);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 11; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/R2" + getInstanceNu(i + 1) + ".txt";
-            new SolomonReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("R2" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), bestKnowVehicles.get(i).doubleValue()));
-        }
-        return instances;
+        return getAllSolomon(inputFolder, "R2", bestKnown, bestKnowVehicles);
     }
 
     /**
@@ -214,15 +275,7 @@ public class Instances {
     public static Collection<BenchmarkInstance> getAllSolomonRC1(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(1696.94, 1554.75, 1261.67, 1135.48, 1629.44, 1424.73, 1230.48, 1139.82);
         List<Double> bestKnowVehicles = Arrays.asList(14.0, 12.0, 11.0, 10.0, 13.0, 11.0, 11.0, 10.0);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 8; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/RC1" + getInstanceNu(i + 1) + ".txt";
-            new SolomonReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("RC1" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), bestKnowVehicles.get(i).doubleValue()));
-        }
-        return instances;
+        return getAllSolomon(inputFolder, "RC1", bestKnown, bestKnowVehicles);
     }
 
     /**
@@ -237,14 +290,6 @@ public class Instances {
     public static Collection<BenchmarkInstance> getAllSolomonRC2(String inputFolder) {
         List<Double> bestKnown = Arrays.asList(1406.94, 1365.65, 1049.62, 798.46, 1297.65, 1146.32, 1061.14, 828.14);
         List<Double> bestKnowVehicles = Arrays.asList(4.0, 3.0, 3.0, 3.0, 4.0, 3.0, 3.0, 3.0);
-        Collection<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>();
-        for (int i = 0; i < 8; i++) {
-            VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
-            String file = inputFolder + "/RC2" + getInstanceNu(i + 1) + ".txt";
-            new SolomonReader(builder).read(file);
-            VehicleRoutingProblem p = builder.build();
-            instances.add(new BenchmarkInstance("RC2" + getInstanceNu(i + 1), p, bestKnown.get(i).doubleValue(), bestKnowVehicles.get(i).doubleValue()));
-        }
-        return instances;
+        return getAllSolomon(inputFolder, "RC2", bestKnown, bestKnowVehicles);
     }
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.instance.reader;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class LineTokenizerTest {
+
+    private LineTokenizer tokenizer(String text) {
+        return new LineTokenizer(new StringReader(text));
+    }
+
+    @Test
+    public void whenLinesHaveDifferentSeparators_itShouldSplitThemLikeRegex() {
+        LineTokenizer tokenizer = tokenizer("  1  35.5\t-7 \r\n\nfoo\rbar baz");
+        assertTrue(tokenizer.nextLine());
+        assertEquals(3, tokenizer.getNoTokens());
+        assertEquals(1, tokenizer.getInt(0));
+        assertEquals(35.5, tokenizer.getDouble(1), 0.);
+        assertEquals(-7, tokenizer.getInt(2));
+        assertTrue(tokenizer.nextLine());
+        assertTrue(tokenizer.isEmpty());
+        assertTrue(tokenizer.nextLine());
+        assertEquals("foo", tokenizer.getString(0));
+        assertTrue(tokenizer.nextLine());
+        assertEquals(2, tokenizer.getNoTokens());
+        assertEquals("baz", tokenizer.getString(1));
+        assertFalse(tokenizer.nextLine());
+    }
+
+    @Test
+    public void whenTextEndsWithLineBreak_itShouldNotReturnEmptyLine() {
+        LineTokenizer tokenizer = tokenizer("a\n");
+        assertTrue(tokenizer.nextLine());
+        assertFalse(tokenizer.nextLine());
+    }
+
+    @Test
+    public void whenLineIsLongerThanBuffer_itShouldBeReadCompletely() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50000; i++) text.append(i).append(' ');
+        text.append('\n').append("last");
+        LineTokenizer tokenizer = tokenizer(text.toString());
+        assertTrue(tokenizer.nextLine());
+        assertEquals(50000, tokenizer.getNoTokens());
+        assertEquals(49999, tokenizer.getInt(49999));
+        assertTrue(tokenizer.nextLine());
+        assertEquals("last", tokenizer.getString(0));
+    }
+
+    @Test
+    public void doublesShouldEqualThoseOfParseDouble() {
+        String[] values = {"0", "-0", "0.1", "12.345", "+3.", ".5", "999999999999999", "1234567890.123456789", "1e3", "-2.5E-3", "0.30000000000000004"};
+        StringBuilder text = new StringBuilder();
+        for (String v : values) text.append(v).append(' ');
+        LineTokenizer tokenizer = tokenizer(text.toString());
+        assertTrue(tokenizer.nextLine());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], Double.doubleToLongBits(Double.parseDouble(values[i])), Double.doubleToLongBits(tokenizer.getDouble(i)));
+        }
+    }
+
+    @Test
+    public void intsShouldEqualThoseOfParseInt() {
+        LineTokenizer tokenizer = tokenizer("2147483647 -2147483648 +12 007");
+        assertTrue(tokenizer.nextLine());
+        assertEquals(Integer.MAX_VALUE, tokenizer.getInt(0));
+        assertEquals(Integer.MIN_VALUE, tokenizer.getInt(1));
+        assertEquals(12, tokenizer.getInt(2));
+        assertEquals(7, tokenizer.getInt(3));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void whenTokenIsNoInt_itShouldThrowException() {
+        LineTokenizer tokenizer = tokenizer("1.5");
+        tokenizer.nextLine();
+        tokenizer.getInt(0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void whenTokenIsNoDouble_itShouldThrowException() {
+        LineTokenizer tokenizer = tokenizer("-");
+        tokenizer.nextLine();
+        tokenizer.getDouble(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void whenTokenDoesNotExist_itShouldThrowException() {
+        LineTokenizer tokenizer = tokenizer("a b");
+        tokenizer.nextLine();
+        tokenizer.getString(2);
+    }
+
+}
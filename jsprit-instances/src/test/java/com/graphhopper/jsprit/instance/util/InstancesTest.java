@@ -0,0 +1,79 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.instance.util;
+
+import com.graphhopper.jsprit.core.util.BenchmarkInstance;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InstancesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void copy(String resource, String fileName) throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(resource);
+        Files.copy(in, new File(folder.getRoot(), fileName).toPath());
+        in.close();
+    }
+
+    @Test
+    public void whenLoadingSolomonC1_allInstancesShouldBeReadInOrder() throws IOException {
+        for (int i = 1; i <= 9; i++) copy("C101_solomon.txt", "C10" + i + ".txt");
+        List<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>(Instances.getAllSolomonC1(folder.getRoot().getAbsolutePath()));
+        assertEquals(9, instances.size());
+        for (int i = 0; i < 9; i++) {
+            assertEquals("C10" + (i + 1), instances.get(i).name);
+            assertEquals(100, instances.get(i).vrp.getJobs().size());
+        }
+        assertEquals(828.06, instances.get(2).bestKnownResult, 0.01);
+        assertEquals(10., instances.get(2).bestKnownVehicles, 0.01);
+    }
+
+    @Test
+    public void whenLoadingChristofides_allInstancesShouldBeRead() throws IOException {
+        for (int i = 1; i <= 14; i++) copy("vrpnc1.txt", "vrpnc" + i + ".txt");
+        List<BenchmarkInstance> instances = new ArrayList<BenchmarkInstance>(Instances.getAllChristofides(folder.getRoot().getAbsolutePath()));
+        assertEquals(14, instances.size());
+        assertEquals("vrpnc14", instances.get(13).name);
+        assertEquals(50, instances.get(13).vrp.getJobs().size());
+    }
+
+    @Test
+    public void whenFileIsMissing_itShouldThrowException() throws IOException {
+        for (int i = 1; i <= 8; i++) copy("C101_solomon.txt", "C10" + i + ".txt");
+        try {
+            Instances.getAllSolomonC1(folder.getRoot().getAbsolutePath());
+            throw new AssertionError("expected exception");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("C109"));
+        }
+    }
+
+}
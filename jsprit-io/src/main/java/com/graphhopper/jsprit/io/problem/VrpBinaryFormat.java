@@ -0,0 +1,64 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+/**
+ * Constants of the binary format written by {@link VrpBinaryWriter} and read by {@link VrpBinaryReader}.
+ * <p>All values are big-endian. A file consists of
+ * <ul>
+ * <li>magic number and version</li>
+ * <li>string table, i.e. every string (ids, names, skills, profiles) is stored once and referred to by its position</li>
+ * <li>location table stored in columns (ids, names, indices, coordinate flags, x, y)</li>
+ * <li>fleet size, vehicle types, vehicles, jobs and initial routes</li>
+ * <li>solutions (optional)</li>
+ * <li>transport time and distance matrix (optional), i.e. number of locations, symmetry flag, storage mode, time and distance
+ * scale factor, followed by all times and then all distances as stored by the matrix (doubles, ints or unsigned shorts). Of a
+ * symmetric matrix, only values from a location to itself and to locations with a higher index are written.</li>
+ * </ul>
+ * References to strings, locations, types, vehicles and jobs are ints, -1 denotes null.
+ *
+ * @author schroeder
+ */
+final class VrpBinaryFormat {
+
+    static final int MAGIC = 0x4a535052;
+
+    static final int VERSION = 1;
+
+    static final int NULL_REF = -1;
+
+    static final byte SERVICE = 0;
+
+    static final byte PICKUP = 1;
+
+    static final byte DELIVERY = 2;
+
+    static final byte SHIPMENT = 3;
+
+    static final byte SERVICE_ACTIVITY = 0;
+
+    static final byte PICKUP_SHIPMENT_ACTIVITY = 1;
+
+    static final byte DELIVER_SHIPMENT_ACTIVITY = 2;
+
+    static final byte BREAK_ACTIVITY = 3;
+
+    private VrpBinaryFormat() {
+    }
+
+}
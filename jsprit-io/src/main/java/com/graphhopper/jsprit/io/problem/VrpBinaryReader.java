@@ -0,0 +1,395 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
+import com.graphhopper.jsprit.core.problem.job.*;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads a vehicle routing problem (and its solutions) written by {@link VrpBinaryWriter}.
+ * <p>Files are memory-mapped. Strings and locations are stored once in the file and thus shared by all objects
+ * referring to them. If the file contains a transport time and distance matrix, it is set as routing costs of the
+ * problem unless {@link #setReadMatrix(boolean)} is set to false.
+ *
+ * @author schroeder
+ */
+public class VrpBinaryReader {
+
+    private static Logger logger = LoggerFactory.getLogger(VrpBinaryReader.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final VehicleRoutingProblem.Builder vrpBuilder;
+
+    private final Collection<VehicleRoutingProblemSolution> solutions;
+
+    private boolean readMatrix = true;
+
+    private String[] strings;
+
+    private Location[] locations;
+
+    private Vehicle[] vehicles;
+
+    private Job[] jobs;
+
+    public VrpBinaryReader(VehicleRoutingProblem.Builder vrpBuilder, Collection<VehicleRoutingProblemSolution> solutions) {
+        this.vrpBuilder = vrpBuilder;
+        this.solutions = solutions;
+    }
+
+    public VrpBinaryReader(VehicleRoutingProblem.Builder vrpBuilder) {
+        this(vrpBuilder, null);
+    }
+
+    /**
+     * Sets whether an embedded transport time and distance matrix is set as routing costs. Default is true.
+     *
+     * @param readMatrix true if the matrix should be read
+     */
+    public void setReadMatrix(boolean readMatrix) {
+        this.readMatrix = readMatrix;
+    }
+
+    public void read(String filename) {
+        logger.debug("read vrp: {}", filename);
+        File file = new File(filename);
+        if (!file.exists()) throw new IllegalArgumentException("cannot locate vrp file " + filename);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads problem and solutions from in. The stream is read to its end but not closed.
+     *
+     * @param in the input stream
+     */
+    public void read(InputStream in) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1 << 16];
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) bytes.write(buffer, 0, n);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Reads problem and solutions from the remaining bytes of buffer.
+     *
+     * @param buffer the buffer
+     */
+    public void read(ByteBuffer buffer) {
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != VrpBinaryFormat.MAGIC)
+                throw new IllegalArgumentException("input is not a binary vrp file");
+            int version = buffer.getInt();
+            if (version != VrpBinaryFormat.VERSION)
+                throw new IllegalArgumentException("cannot read binary vrp file of version " + version + ". supported version is " + VrpBinaryFormat.VERSION);
+            readStringTable(buffer);
+            readLocationTable(buffer);
+            readProblem(buffer);
+            readSolutions(buffer);
+            readMatrix(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("binary vrp file is truncated", e);
+        } finally {
+            strings = null;
+            locations = null;
+            vehicles = null;
+            jobs = null;
+        }
+    }
+
+    private String string(ByteBuffer buffer) {
+        int ref = buffer.getInt();
+        if (ref == VrpBinaryFormat.NULL_REF) return null;
+        return strings[ref];
+    }
+
+    private Location location(ByteBuffer buffer) {
+        int ref = buffer.getInt();
+        if (ref == VrpBinaryFormat.NULL_REF) return null;
+        return locations[ref];
+    }
+
+    private void readStringTable(ByteBuffer buffer) {
+        strings = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) bytes = new byte[Math.max(length, bytes.length * 2)];
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, UTF8);
+        }
+    }
+
+    private void readLocationTable(ByteBuffer buffer) {
+        int noLocations = buffer.getInt();
+        int[] ids = readInts(buffer, noLocations);
+        int[] names = readInts(buffer, noLocations);
+        int[] indices = readInts(buffer, noLocations);
+        byte[] hasCoordinate = new byte[noLocations];
+        buffer.get(hasCoordinate);
+        double[] xs = readDoubles(buffer, noLocations);
+        double[] ys = readDoubles(buffer, noLocations);
+        locations = new Location[noLocations];
+        for (int i = 0; i < noLocations; i++) {
+            Location.Builder builder = Location.Builder.newInstance();
+            if (ids[i] != VrpBinaryFormat.NULL_REF) builder.setId(strings[ids[i]]);
+            if (names[i] != VrpBinaryFormat.NULL_REF) builder.setName(strings[names[i]]);
+            if (indices[i] != Location.NO_INDEX) builder.setIndex(indices[i]);
+            if (hasCoordinate[i] == 1) builder.setCoordinate(Coordinate.newInstance(xs[i], ys[i]));
+            locations[i] = builder.build();
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + 4 * length);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int length) {
+        double[] values = new double[length];
+        buffer.asDoubleBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + 8 * length);
+        return values;
+    }
+
+    private void readProblem(ByteBuffer buffer) {
+        vrpBuilder.setFleetSize(buffer.get() == 0 ? VehicleRoutingProblem.FleetSize.FINITE : VehicleRoutingProblem.FleetSize.INFINITE);
+
+        VehicleType[] types = new VehicleType[buffer.getInt()];
+        for (int i = 0; i < types.length; i++) types[i] = readType(buffer);
+
+        vehicles = new Vehicle[buffer.getInt()];
+        for (int i = 0; i < vehicles.length; i++) {
+            vehicles[i] = readVehicle(buffer, types);
+            vrpBuilder.addVehicle(vehicles[i]);
+        }
+
+        jobs = new Job[buffer.getInt()];
+        for (int i = 0; i < jobs.length; i++) {
+            byte kind = buffer.get();
+            String id = string(buffer);
+            boolean isProblemJob = buffer.get() != 0;
+            jobs[i] = readJob(buffer, kind, id);
+            if (isProblemJob) vrpBuilder.addJob(jobs[i]);
+        }
+
+        int noInitialRoutes = buffer.getInt();
+        for (int i = 0; i < noInitialRoutes; i++) vrpBuilder.addInitialVehicleRoute(readRoute(buffer));
+    }
+
+    private VehicleType readType(ByteBuffer buffer) {
+        VehicleTypeImpl.Builder builder = VehicleTypeImpl.Builder.newInstance(string(buffer));
+        String profile = string(buffer);
+        if (profile != null) builder.setProfile(profile);
+        int noDimensions = buffer.getInt();
+        for (int d = 0; d < noDimensions; d++) builder.addCapacityDimension(d, buffer.getInt());
+        builder.setFixedCost(buffer.getDouble());
+        builder.setCostPerDistance(buffer.getDouble());
+        builder.setCostPerTransportTime(buffer.getDouble());
+        builder.setCostPerWaitingTime(buffer.getDouble());
+        builder.setCostPerServiceTime(buffer.getDouble());
+        builder.setMaxVelocity(buffer.getDouble());
+        return builder.build();
+    }
+
+    private Vehicle readVehicle(ByteBuffer buffer, VehicleType[] types) {
+        VehicleImpl.Builder builder = VehicleImpl.Builder.newInstance(string(buffer));
+        builder.setType(types[buffer.getInt()]);
+        builder.setStartLocation(location(buffer));
+        builder.setEndLocation(location(buffer));
+        builder.setReturnToDepot(buffer.get() != 0);
+        builder.setEarliestStart(buffer.getDouble());
+        builder.setLatestArrival(buffer.getDouble());
+        int noSkills = buffer.getInt();
+        for (int s = 0; s < noSkills; s++) builder.addSkill(string(buffer));
+        if (buffer.get() != 0) {
+            Break.Builder breakBuilder = Break.Builder.newInstance(string(buffer));
+            Location location = location(buffer);
+            if (location != null) breakBuilder.setLocation(location);
+            breakBuilder.setServiceTime(buffer.getDouble());
+            breakBuilder.setPriority(buffer.getInt());
+            int noTimeWindows = buffer.getInt();
+            for (int t = 0; t < noTimeWindows; t++) breakBuilder.addTimeWindow(buffer.getDouble(), buffer.getDouble());
+            builder.setBreak(breakBuilder.build());
+        }
+        return builder.build();
+    }
+
+    private Job readJob(ByteBuffer buffer, byte kind, String id) {
+        if (kind == VrpBinaryFormat.SHIPMENT) {
+            Shipment.Builder builder = Shipment.Builder.newInstance(id);
+            builder.setName(string(buffer));
+            int noDimensions = buffer.getInt();
+            for (int d = 0; d < noDimensions; d++) builder.addSizeDimension(d, buffer.getInt());
+            int noSkills = buffer.getInt();
+            for (int s = 0; s < noSkills; s++) builder.addRequiredSkill(string(buffer));
+            builder.setPriority(buffer.getInt());
+            double maxTimeInVehicle = buffer.getDouble();
+            if (maxTimeInVehicle != Double.MAX_VALUE) builder.setMaxTimeInVehicle(maxTimeInVehicle);
+            builder.setPickupLocation(location(buffer));
+            builder.setPickupServiceTime(buffer.getDouble());
+            int noTimeWindows = buffer.getInt();
+            for (int t = 0; t < noTimeWindows; t++) builder.addPickupTimeWindow(buffer.getDouble(), buffer.getDouble());
+            builder.setDeliveryLocation(location(buffer));
+            builder.setDeliveryServiceTime(buffer.getDouble());
+            noTimeWindows = buffer.getInt();
+            for (int t = 0; t < noTimeWindows; t++) builder.addDeliveryTimeWindow(buffer.getDouble(), buffer.getDouble());
+            return builder.build();
+        }
+        Service.Builder<?> builder;
+        if (kind == VrpBinaryFormat.PICKUP) builder = Pickup.Builder.newInstance(id);
+        else if (kind == VrpBinaryFormat.DELIVERY) builder = Delivery.Builder.newInstance(id);
+        else if (kind == VrpBinaryFormat.SERVICE) builder = Service.Builder.newInstance(id);
+        else throw new IllegalArgumentException("job " + id + " is of unknown kind " + kind);
+        builder.setName(string(buffer));
+        int noDimensions = buffer.getInt();
+        for (int d = 0; d < noDimensions; d++) builder.addSizeDimension(d, buffer.getInt());
+        int noSkills = buffer.getInt();
+        for (int s = 0; s < noSkills; s++) builder.addRequiredSkill(string(buffer));
+        builder.setPriority(buffer.getInt());
+        double maxTimeInVehicle = buffer.getDouble();
+        if (maxTimeInVehicle != Double.MAX_VALUE) builder.setMaxTimeInVehicle(maxTimeInVehicle);
+        builder.setLocation(location(buffer));
+        builder.setServiceTime(buffer.getDouble());
+        int noTimeWindows = buffer.getInt();
+        for (int t = 0; t < noTimeWindows; t++) builder.addTimeWindow(buffer.getDouble(), buffer.getDouble());
+        return builder.build();
+    }
+
+    private VehicleRoute readRoute(ByteBuffer buffer) {
+        Vehicle vehicle = vehicles[buffer.getInt()];
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle, DriverImpl.noDriver());
+        builder.setDepartureTime(buffer.getDouble());
+        int noActivities = buffer.getInt();
+        for (int a = 0; a < noActivities; a++) {
+            byte kind = buffer.get();
+            if (kind == VrpBinaryFormat.BREAK_ACTIVITY) {
+                TimeWindow timeWindow = TimeWindow.newInstance(buffer.getDouble(), buffer.getDouble());
+                builder.addBreak(vehicle.getBreak(), timeWindow, location(buffer));
+                continue;
+            }
+            Job job = jobs[buffer.getInt()];
+            if (kind == VrpBinaryFormat.PICKUP_SHIPMENT_ACTIVITY) builder.addPickup((Shipment) job);
+            else if (kind == VrpBinaryFormat.DELIVER_SHIPMENT_ACTIVITY) builder.addDelivery((Shipment) job);
+            else if (kind == VrpBinaryFormat.SERVICE_ACTIVITY) builder.addService((Service) job);
+            else throw new IllegalArgumentException("activity of job " + job.getId() + " is of unknown kind " + kind);
+        }
+        return builder.build();
+    }
+
+    private void readSolutions(ByteBuffer buffer) {
+        int noSolutions = buffer.getInt();
+        for (int i = 0; i < noSolutions; i++) {
+            double cost = buffer.getDouble();
+            List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+            int noRoutes = buffer.getInt();
+            for (int r = 0; r < noRoutes; r++) routes.add(readRoute(buffer));
+            VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, cost);
+            int noUnassigned = buffer.getInt();
+            for (int u = 0; u < noUnassigned; u++) solution.getUnassignedJobs().add(jobs[buffer.getInt()]);
+            if (solutions != null) solutions.add(solution);
+        }
+    }
+
+    private void readMatrix(ByteBuffer buffer) {
+        if (buffer.get() == 0) return;
+        int noLocations = buffer.getInt();
+        boolean symmetric = buffer.get() != 0;
+        byte mode = buffer.get();
+        if (mode < 0 || mode >= FastVehicleRoutingTransportCostsMatrix.StorageMode.values().length)
+            throw new IllegalArgumentException("matrix is stored in unknown storage mode " + mode);
+        FastVehicleRoutingTransportCostsMatrix.StorageMode storageMode = FastVehicleRoutingTransportCostsMatrix.StorageMode.values()[mode];
+        double timeScaleFactor = buffer.getDouble();
+        double distanceScaleFactor = buffer.getDouble();
+        int valueBytes = storageMode == FastVehicleRoutingTransportCostsMatrix.StorageMode.DOUBLE ? 8 : (storageMode == FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32 ? 4 : 2);
+        long noCells = symmetric ? (long) noLocations * (noLocations + 1) / 2 : (long) noLocations * noLocations;
+        long noBytes = 2 * noCells * valueBytes;
+        if (noBytes > buffer.remaining()) throw new BufferUnderflowException();
+        int timesPosition = buffer.position();
+        int distancesPosition = (int) (timesPosition + noCells * valueBytes);
+        ((Buffer) buffer).position((int) (timesPosition + noBytes));
+        if (!readMatrix) return;
+        FastVehicleRoutingTransportCostsMatrix.Builder builder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(noLocations, symmetric, storageMode)
+            .setTimeScaleFactor(timeScaleFactor).setDistanceScaleFactor(distanceScaleFactor);
+        int offset = 0;
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = symmetric ? from : 0; to < noLocations; to++) {
+                double time = readMatrixValue(buffer, storageMode, timesPosition + offset, timeScaleFactor);
+                double distance = readMatrixValue(buffer, storageMode, distancesPosition + offset, distanceScaleFactor);
+                builder.addTransportTimeAndDistance(from, to, time, distance);
+                offset += valueBytes;
+            }
+        }
+        vrpBuilder.setRoutingCost(builder.build());
+    }
+
+    /*
+     * reads the value at the absolute position, i.e. the builder scales it back to the stored int or unsigned short
+     */
+    private static double readMatrixValue(ByteBuffer buffer, FastVehicleRoutingTransportCostsMatrix.StorageMode storageMode, int position, double scaleFactor) {
+        if (storageMode == FastVehicleRoutingTransportCostsMatrix.StorageMode.DOUBLE) return buffer.getDouble(position);
+        if (storageMode == FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32) return buffer.getInt(position) / scaleFactor;
+        return buffer.getChar(position) / scaleFactor;
+    }
+
+}
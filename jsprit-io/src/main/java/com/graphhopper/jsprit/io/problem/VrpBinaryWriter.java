@@ -0,0 +1,393 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.*;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.*;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Writes a vehicle routing problem (and its solutions) in a compact binary format (see {@link VrpBinaryReader}).
+ * <p>Compared to {@link VrpXMLWriter} it additionally stores job priorities, max time in vehicle, location names,
+ * vehicle profiles and max velocities as well as the transport costs if they are a
+ * {@link FastVehicleRoutingTransportCostsMatrix}. User data is not written.
+ *
+ * @author schroeder
+ */
+public class VrpBinaryWriter {
+
+    private static Logger logger = LoggerFactory.getLogger(VrpBinaryWriter.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final VehicleRoutingProblem vrp;
+
+    private final Collection<VehicleRoutingProblemSolution> solutions;
+
+    private boolean embedMatrix = true;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    private final List<String> stringTable = new ArrayList<String>();
+
+    private final Map<Location, Integer> locations = new IdentityHashMap<Location, Integer>();
+
+    private final List<Location> locationTable = new ArrayList<Location>();
+
+    private final Map<String, Integer> jobs = new HashMap<String, Integer>();
+
+    private final Map<String, Integer> vehicles = new HashMap<String, Integer>();
+
+    public VrpBinaryWriter(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        this.vrp = vrp;
+        this.solutions = solutions;
+    }
+
+    public VrpBinaryWriter(VehicleRoutingProblem vrp) {
+        this(vrp, null);
+    }
+
+    /**
+     * Sets whether transport times and distances are embedded if the transport costs of the problem are a
+     * {@link FastVehicleRoutingTransportCostsMatrix}. Default is true.
+     *
+     * @param embedMatrix true if the matrix should be embedded
+     */
+    public void setEmbedMatrix(boolean embedMatrix) {
+        this.embedMatrix = embedMatrix;
+    }
+
+    public void write(String filename) {
+        logger.debug("write vrp: {}", filename);
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(filename);
+            write(out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes problem and solutions to out. The stream is flushed but not closed.
+     *
+     * @param out the output stream
+     */
+    public void write(OutputStream out) {
+        strings.clear();
+        stringTable.clear();
+        locations.clear();
+        locationTable.clear();
+        jobs.clear();
+        vehicles.clear();
+        try {
+            //records are written first since they determine string and location table
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            DataOutputStream recordOut = new DataOutputStream(records);
+            writeProblem(recordOut);
+            writeSolutions(recordOut);
+            writeMatrix(recordOut);
+            recordOut.flush();
+
+            DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+            dataOut.writeInt(VrpBinaryFormat.MAGIC);
+            dataOut.writeInt(VrpBinaryFormat.VERSION);
+            writeStringTable(dataOut);
+            writeLocationTable(dataOut);
+            records.writeTo(dataOut);
+            dataOut.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int string(String s) {
+        if (s == null) return VrpBinaryFormat.NULL_REF;
+        Integer ref = strings.get(s);
+        if (ref == null) {
+            ref = stringTable.size();
+            strings.put(s, ref);
+            stringTable.add(s);
+        }
+        return ref;
+    }
+
+    private int location(Location location) {
+        if (location == null) return VrpBinaryFormat.NULL_REF;
+        Integer ref = locations.get(location);
+        if (ref == null) {
+            ref = locationTable.size();
+            locations.put(location, ref);
+            locationTable.add(location);
+            string(location.getId());
+            string(location.getName());
+        }
+        return ref;
+    }
+
+    private void writeStringTable(DataOutputStream out) throws IOException {
+        out.writeInt(stringTable.size());
+        for (String s : stringTable) {
+            byte[] bytes = s.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private void writeLocationTable(DataOutputStream out) throws IOException {
+        out.writeInt(locationTable.size());
+        for (Location l : locationTable) out.writeInt(string(l.getId()));
+        for (Location l : locationTable) out.writeInt(string(l.getName()));
+        for (Location l : locationTable) out.writeInt(l.getIndex());
+        for (Location l : locationTable) out.writeByte(l.getCoordinate() == null ? 0 : 1);
+        for (Location l : locationTable) out.writeDouble(l.getCoordinate() == null ? 0. : l.getCoordinate().getX());
+        for (Location l : locationTable) out.writeDouble(l.getCoordinate() == null ? 0. : l.getCoordinate().getY());
+    }
+
+    private void writeProblem(DataOutputStream out) throws IOException {
+        out.writeByte(vrp.getFleetSize() == VehicleRoutingProblem.FleetSize.FINITE ? 0 : 1);
+
+        Map<VehicleType, Integer> types = new HashMap<VehicleType, Integer>();
+        List<VehicleType> typeList = new ArrayList<VehicleType>();
+        for (VehicleType type : vrp.getTypes()) {
+            if (!types.containsKey(type)) {
+                types.put(type, typeList.size());
+                typeList.add(type);
+            }
+        }
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            if (!types.containsKey(vehicle.getType())) {
+                types.put(vehicle.getType(), typeList.size());
+                typeList.add(vehicle.getType());
+            }
+        }
+        out.writeInt(typeList.size());
+        for (VehicleType type : typeList) writeType(out, type);
+
+        out.writeInt(vrp.getVehicles().size());
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            vehicles.put(vehicle.getId(), vehicles.size());
+            writeVehicle(out, vehicle, types.get(vehicle.getType()));
+        }
+
+        //jobs of the problem followed by jobs of initial routes, which are not part of the problem
+        List<Job> jobList = new ArrayList<Job>(vrp.getJobs().values());
+        int noProblemJobs = jobList.size();
+        for (Job job : jobList) jobs.put(job.getId(), jobs.size());
+        for (VehicleRoute route : vrp.getInitialVehicleRoutes()) {
+            for (Job job : route.getTourActivities().getJobs()) {
+                if (job instanceof Break || jobs.containsKey(job.getId())) continue;
+                jobs.put(job.getId(), jobs.size());
+                jobList.add(job);
+            }
+        }
+        out.writeInt(jobList.size());
+        for (int i = 0; i < jobList.size(); i++) writeJob(out, jobList.get(i), i < noProblemJobs);
+
+        out.writeInt(vrp.getInitialVehicleRoutes().size());
+        for (VehicleRoute route : vrp.getInitialVehicleRoutes()) writeRoute(out, route);
+    }
+
+    private void writeType(DataOutputStream out, VehicleType type) throws IOException {
+        out.writeInt(string(type.getTypeId()));
+        out.writeInt(string(type.getProfile()));
+        writeCapacity(out, type.getCapacityDimensions());
+        VehicleTypeImpl.VehicleCostParams costs = type.getVehicleCostParams();
+        out.writeDouble(costs.fix);
+        out.writeDouble(costs.perDistanceUnit);
+        out.writeDouble(costs.perTransportTimeUnit);
+        out.writeDouble(costs.perWaitingTimeUnit);
+        out.writeDouble(costs.perServiceTimeUnit);
+        out.writeDouble(type.getMaxVelocity());
+    }
+
+    private void writeVehicle(DataOutputStream out, Vehicle vehicle, int typeRef) throws IOException {
+        out.writeInt(string(vehicle.getId()));
+        out.writeInt(typeRef);
+        out.writeInt(location(vehicle.getStartLocation()));
+        out.writeInt(location(vehicle.getEndLocation()));
+        out.writeBoolean(vehicle.isReturnToDepot());
+        out.writeDouble(vehicle.getEarliestDeparture());
+        out.writeDouble(vehicle.getLatestArrival());
+        writeSkills(out, vehicle.getSkills());
+        Break aBreak = vehicle.getBreak();
+        out.writeBoolean(aBreak != null);
+        if (aBreak != null) {
+            out.writeInt(string(aBreak.getId()));
+            out.writeInt(aBreak.hasVariableLocation() ? VrpBinaryFormat.NULL_REF : location(aBreak.getLocation()));
+            out.writeDouble(aBreak.getServiceDuration());
+            out.writeInt(aBreak.getPriority());
+            writeTimeWindows(out, aBreak.getTimeWindows());
+        }
+    }
+
+    private void writeJob(DataOutputStream out, Job job, boolean isProblemJob) throws IOException {
+        if (job instanceof Shipment) out.writeByte(VrpBinaryFormat.SHIPMENT);
+        else if (job instanceof Pickup) out.writeByte(VrpBinaryFormat.PICKUP);
+        else if (job instanceof Delivery) out.writeByte(VrpBinaryFormat.DELIVERY);
+        else if (job instanceof Service) out.writeByte(VrpBinaryFormat.SERVICE);
+        else
+            throw new IllegalStateException("cannot write job " + job.getId() + " since its type is not known. make sure you use either service or shipment, or another writer");
+        out.writeInt(string(job.getId()));
+        out.writeBoolean(isProblemJob);
+        out.writeInt(string(job.getName()));
+        writeCapacity(out, job.getSize());
+        writeSkills(out, job.getRequiredSkills());
+        out.writeInt(job.getPriority());
+        out.writeDouble(job.getMaxTimeInVehicle());
+        if (job instanceof Shipment) {
+            Shipment shipment = (Shipment) job;
+            out.writeInt(location(shipment.getPickupLocation()));
+            out.writeDouble(shipment.getPickupServiceTime());
+            writeTimeWindows(out, shipment.getPickupTimeWindows());
+            out.writeInt(location(shipment.getDeliveryLocation()));
+            out.writeDouble(shipment.getDeliveryServiceTime());
+            writeTimeWindows(out, shipment.getDeliveryTimeWindows());
+        } else {
+            Service service = (Service) job;
+            out.writeInt(location(service.getLocation()));
+            out.writeDouble(service.getServiceDuration());
+            writeTimeWindows(out, service.getTimeWindows());
+        }
+    }
+
+    private void writeCapacity(DataOutputStream out, Capacity capacity) throws IOException {
+        out.writeInt(capacity.getNuOfDimensions());
+        for (int i = 0; i < capacity.getNuOfDimensions(); i++) out.writeInt(capacity.get(i));
+    }
+
+    private void writeSkills(DataOutputStream out, Skills skills) throws IOException {
+        out.writeInt(skills.values().size());
+        for (String skill : skills.values()) out.writeInt(string(skill));
+    }
+
+    private void writeTimeWindows(DataOutputStream out, Collection<TimeWindow> timeWindows) throws IOException {
+        out.writeInt(timeWindows.size());
+        for (TimeWindow tw : timeWindows) {
+            out.writeDouble(tw.getStart());
+            out.writeDouble(tw.getEnd());
+        }
+    }
+
+    private void writeRoute(DataOutputStream out, VehicleRoute route) throws IOException {
+        Integer vehicleRef = vehicles.get(route.getVehicle().getId());
+        if (vehicleRef == null)
+            throw new IllegalStateException("vehicle " + route.getVehicle().getId() + " of route is not part of the problem");
+        out.writeInt(vehicleRef);
+        out.writeDouble(route.getDepartureTime());
+        List<TourActivity> activities = route.getActivities();
+        out.writeInt(activities.size());
+        for (TourActivity act : activities) {
+            Job job = ((TourActivity.JobActivity) act).getJob();
+            if (job instanceof Break) {
+                out.writeByte(VrpBinaryFormat.BREAK_ACTIVITY);
+                out.writeDouble(act.getTheoreticalEarliestOperationStartTime());
+                out.writeDouble(act.getTheoreticalLatestOperationStartTime());
+                out.writeInt(location(act.getLocation()));
+                continue;
+            }
+            if (act instanceof PickupShipment) out.writeByte(VrpBinaryFormat.PICKUP_SHIPMENT_ACTIVITY);
+            else if (act instanceof DeliverShipment) out.writeByte(VrpBinaryFormat.DELIVER_SHIPMENT_ACTIVITY);
+            else out.writeByte(VrpBinaryFormat.SERVICE_ACTIVITY);
+            Integer jobRef = jobs.get(job.getId());
+            if (jobRef == null)
+                throw new IllegalStateException("job " + job.getId() + " of route is not part of the problem");
+            out.writeInt(jobRef);
+        }
+    }
+
+    private void writeSolutions(DataOutputStream out) throws IOException {
+        if (solutions == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(solutions.size());
+        for (VehicleRoutingProblemSolution solution : solutions) {
+            out.writeDouble(solution.getCost());
+            out.writeInt(solution.getRoutes().size());
+            for (VehicleRoute route : solution.getRoutes()) writeRoute(out, route);
+            out.writeInt(solution.getUnassignedJobs().size());
+            for (Job job : solution.getUnassignedJobs()) {
+                Integer jobRef = jobs.get(job.getId());
+                if (jobRef == null)
+                    throw new IllegalStateException("unassigned job " + job.getId() + " is not part of the problem");
+                out.writeInt(jobRef);
+            }
+        }
+    }
+
+    private void writeMatrix(DataOutputStream out) throws IOException {
+        if (!embedMatrix || !(vrp.getTransportCosts() instanceof FastVehicleRoutingTransportCostsMatrix)) {
+            out.writeBoolean(false);
+            return;
+        }
+        FastVehicleRoutingTransportCostsMatrix matrix = (FastVehicleRoutingTransportCostsMatrix) vrp.getTransportCosts();
+        int noLocations = matrix.getNoLocations();
+        out.writeBoolean(true);
+        out.writeInt(noLocations);
+        out.writeBoolean(matrix.isSymmetric());
+        out.writeByte(matrix.getStorageMode().ordinal());
+        out.writeDouble(matrix.getTimeScaleFactor());
+        out.writeDouble(matrix.getDistanceScaleFactor());
+        Location[] indexLocations = new Location[noLocations];
+        for (int i = 0; i < noLocations; i++) indexLocations[i] = Location.newInstance(i);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = matrix.isSymmetric() ? from : 0; to < noLocations; to++) {
+                writeMatrixValue(out, matrix.getStorageMode(), matrix.getTransportTime(indexLocations[from], indexLocations[to], 0., null, null), matrix.getTimeScaleFactor());
+            }
+        }
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = matrix.isSymmetric() ? from : 0; to < noLocations; to++) {
+                writeMatrixValue(out, matrix.getStorageMode(), matrix.getDistance(from, to), matrix.getDistanceScaleFactor());
+            }
+        }
+    }
+
+    /*
+     * writes value as it is stored in the matrix, i.e. scaled values are written as ints or unsigned shorts
+     */
+    private static void writeMatrixValue(DataOutputStream out, FastVehicleRoutingTransportCostsMatrix.StorageMode storageMode, double value, double scaleFactor) throws IOException {
+        if (storageMode == FastVehicleRoutingTransportCostsMatrix.StorageMode.DOUBLE) out.writeDouble(value);
+        else if (storageMode == FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32) out.writeInt((int) Math.round(value * scaleFactor));
+        else out.writeChar((char) Math.round(value * scaleFactor));
+    }
+
+}
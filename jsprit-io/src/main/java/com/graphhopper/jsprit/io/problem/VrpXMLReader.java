@@ -33,19 +33,30 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.Resource;
-import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.configuration.HierarchicalConfiguration;
-import org.apache.commons.configuration.XMLConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.InputSource;
+import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
-
-import java.io.IOException;
-import java.io.InputStream;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.*;
+import java.net.URL;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * Reads a vehicle routing problem (and its solutions) from xml.
+ * <p>The xml is streamed, i.e. it is never held in memory as a whole. Only the element currently read (e.g. a service
+ * or a vehicle) is kept until it is added to the problem. If schema validation is enabled, the xml is validated
+ * against vrp_xml_schema.xsd while it is streamed. Gzipped input is detected and decompressed automatically.
+ */
 public class VrpXMLReader {
 
     public interface ServiceBuilderFactory {
@@ -70,8 +81,170 @@ public class VrpXMLReader {
         }
     }
 
+    /*
+     * an xml element together with its attributes, text and children. only elements of the record currently read are
+     * kept this way.
+     */
+    static class Element {
+
+        private final String name;
+
+        private final Map<String, String> attributes;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private List<Element> children = Collections.emptyList();
+
+        Element(String name, Attributes attributes) {
+            this.name = name;
+            if (attributes.getLength() == 0) this.attributes = Collections.emptyMap();
+            else {
+                this.attributes = new HashMap<String, String>(attributes.getLength() * 2);
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    this.attributes.put(attributes.getLocalName(i).isEmpty() ? attributes.getQName(i) : attributes.getLocalName(i), attributes.getValue(i));
+                }
+            }
+        }
+
+        void addChild(Element child) {
+            if (children.isEmpty()) children = new ArrayList<Element>(4);
+            children.add(child);
+        }
+
+        String getText() {
+            return text.toString().trim();
+        }
+
+        String getAttribute(String attributeName) {
+            return attributes.get(attributeName);
+        }
+
+        /**
+         * @param path dot-separated names of descendants, e.g. location.coord
+         * @return the first descendant that matches path, or null if there is none
+         */
+        Element get(String path) {
+            Element current = this;
+            int from = 0;
+            while (current != null && from <= path.length()) {
+                int to = path.indexOf('.', from);
+                if (to < 0) to = path.length();
+                current = current.getChild(path.substring(from, to));
+                from = to + 1;
+            }
+            return current;
+        }
+
+        private Element getChild(String childName) {
+            for (Element child : children) {
+                if (child.name.equals(childName)) return child;
+            }
+            return null;
+        }
+
+        /**
+         * @param path dot-separated names of descendants, the last one being the name of the elements returned
+         * @return all elements that match path
+         */
+        List<Element> getAll(String path) {
+            int lastDot = path.lastIndexOf('.');
+            Element parent = lastDot < 0 ? this : get(path.substring(0, lastDot));
+            if (parent == null) return Collections.emptyList();
+            String childName = path.substring(lastDot + 1);
+            List<Element> result = new ArrayList<Element>();
+            for (Element child : parent.children) {
+                if (child.name.equals(childName)) result.add(child);
+            }
+            return result;
+        }
+
+        String getString(String path) {
+            Element e = get(path);
+            if (e == null) return null;
+            return e.getText();
+        }
+
+        String getAttribute(String path, String attributeName) {
+            Element e = get(path);
+            if (e == null) return null;
+            return e.getAttribute(attributeName);
+        }
+
+        boolean contains(String path) {
+            return get(path) != null;
+        }
+
+    }
+
+    /*
+     * streams the document and hands over each completed record, i.e. problemType, vehicle, type, service, shipment
+     * or route, to the reader
+     */
+    private class Handler extends DefaultHandler {
+
+        private int depth = 0;
+
+        private String section;
+
+        private final Deque<Element> openElements = new ArrayDeque<Element>();
+
+        private boolean skipSection;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            depth++;
+            String name = localName.isEmpty() ? qName : localName;
+            if (!openElements.isEmpty()) {
+                Element element = new Element(name, attributes);
+                openElements.peek().addChild(element);
+                openElements.push(element);
+            } else if (depth == 2) {
+                section = name;
+                skipSection = section.equals("solutions") && solutions == null;
+                if (section.equals("initialRoutes") || section.equals("solutions")) addPendingVehicles();
+                if (section.equals("problemType")) openElements.push(new Element(name, attributes));
+            } else if (depth == 3 && !skipSection) {
+                openElements.push(new Element(name, attributes));
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (!openElements.isEmpty()) openElements.peek().text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (!openElements.isEmpty()) {
+                Element element = openElements.pop();
+                if (openElements.isEmpty()) readRecord(section, element);
+            } else if (depth == 2) {
+                if (section.equals("vehicleTypes")) {
+                    typesRead = true;
+                    addPendingVehicles();
+                }
+            }
+            depth--;
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            addPendingVehicles();
+        }
+
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+            throw e;
+        }
+
+    }
+
     private static Logger logger = LoggerFactory.getLogger(VrpXMLReader.class);
 
+    private static Schema schema;
+
+    private static boolean schemaLoaded = false;
+
     private VehicleRoutingProblem.Builder vrpBuilder;
 
     private Map<String, Vehicle> vehicleMap;
@@ -88,7 +261,13 @@ public class VrpXMLReader {
 
     private ServiceBuilderFactory serviceBuilderFactory = new DefaultServiceBuilderFactory();
 
+    private Map<String, VehicleType> types = new HashMap<String, VehicleType>();
 
+    private boolean typesRead = false;
+
+    private List<Element> pendingVehicles = new ArrayList<Element>();
+
+    private boolean doNotWarnAgain = false;
 
     /**
      * @param schemaValidation the schemaValidation to set
@@ -114,65 +293,103 @@ public class VrpXMLReader {
         this.solutions = null;
     }
 
+    /**
+     * Reads the file with the specified name from the file system or, if it cannot be found there, from the classpath.
+     * Files ending with .gz are read as gzipped files.
+     *
+     * @param filename name of the file
+     */
     public void read(String filename) {
         logger.debug("read vrp: {}", filename);
-        XMLConfiguration xmlConfig = createXMLConfiguration();
+        InputStream inputStream = null;
         try {
-            xmlConfig.load(filename);
-        } catch (ConfigurationException e) {
+            File file = new File(filename);
+            if (file.exists()) inputStream = new FileInputStream(file);
+            else {
+                URL url = Resource.getAsURL(filename);
+                if (url == null) throw new IllegalArgumentException("cannot locate vrp file " + filename);
+                inputStream = url.openStream();
+            }
+            read(inputStream);
+        } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    logger.debug("cannot close {}: {}", filename, e.getMessage());
+                }
+            }
         }
-        read(xmlConfig);
     }
 
+    /**
+     * Reads the xml from fileContents. Gzipped contents are detected and decompressed. The stream is not closed.
+     *
+     * @param fileContents xml contents, plain or gzipped
+     */
     public void read(InputStream fileContents) {
-        XMLConfiguration xmlConfig = createXMLConfiguration();
+        vrpBuilder.setFleetSize(FleetSize.INFINITE);
         try {
-            xmlConfig.load(fileContents);
-        } catch (ConfigurationException e) {
+            SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+            parserFactory.setNamespaceAware(true);
+            if (schemaValidation) {
+                Schema vrpSchema = getSchema();
+                if (vrpSchema != null) parserFactory.setSchema(vrpSchema);
+                else
+                    logger.debug("cannot find schema-xsd file (vrp_xml_schema.xsd). try to read xml without xml-file-validation.");
+            }
+            parserFactory.newSAXParser().parse(decompressIfGzipped(fileContents), new Handler());
+        } catch (SAXException e) {
+            if (e.getException() instanceof RuntimeException) throw (RuntimeException) e.getException();
+            throw new RuntimeException(e);
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        read(xmlConfig);
+        addJobsAndTheirLocationsToVrp();
     }
 
-    private XMLConfiguration createXMLConfiguration() {
-        XMLConfiguration xmlConfig = new XMLConfiguration();
-        xmlConfig.setAttributeSplittingDisabled(true);
-        xmlConfig.setDelimiterParsingDisabled(true);
+    private static InputStream decompressIfGzipped(InputStream inputStream) throws IOException {
+        InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >>> 8)) {
+            return new GZIPInputStream(in);
+        }
+        return in;
+    }
 
-        if (schemaValidation) {
-            final InputStream resource = Resource.getAsInputStream("vrp_xml_schema.xsd");
+    private static synchronized Schema getSchema() {
+        if (!schemaLoaded) {
+            URL resource = Resource.getAsURL("vrp_xml_schema.xsd");
             if (resource != null) {
-                EntityResolver resolver = new EntityResolver() {
-
-                    @Override
-                    public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
-                        {
-                            InputSource is = new InputSource(resource);
-                            return is;
-                        }
-                    }
-                };
-                xmlConfig.setEntityResolver(resolver);
-                xmlConfig.setSchemaValidation(true);
-            } else {
-                logger.debug("cannot find schema-xsd file (vrp_xml_schema.xsd). try to read xml without xml-file-validation.");
+                try {
+                    schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(resource.toExternalForm()));
+                } catch (SAXException e) {
+                    throw new RuntimeException(e);
+                }
             }
+            //only mark as loaded if parsing succeeded, otherwise the next read tries (and fails) again instead of skipping validation
+            schemaLoaded = true;
         }
-        return xmlConfig;
+        return schema;
     }
 
-    private void read(XMLConfiguration xmlConfig) {
-        readProblemType(xmlConfig);
-        readVehiclesAndTheirTypes(xmlConfig);
-
-        readShipments(xmlConfig);
-        readServices(xmlConfig);
-
-        readInitialRoutes(xmlConfig);
-        readSolutions(xmlConfig);
-
-        addJobsAndTheirLocationsToVrp();
+    private void readRecord(String section, Element record) {
+        if (section.equals("problemType")) readProblemType(record);
+        else if (section.equals("vehicles")) {
+            pendingVehicles.add(record);
+            if (typesRead) addPendingVehicles();
+        } else if (section.equals("vehicleTypes")) readVehicleType(record);
+        else if (section.equals("services")) readService(record);
+        else if (section.equals("shipments")) readShipment(record);
+        else if (section.equals("initialRoutes")) readInitialRoute(record);
+        else if (section.equals("solutions")) readSolution(record);
     }
 
     private void addJobsAndTheirLocationsToVrp() {
@@ -188,9 +405,62 @@ public class VrpXMLReader {
         }
     }
 
-    private void readInitialRoutes(XMLConfiguration xmlConfig) {
-        List<HierarchicalConfiguration> initialRouteConfigs = xmlConfig.configurationsAt("initialRoutes.route");
-        for (HierarchicalConfiguration routeConfig : initialRouteConfigs) {
+    private void readInitialRoute(Element routeConfig) {
+        Driver driver = DriverImpl.noDriver();
+        String vehicleId = routeConfig.getString("vehicleId");
+        Vehicle vehicle = getVehicle(vehicleId);
+        if (vehicle == null) throw new IllegalArgumentException("vehicle is missing.");
+        String start = routeConfig.getString("start");
+        if (start == null) throw new IllegalArgumentException("route start-time is missing.");
+        double departureTime = Double.parseDouble(start);
+
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
+        routeBuilder.setDepartureTime(departureTime);
+
+        for (Element actConfig : routeConfig.getAll("act")) {
+            String type = actConfig.getAttribute("type");
+            if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
+            String serviceId = actConfig.getString("serviceId");
+            if(type.equals("break")) {
+                Break currentbreak = getBreak(vehicleId);
+                routeBuilder.addBreak(currentbreak);
+            }
+            else {
+                if (serviceId != null) {
+                    Service service = getService(serviceId);
+                    if (service == null)
+                        throw new IllegalArgumentException("service to serviceId " + serviceId + " is missing (reference in one of your initial routes). make sure you define the service you refer to here in <services> </services>.");
+                    //!!!since job is part of initial route, it does not belong to jobs in problem, i.e. variable jobs that can be assigned/scheduled
+                    freezedJobIds.add(serviceId);
+                    routeBuilder.addService(service);
+                } else {
+                    String shipmentId = actConfig.getString("shipmentId");
+                    if (shipmentId == null)
+                        throw new IllegalArgumentException("either serviceId or shipmentId is missing");
+                    Shipment shipment = getShipment(shipmentId);
+                    if (shipment == null)
+                        throw new IllegalArgumentException("shipment to shipmentId " + shipmentId + " is missing (reference in one of your initial routes). make sure you define the shipment you refer to here in <shipments> </shipments>.");
+                    freezedJobIds.add(shipmentId);
+                    if (type.equals("pickupShipment")) {
+                        routeBuilder.addPickup(shipment);
+                    } else if (type.equals("deliverShipment")) {
+                        routeBuilder.addDelivery(shipment);
+                    } else
+                        throw new IllegalArgumentException("type " + type + " is not supported. Use 'pickupShipment' or 'deliverShipment' here");
+                }
+            }
+        }
+        VehicleRoute route = routeBuilder.build();
+        vrpBuilder.addInitialVehicleRoute(route);
+    }
+
+    private void readSolution(Element solutionConfig) {
+        String totalCost = solutionConfig.getString("cost");
+        double cost = -1;
+        if (totalCost != null) cost = Double.parseDouble(totalCost);
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (Element routeConfig : solutionConfig.getAll("routes.route")) {
+            //! here, driverId is set to noDriver, no matter whats in driverId.
             Driver driver = DriverImpl.noDriver();
             String vehicleId = routeConfig.getString("vehicleId");
             Vehicle vehicle = getVehicle(vehicleId);
@@ -199,32 +469,22 @@ public class VrpXMLReader {
             if (start == null) throw new IllegalArgumentException("route start-time is missing.");
             double departureTime = Double.parseDouble(start);
 
+            String end = routeConfig.getString("end");
+            if (end == null) throw new IllegalArgumentException("route end-time is missing.");
+
             VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
             routeBuilder.setDepartureTime(departureTime);
-
-            List<HierarchicalConfiguration> actConfigs = routeConfig.configurationsAt("act");
-            for (HierarchicalConfiguration actConfig : actConfigs) {
-                String type = actConfig.getString("[@type]");
+            for (Element actConfig : routeConfig.getAll("act")) {
+                String type = actConfig.getAttribute("type");
                 if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
-                double arrTime = 0.;
-                double endTime = 0.;
-                String arrTimeS = actConfig.getString("arrTime");
-                if (arrTimeS != null) arrTime = Double.parseDouble(arrTimeS);
-                String endTimeS = actConfig.getString("endTime");
-                if (endTimeS != null) endTime = Double.parseDouble(endTimeS);
-
-                String serviceId = actConfig.getString("serviceId");
                 if(type.equals("break")) {
                     Break currentbreak = getBreak(vehicleId);
                     routeBuilder.addBreak(currentbreak);
                 }
                 else {
+                    String serviceId = actConfig.getString("serviceId");
                     if (serviceId != null) {
                         Service service = getService(serviceId);
-                        if (service == null)
-                            throw new IllegalArgumentException("service to serviceId " + serviceId + " is missing (reference in one of your initial routes). make sure you define the service you refer to here in <services> </services>.");
-                        //!!!since job is part of initial route, it does not belong to jobs in problem, i.e. variable jobs that can be assigned/scheduled
-                        freezedJobIds.add(serviceId);
                         routeBuilder.addService(service);
                     } else {
                         String shipmentId = actConfig.getString("shipmentId");
@@ -232,8 +492,7 @@ public class VrpXMLReader {
                             throw new IllegalArgumentException("either serviceId or shipmentId is missing");
                         Shipment shipment = getShipment(shipmentId);
                         if (shipment == null)
-                            throw new IllegalArgumentException("shipment to shipmentId " + shipmentId + " is missing (reference in one of your initial routes). make sure you define the shipment you refer to here in <shipments> </shipments>.");
-                        freezedJobIds.add(shipmentId);
+                            throw new IllegalArgumentException("shipment with id " + shipmentId + " does not exist.");
                         if (type.equals("pickupShipment")) {
                             routeBuilder.addPickup(shipment);
                         } else if (type.equals("deliverShipment")) {
@@ -243,85 +502,18 @@ public class VrpXMLReader {
                     }
                 }
             }
-            VehicleRoute route = routeBuilder.build();
-            vrpBuilder.addInitialVehicleRoute(route);
+            routes.add(routeBuilder.build());
         }
-
-    }
-
-    private void readSolutions(XMLConfiguration vrpProblem) {
-        if (solutions == null) return;
-        List<HierarchicalConfiguration> solutionConfigs = vrpProblem.configurationsAt("solutions.solution");
-        for (HierarchicalConfiguration solutionConfig : solutionConfigs) {
-            String totalCost = solutionConfig.getString("cost");
-            double cost = -1;
-            if (totalCost != null) cost = Double.parseDouble(totalCost);
-            List<HierarchicalConfiguration> routeConfigs = solutionConfig.configurationsAt("routes.route");
-            List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
-            for (HierarchicalConfiguration routeConfig : routeConfigs) {
-                //! here, driverId is set to noDriver, no matter whats in driverId.
-                Driver driver = DriverImpl.noDriver();
-                String vehicleId = routeConfig.getString("vehicleId");
-                Vehicle vehicle = getVehicle(vehicleId);
-                if (vehicle == null) throw new IllegalArgumentException("vehicle is missing.");
-                String start = routeConfig.getString("start");
-                if (start == null) throw new IllegalArgumentException("route start-time is missing.");
-                double departureTime = Double.parseDouble(start);
-
-                String end = routeConfig.getString("end");
-                if (end == null) throw new IllegalArgumentException("route end-time is missing.");
-
-                VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
-                routeBuilder.setDepartureTime(departureTime);
-                List<HierarchicalConfiguration> actConfigs = routeConfig.configurationsAt("act");
-                for (HierarchicalConfiguration actConfig : actConfigs) {
-                    String type = actConfig.getString("[@type]");
-                    if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
-                    double arrTime = 0.;
-                    double endTime = 0.;
-                    String arrTimeS = actConfig.getString("arrTime");
-                    if (arrTimeS != null) arrTime = Double.parseDouble(arrTimeS);
-                    String endTimeS = actConfig.getString("endTime");
-                    if (endTimeS != null) endTime = Double.parseDouble(endTimeS);
-                    if(type.equals("break")) {
-                        Break currentbreak = getBreak(vehicleId);
-                        routeBuilder.addBreak(currentbreak);
-                    }
-                    else {
-                        String serviceId = actConfig.getString("serviceId");
-                        if (serviceId != null) {
-                            Service service = getService(serviceId);
-                            routeBuilder.addService(service);
-                        } else {
-                            String shipmentId = actConfig.getString("shipmentId");
-                            if (shipmentId == null)
-                                throw new IllegalArgumentException("either serviceId or shipmentId is missing");
-                            Shipment shipment = getShipment(shipmentId);
-                            if (shipment == null)
-                                throw new IllegalArgumentException("shipment with id " + shipmentId + " does not exist.");
-                            if (type.equals("pickupShipment")) {
-                                routeBuilder.addPickup(shipment);
-                            } else if (type.equals("deliverShipment")) {
-                                routeBuilder.addDelivery(shipment);
-                            } else
-                                throw new IllegalArgumentException("type " + type + " is not supported. Use 'pickupShipment' or 'deliverShipment' here");
-                        }
-                    }
-                }
-                routes.add(routeBuilder.build());
-            }
-            VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, cost);
-            List<HierarchicalConfiguration> unassignedJobConfigs = solutionConfig.configurationsAt("unassignedJobs.job");
-            for (HierarchicalConfiguration unassignedJobConfig : unassignedJobConfigs) {
-                String jobId = unassignedJobConfig.getString("[@id]");
-                Job job = getShipment(jobId);
-                if (job == null) job = getService(jobId);
-                if (job == null) throw new IllegalArgumentException("cannot find unassignedJob with id " + jobId);
-                solution.getUnassignedJobs().add(job);
-            }
-
-            solutions.add(solution);
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, cost);
+        for (Element unassignedJobConfig : solutionConfig.getAll("unassignedJobs.job")) {
+            String jobId = unassignedJobConfig.getAttribute("id");
+            Job job = getShipment(jobId);
+            if (job == null) job = getService(jobId);
+            if (job == null) throw new IllegalArgumentException("cannot find unassignedJob with id " + jobId);
+            solution.getUnassignedJobs().add(job);
         }
+
+        solutions.add(solution);
     }
 
     private Shipment getShipment(String shipmentId) {
@@ -340,383 +532,307 @@ public class VrpXMLReader {
         return vehicleMap.get(vehicleId).getBreak();
     }
 
-    private void readProblemType(XMLConfiguration vrpProblem) {
-        String fleetSize = vrpProblem.getString("problemType.fleetSize");
+    private void readProblemType(Element problemType) {
+        String fleetSize = problemType.getString("fleetSize");
         if (fleetSize == null) vrpBuilder.setFleetSize(FleetSize.INFINITE);
         else if (fleetSize.toUpperCase().equals(FleetSize.INFINITE.toString()))
             vrpBuilder.setFleetSize(FleetSize.INFINITE);
         else vrpBuilder.setFleetSize(FleetSize.FINITE);
     }
 
-    private void readShipments(XMLConfiguration config) {
-        List<HierarchicalConfiguration> shipmentConfigs = config.configurationsAt("shipments.shipment");
-        for (HierarchicalConfiguration shipmentConfig : shipmentConfigs) {
-            String id = shipmentConfig.getString("[@id]");
-            if (id == null) throw new IllegalArgumentException("shipment[@id] is missing.");
-
-            String capacityString = shipmentConfig.getString("capacity-demand");
-            boolean capacityDimensionsExist = shipmentConfig.containsKey("capacity-dimensions.dimension(0)");
-            if (capacityString == null && !capacityDimensionsExist) {
-                throw new IllegalArgumentException("capacity of shipment is not set. use 'capacity-dimensions'");
-            }
-            if (capacityString != null && capacityDimensionsExist) {
-                throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
-            }
+    private void readShipment(Element shipmentConfig) {
+        String id = shipmentConfig.getAttribute("id");
+        if (id == null) throw new IllegalArgumentException("shipment[@id] is missing.");
 
-            Shipment.Builder builder;
-            if (capacityString != null) {
-                builder = Shipment.Builder.newInstance(id).addSizeDimension(0, Integer.parseInt(capacityString));
-            } else {
-                builder = Shipment.Builder.newInstance(id);
-                List<HierarchicalConfiguration> dimensionConfigs = shipmentConfig.configurationsAt("capacity-dimensions.dimension");
-                for (HierarchicalConfiguration dimension : dimensionConfigs) {
-                    Integer index = dimension.getInt("[@index]");
-                    Integer value = dimension.getInt("");
-                    builder.addSizeDimension(index, value);
-                }
-            }
-
-            //name
-            String name = shipmentConfig.getString("name");
-            if (name != null) builder.setName(name);
-
-            //pickup location
-            //pickup-locationId
-            Location.Builder pickupLocationBuilder = Location.Builder.newInstance();
-            String pickupLocationId = shipmentConfig.getString("pickup.locationId");
-            if (pickupLocationId == null) pickupLocationId = shipmentConfig.getString("pickup.location.id");
-            if (pickupLocationId != null) {
-                pickupLocationBuilder.setId(pickupLocationId);
-            }
-
-            //pickup-coord
-            Coordinate pickupCoord = getCoord(shipmentConfig, "pickup.");
-            if (pickupCoord == null) pickupCoord = getCoord(shipmentConfig, "pickup.location.");
-            if (pickupCoord != null) {
-                pickupLocationBuilder.setCoordinate(pickupCoord);
-            }
-
-            //pickup.location.index
-            String pickupLocationIndex = shipmentConfig.getString("pickup.location.index");
-            if (pickupLocationIndex != null) pickupLocationBuilder.setIndex(Integer.parseInt(pickupLocationIndex));
-            builder.setPickupLocation(pickupLocationBuilder.build());
-
-            //pickup-serviceTime
-            String pickupServiceTime = shipmentConfig.getString("pickup.duration");
-            if (pickupServiceTime != null) builder.setPickupServiceTime(Double.parseDouble(pickupServiceTime));
+        String capacityString = shipmentConfig.getString("capacity-demand");
+        boolean capacityDimensionsExist = shipmentConfig.contains("capacity-dimensions.dimension");
+        if (capacityString == null && !capacityDimensionsExist) {
+            throw new IllegalArgumentException("capacity of shipment is not set. use 'capacity-dimensions'");
+        }
+        if (capacityString != null && capacityDimensionsExist) {
+            throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
+        }
 
-            //pickup-tw
-            List<HierarchicalConfiguration> pickupTWConfigs = shipmentConfig.configurationsAt("pickup.timeWindows.timeWindow");
-            if (!pickupTWConfigs.isEmpty()) {
-                for (HierarchicalConfiguration pu_twConfig : pickupTWConfigs) {
-                    builder.addPickupTimeWindow(TimeWindow.newInstance(pu_twConfig.getDouble("start"), pu_twConfig.getDouble("end")));
-                }
+        Shipment.Builder builder;
+        if (capacityString != null) {
+            builder = Shipment.Builder.newInstance(id).addSizeDimension(0, Integer.parseInt(capacityString));
+        } else {
+            builder = Shipment.Builder.newInstance(id);
+            for (Element dimension : shipmentConfig.getAll("capacity-dimensions.dimension")) {
+                builder.addSizeDimension(Integer.parseInt(dimension.getAttribute("index")), Integer.parseInt(dimension.getText()));
             }
+        }
 
-            //delivery location
-            //delivery-locationId
-            Location.Builder deliveryLocationBuilder = Location.Builder.newInstance();
-            String deliveryLocationId = shipmentConfig.getString("delivery.locationId");
-            if (deliveryLocationId == null) deliveryLocationId = shipmentConfig.getString("delivery.location.id");
-            if (deliveryLocationId != null) {
-                deliveryLocationBuilder.setId(deliveryLocationId);
-//				builder.setDeliveryLocationId(deliveryLocationId);
-            }
+        //name
+        String name = shipmentConfig.getString("name");
+        if (name != null) builder.setName(name);
 
-            //delivery-coord
-            Coordinate deliveryCoord = getCoord(shipmentConfig, "delivery.");
-            if (deliveryCoord == null) deliveryCoord = getCoord(shipmentConfig, "delivery.location.");
-            if (deliveryCoord != null) {
-                deliveryLocationBuilder.setCoordinate(deliveryCoord);
-            }
+        //pickup location
+        builder.setPickupLocation(readLocation(shipmentConfig.get("pickup")));
 
-            String deliveryLocationIndex = shipmentConfig.getString("delivery.location.index");
-            if (deliveryLocationIndex != null)
-                deliveryLocationBuilder.setIndex(Integer.parseInt(deliveryLocationIndex));
-            builder.setDeliveryLocation(deliveryLocationBuilder.build());
+        //pickup-serviceTime
+        String pickupServiceTime = shipmentConfig.getString("pickup.duration");
+        if (pickupServiceTime != null) builder.setPickupServiceTime(Double.parseDouble(pickupServiceTime));
 
-            //delivery-serviceTime
-            String deliveryServiceTime = shipmentConfig.getString("delivery.duration");
-            if (deliveryServiceTime != null) builder.setDeliveryServiceTime(Double.parseDouble(deliveryServiceTime));
+        //pickup-tw
+        for (Element pu_twConfig : shipmentConfig.getAll("pickup.timeWindows.timeWindow")) {
+            builder.addPickupTimeWindow(readTimeWindow(pu_twConfig));
+        }
 
-            //delivery-tw
-            List<HierarchicalConfiguration> deliveryTWConfigs = shipmentConfig.configurationsAt("delivery.timeWindows.timeWindow");
-            if (!deliveryTWConfigs.isEmpty()) {
-                for (HierarchicalConfiguration dl_twConfig : deliveryTWConfigs) {
-                    builder.addDeliveryTimeWindow(TimeWindow.newInstance(dl_twConfig.getDouble("start"), dl_twConfig.getDouble("end")));
-                }
-            }
+        //delivery location
+        builder.setDeliveryLocation(readLocation(shipmentConfig.get("delivery")));
 
-            //read skills
-            String skillString = shipmentConfig.getString("requiredSkills");
-            if (skillString != null) {
-                String cleaned = skillString.replaceAll("\\s", "");
-                String[] skillTokens = cleaned.split("[,;]");
-                for (String skill : skillTokens) builder.addRequiredSkill(skill.toLowerCase());
-            }
+        //delivery-serviceTime
+        String deliveryServiceTime = shipmentConfig.getString("delivery.duration");
+        if (deliveryServiceTime != null) builder.setDeliveryServiceTime(Double.parseDouble(deliveryServiceTime));
 
-            //build shipment
-            Shipment shipment = builder.build();
-//			vrpBuilder.addJob(shipment);
-            shipmentMap.put(shipment.getId(), shipment);
+        //delivery-tw
+        for (Element dl_twConfig : shipmentConfig.getAll("delivery.timeWindows.timeWindow")) {
+            builder.addDeliveryTimeWindow(readTimeWindow(dl_twConfig));
         }
-    }
 
-    private static Coordinate getCoord(HierarchicalConfiguration serviceConfig, String prefix) {
-        Coordinate pickupCoord = null;
-        if (serviceConfig.getString(prefix + "coord[@x]") != null && serviceConfig.getString(prefix + "coord[@y]") != null) {
-            double x = Double.parseDouble(serviceConfig.getString(prefix + "coord[@x]"));
-            double y = Double.parseDouble(serviceConfig.getString(prefix + "coord[@y]"));
-            pickupCoord = Coordinate.newInstance(x, y);
+        //read skills
+        String skillString = shipmentConfig.getString("requiredSkills");
+        if (skillString != null) {
+            for (String skill : getSkills(skillString)) builder.addRequiredSkill(skill);
         }
-        return pickupCoord;
+
+        //build shipment
+        Shipment shipment = builder.build();
+        shipmentMap.put(shipment.getId(), shipment);
     }
 
-    private void readServices(XMLConfiguration vrpProblem) {
-        List<HierarchicalConfiguration> serviceConfigs = vrpProblem.configurationsAt("services.service");
-        for (HierarchicalConfiguration serviceConfig : serviceConfigs) {
-            String id = serviceConfig.getString("[@id]");
-            if (id == null) throw new IllegalArgumentException("service[@id] is missing.");
-            String type = serviceConfig.getString("[@type]");
-            if (type == null) type = "service";
-
-            String capacityString = serviceConfig.getString("capacity-demand");
-            boolean capacityDimensionsExist = serviceConfig.containsKey("capacity-dimensions.dimension(0)");
-            if (capacityString == null && !capacityDimensionsExist) {
-                throw new IllegalArgumentException("capacity of service is not set. use 'capacity-dimensions'");
-            }
-            if (capacityString != null && capacityDimensionsExist) {
-                throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
-            }
+    /*
+     * reads locationId or location.id, coord or location.coord and location.index of a service, pickup or delivery
+     */
+    private static Location readLocation(Element config) {
+        Location.Builder locationBuilder = Location.Builder.newInstance();
+        if (config == null) return locationBuilder.build();
+        String locationId = config.getString("locationId");
+        if (locationId == null) locationId = config.getString("location.id");
+        if (locationId != null) locationBuilder.setId(locationId);
+
+        Coordinate coord = getCoord(config, "coord");
+        if (coord == null) coord = getCoord(config, "location.coord");
+        if (coord != null) locationBuilder.setCoordinate(coord);
+
+        String locationIndex = config.getString("location.index");
+        if (locationIndex != null) locationBuilder.setIndex(Integer.parseInt(locationIndex));
+        return locationBuilder.build();
+    }
 
-            Service.Builder builder;
-            if (capacityString != null) {
-                builder = serviceBuilderFactory.createBuilder(type, id, Integer.parseInt(capacityString));
-            } else {
-                builder = serviceBuilderFactory.createBuilder(type, id, null);
-                List<HierarchicalConfiguration> dimensionConfigs = serviceConfig.configurationsAt("capacity-dimensions.dimension");
-                for (HierarchicalConfiguration dimension : dimensionConfigs) {
-                    Integer index = dimension.getInt("[@index]");
-                    Integer value = dimension.getInt("");
-                    builder.addSizeDimension(index, value);
-                }
-            }
+    private static Coordinate getCoord(Element config, String path) {
+        String x = config.getAttribute(path, "x");
+        String y = config.getAttribute(path, "y");
+        if (x == null || y == null) return null;
+        return Coordinate.newInstance(Double.parseDouble(x), Double.parseDouble(y));
+    }
 
-            //name
-            String name = serviceConfig.getString("name");
-            if (name != null) builder.setName(name);
+    private static TimeWindow readTimeWindow(Element twConfig) {
+        return TimeWindow.newInstance(Double.parseDouble(twConfig.getString("start")), Double.parseDouble(twConfig.getString("end")));
+    }
 
-            //location
-            Location.Builder locationBuilder = Location.Builder.newInstance();
-            String serviceLocationId = serviceConfig.getString("locationId");
-            if (serviceLocationId == null) {
-                serviceLocationId = serviceConfig.getString("location.id");
-            }
-            if (serviceLocationId != null) locationBuilder.setId(serviceLocationId);
+    private static String[] getSkills(String skillString) {
+        String cleaned = skillString.replaceAll("\\s", "").toLowerCase();
+        return cleaned.split("[,;]");
+    }
 
-            Coordinate serviceCoord = getCoord(serviceConfig, "");
-            if (serviceCoord == null) serviceCoord = getCoord(serviceConfig, "location.");
-            if (serviceCoord != null) {
-                locationBuilder.setCoordinate(serviceCoord);
-            }
+    private void readService(Element serviceConfig) {
+        String id = serviceConfig.getAttribute("id");
+        if (id == null) throw new IllegalArgumentException("service[@id] is missing.");
+        String type = serviceConfig.getAttribute("type");
+        if (type == null) type = "service";
 
-            String locationIndex = serviceConfig.getString("location.index");
-            if (locationIndex != null) locationBuilder.setIndex(Integer.parseInt(locationIndex));
-            builder.setLocation(locationBuilder.build());
+        String capacityString = serviceConfig.getString("capacity-demand");
+        boolean capacityDimensionsExist = serviceConfig.contains("capacity-dimensions.dimension");
+        if (capacityString == null && !capacityDimensionsExist) {
+            throw new IllegalArgumentException("capacity of service is not set. use 'capacity-dimensions'");
+        }
+        if (capacityString != null && capacityDimensionsExist) {
+            throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
+        }
 
-            if (serviceConfig.containsKey("duration")) {
-                builder.setServiceTime(serviceConfig.getDouble("duration"));
-            }
-            List<HierarchicalConfiguration> deliveryTWConfigs = serviceConfig.configurationsAt("timeWindows.timeWindow");
-            if (!deliveryTWConfigs.isEmpty()) {
-                for (HierarchicalConfiguration twConfig : deliveryTWConfigs) {
-                    builder.addTimeWindow(TimeWindow.newInstance(twConfig.getDouble("start"), twConfig.getDouble("end")));
-                }
+        Service.Builder builder;
+        if (capacityString != null) {
+            builder = serviceBuilderFactory.createBuilder(type, id, Integer.parseInt(capacityString));
+        } else {
+            builder = serviceBuilderFactory.createBuilder(type, id, null);
+            for (Element dimension : serviceConfig.getAll("capacity-dimensions.dimension")) {
+                builder.addSizeDimension(Integer.parseInt(dimension.getAttribute("index")), Integer.parseInt(dimension.getText()));
             }
+        }
 
-            //read skills
-            String skillString = serviceConfig.getString("requiredSkills");
-            if (skillString != null) {
-                String cleaned = skillString.replaceAll("\\s", "");
-                String[] skillTokens = cleaned.split("[,;]");
-                for (String skill : skillTokens) builder.addRequiredSkill(skill.toLowerCase());
-            }
+        //name
+        String name = serviceConfig.getString("name");
+        if (name != null) builder.setName(name);
 
-            //build service
-            Service service = builder.build();
-            serviceMap.put(service.getId(), service);
-//			vrpBuilder.addJob(service);
+        //location
+        builder.setLocation(readLocation(serviceConfig));
 
+        String duration = serviceConfig.getString("duration");
+        if (duration != null) {
+            builder.setServiceTime(Double.parseDouble(duration));
+        }
+        for (Element twConfig : serviceConfig.getAll("timeWindows.timeWindow")) {
+            builder.addTimeWindow(readTimeWindow(twConfig));
         }
-    }
 
-    private void readVehiclesAndTheirTypes(XMLConfiguration vrpProblem) {
+        //read skills
+        String skillString = serviceConfig.getString("requiredSkills");
+        if (skillString != null) {
+            for (String skill : getSkills(skillString)) builder.addRequiredSkill(skill);
+        }
 
-        //read vehicle-types
-        Map<String, VehicleType> types = new HashMap<String, VehicleType>();
-        List<HierarchicalConfiguration> typeConfigs = vrpProblem.configurationsAt("vehicleTypes.type");
-        for (HierarchicalConfiguration typeConfig : typeConfigs) {
-            String typeId = typeConfig.getString("id");
-            if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
+        //build service
+        Service service = builder.build();
+        serviceMap.put(service.getId(), service);
+    }
 
-            String capacityString = typeConfig.getString("capacity");
-            boolean capacityDimensionsExist = typeConfig.containsKey("capacity-dimensions.dimension(0)");
-            if (capacityString == null && !capacityDimensionsExist) {
-                throw new IllegalArgumentException("capacity of type is not set. use 'capacity-dimensions'");
-            }
-            if (capacityString != null && capacityDimensionsExist) {
-                throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
-            }
+    private void readVehicleType(Element typeConfig) {
+        String typeId = typeConfig.getString("id");
+        if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
 
-            VehicleTypeImpl.Builder typeBuilder;
-            if (capacityString != null) {
-                typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId).addCapacityDimension(0, Integer.parseInt(capacityString));
-            } else {
-                typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId);
-                List<HierarchicalConfiguration> dimensionConfigs = typeConfig.configurationsAt("capacity-dimensions.dimension");
-                for (HierarchicalConfiguration dimension : dimensionConfigs) {
-                    Integer index = dimension.getInt("[@index]");
-                    Integer value = dimension.getInt("");
-                    typeBuilder.addCapacityDimension(index, value);
-                }
-            }
-
-            Double fix = typeConfig.getDouble("costs.fixed");
-            Double timeC = typeConfig.getDouble("costs.time");
-            Double distC = typeConfig.getDouble("costs.distance");
-            if(typeConfig.containsKey("costs.service")){
-                Double serviceC = typeConfig.getDouble("costs.service");
-                if (serviceC != null) typeBuilder.setCostPerServiceTime(serviceC);
-            }
+        String capacityString = typeConfig.getString("capacity");
+        boolean capacityDimensionsExist = typeConfig.contains("capacity-dimensions.dimension");
+        if (capacityString == null && !capacityDimensionsExist) {
+            throw new IllegalArgumentException("capacity of type is not set. use 'capacity-dimensions'");
+        }
+        if (capacityString != null && capacityDimensionsExist) {
+            throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
+        }
 
-            if(typeConfig.containsKey("costs.wait")){
-                Double waitC = typeConfig.getDouble("costs.wait");
-                if (waitC != null) typeBuilder.setCostPerWaitingTime(waitC);
+        VehicleTypeImpl.Builder typeBuilder;
+        if (capacityString != null) {
+            typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId).addCapacityDimension(0, Integer.parseInt(capacityString));
+        } else {
+            typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId);
+            for (Element dimension : typeConfig.getAll("capacity-dimensions.dimension")) {
+                typeBuilder.addCapacityDimension(Integer.parseInt(dimension.getAttribute("index")), Integer.parseInt(dimension.getText()));
             }
+        }
 
-            if (fix != null) typeBuilder.setFixedCost(fix);
-            if (timeC != null) typeBuilder.setCostPerTransportTime(timeC);
-            if (distC != null) typeBuilder.setCostPerDistance(distC);
-            VehicleType type = typeBuilder.build();
-            String id = type.getTypeId();
-            types.put(id, type);
-        }
-
-        //read vehicles
-        List<HierarchicalConfiguration> vehicleConfigs = vrpProblem.configurationsAt("vehicles.vehicle");
-        boolean doNotWarnAgain = false;
-        for (HierarchicalConfiguration vehicleConfig : vehicleConfigs) {
-            String vehicleId = vehicleConfig.getString("id");
-            if (vehicleId == null) throw new IllegalArgumentException("vehicleId is missing.");
-            Builder builder = VehicleImpl.Builder.newInstance(vehicleId);
-            String typeId = vehicleConfig.getString("typeId");
-            if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
-            String vType = vehicleConfig.getString("[@type]");
-            if (vType != null) {
-                if (vType.equals("penalty")) {
-                    typeId += "_penalty";
-                }
-            }
-            VehicleType type = types.get(typeId);
-            if (type == null) throw new IllegalArgumentException("vehicleType with typeId " + typeId + " is missing.");
-            builder.setType(type);
-
-            //read startlocation
-            Location.Builder startLocationBuilder = Location.Builder.newInstance();
-            String locationId = vehicleConfig.getString("location.id");
-            if (locationId == null) {
-                locationId = vehicleConfig.getString("startLocation.id");
-            }
-            startLocationBuilder.setId(locationId);
-            String coordX = vehicleConfig.getString("location.coord[@x]");
-            String coordY = vehicleConfig.getString("location.coord[@y]");
-            if (coordX == null || coordY == null) {
-                coordX = vehicleConfig.getString("startLocation.coord[@x]");
-                coordY = vehicleConfig.getString("startLocation.coord[@y]");
-            }
-            if (coordX == null || coordY == null) {
-                if (!doNotWarnAgain) {
-                    logger.debug("location.coord is missing. will not warn you again.");
-                    doNotWarnAgain = true;
-                }
-            } else {
-                Coordinate coordinate = Coordinate.newInstance(Double.parseDouble(coordX), Double.parseDouble(coordY));
-                startLocationBuilder.setCoordinate(coordinate);
-            }
-            String index = vehicleConfig.getString("startLocation.index");
-            if (index == null) index = vehicleConfig.getString("location.index");
-            if (index != null) {
-                startLocationBuilder.setIndex(Integer.parseInt(index));
-            }
-            builder.setStartLocation(startLocationBuilder.build());
-
-            //read endlocation
-            Location.Builder endLocationBuilder = Location.Builder.newInstance();
-            boolean hasEndLocation = false;
-            String endLocationId = vehicleConfig.getString("endLocation.id");
-            if (endLocationId != null) {
-                hasEndLocation = true;
-                endLocationBuilder.setId(endLocationId);
-            }
-            String endCoordX = vehicleConfig.getString("endLocation.coord[@x]");
-            String endCoordY = vehicleConfig.getString("endLocation.coord[@y]");
-            if (endCoordX == null || endCoordY == null) {
-                if (!doNotWarnAgain) {
-                    logger.debug("endLocation.coord is missing. will not warn you again.");
-                    doNotWarnAgain = true;
-                }
-            } else {
-                Coordinate coordinate = Coordinate.newInstance(Double.parseDouble(endCoordX), Double.parseDouble(endCoordY));
-                hasEndLocation = true;
-                endLocationBuilder.setCoordinate(coordinate);
-            }
-            String endLocationIndex = vehicleConfig.getString("endLocation.index");
-            if (endLocationIndex != null) {
-                hasEndLocation = true;
-                endLocationBuilder.setIndex(Integer.parseInt(endLocationIndex));
-            }
-            if (hasEndLocation) builder.setEndLocation(endLocationBuilder.build());
-
-            //read timeSchedule
-            String start = vehicleConfig.getString("timeSchedule.start");
-            String end = vehicleConfig.getString("timeSchedule.end");
-            if (start != null) builder.setEarliestStart(Double.parseDouble(start));
-            if (end != null) builder.setLatestArrival(Double.parseDouble(end));
-
-            //read return2depot
-            String returnToDepot = vehicleConfig.getString("returnToDepot");
-            if (returnToDepot != null) {
-                builder.setReturnToDepot(vehicleConfig.getBoolean("returnToDepot"));
-            }
+        String fix = typeConfig.getString("costs.fixed");
+        String timeC = typeConfig.getString("costs.time");
+        String distC = typeConfig.getString("costs.distance");
+        String serviceC = typeConfig.getString("costs.service");
+        String waitC = typeConfig.getString("costs.wait");
+        if (serviceC != null) typeBuilder.setCostPerServiceTime(Double.parseDouble(serviceC));
+        if (waitC != null) typeBuilder.setCostPerWaitingTime(Double.parseDouble(waitC));
+        if (fix != null) typeBuilder.setFixedCost(Double.parseDouble(fix));
+        if (timeC != null) typeBuilder.setCostPerTransportTime(Double.parseDouble(timeC));
+        if (distC != null) typeBuilder.setCostPerDistance(Double.parseDouble(distC));
+        VehicleType type = typeBuilder.build();
+        types.put(type.getTypeId(), type);
+    }
 
-            //read skills
-            String skillString = vehicleConfig.getString("skills");
-            if (skillString != null) {
-                String cleaned = skillString.replaceAll("\\s", "");
-                String[] skillTokens = cleaned.split("[,;]");
-                for (String skill : skillTokens) builder.addSkill(skill.toLowerCase());
-            }
+    /*
+     * vehicles refer to vehicle types that are defined after them, thus they are kept until the types are read
+     */
+    private void addPendingVehicles() {
+        for (Element vehicleConfig : pendingVehicles) readVehicle(vehicleConfig);
+        pendingVehicles.clear();
+    }
 
-            // read break
-            List<HierarchicalConfiguration> breakTWConfigs = vehicleConfig.configurationsAt("breaks.timeWindows.timeWindow");
-            if (!breakTWConfigs.isEmpty()) {
-                String breakDurationString = vehicleConfig.getString("breaks.duration");
-                String id = vehicleConfig.getString("breaks.id");
-                Break.Builder current_break = Break.Builder.newInstance(id);
-                current_break.setServiceTime(Double.parseDouble(breakDurationString));
-                for (HierarchicalConfiguration twConfig : breakTWConfigs) {
-                	current_break.addTimeWindow(TimeWindow.newInstance(twConfig.getDouble("start"), twConfig.getDouble("end")));
-                }
-                builder.setBreak(current_break.build());
+    private void readVehicle(Element vehicleConfig) {
+        String vehicleId = vehicleConfig.getString("id");
+        if (vehicleId == null) throw new IllegalArgumentException("vehicleId is missing.");
+        Builder builder = VehicleImpl.Builder.newInstance(vehicleId);
+        String typeId = vehicleConfig.getString("typeId");
+        if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
+        String vType = vehicleConfig.getAttribute("type");
+        if (vType != null) {
+            if (vType.equals("penalty")) {
+                typeId += "_penalty";
             }
+        }
+        VehicleType type = types.get(typeId);
+        if (type == null) throw new IllegalArgumentException("vehicleType with typeId " + typeId + " is missing.");
+        builder.setType(type);
+
+        //read startlocation
+        Location.Builder startLocationBuilder = Location.Builder.newInstance();
+        String locationId = vehicleConfig.getString("location.id");
+        if (locationId == null) {
+            locationId = vehicleConfig.getString("startLocation.id");
+        }
+        startLocationBuilder.setId(locationId);
+        Coordinate startCoord = getCoord(vehicleConfig, "location.coord");
+        if (startCoord == null) startCoord = getCoord(vehicleConfig, "startLocation.coord");
+        if (startCoord == null) {
+            if (!doNotWarnAgain) {
+                logger.debug("location.coord is missing. will not warn you again.");
+                doNotWarnAgain = true;
+            }
+        } else {
+            startLocationBuilder.setCoordinate(startCoord);
+        }
+        String index = vehicleConfig.getString("startLocation.index");
+        if (index == null) index = vehicleConfig.getString("location.index");
+        if (index != null) {
+            startLocationBuilder.setIndex(Integer.parseInt(index));
+        }
+        builder.setStartLocation(startLocationBuilder.build());
+
+        //read endlocation
+        Location.Builder endLocationBuilder = Location.Builder.newInstance();
+        boolean hasEndLocation = false;
+        String endLocationId = vehicleConfig.getString("endLocation.id");
+        if (endLocationId != null) {
+            hasEndLocation = true;
+            endLocationBuilder.setId(endLocationId);
+        }
+        Coordinate endCoord = getCoord(vehicleConfig, "endLocation.coord");
+        if (endCoord == null) {
+            if (!doNotWarnAgain) {
+                logger.debug("endLocation.coord is missing. will not warn you again.");
+                doNotWarnAgain = true;
+            }
+        } else {
+            hasEndLocation = true;
+            endLocationBuilder.setCoordinate(endCoord);
+        }
+        String endLocationIndex = vehicleConfig.getString("endLocation.index");
+        if (endLocationIndex != null) {
+            hasEndLocation = true;
+            endLocationBuilder.setIndex(Integer.parseInt(endLocationIndex));
+        }
+        if (hasEndLocation) builder.setEndLocation(endLocationBuilder.build());
+
+        //read timeSchedule
+        String start = vehicleConfig.getString("timeSchedule.start");
+        String end = vehicleConfig.getString("timeSchedule.end");
+        if (start != null) builder.setEarliestStart(Double.parseDouble(start));
+        if (end != null) builder.setLatestArrival(Double.parseDouble(end));
+
+        //read return2depot
+        String returnToDepot = vehicleConfig.getString("returnToDepot");
+        if (returnToDepot != null) {
+            builder.setReturnToDepot(returnToDepot.equals("true") || returnToDepot.equals("1"));
+        }
 
+        //read skills
+        String skillString = vehicleConfig.getString("skills");
+        if (skillString != null) {
+            for (String skill : getSkills(skillString)) builder.addSkill(skill);
+        }
 
-            //build vehicle
-            VehicleImpl vehicle = builder.build();
-            vrpBuilder.addVehicle(vehicle);
-            vehicleMap.put(vehicleId, vehicle);
+        // read break
+        List<Element> breakTWConfigs = vehicleConfig.getAll("breaks.timeWindows.timeWindow");
+        if (!breakTWConfigs.isEmpty()) {
+            String breakDurationString = vehicleConfig.getString("breaks.duration");
+            String id = vehicleConfig.getString("breaks.id");
+            Break.Builder current_break = Break.Builder.newInstance(id);
+            current_break.setServiceTime(Double.parseDouble(breakDurationString));
+            for (Element twConfig : breakTWConfigs) {
+                current_break.addTimeWindow(readTimeWindow(twConfig));
+            }
+            builder.setBreak(current_break.build());
         }
 
+        //build vehicle
+        VehicleImpl vehicle = builder.build();
+        vrpBuilder.addVehicle(vehicle);
+        vehicleMap.put(vehicleId, vehicle);
     }
 
 
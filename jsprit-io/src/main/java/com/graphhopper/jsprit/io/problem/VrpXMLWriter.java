@@ -32,35 +32,100 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.util.Solutions;
 import com.graphhopper.jsprit.core.util.VehicleIndexComparator;
-import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.configuration.XMLConfiguration;
-import org.apache.xml.serialize.OutputFormat;
-import org.apache.xml.serialize.XMLSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
-
+/**
+ * Writes a vehicle routing problem (and its solutions) as xml.
+ * <p>The xml is streamed to the output, i.e. no document is built in memory. Thus memory does not grow with the
+ * number of jobs, routes and activities written.
+ */
 public class VrpXMLWriter {
 
-    static class XMLConf extends XMLConfiguration {
+    /*
+     * writes elements with an indentation of 5 spaces per level
+     */
+    private static class IndentingXMLWriter {
+
+        private static final int INDENT = 5;
+
+        private final XMLStreamWriter xml;
+
+        private int depth;
+
+        private char[] indentation = new char[64];
+
+        IndentingXMLWriter(XMLStreamWriter xml, int depth) {
+            this.xml = xml;
+            this.depth = depth;
+            indentation[0] = '\n';
+            for (int i = 1; i < indentation.length; i++) indentation[i] = ' ';
+        }
+
+        private void indent() throws XMLStreamException {
+            int length = depth * INDENT + 1;
+            if (length > indentation.length) {
+                char[] newIndentation = new char[length * 2];
+                newIndentation[0] = '\n';
+                for (int i = 1; i < newIndentation.length; i++) newIndentation[i] = ' ';
+                indentation = newIndentation;
+            }
+            xml.writeCharacters(indentation, 0, length);
+        }
+
+        void start(String name) throws XMLStreamException {
+            indent();
+            xml.writeStartElement(name);
+            depth++;
+        }
+
+        void attribute(String name, Object value) throws XMLStreamException {
+            xml.writeAttribute(name, String.valueOf(value));
+        }
 
+        void end() throws XMLStreamException {
+            depth--;
+            indent();
+            xml.writeEndElement();
+        }
 
         /**
-         *
+         * Writes an element with text value. Nothing is written if value is null.
          */
-        private static final long serialVersionUID = 1L;
+        void element(String name, Object value) throws XMLStreamException {
+            if (value == null) return;
+            indent();
+            xml.writeStartElement(name);
+            xml.writeCharacters(String.valueOf(value));
+            xml.writeEndElement();
+        }
 
-        public Document createDoc() throws ConfigurationException {
-            return createDocument();
+        /**
+         * Writes an element with one attribute and text value.
+         */
+        void element(String name, String attributeName, Object attributeValue, Object value) throws XMLStreamException {
+            indent();
+            xml.writeStartElement(name);
+            xml.writeAttribute(attributeName, String.valueOf(attributeValue));
+            xml.writeCharacters(String.valueOf(value));
+            xml.writeEndElement();
         }
+
+        void emptyElement(String name) throws XMLStreamException {
+            indent();
+            xml.writeEmptyElement(name);
+        }
+
     }
 
     private Logger log = LoggerFactory.getLogger(VrpXMLWriter.class);
@@ -89,346 +154,344 @@ public class VrpXMLWriter {
 
     private static Logger logger = LoggerFactory.getLogger(VrpXMLWriter.class);
 
+    /**
+     * Writes the xml to the file with the specified name. If filename ends with .gz, the file is gzipped. Otherwise .xml
+     * is appended if filename does not end with it.
+     *
+     * @param filename name of the file
+     */
     public void write(String filename) {
-        if (!filename.endsWith(".xml")) filename += ".xml";
+        if (!filename.endsWith(".xml") && !filename.endsWith(".gz")) filename += ".xml";
         log.info("write vrp: " + filename);
-        XMLConf xmlConfig = createXMLConfiguration();
-
+        OutputStream out = null;
         try {
-            xmlConfig.setFileName(filename);
-            Writer out = new FileWriter(filename);
-            XMLSerializer serializer = new XMLSerializer(out, createOutputFormat());
-            serializer.serialize(xmlConfig.getDocument());
-            out.close();
+            out = new BufferedOutputStream(new FileOutputStream(filename));
+            if (filename.endsWith(".gz")) out = new GZIPOutputStream(out);
+            write(out);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
         }
     }
 
+    /**
+     * @return a ByteArrayOutputStream that contains the xml
+     */
     public OutputStream write() {
-        XMLConf xmlConfig = createXMLConfiguration();
         OutputStream out = new ByteArrayOutputStream();
-
-        try {
-            XMLSerializer serializer = new XMLSerializer(out, createOutputFormat());
-            serializer.serialize(xmlConfig.getDocument());
-            out.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
+        write(out);
         return out;
     }
 
-    private XMLConf createXMLConfiguration() {
-        XMLConf xmlConfig = new XMLConf();
-        xmlConfig.setRootElementName("problem");
-        xmlConfig.setAttributeSplittingDisabled(true);
-        xmlConfig.setDelimiterParsingDisabled(true);
-
-        writeProblemType(xmlConfig);
-        writeVehiclesAndTheirTypes(xmlConfig);
-
-        //might be sorted?
-        List<Job> jobs = new ArrayList<Job>();
-        jobs.addAll(vrp.getJobs().values());
-        for (VehicleRoute r : vrp.getInitialVehicleRoutes()) {
-            jobs.addAll(r.getTourActivities().getJobs());
-        }
-
-        writeServices(xmlConfig, jobs);
-        writeShipments(xmlConfig, jobs);
-
-        writeInitialRoutes(xmlConfig);
-        if(onlyBestSolution && solutions != null) {
+    /**
+     * Streams the xml to out. The stream is flushed but not closed. Wrap out into a GZIPOutputStream to write
+     * gzipped xml.
+     *
+     * @param out the output stream
+     */
+    public void write(OutputStream out) {
+        if (onlyBestSolution && solutions != null) {
             VehicleRoutingProblemSolution solution = Solutions.bestOf(solutions);
             solutions.clear();
             solutions.add(solution);
         }
-
-        writeSolutions(xmlConfig);
-
-
         try {
-            Document document = xmlConfig.createDoc();
-
-            Element element = document.getDocumentElement();
-            element.setAttribute("xmlns", "http://www.w3schools.com");
-            element.setAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
-            element.setAttribute("xsi:schemaLocation", "http://www.w3schools.com vrp_xml_schema.xsd");
-
-        } catch (ConfigurationException e) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+            XMLStreamWriter xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+            xmlStreamWriter.writeStartDocument("UTF-8", "1.0");
+            xmlStreamWriter.writeCharacters("\n");
+            xmlStreamWriter.writeStartElement(Schema.PROBLEM);
+            xmlStreamWriter.writeDefaultNamespace("http://www.w3schools.com");
+            xmlStreamWriter.writeNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
+            xmlStreamWriter.writeAttribute("xsi:schemaLocation", "http://www.w3schools.com vrp_xml_schema.xsd");
+
+            IndentingXMLWriter xml = new IndentingXMLWriter(xmlStreamWriter, 1);
+            writeProblemType(xml);
+            writeVehiclesAndTheirTypes(xml);
+            writeServices(xml);
+            writeShipments(xml);
+            writeInitialRoutes(xml);
+            writeSolutions(xml);
+
+            xmlStreamWriter.writeCharacters("\n");
+            xmlStreamWriter.writeEndElement();
+            xmlStreamWriter.writeCharacters("\n");
+            xmlStreamWriter.writeEndDocument();
+            xmlStreamWriter.flush();
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return xmlConfig;
     }
 
-    private OutputFormat createOutputFormat() {
-        OutputFormat format = new OutputFormat();
-        format.setIndenting(true);
-        format.setIndent(5);
-        return format;
+    /*
+     * jobs of the problem followed by jobs of initial routes
+     */
+    private List<Collection<Job>> getJobs() {
+        List<Collection<Job>> jobs = new ArrayList<Collection<Job>>();
+        jobs.add(vrp.getJobs().values());
+        for (VehicleRoute r : vrp.getInitialVehicleRoutes()) {
+            jobs.add(r.getTourActivities().getJobs());
+        }
+        return jobs;
     }
 
-    private void writeInitialRoutes(XMLConf xmlConfig) {
+    private void writeInitialRoutes(IndentingXMLWriter xml) throws XMLStreamException {
         if (vrp.getInitialVehicleRoutes().isEmpty()) return;
-        String path = "initialRoutes.route";
-        int routeCounter = 0;
+        xml.start("initialRoutes");
         for (VehicleRoute route : vrp.getInitialVehicleRoutes()) {
-            xmlConfig.setProperty(path + "(" + routeCounter + ").driverId", route.getDriver().getId());
-            xmlConfig.setProperty(path + "(" + routeCounter + ").vehicleId", route.getVehicle().getId());
-            xmlConfig.setProperty(path + "(" + routeCounter + ").start", route.getStart().getEndTime());
-            int actCounter = 0;
+            xml.start("route");
+            xml.element("driverId", route.getDriver().getId());
+            xml.element("vehicleId", route.getVehicle().getId());
+            xml.element("start", route.getStart().getEndTime());
             for (TourActivity act : route.getTourActivities().getActivities()) {
-                xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ")[@type]", act.getName());
+                xml.start("act");
+                xml.attribute("type", act.getName());
                 if (act instanceof TourActivity.JobActivity) {
                     Job job = ((TourActivity.JobActivity) act).getJob();
                     if (job instanceof Service) {
-                        xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").serviceId", job.getId());
+                        xml.element("serviceId", job.getId());
                     } else if (job instanceof Shipment) {
-                        xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").shipmentId", job.getId());
+                        xml.element("shipmentId", job.getId());
                     } else if (job instanceof Break) {
-                    	xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").breakId", job.getId());
+                        xml.element("breakId", job.getId());
                     } else {
                         throw new IllegalStateException("cannot write solution correctly since job-type is not know. make sure you use either service or shipment, or another writer");
                     }
                 }
-                xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").arrTime", act.getArrTime());
-                xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").endTime", act.getEndTime());
-                actCounter++;
+                xml.element("arrTime", act.getArrTime());
+                xml.element("endTime", act.getEndTime());
+                xml.end();
             }
-            xmlConfig.setProperty(path + "(" + routeCounter + ").end", route.getEnd().getArrTime());
-            routeCounter++;
+            xml.element("end", route.getEnd().getArrTime());
+            xml.end();
         }
-
+        xml.end();
     }
 
-    private void writeSolutions(XMLConf xmlConfig) {
-        if (solutions == null) return;
-        String solutionPath = "solutions.solution";
-        int counter = 0;
+    private void writeSolutions(IndentingXMLWriter xml) throws XMLStreamException {
+        if (solutions == null || solutions.isEmpty()) return;
+        xml.start("solutions");
         for (VehicleRoutingProblemSolution solution : solutions) {
-            xmlConfig.setProperty(solutionPath + "(" + counter + ").cost", solution.getCost());
-            int routeCounter = 0;
+            xml.start("solution");
+            xml.element("cost", solution.getCost());
             List<VehicleRoute> list = new ArrayList<VehicleRoute>(solution.getRoutes());
             Collections.sort(list , new VehicleIndexComparator());
+            if (!list.isEmpty()) xml.start("routes");
             for (VehicleRoute route : list) {
-//				xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").cost", route.getCost());
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").driverId", route.getDriver().getId());
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").vehicleId", route.getVehicle().getId());
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").start", route.getStart().getEndTime());
-                int actCounter = 0;
+                xml.start("route");
+                xml.element("driverId", route.getDriver().getId());
+                xml.element("vehicleId", route.getVehicle().getId());
+                xml.element("start", route.getStart().getEndTime());
                 for (TourActivity act : route.getTourActivities().getActivities()) {
-                    xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ")[@type]", act.getName());
+                    xml.start("act");
+                    xml.attribute("type", act.getName());
                     if (act instanceof TourActivity.JobActivity) {
                         Job job = ((TourActivity.JobActivity) act).getJob();
                         if (job instanceof Break) {
-                            xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").breakId", job.getId());
+                            xml.element("breakId", job.getId());
                         } else if (job instanceof Service) {
-                            xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").serviceId", job.getId());
+                            xml.element("serviceId", job.getId());
                         } else if (job instanceof Shipment) {
-                            xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").shipmentId", job.getId());
+                            xml.element("shipmentId", job.getId());
                         } else {
                             throw new IllegalStateException("cannot write solution correctly since job-type is not know. make sure you use either service or shipment, or another writer");
                         }
                     }
-                    xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").arrTime", act.getArrTime());
-                    xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").endTime", act.getEndTime());
-                    actCounter++;
+                    xml.element("arrTime", act.getArrTime());
+                    xml.element("endTime", act.getEndTime());
+                    xml.end();
                 }
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").end", route.getEnd().getArrTime());
-                routeCounter++;
+                xml.element("end", route.getEnd().getArrTime());
+                xml.end();
             }
-            int unassignedJobCounter = 0;
-            for (Job unassignedJob : solution.getUnassignedJobs()) {
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").unassignedJobs.job(" + unassignedJobCounter + ")[@id]", unassignedJob.getId());
-                unassignedJobCounter++;
+            if (!list.isEmpty()) xml.end();
+            if (!solution.getUnassignedJobs().isEmpty()) {
+                xml.start("unassignedJobs");
+                for (Job unassignedJob : solution.getUnassignedJobs()) {
+                    xml.emptyElement("job");
+                    xml.attribute("id", unassignedJob.getId());
+                }
+                xml.end();
             }
-            counter++;
+            xml.end();
         }
+        xml.end();
     }
 
-    private void writeServices(XMLConf xmlConfig, List<Job> jobs) {
-        String shipmentPathString = "services.service";
-        int counter = 0;
-        for (Job j : jobs) {
-            if (!(j instanceof Service)) continue;
-            Service service = (Service) j;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ")[@id]", service.getId());
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ")[@type]", service.getType());
-            if (service.getLocation().getId() != null)
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.id", service.getLocation().getId());
-            if (service.getLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.coord[@x]", service.getLocation().getCoordinate().getX());
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.coord[@y]", service.getLocation().getCoordinate().getY());
-            }
-            if (service.getLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.index", service.getLocation().getIndex());
-            }
-            for (int i = 0; i < service.getSize().getNuOfDimensions(); i++) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")[@index]", i);
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")", service.getSize().get(i));
-            }
-
-            Collection<TimeWindow> tws = service.getTimeWindows();
-            int index = 0;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").duration", service.getServiceDuration());
-            for(TimeWindow tw : tws) {
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").timeWindows.timeWindow(" + index + ").start", tw.getStart());
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-	            ++index;
-            }
-
-            //skills
-            String skillString = getSkillString(service);
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").requiredSkills", skillString);
-
-            //name
-            if (service.getName() != null) {
-                if (!service.getName().equals("no-name")) {
-                    xmlConfig.setProperty(shipmentPathString + "(" + counter + ").name", service.getName());
+    private void writeServices(IndentingXMLWriter xml) throws XMLStreamException {
+        boolean started = false;
+        for (Collection<Job> jobs : getJobs()) {
+            for (Job j : jobs) {
+                if (!(j instanceof Service)) continue;
+                if (!started) {
+                    xml.start("services");
+                    started = true;
                 }
+                Service service = (Service) j;
+                xml.start("service");
+                xml.attribute("id", service.getId());
+                xml.attribute("type", service.getType());
+                writeLocation(xml, "location", service.getLocation());
+                writeCapacityDimensions(xml, service);
+                xml.element("duration", service.getServiceDuration());
+                writeTimeWindows(xml, service.getTimeWindows());
+                xml.element("requiredSkills", getSkillString(service));
+                writeName(xml, service.getName());
+                xml.end();
             }
-            counter++;
         }
+        if (started) xml.end();
     }
 
-    private void writeShipments(XMLConf xmlConfig, List<Job> jobs) {
-        String shipmentPathString = "shipments.shipment";
-        int counter = 0;
-        for (Job j : jobs) {
-            if (!(j instanceof Shipment)) continue;
-            Shipment shipment = (Shipment) j;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ")[@id]", shipment.getId());
-//			xmlConfig.setProperty(shipmentPathString + "("+counter+")[@type]", service.getType());
-            if (shipment.getPickupLocation().getId() != null)
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.id", shipment.getPickupLocation().getId());
-            if (shipment.getPickupLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.coord[@x]", shipment.getPickupLocation().getCoordinate().getX());
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.coord[@y]", shipment.getPickupLocation().getCoordinate().getY());
-            }
-            if (shipment.getPickupLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.index", shipment.getPickupLocation().getIndex());
-            }
-
-            Collection<TimeWindow> pu_tws = shipment.getPickupTimeWindows();
-            int index = 0;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.duration", shipment.getPickupServiceTime());
-            for(TimeWindow tw : pu_tws) {
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.timeWindows.timeWindow(" + index + ").start", tw.getStart());
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-	            ++index;
-	        }
-
-            if (shipment.getDeliveryLocation().getId() != null)
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.id", shipment.getDeliveryLocation().getId());
-            if (shipment.getDeliveryLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.coord[@x]", shipment.getDeliveryLocation().getCoordinate().getX());
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.coord[@y]", shipment.getDeliveryLocation().getCoordinate().getY());
-            }
-            if (shipment.getDeliveryLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.index", shipment.getDeliveryLocation().getIndex());
+    private void writeShipments(IndentingXMLWriter xml) throws XMLStreamException {
+        boolean started = false;
+        for (Collection<Job> jobs : getJobs()) {
+            for (Job j : jobs) {
+                if (!(j instanceof Shipment)) continue;
+                if (!started) {
+                    xml.start(Schema.SHIPMENTS);
+                    started = true;
+                }
+                Shipment shipment = (Shipment) j;
+                xml.start(Schema.SHIPMENT);
+                xml.attribute("id", shipment.getId());
+
+                xml.start(Schema.PICKUP);
+                writeLocation(xml, "location", shipment.getPickupLocation());
+                xml.element("duration", shipment.getPickupServiceTime());
+                writeTimeWindows(xml, shipment.getPickupTimeWindows());
+                xml.end();
+
+                xml.start("delivery");
+                writeLocation(xml, "location", shipment.getDeliveryLocation());
+                xml.element("duration", shipment.getDeliveryServiceTime());
+                writeTimeWindows(xml, shipment.getDeliveryTimeWindows());
+                xml.end();
+
+                writeCapacityDimensions(xml, shipment);
+                xml.element("requiredSkills", getSkillString(shipment));
+                writeName(xml, shipment.getName());
+                xml.end();
             }
+        }
+        if (started) xml.end();
+    }
 
-            Collection<TimeWindow> del_tws = shipment.getDeliveryTimeWindows();
-        	xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.duration", shipment.getDeliveryServiceTime());
-        	index = 0;
-            for(TimeWindow tw : del_tws) {
-            	xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.timeWindows.timeWindow(" + index + ").start", tw.getStart());
-            	xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-            	++index;
-            }
+    private static void writeLocation(IndentingXMLWriter xml, String name, Location location) throws XMLStreamException {
+        if (location.getId() == null && location.getCoordinate() == null && location.getIndex() == Location.NO_INDEX)
+            return;
+        xml.start(name);
+        xml.element("id", location.getId());
+        if (location.getCoordinate() != null) {
+            xml.emptyElement("coord");
+            xml.attribute("x", location.getCoordinate().getX());
+            xml.attribute("y", location.getCoordinate().getY());
+        }
+        if (location.getIndex() != Location.NO_INDEX) {
+            xml.element("index", location.getIndex());
+        }
+        xml.end();
+    }
 
-            for (int i = 0; i < shipment.getSize().getNuOfDimensions(); i++) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")[@index]", i);
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")", shipment.getSize().get(i));
-            }
+    private static void writeCapacityDimensions(IndentingXMLWriter xml, Job job) throws XMLStreamException {
+        if (job.getSize().getNuOfDimensions() == 0) return;
+        xml.start("capacity-dimensions");
+        for (int i = 0; i < job.getSize().getNuOfDimensions(); i++) {
+            xml.element("dimension", "index", i, job.getSize().get(i));
+        }
+        xml.end();
+    }
 
-            //skills
-            String skillString = getSkillString(shipment);
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").requiredSkills", skillString);
+    private static void writeTimeWindows(IndentingXMLWriter xml, Collection<TimeWindow> timeWindows) throws XMLStreamException {
+        if (timeWindows.isEmpty()) return;
+        xml.start("timeWindows");
+        for (TimeWindow tw : timeWindows) {
+            xml.start("timeWindow");
+            xml.element("start", tw.getStart());
+            xml.element("end", tw.getEnd());
+            xml.end();
+        }
+        xml.end();
+    }
 
-            //name
-            if (shipment.getName() != null) {
-                if (!shipment.getName().equals("no-name")) {
-                    xmlConfig.setProperty(shipmentPathString + "(" + counter + ").name", shipment.getName());
-                }
-            }
-            counter++;
+    private static void writeName(IndentingXMLWriter xml, String name) throws XMLStreamException {
+        if (name != null && !name.equals("no-name")) {
+            xml.element("name", name);
         }
     }
 
-    private void writeProblemType(XMLConfiguration xmlConfig) {
-        xmlConfig.setProperty("problemType.fleetSize", vrp.getFleetSize());
+    private void writeProblemType(IndentingXMLWriter xml) throws XMLStreamException {
+        xml.start("problemType");
+        xml.element("fleetSize", vrp.getFleetSize());
+        xml.end();
     }
 
-    private void writeVehiclesAndTheirTypes(XMLConfiguration xmlConfig) {
+    private void writeVehiclesAndTheirTypes(IndentingXMLWriter xml) throws XMLStreamException {
 
         //vehicles
-        String vehiclePathString = Schema.VEHICLES + "." + Schema.VEHICLE;
-        int counter = 0;
-        for (Vehicle vehicle : vrp.getVehicles()) {
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").id", vehicle.getId());
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").typeId", vehicle.getType().getTypeId());
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.id", vehicle.getStartLocation().getId());
-            if (vehicle.getStartLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.coord[@x]", vehicle.getStartLocation().getCoordinate().getX());
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.coord[@y]", vehicle.getStartLocation().getCoordinate().getY());
-            }
-            if (vehicle.getStartLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.index", vehicle.getStartLocation().getIndex());
-            }
-
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.id", vehicle.getEndLocation().getId());
-            if (vehicle.getEndLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.coord[@x]", vehicle.getEndLocation().getCoordinate().getX());
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.coord[@y]", vehicle.getEndLocation().getCoordinate().getY());
-            }
-            if (vehicle.getEndLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.index", vehicle.getEndLocation().getId());
-            }
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").timeSchedule.start", vehicle.getEarliestDeparture());
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").timeSchedule.end", vehicle.getLatestArrival());
-
-            if (vehicle.getBreak() != null) {
-                Collection<TimeWindow> tws = vehicle.getBreak().getTimeWindows();
-                int index = 0;
-	            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").breaks.duration", vehicle.getBreak().getServiceDuration());
-                for(TimeWindow tw : tws) {
-		            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").breaks.timeWindows.timeWindow(" + index + ").start", tw.getStart());
-		            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").breaks.timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-		            ++index;
+        if (!vrp.getVehicles().isEmpty()) {
+            xml.start(Schema.VEHICLES);
+            for (Vehicle vehicle : vrp.getVehicles()) {
+                xml.start(Schema.VEHICLE);
+                xml.element("id", vehicle.getId());
+                xml.element("typeId", vehicle.getType().getTypeId());
+                writeLocation(xml, "startLocation", vehicle.getStartLocation());
+                writeLocation(xml, "endLocation", vehicle.getEndLocation());
+                xml.start("timeSchedule");
+                xml.element("start", vehicle.getEarliestDeparture());
+                xml.element("end", vehicle.getLatestArrival());
+                xml.end();
+
+                if (vehicle.getBreak() != null) {
+                    xml.start("breaks");
+                    writeTimeWindows(xml, vehicle.getBreak().getTimeWindows());
+                    xml.element("duration", vehicle.getBreak().getServiceDuration());
+                    xml.element("id", vehicle.getBreak().getId());
+                    xml.end();
                 }
-	        }
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").returnToDepot", vehicle.isReturnToDepot());
+                xml.element("returnToDepot", vehicle.isReturnToDepot());
 
-            //write skills
-            String skillString = getSkillString(vehicle);
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").skills", skillString);
-
-            counter++;
+                //write skills
+                xml.element("skills", getSkillString(vehicle));
+                xml.end();
+            }
+            xml.end();
         }
 
         //types
-        String typePathString = Schema.builder().append(Schema.TYPES).dot(Schema.TYPE).build();
-        int typeCounter = 0;
-        for (VehicleType type : vrp.getTypes()) {
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").id", type.getTypeId());
-
-            for (int i = 0; i < type.getCapacityDimensions().getNuOfDimensions(); i++) {
-                xmlConfig.setProperty(typePathString + "(" + typeCounter + ").capacity-dimensions.dimension(" + i + ")[@index]", i);
-                xmlConfig.setProperty(typePathString + "(" + typeCounter + ").capacity-dimensions.dimension(" + i + ")", type.getCapacityDimensions().get(i));
+        if (!vrp.getTypes().isEmpty()) {
+            xml.start(Schema.TYPES);
+            for (VehicleType type : vrp.getTypes()) {
+                xml.start(Schema.TYPE);
+                xml.element("id", type.getTypeId());
+
+                xml.start("capacity-dimensions");
+                for (int i = 0; i < type.getCapacityDimensions().getNuOfDimensions(); i++) {
+                    xml.element("dimension", "index", i, type.getCapacityDimensions().get(i));
+                }
+                xml.end();
+
+                xml.start("costs");
+                xml.element("fixed", type.getVehicleCostParams().fix);
+                xml.element("distance", type.getVehicleCostParams().perDistanceUnit);
+                xml.element("time", type.getVehicleCostParams().perTransportTimeUnit);
+                xml.element("service", type.getVehicleCostParams().perServiceTimeUnit);
+                xml.element("wait", type.getVehicleCostParams().perWaitingTimeUnit);
+                xml.end();
+                xml.end();
             }
-
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.fixed", type.getVehicleCostParams().fix);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.distance", type.getVehicleCostParams().perDistanceUnit);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.time", type.getVehicleCostParams().perTransportTimeUnit);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.service", type.getVehicleCostParams().perServiceTimeUnit);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.wait", type.getVehicleCostParams().perWaitingTimeUnit);
-            typeCounter++;
+            xml.end();
         }
-
-
     }
 
     private String getSkillString(Vehicle vehicle) {
@@ -451,4 +514,3 @@ public class VrpXMLWriter {
 
 
 }
-
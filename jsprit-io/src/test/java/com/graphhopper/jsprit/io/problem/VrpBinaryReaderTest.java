@@ -0,0 +1,79 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class VrpBinaryReaderTest {
+
+    private byte[] binaryProblem() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(builder).read(getClass().getResourceAsStream("finiteVrpForReaderTest.xml"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VrpBinaryWriter(builder.build()).write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void whenReadingBuffer_itShouldReadAllJobsAndVehicles() {
+        VehicleRoutingProblem.Builder xmlBuilder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(xmlBuilder).read(getClass().getResourceAsStream("finiteVrpForReaderTest.xml"));
+        VehicleRoutingProblem xmlVrp = xmlBuilder.build();
+
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpBinaryReader(builder).read(ByteBuffer.wrap(binaryProblem()));
+        VehicleRoutingProblem vrp = builder.build();
+        assertEquals(xmlVrp.getJobs().keySet(), vrp.getJobs().keySet());
+        assertEquals(xmlVrp.getVehicles().size(), vrp.getVehicles().size());
+        assertEquals(xmlVrp.getFleetSize(), vrp.getFleetSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMagicNumberIsWrong_itShouldThrowException() {
+        byte[] bytes = binaryProblem();
+        bytes[0] = 0;
+        new VrpBinaryReader(VehicleRoutingProblem.Builder.newInstance()).read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenVersionIsNotSupported_itShouldThrowException() {
+        byte[] bytes = binaryProblem();
+        bytes[7] = (byte) (VrpBinaryFormat.VERSION + 1);
+        new VrpBinaryReader(VehicleRoutingProblem.Builder.newInstance()).read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenInputIsTruncated_itShouldThrowException() {
+        byte[] bytes = binaryProblem();
+        new VrpBinaryReader(VehicleRoutingProblem.Builder.newInstance()).read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length / 2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenFileDoesNotExist_itShouldThrowException() {
+        new VrpBinaryReader(VehicleRoutingProblem.Builder.newInstance()).read("does/not/exist.bin");
+    }
+
+}
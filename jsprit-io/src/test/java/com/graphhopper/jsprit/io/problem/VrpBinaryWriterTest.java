@@ -0,0 +1,234 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VrpBinaryWriterTest {
+
+    private VehicleRoutingProblem.Builder readXml(String resource, Collection<VehicleRoutingProblemSolution> solutions) {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(builder, solutions).read(getClass().getResourceAsStream(resource));
+        return builder;
+    }
+
+    private VehicleRoutingProblem writeAndRereadBinary(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions,
+                                                       Collection<VehicleRoutingProblemSolution> readSolutions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VrpBinaryWriter(vrp, solutions).write(out);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpBinaryReader(builder, readSolutions).read(new ByteArrayInputStream(out.toByteArray()));
+        return builder.build();
+    }
+
+    private String xml(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        return new VrpXMLWriter(vrp, solutions).write().toString();
+    }
+
+    private void assertRoundTrip(String resource) {
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        VehicleRoutingProblem vrp = readXml(resource, solutions).build();
+        List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<VehicleRoutingProblemSolution>();
+        VehicleRoutingProblem readVrp = writeAndRereadBinary(vrp, solutions, readSolutions);
+        assertEquals(solutions.size(), readSolutions.size());
+        assertEquals(xml(vrp, solutions), xml(readVrp, readSolutions));
+    }
+
+    @Test
+    public void whenWritingProblemWithSolutions_itShouldBeReadCorrectly() {
+        assertRoundTrip("finiteVrpWithShipmentsAndSolution.xml");
+    }
+
+    @Test
+    public void whenWritingProblemWithInitialRoutesAndSolution_itShouldBeReadCorrectly() {
+        assertRoundTrip("finiteVrpWithInitialSolutionForReaderTest.xml");
+    }
+
+    @Test
+    public void whenWritingProblemWithShipmentsInInitialRoutes_itShouldBeReadCorrectly() {
+        assertRoundTrip("simpleProblem_inclShipments_iniRoutes.xml");
+    }
+
+    @Test
+    public void whenWritingBiggerProblem_itShouldBeReadCorrectly() {
+        assertRoundTrip("biggerProblem.xml");
+    }
+
+    @Test
+    public void whenWritingAttributesNotSupportedByXml_itShouldBeReadCorrectly() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).setProfile("bike")
+            .setMaxVelocity(5.).build();
+        Location depot = Location.Builder.newInstance().setId("depot").setName("main street").setCoordinate(Coordinate.newInstance(1, 2)).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(depot).build();
+        Delivery delivery = Delivery.Builder.newInstance("d").addSizeDimension(0, 1).setLocation(Location.newInstance("c"))
+            .setPriority(1).setMaxTimeInVehicle(100.).build();
+        Shipment shipment = Shipment.Builder.newInstance("s").setPickupLocation(depot).setDeliveryLocation(Location.newInstance("c"))
+            .setPriority(3).setMaxTimeInVehicle(50.).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(delivery).addJob(shipment).build();
+
+        VehicleRoutingProblem readVrp = writeAndRereadBinary(vrp, null, null);
+        assertEquals("bike", readVrp.getVehicles().iterator().next().getType().getProfile());
+        assertEquals(5., readVrp.getVehicles().iterator().next().getType().getMaxVelocity(), 0.01);
+        Location readDepot = readVrp.getVehicles().iterator().next().getStartLocation();
+        assertEquals("main street", readDepot.getName());
+        assertEquals(1, readVrp.getJobs().get("d").getPriority());
+        assertEquals(100., readVrp.getJobs().get("d").getMaxTimeInVehicle(), 0.01);
+        assertEquals(3, readVrp.getJobs().get("s").getPriority());
+        assertEquals(50., readVrp.getJobs().get("s").getMaxTimeInVehicle(), 0.01);
+        assertSame(readDepot, ((Shipment) readVrp.getJobs().get("s")).getPickupLocation());
+    }
+
+    @Test
+    public void whenWritingRouteWithBreak_itShouldBeReadCorrectly() {
+        Break aBreak = Break.Builder.newInstance("break").addTimeWindow(10, 20).setServiceTime(5).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("depot"))
+            .setBreak(aBreak).build();
+        Service service = Service.Builder.newInstance("1").setLocation(Location.newInstance("c")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(service)
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).addService(service)
+            .addBreak(aBreak, TimeWindow.newInstance(10, 20), Location.newInstance("c")).build();
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        solutions.add(new VehicleRoutingProblemSolution(Arrays.asList(route), 42.));
+
+        List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<VehicleRoutingProblemSolution>();
+        VehicleRoutingProblem readVrp = writeAndRereadBinary(vrp, solutions, readSolutions);
+        Break readBreak = readVrp.getVehicles().iterator().next().getBreak();
+        assertEquals("break", readBreak.getId());
+        assertEquals(5., readBreak.getServiceDuration(), 0.01);
+        assertTrue(readBreak.hasVariableLocation());
+        VehicleRoute readRoute = readSolutions.get(0).getRoutes().iterator().next();
+        assertEquals(2, readRoute.getActivities().size());
+        assertEquals("c", readRoute.getActivities().get(1).getLocation().getId());
+        assertEquals(10., readRoute.getActivities().get(1).getTheoreticalEarliestOperationStartTime(), 0.01);
+        assertEquals(42., readSolutions.get(0).getCost(), 0.01);
+    }
+
+    @Test
+    public void whenWritingMatrix_itShouldBeEmbedded() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(2, false);
+        matrixBuilder.addTransportTimeAndDistance(0, 1, 10., 100.);
+        matrixBuilder.addTransportTimeAndDistance(1, 0, 20., 200.);
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle)
+            .addJob(Service.Builder.newInstance("1").setLocation(Location.newInstance(1)).build())
+            .setRoutingCost(matrixBuilder.build()).build();
+
+        VehicleRoutingProblem readVrp = writeAndRereadBinary(vrp, null, null);
+        assertTrue(readVrp.getTransportCosts() instanceof FastVehicleRoutingTransportCostsMatrix);
+        FastVehicleRoutingTransportCostsMatrix matrix = (FastVehicleRoutingTransportCostsMatrix) readVrp.getTransportCosts();
+        assertEquals(20., matrix.getTransportTime(Location.newInstance(1), Location.newInstance(0), 0., null, null), 0.01);
+        assertEquals(100., matrix.getDistance(0, 1), 0.01);
+    }
+
+    @Test
+    public void whenWritingCompactMatrix_storageModeAndScaleFactorsShouldBeKept() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false,
+            FastVehicleRoutingTransportCostsMatrix.StorageMode.UINT16).setTimeScaleFactor(100.).setDistanceScaleFactor(0.1);
+        matrixBuilder.addTransportTimeAndDistance(0, 1, 10.25, 1230.);
+        matrixBuilder.addTransportTimeAndDistance(2, 0, 655.35, 655350.);
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle)
+            .setRoutingCost(matrixBuilder.build()).build();
+
+        FastVehicleRoutingTransportCostsMatrix matrix = (FastVehicleRoutingTransportCostsMatrix) writeAndRereadBinary(vrp, null, null).getTransportCosts();
+        assertEquals(FastVehicleRoutingTransportCostsMatrix.StorageMode.UINT16, matrix.getStorageMode());
+        assertEquals(100., matrix.getTimeScaleFactor(), 0.);
+        assertEquals(0.1, matrix.getDistanceScaleFactor(), 0.);
+        assertFalse(matrix.isSymmetric());
+        assertEquals(10.25, matrix.getTransportTime(Location.newInstance(0), Location.newInstance(1), 0., null, null), 1e-9);
+        assertEquals(1230., matrix.getDistance(0, 1), 1e-6);
+        assertEquals(655.35, matrix.getTransportTime(Location.newInstance(2), Location.newInstance(0), 0., null, null), 1e-9);
+        assertEquals(655350., matrix.getDistance(2, 0), 1e-6);
+        assertEquals(0., matrix.getDistance(0, 2), 0.);
+    }
+
+    @Test
+    public void whenWritingSymmetricIntMatrix_itShouldBeReadSymmetric() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true,
+            FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32).setTimeScaleFactor(1000.);
+        matrixBuilder.addTransportTimeAndDistance(0, 1, 2.345, 100.);
+        matrixBuilder.addTransportTimeAndDistance(2, 1, 1.5, 300.);
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle)
+            .setRoutingCost(matrixBuilder.build()).build();
+
+        FastVehicleRoutingTransportCostsMatrix matrix = (FastVehicleRoutingTransportCostsMatrix) writeAndRereadBinary(vrp, null, null).getTransportCosts();
+        assertEquals(FastVehicleRoutingTransportCostsMatrix.StorageMode.INT32, matrix.getStorageMode());
+        assertTrue(matrix.isSymmetric());
+        assertEquals(2.345, matrix.getTransportTime(Location.newInstance(1), Location.newInstance(0), 0., null, null), 1e-9);
+        assertEquals(300., matrix.getDistance(1, 2), 0.);
+        assertEquals(300., matrix.getDistance(2, 1), 0.);
+    }
+
+    @Test
+    public void whenMatrixIsNotEmbedded_itShouldNotBeRead() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(2, true);
+        matrixBuilder.addTransportTimeAndDistance(0, 1, 10., 100.);
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle)
+            .setRoutingCost(matrixBuilder.build()).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VrpBinaryWriter writer = new VrpBinaryWriter(vrp);
+        writer.setEmbedMatrix(false);
+        writer.write(out);
+
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpBinaryReader(builder).read(new ByteArrayInputStream(out.toByteArray()));
+        assertFalse(builder.build().getTransportCosts() instanceof FastVehicleRoutingTransportCostsMatrix);
+    }
+
+    @Test
+    public void whenWritingFile_itShouldBeReadMemoryMapped() throws IOException {
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        VehicleRoutingProblem vrp = readXml("finiteVrpWithShipmentsAndSolution.xml", solutions).build();
+        File file = File.createTempFile("vrp", ".bin");
+        file.deleteOnExit();
+        new VrpBinaryWriter(vrp, solutions).write(file.getAbsolutePath());
+
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<VehicleRoutingProblemSolution>();
+        new VrpBinaryReader(builder, readSolutions).read(file.getAbsolutePath());
+        assertEquals(xml(vrp, solutions), xml(builder.build(), readSolutions));
+    }
+
+}
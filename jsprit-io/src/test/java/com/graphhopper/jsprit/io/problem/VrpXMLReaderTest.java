@@ -32,11 +32,13 @@ import com.graphhopper.jsprit.core.util.Solutions;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.io.InputStream;
+import java.io.*;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -635,6 +637,78 @@ public class VrpXMLReaderTest {
         assertEquals(1, solution.getUnassignedJobs().size());
         assertEquals("4", solution.getUnassignedJobs().iterator().next().getId());
     }
+
+    private static byte[] toBytes(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = inputStream.read(buffer)) > 0) out.write(buffer, 0, n);
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+        gzipOut.write(bytes);
+        gzipOut.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void whenReadingGzippedStream_itShouldReadSameProblem() throws IOException {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(builder, null).read(new ByteArrayInputStream(gzip(toBytes(inputStream))));
+        VehicleRoutingProblem vrp = builder.build();
+        assertEquals(5, vrp.getVehicles().size());
+        assertEquals("cleaning", ((Service) vrp.getJobs().get("1")).getName());
+        assertEquals(FleetSize.FINITE, vrp.getFleetSize());
+    }
+
+    @Test
+    public void whenReadingGzippedFile_itShouldReadSameProblem() throws IOException {
+        File file = File.createTempFile("vrp", ".xml.gz");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        out.write(gzip(toBytes(inputStream)));
+        out.close();
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(builder, null).read(file.getAbsolutePath());
+        assertEquals(5, builder.build().getVehicles().size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void whenXmlViolatesSchema_itShouldThrowException() throws IOException {
+        String xml = new String(toBytes(inputStream), Charset.forName("UTF-8")).replace("<fleetSize>", "<fleetSize2>").replace("</fleetSize>", "</fleetSize2>");
+        new VrpXMLReader(VehicleRoutingProblem.Builder.newInstance(), null).read(new ByteArrayInputStream(xml.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    @Test
+    public void whenSchemaValidationIsDisabled_vehiclesShouldBeReadEvenIfTypesFollowLater() {
+        String xml = "<problem xmlns=\"http://www.w3schools.com\">" +
+            "<vehicles><vehicle><id>v1</id><typeId>t</typeId><startLocation><id>depot</id></startLocation></vehicle></vehicles>" +
+            "<services><service id=\"1\"><locationId>loc</locationId><capacity-demand>1</capacity-demand></service></services>" +
+            "<vehicleTypes><type><id>t</id><capacity>10</capacity><costs><fixed>5</fixed></costs></type></vehicleTypes>" +
+            "</problem>";
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        VrpXMLReader reader = new VrpXMLReader(builder);
+        reader.setSchemaValidation(false);
+        reader.read(new ByteArrayInputStream(xml.getBytes(Charset.forName("UTF-8"))));
+        VehicleRoutingProblem vrp = builder.build();
+        assertEquals(FleetSize.INFINITE, vrp.getFleetSize());
+        assertEquals(1, vrp.getVehicles().size());
+        assertEquals(5., vrp.getVehicles().iterator().next().getType().getVehicleCostParams().fix, 0.01);
+        assertEquals(1, vrp.getJobs().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenServiceHasNoCapacity_itShouldThrowIllegalArgumentException() {
+        String xml = "<problem xmlns=\"http://www.w3schools.com\">" +
+            "<services><service id=\"1\"><locationId>loc</locationId></service></services>" +
+            "</problem>";
+        VrpXMLReader reader = new VrpXMLReader(VehicleRoutingProblem.Builder.newInstance());
+        reader.setSchemaValidation(false);
+        reader.read(new ByteArrayInputStream(xml.getBytes(Charset.forName("UTF-8"))));
+    }
 }
 
 //
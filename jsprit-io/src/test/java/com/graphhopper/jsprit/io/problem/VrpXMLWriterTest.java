@@ -19,6 +19,7 @@ package com.graphhopper.jsprit.io.problem;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Break;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
@@ -35,6 +36,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -610,6 +612,47 @@ public class VrpXMLWriterTest {
 
     }
 
+    @Test
+    public void writingToStreamShouldEqualWritingToByteArray() {
+        VehicleRoutingProblem vrp = twoVehicleTypesAndImpls().build();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new VrpXMLWriter(vrp, null).write(os);
+        assertEquals(new VrpXMLWriter(vrp, null).write().toString(), os.toString());
+    }
+
+    @Test
+    public void whenWritingGzippedFile_itShouldBeReadCorrectly() throws IOException {
+        VehicleRoutingProblem.Builder builder = twoVehicleTypesAndImpls();
+        Service s1 = Service.Builder.newInstance("1").addSizeDimension(0, 1).setLocation(TestUtils.loc("loc")).setServiceTime(2.0).build();
+        VehicleRoutingProblem vrp = builder.addJob(s1).build();
+        File file = File.createTempFile("vrp", ".xml.gz");
+        file.deleteOnExit();
+        new VrpXMLWriter(vrp, null).write(file.getAbsolutePath());
+
+        VehicleRoutingProblem.Builder vrpToReadBuilder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(vrpToReadBuilder, null).read(file.getAbsolutePath());
+        VehicleRoutingProblem readVrp = vrpToReadBuilder.build();
+        assertEquals(1, readVrp.getJobs().size());
+        assertEquals(2, readVrp.getVehicles().size());
+    }
+
+    @Test
+    public void whenWritingVehicleWithBreakAndEndLocationIndex_itShouldBeReadCorrectly() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).build();
+        Break aBreak = Break.Builder.newInstance("break").addTimeWindow(TimeWindow.newInstance(10, 20)).setServiceTime(5).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setType(type).setBreak(aBreak)
+            .setStartLocation(Location.Builder.newInstance().setId("start").setIndex(1).build())
+            .setEndLocation(Location.Builder.newInstance().setId("end").setIndex(2).build()).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE).addVehicle(v).build();
+
+        Vehicle readVehicle = writeAndRereadXml(vrp).getVehicles().iterator().next();
+        assertEquals(2, readVehicle.getEndLocation().getIndex());
+        assertEquals("end", readVehicle.getEndLocation().getId());
+        assertEquals("break", readVehicle.getBreak().getId());
+        assertEquals(5., readVehicle.getBreak().getServiceDuration(), 0.01);
+        assertEquals(20., readVehicle.getBreak().getTimeWindow().getEnd(), 0.01);
+    }
+
     private VehicleRoutingProblem writeAndRereadXml(VehicleRoutingProblem vrp) {
         VrpXMLWriter vrpXMLWriter = new VrpXMLWriter(vrp, null);
         ByteArrayOutputStream os = (ByteArrayOutputStream) vrpXMLWriter.write();